@@ -0,0 +1,60 @@
+package pl.edu.go.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.go.analysis.PositionAnalyzer;
+import pl.edu.go.analysis.ScoreCalculator;
+import pl.edu.go.analysis.TerritoryAnalyzer;
+import pl.edu.go.board.Board;
+import pl.edu.go.board.Territory;
+import pl.edu.go.model.StoneGroup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki analizy pozycji końcowej: punktacja, terytorium i martwe grupy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnalysisBenchmark {
+
+    @Param({"9", "13", "19"})
+    public int size;
+
+    private Board endgame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        endgame = Positions.play(size, Positions.randomGame(size, 7, false));
+    }
+
+    @Benchmark
+    public int[] computeScore() {
+        return ScoreCalculator.computeScore(endgame);
+    }
+
+    @Benchmark
+    public Territory[][] computeTerritory() {
+        return new TerritoryAnalyzer(endgame).computeTerritory();
+    }
+
+    @Benchmark
+    public List<StoneGroup> deadGroups() {
+        return new PositionAnalyzer(endgame).getDeadGroups();
+    }
+}
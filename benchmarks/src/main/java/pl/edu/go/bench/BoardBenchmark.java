@@ -0,0 +1,97 @@
+package pl.edu.go.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.go.board.Board;
+import pl.edu.go.model.StoneGroup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki reguł planszy: {@link Board#playMove(int, int, int)} w całych partiach (zwykłej i z dużą
+ * liczbą zbić), odrzucenie odbicia KO oraz {@link Board#getGroup(int, int)} / {@link Board#countLiberties(StoneGroup)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+
+    @Param({"9", "13", "19"})
+    public int size;
+
+    private int[] randomGame;
+    private int[] captureGame;
+    private Board koBoard;
+    private Board midGame;
+    private int groupX;
+    private int groupY;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        randomGame = Positions.randomGame(size, 42, false);
+        captureGame = Positions.randomGame(size, 42, true);
+        koBoard = Positions.koPosition(size);
+
+        // pozycja ze środka partii i największa grupa na niej
+        int[] half = Arrays.copyOf(randomGame, randomGame.length / 2);
+        midGame = Positions.play(size, half);
+        int best = -1;
+        int[][] state = midGame.getState();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (state[x][y] != Board.EMPTY) {
+                    int n = midGame.getGroup(x, y).getStones().size();
+                    if (n > best) {
+                        best = n;
+                        groupX = x;
+                        groupY = y;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Cała losowa partia (nowa plansza + wszystkie ruchy). */
+    @Benchmark
+    public Board playRandomGame() {
+        return Positions.play(size, randomGame);
+    }
+
+    /** Cała partia z preferencją bicia grup w atari. */
+    @Benchmark
+    public Board playCaptureHeavyGame() {
+        return Positions.play(size, captureGame);
+    }
+
+    /** Odrzucenie natychmiastowego odbicia KO (plansza się nie zmienia). */
+    @Benchmark
+    public boolean rejectKoRetake() {
+        return koBoard.playMove(Board.WHITE, size / 2 - 1, size / 2);
+    }
+
+    /** Wyznaczenie największej grupy w pozycji ze środka partii. */
+    @Benchmark
+    public StoneGroup getGroup() {
+        return midGame.getGroup(groupX, groupY);
+    }
+
+    /** Wyznaczenie grupy i policzenie jej oddechów. */
+    @Benchmark
+    public int countLiberties() {
+        return midGame.countLiberties(midGame.getGroup(groupX, groupY));
+    }
+}
@@ -0,0 +1,142 @@
+package pl.edu.go.bench;
+
+import pl.edu.go.board.Board;
+import pl.edu.go.model.StoneGroup;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generator powtarzalnych pozycji testowych dla benchmarków (stałe ziarno losowania).
+ *
+ * <p>Ruch jest kodowany jako {@code kolor << 16 | punkt}, gdzie punkt to {@code y * size + x}.
+ * Generowanie nie jest mierzone — benchmarki odtwarzają gotowe sekwencje.
+ */
+final class Positions {
+
+    private Positions() {
+    }
+
+    /**
+     * Losowa partia złożona z legalnych ruchów.
+     *
+     * @param size         rozmiar planszy
+     * @param seed         ziarno
+     * @param captureHeavy czy preferować bicie grup w atari (dużo zbić)
+     * @return sekwencja ruchów
+     */
+    static int[] randomGame(int size, long seed, boolean captureHeavy) {
+        Random rnd = new Random(seed);
+        Board board = new Board(size);
+        int maxMoves = size * size * (captureHeavy ? 2 : 1);
+        int[] moves = new int[maxMoves];
+        int n = 0;
+        int color = Board.BLACK;
+
+        while (n < maxMoves) {
+            int point = captureHeavy ? captureOrRandom(board, color, rnd) : -1;
+            if (point < 0 || !board.playMove(color, point % size, point / size)) {
+                point = randomLegal(board, color, rnd);
+                if (point < 0) {
+                    break;
+                }
+            }
+            moves[n++] = color << 16 | point;
+            color = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        }
+        return Arrays.copyOf(moves, n);
+    }
+
+    /**
+     * Odtwarza sekwencję ruchów na nowej planszy.
+     *
+     * @param size  rozmiar planszy
+     * @param moves sekwencja z {@link #randomGame(int, long, boolean)}
+     * @return plansza w pozycji końcowej
+     */
+    static Board play(int size, int[] moves) {
+        Board board = new Board(size);
+        for (int m : moves) {
+            int p = m & 0xFFFF;
+            board.playMove(m >>> 16, p % size, p / size);
+        }
+        return board;
+    }
+
+    /**
+     * Pozycja z KO (jak w testach planszy), przesunięta na środek planszy; ostatni ruch BLACK zbił kamień,
+     * więc odbicie przez WHITE na {@code (cx - 1, cy)} jest zabronione.
+     *
+     * @param size rozmiar planszy (co najmniej 5)
+     * @return plansza z aktywnym KO
+     */
+    static Board koPosition(int size) {
+        int cx = size / 2;
+        int cy = size / 2;
+        Board b = new Board(size);
+        b.playMove(Board.BLACK, cx - 1, cy - 1);
+        b.playMove(Board.BLACK, cx - 2, cy);
+        b.playMove(Board.BLACK, cx - 1, cy + 1);
+        b.playMove(Board.WHITE, cx, cy - 1);
+        b.playMove(Board.WHITE, cx + 1, cy);
+        b.playMove(Board.WHITE, cx, cy + 1);
+        b.playMove(Board.WHITE, cx - 1, cy);
+        b.playMove(Board.BLACK, cx, cy);
+        return b;
+    }
+
+    /** Losowy legalny ruch (lub {@code -1}, gdy nie znaleziono). Ruch jest wykonywany. */
+    private static int randomLegal(Board board, int color, Random rnd) {
+        int size = board.getSize();
+        int[][] state = board.getState();
+        int start = rnd.nextInt(size * size);
+        for (int i = 0; i < size * size; i++) {
+            int p = (start + i * 7919) % (size * size);
+            int x = p % size;
+            int y = p / size;
+            if (state[x][y] == Board.EMPTY && !ownEye(state, x, y, color) && board.playMove(color, x, y)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /** Ostatni oddech grupy przeciwnika w atari (lub {@code -1}). Ruch nie jest wykonywany. */
+    private static int captureOrRandom(Board board, int color, Random rnd) {
+        int size = board.getSize();
+        int[][] state = board.getState();
+        int opp = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        int start = rnd.nextInt(size * size);
+        for (int i = 0; i < size * size; i++) {
+            int p = (start + i) % (size * size);
+            int x = p % size;
+            int y = p / size;
+            if (state[x][y] != opp) {
+                continue;
+            }
+            StoneGroup g = board.getGroup(x, y);
+            if (board.countLiberties(g) == 1) {
+                for (int[] nb : board.neighbors(x, y)) {
+                    if (state[nb[0]][nb[1]] == Board.EMPTY) {
+                        return board.point(nb[0], nb[1]);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Czy pole jest otoczone wyłącznie własnymi kamieniami (nie zapychamy własnych oczu). */
+    private static boolean ownEye(int[][] state, int x, int y, int color) {
+        int size = state.length;
+        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        for (int[] d : dirs) {
+            int nx = x + d[0];
+            int ny = y + d[1];
+            if (nx >= 0 && ny >= 0 && nx < size && ny < size && state[nx][ny] != color) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
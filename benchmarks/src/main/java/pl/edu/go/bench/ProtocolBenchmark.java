@@ -0,0 +1,81 @@
+package pl.edu.go.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.edu.go.board.Board;
+import pl.edu.go.client.gui.GameModel;
+import pl.edu.go.command.GameCommand;
+import pl.edu.go.command.TextCommandFactory;
+import pl.edu.go.game.PlayerColor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki protokołu tekstowego: parsowanie komend klienta na serwerze
+ * i przetwarzanie migawki planszy przez model klienta.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProtocolBenchmark {
+
+    @Param({"9", "13", "19"})
+    public int size;
+
+    private final TextCommandFactory factory = new TextCommandFactory();
+    private final GameModel model = new GameModel();
+
+    private String moveLine;
+    private String[] snapshotLines;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        moveLine = "MOVE " + (size - 1) + " " + (size / 2);
+
+        int[][] state = Positions.play(size, Positions.randomGame(size, 3, false)).getState();
+        snapshotLines = new String[size + 3];
+        snapshotLines[0] = "BOARD " + size;
+        for (int y = 0; y < size; y++) {
+            StringBuilder row = new StringBuilder("ROW ");
+            for (int x = 0; x < size; x++) {
+                row.append(state[x][y] == Board.BLACK ? 'X' : state[x][y] == Board.WHITE ? 'O' : '.');
+            }
+            snapshotLines[y + 1] = row.toString();
+        }
+        snapshotLines[size + 1] = "END_BOARD";
+        snapshotLines[size + 2] = "TURN WHITE";
+    }
+
+    @Benchmark
+    public GameCommand parseMove() {
+        return factory.fromNetworkMessage(moveLine, PlayerColor.BLACK);
+    }
+
+    @Benchmark
+    public GameCommand parsePass() {
+        return factory.fromNetworkMessage("PASS", PlayerColor.WHITE);
+    }
+
+    /** Cała migawka planszy ({@code BOARD}/{@code ROW}.../{@code END_BOARD}/{@code TURN}) w modelu klienta. */
+    @Benchmark
+    public void acceptBoardSnapshot(Blackhole bh) {
+        for (String line : snapshotLines) {
+            model.acceptServerLine(line);
+        }
+        bh.consume(model.getBoard());
+    }
+}
@@ -0,0 +1,77 @@
+package pl.edu.go.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark całej ścieżki serwera bez sieci: parsowanie komend, {@link Game}, obserwator sesji,
+ * kodowanie ramek i zapis do klientów przez {@link LoopbackTransport}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SessionBenchmark {
+
+    @Param({"9", "13", "19"})
+    public int size;
+
+    private String[] commands;
+    private PlayerColor[] players;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] moves = Positions.randomGame(size, 11, false);
+        commands = new String[moves.length];
+        players = new PlayerColor[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            int p = moves[i] & 0xFFFF;
+            commands[i] = "MOVE " + (p % size) + " " + (p / size);
+            players[i] = (moves[i] >>> 16) == Board.BLACK ? PlayerColor.BLACK : PlayerColor.WHITE;
+        }
+    }
+
+    /** Cała partia: start sesji i wszystkie ruchy wysłane jako linie protokołu. */
+    @Benchmark
+    public long playGame() throws IOException {
+        GameSession session = new GameSession(new Game(new Board(size)));
+        LoopbackTransport blackLink = new LoopbackTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+        ClientHandler black = new ClientHandler(blackLink, session, PlayerColor.BLACK);
+        ClientHandler white = new ClientHandler(whiteLink, session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black);
+        session.setPlayer(PlayerColor.WHITE, white);
+        session.startGame();
+
+        InputStream blackIn = blackLink.peer().getInputStream();
+        InputStream whiteIn = whiteLink.peer().getInputStream();
+        long received = 0;
+        for (int i = 0; i < commands.length; i++) {
+            session.handleClientMessage(players[i] == PlayerColor.BLACK ? black : white, commands[i]);
+            received += blackIn.skip(blackIn.available()) + whiteIn.skip(whiteIn.available());
+        }
+        return received;
+    }
+}
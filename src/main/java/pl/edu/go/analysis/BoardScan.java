@@ -0,0 +1,171 @@
+package pl.edu.go.analysis;
+
+import pl.edu.go.board.Board;
+
+import java.util.Arrays;
+
+/**
+ * Jednorazowy przegląd planszy wspólny dla analizatorów: łańcuchy kamieni i spójne obszary pustych pól.
+ *
+ * <p>Stan planszy jest kopiowany raz ({@link Board#getState()} zwraca kopię przy każdym wywołaniu),
+ * a pola są numerowane indeksem {@code p = x * size + y}. Łańcuchy i obszary wyznaczane są jednym
+ * przeszukiwaniem na tablicach {@code int[]}, bez kluczy tekstowych, list sąsiadów i obiektów
+ * {@link pl.edu.go.model.Stone} — analiza całej planszy kosztuje kilka tablic zamiast megabajtów
+ * tymczasowych obiektów.
+ */
+final class BoardScan {
+
+    /** Rozmiar planszy. */
+    final int size;
+
+    /** Kopia stanu planszy ({@code state[x][y]}). */
+    final int[][] state;
+
+    /** Numer łańcucha dla pola z kamieniem, {@code -1} dla pustego. */
+    final int[] group;
+
+    /** Numer obszaru dla pustego pola, {@code -1} dla kamienia. */
+    final int[] region;
+
+    /** Pola kolejnych łańcuchów: łańcuch {@code g} zajmuje {@code stones[groupStart[g] .. groupStart[g + 1])}. */
+    final int[] stones;
+
+    /** Początki łańcuchów w {@link #stones} (ostatni element zamyka ostatni łańcuch). */
+    final int[] groupStart;
+
+    /** Kolory kamieni, z którymi styka się obszar: bit {@code 1 << Board.BLACK} i {@code 1 << Board.WHITE}. */
+    final byte[] regionTouches;
+
+    /** Liczba łańcuchów. */
+    final int groups;
+
+    /** Liczba obszarów pustych pól. */
+    final int regions;
+
+    /**
+     * Przegląda planszę.
+     *
+     * @param board analizowana plansza
+     */
+    BoardScan(Board board) {
+        this.state = board.getState();
+        this.size = state.length;
+        int points = size * size;
+        this.group = new int[points];
+        this.region = new int[points];
+        this.stones = new int[points];
+        this.groupStart = new int[points + 1];
+        this.regionTouches = new byte[points];
+        Arrays.fill(group, -1);
+        Arrays.fill(region, -1);
+
+        int[] stack = new int[points];
+        int groupCount = 0;
+        int regionCount = 0;
+        int filled = 0;
+
+        for (int start = 0; start < points; start++) {
+            int color = color(start);
+            if (color != Board.EMPTY) {
+                if (group[start] >= 0)
+                    continue;
+                // Łańcuch: kamienie tego samego koloru połączone ortogonalnie
+                groupStart[groupCount] = filled;
+                int top = 0;
+                group[start] = groupCount;
+                stack[top++] = start;
+                while (top > 0) {
+                    int p = stack[--top];
+                    stones[filled++] = p;
+                    int x = p / size;
+                    int y = p % size;
+                    if (x > 0) top = joinGroup(p - size, color, groupCount, stack, top);
+                    if (x < size - 1) top = joinGroup(p + size, color, groupCount, stack, top);
+                    if (y > 0) top = joinGroup(p - 1, color, groupCount, stack, top);
+                    if (y < size - 1) top = joinGroup(p + 1, color, groupCount, stack, top);
+                }
+                groupCount++;
+            } else if (region[start] < 0) {
+                // Obszar: puste pola osiągalne wyłącznie przez puste pola
+                int touches = 0;
+                int top = 0;
+                region[start] = regionCount;
+                stack[top++] = start;
+                while (top > 0) {
+                    int p = stack[--top];
+                    int x = p / size;
+                    int y = p % size;
+                    if (x > 0) top = joinRegion(p - size, regionCount, stack, top);
+                    if (x < size - 1) top = joinRegion(p + size, regionCount, stack, top);
+                    if (y > 0) top = joinRegion(p - 1, regionCount, stack, top);
+                    if (y < size - 1) top = joinRegion(p + 1, regionCount, stack, top);
+                    touches |= stoneBits(p);
+                }
+                regionTouches[regionCount] = (byte) touches;
+                regionCount++;
+            }
+        }
+        groupStart[groupCount] = filled;
+        this.groups = groupCount;
+        this.regions = regionCount;
+    }
+
+    /** Kolor pola o indeksie {@code p}. */
+    int color(int p) {
+        return state[p / size][p % size];
+    }
+
+    /** Kolor kamieni łańcucha {@code g}. */
+    int groupColor(int g) {
+        return color(stones[groupStart[g]]);
+    }
+
+    /** Liczba kamieni łańcucha {@code g}. */
+    int groupSize(int g) {
+        return groupStart[g + 1] - groupStart[g];
+    }
+
+    /**
+     * Zapisuje do {@code out} indeksy sąsiadów pola {@code p} (ortogonalnie, w obrębie planszy).
+     *
+     * @return liczba sąsiadów (2–4)
+     */
+    int neighbors(int p, int[] out) {
+        int x = p / size;
+        int y = p % size;
+        int n = 0;
+        if (x > 0) out[n++] = p - size;
+        if (x < size - 1) out[n++] = p + size;
+        if (y > 0) out[n++] = p - 1;
+        if (y < size - 1) out[n++] = p + 1;
+        return n;
+    }
+
+    private int joinGroup(int q, int color, int g, int[] stack, int top) {
+        if (group[q] < 0 && color(q) == color) {
+            group[q] = g;
+            stack[top++] = q;
+        }
+        return top;
+    }
+
+    private int joinRegion(int q, int r, int[] stack, int top) {
+        if (region[q] < 0 && color(q) == Board.EMPTY) {
+            region[q] = r;
+            stack[top++] = q;
+        }
+        return top;
+    }
+
+    /** Bity kolorów kamieni sąsiadujących z pustym polem {@code p}. */
+    private int stoneBits(int p) {
+        int x = p / size;
+        int y = p % size;
+        int bits = 0;
+        if (x > 0) bits |= 1 << state[x - 1][y];
+        if (x < size - 1) bits |= 1 << state[x + 1][y];
+        if (y > 0) bits |= 1 << state[x][y - 1];
+        if (y < size - 1) bits |= 1 << state[x][y + 1];
+        return bits & ~(1 << Board.EMPTY);
+    }
+}
@@ -1,10 +1,13 @@
 package pl.edu.go.analysis;
 
 import pl.edu.go.board.Board;
+import pl.edu.go.jfr.AnalysisEvent;
+import pl.edu.go.jfr.GoEvents;
 import pl.edu.go.model.Stone;
 import pl.edu.go.model.StoneGroup;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Analizuje pozycję na planszy gry Go w celu określenia,
@@ -31,6 +34,9 @@ public class PositionAnalyzer {
     /** Rozmiar planszy */
     private final int size;
 
+    /** Gotowy przegląd planszy współdzielony z innym analizatorem ({@code null} – przegląd przy każdej analizie) */
+    private final BoardScan scan;
+
     /**
      * Tworzy analizator pozycji dla podanej planszy.
      *
@@ -38,7 +44,21 @@ public class PositionAnalyzer {
      */
     public PositionAnalyzer(Board board) {
         this.board = board;
-        this.size = board.getState().length;
+        this.size = board.getSize();
+        this.scan = null;
+    }
+
+    /**
+     * Tworzy analizator korzystający z gotowego przeglądu planszy (np. wspólnego z
+     * {@link TerritoryAnalyzer} w {@link ScoreCalculator}).
+     *
+     * @param board plansza, której dotyczy przegląd
+     * @param scan  przegląd planszy
+     */
+    PositionAnalyzer(Board board, BoardScan scan) {
+        this.board = board;
+        this.size = scan.size;
+        this.scan = scan;
     }
 
     /**
@@ -56,28 +76,44 @@ public class PositionAnalyzer {
      * @return lista martwych grup kamieni
      */
     public List<StoneGroup> getDeadGroups() {
-        List<StoneGroup> dead = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-
-                if (board.getState()[x][y] != Board.EMPTY) {
-                    String key = x + "," + y;
-
-                    // Pomijamy kamienie należące do już przeanalizowanej grupy
-                    if (!visited.contains(key)) {
-                        StoneGroup g = board.getGroup(x, y);
+        if (!GoEvents.ENABLED) {
+            return deadGroups();
+        }
 
-                        // Oznaczenie wszystkich kamieni grupy jako odwiedzone
-                        for (Stone s : g.getStones())
-                            visited.add(s.getX() + "," + s.getY());
+        AnalysisEvent event = new AnalysisEvent();
+        event.begin();
+        List<StoneGroup> result = deadGroups();
+        if (event.shouldCommit()) {
+            int stones = 0;
+            for (StoneGroup g : result) {
+                stones += g.getStones().size();
+            }
+            event.analysis = "PositionAnalyzer.getDeadGroups";
+            event.boardSize = size;
+            event.result = result.size() + " groups, " + stones + " stones";
+            event.commit();
+        }
+        return result;
+    }
 
-                        // Jeżeli grupa nie jest żywa – uznajemy ją za martwą
-                        if (!isStrategicallyAlive(g))
-                            dead.add(g);
-                    }
+    /** Właściwa analiza dla {@link #getDeadGroups()}. */
+    private List<StoneGroup> deadGroups() {
+        BoardScan scan = this.scan != null ? this.scan : new BoardScan(board);
+        List<StoneGroup> dead = new ArrayList<>();
+        int[] eyeMark = new int[scan.regions];
+
+        // Łańcuchy są ponumerowane w kolejności przeglądania planszy (x, potem y)
+        for (int g = 0; g < scan.groups; g++) {
+
+            // Jeżeli grupa nie jest żywa – uznajemy ją za martwą
+            if (!isStrategicallyAlive(scan, g, eyeMark)) {
+                int color = scan.groupColor(g);
+                StoneGroup group = new StoneGroup(color);
+                for (int i = scan.groupStart[g]; i < scan.groupStart[g + 1]; i++) {
+                    int p = scan.stones[i];
+                    group.addStone(new Stone(p / size, p % size, color));
                 }
+                dead.add(group);
             }
         }
         return dead;
@@ -90,117 +126,52 @@ public class PositionAnalyzer {
      * Obecna implementacja uznaje grupę za żywą
      * wyłącznie wtedy, gdy posiada dwa oczy.
      *
-     * @param g analizowana grupa kamieni
+     * @param scan    przegląd planszy
+     * @param g       numer łańcucha
+     * @param eyeMark znaczniki obszarów już policzonych (współdzielone między łańcuchami)
      * @return {@code true} jeśli grupa jest żywa
      */
-    private boolean isStrategicallyAlive(StoneGroup g) {
-        return hasTwoEyes(g);
+    private boolean isStrategicallyAlive(BoardScan scan, int g, int[] eyeMark) {
+        return hasTwoEyes(scan, g, eyeMark);
     }
 
     /**
      * Sprawdza, czy grupa kamieni posiada co najmniej dwa oczy.
      *
      * <p>
-     * Oko rozumiane jest jako spójny obszar pustych pól,
-     * całkowicie otoczony kamieniami jednego koloru.
+     * Oko rozumiane jest jako spójny obszar pustych pól przylegający do grupy,
+     * którego żadne pole nie sąsiaduje z kamieniem przeciwnika. Obszary wyznacza
+     * {@link BoardScan}; tutaj liczone są tylko różne obszary sąsiadujące z kamieniami grupy.
+     * Znacznik {@code eyeMark[r] == g + 1} oznacza, że obszar {@code r} był już
+     * rozpatrzony dla łańcucha {@code g}.
      *
-     * @param g grupa kamieni
+     * @param scan    przegląd planszy
+     * @param g       numer łańcucha
+     * @param eyeMark znaczniki obszarów już policzonych
      * @return {@code true} jeśli grupa ma co najmniej dwa oczy
      */
-    private boolean hasTwoEyes(StoneGroup g) {
-        List<Set<String>> areas = collectAdjacentEmptyAreas(g);
+    private boolean hasTwoEyes(BoardScan scan, int g, int[] eyeMark) {
+        int color = scan.groupColor(g);
+        int opp = (color == Board.BLACK ? Board.WHITE : Board.BLACK);
+        int[] nb = new int[4];
         int eyes = 0;
 
-        for (Set<String> area : areas) {
-            if (isEye(area, g.getColor())) {
-                eyes++;
-                if (eyes >= 2)
-                    return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Zbiera wszystkie spójne obszary pustych pól
-     * przylegające do danej grupy kamieni. Pozwala obliczyć liczbę oczu.
-     * 
-     * Spójny obszar pustych pól to zbiór pustych punktów planszy,
-     * połączonych sąsiedztwem ortogonalnym (góra, dół, lewo, prawo),
-     * który może zostać w całości osiągnięty, poruszając się wyłącznie po pustych
-     * polach.
-     *
-     * @param g grupa kamieni
-     * @return lista obszarów pustych pól
-     */
-    private List<Set<String>> collectAdjacentEmptyAreas(StoneGroup g) {
-        Set<String> seen = new HashSet<>(); // zapamiętuje puste pola, które już należą do jakiegoś obszaru
-        List<Set<String>> areas = new ArrayList<>(); // przechowa wszystkie znalezione obszary
-
-        for (Stone s : g.getStones()) { // oko może stykać się z dowolnym kamieniem grupy
-            for (int[] nb : board.neighbors(s.getX(), s.getY())) { // patrzymy tylko na 4 pola wokół kamienia
-
-                if (board.getState()[nb[0]][nb[1]] == Board.EMPTY) {
-                    String start = nb[0] + "," + nb[1];
-
-                    if (seen.contains(start)) // sprawdzamy, czy to pole nie było już użyte
-                        continue;
-
-                    Set<String> area = new HashSet<>();
-                    Stack<int[]> stack = new Stack<>();
-                    stack.push(new int[] { nb[0], nb[1] });
-
-                    // Depth-First Search po pustych polach
-                    while (!stack.isEmpty()) {
-                        int[] p = stack.pop();
-                        String key = p[0] + "," + p[1];
-
-                        if (seen.contains(key))
-                            continue;
-
-                        seen.add(key);
-                        area.add(key);
-
-                        for (int[] nnb : board.neighbors(p[0], p[1])) {
-                            if (board.getState()[nnb[0]][nnb[1]] == Board.EMPTY)
-                                stack.push(nnb);
-                        }
-                    }
-                    areas.add(area);
+        for (int i = scan.groupStart[g]; i < scan.groupStart[g + 1]; i++) { // oko może stykać się z dowolnym kamieniem grupy
+            int n = scan.neighbors(scan.stones[i], nb);
+            for (int k = 0; k < n; k++) {
+                int r = scan.region[nb[k]];
+                if (r < 0 || eyeMark[r] == g + 1) // kamień albo obszar już policzony
+                    continue;
+                eyeMark[r] = g + 1;
+
+                // Oko nie może stykać się z kamieniem przeciwnika
+                if ((scan.regionTouches[r] & (1 << opp)) == 0) {
+                    eyes++;
+                    if (eyes >= 2)
+                        return true;
                 }
             }
         }
-        return areas;
-    }
-
-    /**
-     * Sprawdza, czy dany obszar pustych pól
-     * stanowi oko dla określonego koloru.
-     * Jeśli jakiekolwiek pole obszaru styka się z kamieniem przeciwnika
-     * to nie jest okiem.
-     * 
-     * Oko to spójny obszar pustych pól, który:
-     * przylega do analizowanej grupy kamieni,
-     * oraz żadne pole tego obszaru nie sąsiaduje z kamieniem przeciwnika.
-     * 
-     * @param area  zbiór pustych pól
-     * @param color kolor grupy
-     * @return {@code true} jeśli obszar jest okiem
-     */
-    private boolean isEye(Set<String> area, int color) {
-        int opp = (color == Board.BLACK ? Board.WHITE : Board.BLACK);
-
-        for (String p : area) {
-            String[] parts = p.split(",");
-            int x = Integer.parseInt(parts[0]);
-            int y = Integer.parseInt(parts[1]);
-
-            // Oko nie może stykać się z kamieniem przeciwnika
-            for (int[] nb : board.neighbors(x, y)) {
-                if (board.getState()[nb[0]][nb[1]] == opp)
-                    return false;
-            }
-        }
-        return true;
+        return false;
     }
 }
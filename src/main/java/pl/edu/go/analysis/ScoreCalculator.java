@@ -2,6 +2,8 @@ package pl.edu.go.analysis;
 
 import pl.edu.go.board.Board;
 import pl.edu.go.board.Territory;
+import pl.edu.go.jfr.AnalysisEvent;
+import pl.edu.go.jfr.GoEvents;
 import pl.edu.go.model.StoneGroup;
 
 /**
@@ -21,9 +23,28 @@ public class ScoreCalculator {
      * @return tablica wyników: [BLACK, WHITE]
      */
     public static int[] computeScore(Board board) {
+        if (!GoEvents.ENABLED) {
+            return score(board);
+        }
+
+        AnalysisEvent event = new AnalysisEvent();
+        event.begin();
+        int[] result = score(board);
+        if (event.shouldCommit()) {
+            event.analysis = "ScoreCalculator.computeScore";
+            event.boardSize = board.getSize();
+            event.result = "B " + result[0] + " W " + result[1];
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Właściwe liczenie punktów dla {@link #computeScore(Board)}. */
+    private static int[] score(Board board) {
 
-        TerritoryAnalyzer territoryAnalyzer = new TerritoryAnalyzer(board);
-        PositionAnalyzer positionAnalyzer = new PositionAnalyzer(board);
+        BoardScan scan = new BoardScan(board); // jeden przegląd planszy dla obu analizatorów
+        TerritoryAnalyzer territoryAnalyzer = new TerritoryAnalyzer(board, scan);
+        PositionAnalyzer positionAnalyzer = new PositionAnalyzer(board, scan);
 
         Territory[][] t = territoryAnalyzer.computeTerritory(); // które puste pola dają punkty i komu
 
@@ -2,8 +2,8 @@ package pl.edu.go.analysis;
 
 import pl.edu.go.board.Board;
 import pl.edu.go.board.Territory;
-import pl.edu.go.model.Stone;
-import pl.edu.go.model.StoneGroup;
+import pl.edu.go.jfr.AnalysisEvent;
+import pl.edu.go.jfr.GoEvents;
 
 /**
  * Analizuje planszę gry Go i przypisuje puste pola
@@ -18,6 +18,8 @@ public class TerritoryAnalyzer {
 
     private final Board board;
     private final int size;
+    /** Gotowy przegląd planszy ({@code null} – przegląd przy każdej analizie) */
+    private final BoardScan scan;
 
     /**
      * Tworzy analizator terytorium dla podanej planszy.
@@ -26,7 +28,21 @@ public class TerritoryAnalyzer {
      */
     public TerritoryAnalyzer(Board board) {
         this.board = board;
-        this.size = board.getState().length;
+        this.size = board.getSize();
+        this.scan = null;
+    }
+
+    /**
+     * Tworzy analizator korzystający z gotowego przeglądu planszy (wspólnego z
+     * {@link PositionAnalyzer} w {@link ScoreCalculator}).
+     *
+     * @param board plansza, której dotyczy przegląd
+     * @param scan  przegląd planszy
+     */
+    TerritoryAnalyzer(Board board, BoardScan scan) {
+        this.board = board;
+        this.size = scan.size;
+        this.scan = scan;
     }
 
     /**
@@ -36,24 +52,53 @@ public class TerritoryAnalyzer {
      * @return tablica terytorium dla każdego pola planszy
      */
     public Territory[][] computeTerritory() {
-        Territory[][] raw = computeRawTerritory();
+        if (!GoEvents.ENABLED) {
+            return territory();
+        }
+
+        AnalysisEvent event = new AnalysisEvent();
+        event.begin();
+        Territory[][] result = territory();
+        if (event.shouldCommit()) {
+            int black = 0;
+            int white = 0;
+            for (Territory[] column : result) {
+                for (Territory t : column) {
+                    if (t == Territory.BLACK) black++;
+                    else if (t == Territory.WHITE) white++;
+                }
+            }
+            event.analysis = "TerritoryAnalyzer.computeTerritory";
+            event.boardSize = size;
+            event.result = "B " + black + " W " + white;
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Właściwa analiza dla {@link #computeTerritory()}. */
+    private Territory[][] territory() {
+        BoardScan scan = this.scan != null ? this.scan : new BoardScan(board);
+        Territory[][] raw = computeRawTerritory(scan);
         Territory[][] out = new Territory[size][size];
 
+        // seki analizujemy na poziomie grupy: raz dla każdego łańcucha, nie dla każdego kamienia
+        boolean[] seki = new boolean[scan.groups];
+        int[] libertyMark = new int[size * size];
+        for (int g = 0; g < scan.groups; g++)
+            seki[g] = countLiberties(scan, g, libertyMark) >= 2 && groupTouchesNeutral(scan, g, raw);
+
         for (int x = 0; x < size; x++) {
             for (int y = 0; y < size; y++) {
+                int g = scan.group[x * size + y];
 
-                if (board.getState()[x][y] == Board.EMPTY) { // seki dotyczy grup kamieni, nie pustych pól.
+                if (g < 0) { // seki dotyczy grup kamieni, nie pustych pól.
                     out[x][y] = raw[x][y];
                     continue;
                 }
 
-                StoneGroup g = board.getGroup(x, y); // seki analizujemy na poziomie grupy
-
                 // Wykrywanie seki
-                if (board.countLiberties(g) >= 2 && groupTouchesNeutral(g, raw))
-                    out[x][y] = Territory.SEKI;
-                else
-                    out[x][y] = Territory.NEUTRAL;
+                out[x][y] = seki[g] ? Territory.SEKI : Territory.NEUTRAL;
             }
         }
         return out;
@@ -65,13 +110,14 @@ public class TerritoryAnalyzer {
      * wstępne przypisanie pustych pól
      * bez analizy seki
      */
-    private Territory[][] computeRawTerritory() {
+    private Territory[][] computeRawTerritory(BoardScan scan) {
         Territory[][] out = new Territory[size][size];
+        int[][] state = scan.state;
 
         for (int x = 0; x < size; x++) {
             for (int y = 0; y < size; y++) {
 
-                if (board.getState()[x][y] != Board.EMPTY) {
+                if (state[x][y] != Board.EMPTY) {
                     out[x][y] = Territory.NEUTRAL;
                     continue;
                 }
@@ -79,12 +125,10 @@ public class TerritoryAnalyzer {
                 boolean b = false, w = false; // b - czy pole styka się z czarnym kamieniem, w - czy pole styka się z
                                               // białym kamieniem
 
-                for (int[] nb : board.neighbors(x, y)) {
-                    if (board.getState()[nb[0]][nb[1]] == Board.BLACK)
-                        b = true;
-                    if (board.getState()[nb[0]][nb[1]] == Board.WHITE)
-                        w = true;
-                }
+                if (x > 0) { b |= state[x - 1][y] == Board.BLACK; w |= state[x - 1][y] == Board.WHITE; }
+                if (x < size - 1) { b |= state[x + 1][y] == Board.BLACK; w |= state[x + 1][y] == Board.WHITE; }
+                if (y > 0) { b |= state[x][y - 1] == Board.BLACK; w |= state[x][y - 1] == Board.WHITE; }
+                if (y < size - 1) { b |= state[x][y + 1] == Board.BLACK; w |= state[x][y + 1] == Board.WHITE; }
 
                 if (b && w)
                     out[x][y] = Territory.NEUTRAL;
@@ -99,16 +143,38 @@ public class TerritoryAnalyzer {
         return out;
     }
 
+    /**
+     * Liczy unikalne oddechy łańcucha {@code g} (jak {@link Board#countLiberties}).
+     * Znacznik {@code mark[p] == g + 1} oznacza pole już policzone dla tego łańcucha.
+     */
+    private int countLiberties(BoardScan scan, int g, int[] mark) {
+        int[] nb = new int[4];
+        int libs = 0;
+        for (int i = scan.groupStart[g]; i < scan.groupStart[g + 1]; i++) {
+            int n = scan.neighbors(scan.stones[i], nb);
+            for (int k = 0; k < n; k++) {
+                int p = nb[k];
+                if (scan.region[p] >= 0 && mark[p] != g + 1) {
+                    mark[p] = g + 1;
+                    libs++;
+                }
+            }
+        }
+        return libs;
+    }
+
     /**
      * Sprawdza, czy grupa kamieni styka się z neutralnym obszarem (najmniej
      * jednym), co jest jednym
      * z warunków wykrywania seki.
      */
-    private boolean groupTouchesNeutral(StoneGroup g, Territory[][] raw) {
-        for (Stone s : g.getStones()) {
-            for (int[] nb : board.neighbors(s.getX(), s.getY())) {
-                if (board.getState()[nb[0]][nb[1]] == Board.EMPTY &&
-                        raw[nb[0]][nb[1]] == Territory.NEUTRAL)
+    private boolean groupTouchesNeutral(BoardScan scan, int g, Territory[][] raw) {
+        int[] nb = new int[4];
+        for (int i = scan.groupStart[g]; i < scan.groupStart[g + 1]; i++) {
+            int n = scan.neighbors(scan.stones[i], nb);
+            for (int k = 0; k < n; k++) {
+                int p = nb[k];
+                if (scan.region[p] >= 0 && raw[p / size][p % size] == Territory.NEUTRAL)
                     return true;
             }
         }
@@ -1,5 +1,7 @@
 package pl.edu.go.board;
 
+import pl.edu.go.jfr.GoEvents;
+import pl.edu.go.jfr.MoveEvent;
 import pl.edu.go.model.Stone;
 import pl.edu.go.model.StoneGroup;
 
@@ -39,6 +41,24 @@ public class Board {
     /** Stała oznaczająca biały kamień */
     public static final int WHITE = 2;
 
+    /** Powód odrzucenia ruchu: brak (ostatni ruch był poprawny) */
+    public static final int REJECT_NONE = 0;
+
+    /** Powód odrzucenia ruchu: pole poza planszą */
+    public static final int REJECT_OUTSIDE = 1;
+
+    /** Powód odrzucenia ruchu: pole zajęte */
+    public static final int REJECT_OCCUPIED = 2;
+
+    /** Powód odrzucenia ruchu: samobójstwo (zasada 5) */
+    public static final int REJECT_SUICIDE = 3;
+
+    /** Powód odrzucenia ruchu: KO (zasada 6) */
+    public static final int REJECT_KO = 4;
+
+    /** Nazwy powodów odrzucenia (indeks = {@code REJECT_*}) do zdarzeń JFR. */
+    private static final String[] REJECTION_NAMES = {"OK", "OUTSIDE", "OCCUPIED", "SUICIDE", "KO"};
+
     /** Rozmiar planszy (N × N) */
     private final int size;
 
@@ -54,6 +74,40 @@ public class Board {
      */
     private int[][] previousBoard = null;
 
+    /**
+     * Punkty (w kodowaniu {@link #point(int, int)}) kamieni zbitych
+     * w ostatnim poprawnym ruchu.
+     *
+     * <p>
+     * Bufor jest wielokrotnie używany; ważne jest tylko pierwsze
+     * {@link #lastCapturedCount} elementów.
+     */
+    private int[] lastCaptured = new int[4];
+
+    /**
+     * Bufor roboczy na zbite kamienie analizowanego ruchu.
+     *
+     * <p>
+     * Po poprawnym ruchu zamieniany miejscami z {@link #lastCaptured},
+     * dzięki czemu odrzucony ruch nie nadpisuje danych poprzedniego.
+     */
+    private int[] captureBuffer = new int[4];
+
+    /** Liczba kamieni zbitych w ostatnim poprawnym ruchu */
+    private int lastCapturedCount = 0;
+
+    /**
+     * Punkt KO po ostatnim ruchu ({@code -1} gdy brak).
+     *
+     * <p>
+     * Jest to pole, na którym przeciwnik nie może zagrać
+     * w najbliższym ruchu (zasada 6 gry Go).
+     */
+    private int koPoint = -1;
+
+    /** Powód odrzucenia ostatniego wywołania {@link #playMove(int, int, int)} ({@code REJECT_*}). */
+    private int lastRejection = REJECT_NONE;
+
     /**
      * Tworzy nową, pustą planszę gry Go o zadanym rozmiarze.
      *
@@ -64,6 +118,50 @@ public class Board {
         this.board = new int[size][size];
     }
 
+    /**
+     * Zwraca rozmiar planszy.
+     *
+     * @return rozmiar N planszy N × N
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Koduje współrzędne pola jako pojedynczą liczbę ({@code y * size + x}).
+     *
+     * <p>
+     * Kodowanie jest używane w zdarzeniach przekazujących zmiany planszy
+     * (np. listy zbitych kamieni), aby uniknąć tworzenia obiektów na każde pole.
+     *
+     * @param x współrzędna x
+     * @param y współrzędna y
+     * @return zakodowany punkt
+     */
+    public int point(int x, int y) {
+        return y * size + x;
+    }
+
+    /**
+     * Odczytuje współrzędną x z punktu zakodowanego przez {@link #point(int, int)}.
+     *
+     * @param point zakodowany punkt
+     * @return współrzędna x
+     */
+    public int pointX(int point) {
+        return point % size;
+    }
+
+    /**
+     * Odczytuje współrzędną y z punktu zakodowanego przez {@link #point(int, int)}.
+     *
+     * @param point zakodowany punkt
+     * @return współrzędna y
+     */
+    public int pointY(int point) {
+        return point / size;
+    }
+
     /**
      * Sprawdza, czy dane współrzędne znajdują się w granicach planszy.
      *
@@ -192,6 +290,24 @@ public class Board {
             board[s.getX()][s.getY()] = EMPTY;
     }
 
+    /**
+     * Dopisuje zbite kamienie grupy do bufora {@link #captureBuffer}.
+     *
+     * @param g zbita grupa kamieni
+     * @param from liczba punktów już zapisanych w buforze
+     * @return nowa liczba punktów w buforze
+     */
+    private int recordCaptured(StoneGroup g, int from) {
+        int needed = from + g.getStones().size();
+        if (needed > captureBuffer.length)
+            captureBuffer = Arrays.copyOf(captureBuffer, Math.max(needed, captureBuffer.length * 2));
+
+        int n = from;
+        for (Stone s : g.getStones())
+            captureBuffer[n++] = point(s.getX(), s.getY());
+        return n;
+    }
+
     /**
      * Próbuje wykonać ruch gracza na planszy.
      *
@@ -210,13 +326,40 @@ public class Board {
      * @param color kolor gracza
      * @param x     współrzędna x
      * @param y     współrzędna y
-     * @return {@code true} jeśli ruch jest legalny
+     * @return {@code true} jeśli ruch jest legalny (powód odrzucenia: {@link #getLastRejection()})
      */
     public boolean playMove(int color, int x, int y) {
+        if (!GoEvents.ENABLED) {
+            return place(color, x, y);
+        }
+
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        boolean ok = place(color, x, y);
+        if (event.shouldCommit()) {
+            event.boardSize = size;
+            event.color = color == BLACK ? "BLACK" : "WHITE";
+            event.x = x;
+            event.y = y;
+            event.captures = ok ? lastCapturedCount : 0;
+            event.result = REJECTION_NAMES[lastRejection];
+            event.commit();
+        }
+        return ok;
+    }
+
+    /** Właściwa logika {@link #playMove(int, int, int)}. */
+    private boolean place(int color, int x, int y) {
 
         // Sprawdzenie, czy pole jest poprawne i puste
-        if (!inside(x, y) || board[x][y] != EMPTY)
+        if (!inside(x, y)) {
+            lastRejection = REJECT_OUTSIDE;
             return false;
+        }
+        if (board[x][y] != EMPTY) {
+            lastRejection = REJECT_OCCUPIED;
+            return false;
+        }
 
         // Zachowanie stanu planszy sprzed ruchu
         int[][] before = deepCopy(board);
@@ -230,6 +373,9 @@ public class Board {
         // Licznik zbitych kamieni w tym ruchu
         int capturedStones = 0;
 
+        // Liczba punktów zapisanych w buforze zbitych kamieni
+        int recorded = 0;
+
         // Analiza sąsiadów nowo postawionego kamienia
         for (int[] nb : neighbors(x, y)) {
             int nx = nb[0], ny = nb[1];
@@ -241,6 +387,7 @@ public class Board {
                 // Jeżeli grupa przeciwnika nie ma oddechów – zostaje zbita
                 if (countLiberties(g) == 0) {
                     capturedStones += g.getStones().size();
+                    recorded = recordCaptured(g, recorded);
                     removeGroup(g);
                 }
             }
@@ -254,6 +401,7 @@ public class Board {
 
             // Cofnięcie ruchu w przypadku samobójstwa
             board[x][y] = EMPTY;
+            lastRejection = REJECT_SUICIDE;
             return false;
         }
 
@@ -265,16 +413,130 @@ public class Board {
             for (int i = 0; i < size; i++)
                 System.arraycopy(before[i], 0, board[i], 0, size);
 
+            lastRejection = REJECT_KO;
             return false;
         }
 
         // Zapamiętanie aktualnego stanu planszy
         previousBoard = before;
 
+        // Zmiany wykonane przez ruch (dla obserwatorów gry)
+        int[] swap = lastCaptured;
+        lastCaptured = captureBuffer;
+        captureBuffer = swap;
+        lastCapturedCount = recorded;
+        koPoint = (capturedStones == 1 && my.getStones().size() == 1 && countLiberties(my) == 1)
+                ? lastCaptured[0]
+                : -1;
+
         // Ruch wykonany poprawnie
+        lastRejection = REJECT_NONE;
         return true;
     }
 
+    /**
+     * Zwraca powód odrzucenia ostatniego ruchu.
+     *
+     * @return {@link #REJECT_NONE}, gdy ostatni ruch był poprawny, w przeciwnym razie
+     *         {@link #REJECT_OUTSIDE}, {@link #REJECT_OCCUPIED}, {@link #REJECT_SUICIDE} lub {@link #REJECT_KO}
+     */
+    public int getLastRejection() {
+        return lastRejection;
+    }
+
+    /**
+     * Zwraca punkty kamieni zbitych w ostatnim poprawnym ruchu.
+     *
+     * @return nowa tablica punktów (kodowanie {@link #point(int, int)})
+     */
+    public int[] getLastCaptured() {
+        return Arrays.copyOf(lastCaptured, lastCapturedCount);
+    }
+
+    /**
+     * Zwraca liczbę kamieni zbitych w ostatnim poprawnym ruchu.
+     *
+     * @return liczba zbitych kamieni
+     */
+    public int getLastCapturedCount() {
+        return lastCapturedCount;
+    }
+
+    /**
+     * Zwraca punkt KO po ostatnim poprawnym ruchu.
+     *
+     * <p>
+     * Punkt KO to pole, na którym przeciwnik nie może zagrać w następnym ruchu,
+     * bo odtworzyłby poprzednią pozycję (zasada 6 gry Go).
+     *
+     * @return punkt w kodowaniu {@link #point(int, int)} lub {@code -1}, gdy brak KO
+     */
+    public int getKoPoint() {
+        return koPoint;
+    }
+
+    /**
+     * Kopiuje pełny stan innej planszy tego samego rozmiaru (kamienie, stan KO,
+     * dane ostatniego ruchu).
+     *
+     * <p>
+     * Służy do cofania serii ruchów wykonywanych atomowo (np. komenda {@code MOVES}).
+     *
+     * @param other plansza źródłowa
+     * @throws IllegalArgumentException gdy rozmiary plansz są różne
+     */
+    public void copyFrom(Board other) {
+        if (other.size != size)
+            throw new IllegalArgumentException("Board size mismatch: " + other.size + " != " + size);
+
+        for (int i = 0; i < size; i++)
+            System.arraycopy(other.board[i], 0, board[i], 0, size);
+
+        // poprzedni stan nie jest nigdy modyfikowany po zapisaniu, więc można współdzielić referencję
+        previousBoard = other.previousBoard;
+
+        if (lastCaptured.length < other.lastCapturedCount)
+            lastCaptured = new int[other.lastCaptured.length];
+        System.arraycopy(other.lastCaptured, 0, lastCaptured, 0, other.lastCapturedCount);
+        lastCapturedCount = other.lastCapturedCount;
+        koPoint = other.koPoint;
+    }
+
+    /**
+     * Zwraca wewnętrzną tablicę pól (bez kopii) — tylko do odczytu przez {@link BoardCodec}.
+     *
+     * @return tablica {@code [x][y]}
+     */
+    int[][] cells() {
+        return board;
+    }
+
+    /**
+     * Zwraca poprzedni stan planszy używany przez regułę KO (bez kopii).
+     *
+     * @return tablica {@code [x][y]} lub {@code null}, gdy nie wykonano jeszcze ruchu
+     */
+    int[][] previousCells() {
+        return previousBoard;
+    }
+
+    /**
+     * Ustawia stan KO i dane ostatniego ruchu odczytane z migawki ({@link BoardCodec}).
+     *
+     * @param previous      poprzedni stan planszy lub {@code null}
+     * @param captured      punkty kamieni zbitych w ostatnim ruchu
+     * @param capturedCount liczba ważnych elementów {@code captured}
+     * @param koPoint       punkt KO lub {@code -1}
+     */
+    void restoreState(int[][] previous, int[] captured, int capturedCount, int koPoint) {
+        this.previousBoard = previous;
+        if (lastCaptured.length < capturedCount)
+            lastCaptured = new int[capturedCount];
+        System.arraycopy(captured, 0, lastCaptured, 0, capturedCount);
+        this.lastCapturedCount = capturedCount;
+        this.koPoint = koPoint;
+    }
+
     /**
      * Tworzy głęboką kopię tablicy planszy.
      *
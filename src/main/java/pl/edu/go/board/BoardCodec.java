@@ -0,0 +1,193 @@
+package pl.edu.go.board;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@code BoardCodec} zapisuje i odtwarza pełny stan {@link Board} w zwartym formacie binarnym.
+ *
+ * <p>Migawka obejmuje pola planszy, stan reguły KO (poprzednią pozycję i punkt KO)
+ * oraz kamienie zbite w ostatnim ruchu, więc odtworzona plansza zachowuje się identycznie
+ * jak oryginał (np. nadal odrzuca natychmiastowe odbicie KO). Kodek nie używa refleksji
+ * ani serializacji Javy.
+ *
+ * <p><b>Format (wersja {@value #VERSION}):</b>
+ * <pre>
+ * byte   wersja
+ * short  rozmiar planszy (bez znaku)
+ * byte   flagi (bit 0: jest poprzednia pozycja)
+ * int    punkt KO (-1 = brak)
+ * int    liczba zbitych kamieni, a dalej tyle punktów (int)
+ * bajty  pola planszy, 2 bity na pole, kolejność y * size + x
+ * bajty  poprzednia pozycja w tym samym układzie (jeśli flaga)
+ * </pre>
+ */
+public final class BoardCodec {
+
+    /** Bieżąca wersja formatu migawki planszy. */
+    public static final int VERSION = 1;
+
+    private static final int FLAG_PREVIOUS = 1;
+
+    private BoardCodec() {
+    }
+
+    /**
+     * Koduje planszę do nowej tablicy bajtów.
+     *
+     * @param board plansza
+     * @return migawka planszy
+     */
+    public static byte[] encode(Board board) {
+        ByteBuffer buf = ByteBuffer.allocate(encodedLength(board));
+        write(board, buf);
+        return buf.array();
+    }
+
+    /**
+     * Odtwarza planszę z migawki.
+     *
+     * @param data migawka zapisana przez {@link #encode(Board)}
+     * @return nowa plansza
+     * @throws IllegalArgumentException gdy migawka jest niepoprawna lub ma nieobsługiwaną wersję
+     */
+    public static Board decode(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        Board board = read(buf);
+        if (buf.hasRemaining()) {
+            throw new IllegalArgumentException("Board snapshot has trailing data");
+        }
+        return board;
+    }
+
+    /**
+     * Zwraca dokładną długość migawki planszy w bajtach.
+     *
+     * @param board plansza
+     * @return liczba bajtów zapisywanych przez {@link #write(Board, ByteBuffer)}
+     */
+    public static int encodedLength(Board board) {
+        int packed = packedLength(board.getSize());
+        return 1 + 2 + 1 + 4 + 4 + 4 * board.getLastCapturedCount()
+                + packed + (board.previousCells() != null ? packed : 0);
+    }
+
+    /**
+     * Zapisuje migawkę planszy do bufora (np. jako część migawki gry).
+     *
+     * @param board plansza
+     * @param out   bufor docelowy z co najmniej {@link #encodedLength(Board)} wolnymi bajtami
+     */
+    public static void write(Board board, ByteBuffer out) {
+        int[][] previous = board.previousCells();
+
+        out.put((byte) VERSION);
+        out.putShort((short) board.getSize());
+        out.put((byte) (previous != null ? FLAG_PREVIOUS : 0));
+        out.putInt(board.getKoPoint());
+
+        int[] captured = board.getLastCaptured();
+        out.putInt(captured.length);
+        for (int p : captured) {
+            out.putInt(p);
+        }
+
+        writeCells(board.cells(), board.getSize(), out);
+        if (previous != null) {
+            writeCells(previous, board.getSize(), out);
+        }
+    }
+
+    /**
+     * Czyta migawkę planszy z bufora.
+     *
+     * @param in bufor ustawiony na początku migawki
+     * @return nowa plansza
+     * @throws IllegalArgumentException gdy migawka jest niepoprawna lub ma nieobsługiwaną wersję
+     */
+    public static Board read(ByteBuffer in) {
+        try {
+            int version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported board snapshot version: " + version);
+            }
+            int size = in.getShort() & 0xFFFF;
+            if (size == 0) {
+                throw new IllegalArgumentException("Board snapshot has size 0");
+            }
+            int flags = in.get();
+            int koPoint = in.getInt();
+
+            int capturedCount = in.getInt();
+            if (capturedCount < 0 || capturedCount > size * size) {
+                throw new IllegalArgumentException("Board snapshot has invalid capture count: " + capturedCount);
+            }
+            int[] captured = new int[capturedCount];
+            for (int i = 0; i < capturedCount; i++) {
+                captured[i] = in.getInt();
+            }
+
+            Board board = new Board(size);
+            readCells(in, size, board.cells());
+
+            int[][] previous = null;
+            if ((flags & FLAG_PREVIOUS) != 0) {
+                previous = new int[size][size];
+                readCells(in, size, previous);
+            }
+
+            board.restoreState(previous, captured, capturedCount, koPoint);
+            return board;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Board snapshot is truncated");
+        }
+    }
+
+    /** Liczba bajtów pól planszy przy 2 bitach na pole. */
+    private static int packedLength(int size) {
+        return (size * size + 3) / 4;
+    }
+
+    /**
+     * Pakuje pola planszy po 4 na bajt (najstarsze bity = pierwsze pole).
+     */
+    private static void writeCells(int[][] cells, int size, ByteBuffer out) {
+        int acc = 0;
+        int n = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                acc = (acc << 2) | (cells[x][y] & 0x3);
+                if (++n == 4) {
+                    out.put((byte) acc);
+                    acc = 0;
+                    n = 0;
+                }
+            }
+        }
+        if (n > 0) {
+            out.put((byte) (acc << (2 * (4 - n))));
+        }
+    }
+
+    /**
+     * Rozpakowuje pola zapisane przez {@link #writeCells(int[][], int, ByteBuffer)}.
+     */
+    private static void readCells(ByteBuffer in, int size, int[][] cells) {
+        int b = 0;
+        int n = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (n == 0) {
+                    b = in.get() & 0xFF;
+                    n = 4;
+                }
+                n--;
+                int cell = (b >>> (2 * n)) & 0x3;
+                if (cell > Board.WHITE) {
+                    throw new IllegalArgumentException("Board snapshot has invalid cell at " + x + "," + y);
+                }
+                cells[x][y] = cell;
+            }
+        }
+    }
+}
@@ -18,7 +18,8 @@ import java.util.Locale;
  * Klasa CliClient — klient konsolowy gry Go.
  *
  * Rola klasy:
- * - łączy się z serwerem (host + port),
+ * - łączy się z serwerem (host + port) i wysyła pierwszą linię: PLAY (dołączenie do gry)
+ *   albo linię podaną w dalszych argumentach, np. RESUME_SESSION token lastSeq lub WATCH gameId,
  * - w osobnym wątku nasłuchuje komunikatów z serwera:
  *   * INFO, WELCOME, TURN, ERROR, END,
  *   * BOARD / ROW / END_BOARD — opis aktualnej planszy,
@@ -35,17 +36,22 @@ public class CliClient {
     // flaga sterująca główną pętlą; zmieniana przez wątek nasłuchujący
     private static volatile boolean running = true;
 
+    // dane do wznowienia sesji po zerwaniu połączenia (SESSION <id> <token>, SEQ <n>)
+    private static volatile String sessionToken;
+    private static volatile long lastSeq = -1;
+
     public static void main(String[] args) {
         String host = "localhost";
         int port = 5001;
 
-        // opcjonalne parametry: host port
+        // opcjonalne parametry: host port [pierwsza linia, np. RESUME_SESSION token lastSeq]
         if (args.length >= 1) {
             host = args[0];
         }
         if (args.length >= 2) {
             port = Integer.parseInt(args[1]);
         }
+        String hello = args.length >= 3 ? String.join(" ", List.of(args).subList(2, args.length)) : "PLAY";
 
         try (Socket socket = new Socket(host, port)) {
             System.out.println("Connected to " + host + ":" + port);
@@ -55,13 +61,16 @@ public class CliClient {
             PrintWriter out = new PrintWriter(
                     new OutputStreamWriter(socket.getOutputStream()), true);
 
+            // serwer sadza klienta dopiero po pierwszej linii (PLAY / RESUME_SESSION / WATCH)
+            out.println(hello);
+
             // Czytanie komend z klawiatury
             Scanner scanner = new Scanner(System.in);
             System.out.println("Commands: MOVE <col> <row> (np. MOVE B 2) | PASS | RESIGN  (or: exit)");
 
             // Wątek nasłuchujący serwera (startujemy po wypisaniu komend,
             // żeby nie mieszać się z pierwszym rysowaniem planszy)
-            Thread listener = new Thread(() -> listenToServer(in), "ServerListener");
+            Thread listener = new Thread(() -> listenToServer(in, out), "ServerListener");
             listener.setDaemon(true);
             listener.start();
 
@@ -123,8 +132,9 @@ public class CliClient {
      * - END_BOARD
      *
      * oraz wypisujemy inne komunikaty (INFO, TURN, ERROR, END).
+     * Na heartbeat {@code PING} odpowiadamy od razu {@code PONG} (bez wypisywania).
      */
-    private static void listenToServer(BufferedReader in) {
+    private static void listenToServer(BufferedReader in, PrintWriter out) {
         Integer boardSize = null;
         List<String> boardRows = new ArrayList<>();
 
@@ -132,6 +142,11 @@ public class CliClient {
             String line;
             while ((line = in.readLine()) != null) {
 
+                if (line.equals("PING") || line.startsWith("PING ")) {
+                    out.println("PONG" + line.substring(4));
+                    continue;
+                }
+
                 // ---- Parsowanie planszy (BOARD/ROW/END_BOARD) ----
 
                 if (line.startsWith("BOARD ")) {
@@ -168,6 +183,24 @@ public class CliClient {
                     continue;
                 }
 
+                // ---- Dane wznawiania sesji (nie wypisujemy) ----
+
+                if (line.startsWith("SEQ ")) {
+                    try {
+                        lastSeq = Long.parseLong(line.substring("SEQ ".length()).trim());
+                    } catch (NumberFormatException ignored) {
+                    }
+                    continue;
+                }
+
+                if (line.startsWith("SESSION ")) {
+                    String[] parts = line.split("\\s+");
+                    if (parts.length == 3) {
+                        sessionToken = parts[2];
+                    }
+                    continue;
+                }
+
                 // ---- Inne komunikaty ----
 
                 System.out.println(line);
@@ -182,6 +215,9 @@ public class CliClient {
             System.out.println("Server closed connection.");
         } catch (IOException e) {
             System.out.println("Connection lost: " + e.getMessage());
+            if (sessionToken != null) {
+                System.out.println("Reconnect with arguments: <host> <port> RESUME_SESSION " + sessionToken + " " + lastSeq);
+            }
             running = false;
         }
     }
@@ -2,6 +2,7 @@ package pl.edu.go.client.gui;
 
 import pl.edu.go.game.GamePhase;
 import pl.edu.go.game.PlayerColor;
+import pl.edu.go.protocol.BinaryProtocol;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,7 +12,7 @@ import java.util.Objects;
  * {@code GameModel} przechowuje stan gry po stronie klienta GUI.
  *
  * <p><b>MVC:</b> pełni rolę <b>Modelu</b>. Jest aktualizowany wyłącznie komunikatami protokołu z serwera
- * (BOARD, TURN, PHASE, SCORE, TERRITORY, DEADSTONES, END).
+ * (BOARD, TURN, PHASE, SCORE, TERRITORY, DEADSTONES, CLOCK, END).
  *
  * <p>Model nie implementuje reguł gry i nie liczy wyniku — Single Source of Truth pozostaje po stronie serwera.
  */
@@ -35,6 +36,16 @@ public final class GameModel {
     private Integer scoreBlack = null;
     private Integer scoreWhite = null;
 
+    // CLOCK: czas (ms) i okresy byo-yomi graczy z ostatniej linii oraz czyj zegar chodzi (null = brak zegara)
+    private long[] clockMillis = null;
+    private int[] clockPeriods = null;
+    private PlayerColor clockRunning = null;
+
+    // dane wznawiania sesji: SESSION <id> <token> oraz numer ostatniej odebranej paczki (SEQ)
+    private int gameId = -1;
+    private String sessionToken = null;
+    private long lastSeq = -1;
+
     // TERRITORY overlay (w review / po territory-end) — mapa terytorium do wizualizacji w BoardView
     private char[][] territoryMap = null;
 
@@ -74,7 +85,7 @@ public final class GameModel {
      * Przyjmuje pojedynczą linię protokołu z serwera i aktualizuje stan modelu.
      *
      * <p>Obsługiwane komunikaty:
-     * WELCOME, PHASE, TURN, SCORE, BOARD/ROW/END_BOARD,
+     * WELCOME, SESSION, SEQ, PHASE, TURN, SCORE, CLOCK, BOARD/ROW/END_BOARD,
      * TERRITORY/TROW/END_TERRITORY, DEADSTONES/DROW/END_DEADSTONES, END.
      *
      * @param line linia tekstu z serwera
@@ -89,6 +100,25 @@ public final class GameModel {
             return;
         }
 
+        if (line.startsWith("SESSION ")) {
+            String[] parts = line.split("\\s+");
+            if (parts.length == 3) {
+                try {
+                    gameId = Integer.parseInt(parts[1]);
+                    sessionToken = parts[2];
+                } catch (NumberFormatException ignored) {}
+            }
+            return;
+        }
+
+        // SEQ zamyka paczkę zdarzeń — zapamiętujemy numer do RESUME_SESSION
+        if (line.startsWith("SEQ ")) {
+            try {
+                lastSeq = Long.parseLong(line.substring("SEQ ".length()).trim());
+            } catch (NumberFormatException ignored) {}
+            return;
+        }
+
         if (line.startsWith("PHASE ")) {
             String p = line.substring("PHASE ".length()).trim();
             phase = GamePhase.valueOf(p);
@@ -124,6 +154,20 @@ public final class GameModel {
             return;
         }
 
+        // CLOCK <BLACK|WHITE|NONE> <msBLACK> <msWHITE> <okresyBLACK> <okresyWHITE>
+        if (line.startsWith("CLOCK ")) {
+            String[] parts = line.split("\\s+");
+            if (parts.length == 6) {
+                try {
+                    clockMillis = new long[]{Long.parseLong(parts[2]), Long.parseLong(parts[3])};
+                    clockPeriods = new int[]{Integer.parseInt(parts[4]), Integer.parseInt(parts[5])};
+                    clockRunning = "NONE".equals(parts[1]) ? null : PlayerColor.valueOf(parts[1]);
+                } catch (IllegalArgumentException ignored) {}
+            }
+            notifyListeners();
+            return;
+        }
+
         // INFO/ERROR: bez loga w GUI – wypisujemy do terminala klienta
         if (line.startsWith("INFO ")) {
             System.out.println("[SERVER] " + line);
@@ -246,6 +290,97 @@ public final class GameModel {
         System.out.println("[SERVER] " + line);
     }
 
+    /**
+     * Przyjmuje pojedynczą ramkę protokołu binarnego ({@link BinaryProtocol}) i aktualizuje stan modelu.
+     *
+     * <p>Plansza, terytorium i martwe kamienie przychodzą upakowane bitowo, więc model
+     * odtwarza tablice bez parsowania wierszy tekstu. Komunikaty tekstowe (INFO/ERROR/END/TEXT)
+     * są obsługiwane jak w {@link #acceptServerLine(String)}.
+     *
+     * @param payload treść ramki (opcode + dane)
+     */
+    public synchronized void acceptServerFrame(byte[] payload) {
+        if (payload == null || payload.length == 0) return;
+
+        BinaryProtocol.Reader r = new BinaryProtocol.Reader(payload, 1);
+        switch (payload[0]) {
+            case BinaryProtocol.OP_WELCOME -> myColor = PlayerColor.valueOf(BinaryProtocol.colorName(r.readByte()));
+            case BinaryProtocol.OP_TURN -> currentTurn = PlayerColor.valueOf(BinaryProtocol.colorName(r.readByte()));
+            case BinaryProtocol.OP_SESSION -> {
+                gameId = r.readVarint();
+                sessionToken = r.readString();
+                return;
+            }
+            case BinaryProtocol.OP_SEQ -> {
+                lastSeq = r.readVarint();
+                return;
+            }
+            case BinaryProtocol.OP_PHASE -> {
+                acceptServerLine("PHASE " + BinaryProtocol.phaseName(r.readByte()));
+                return;
+            }
+            case BinaryProtocol.OP_SCORE -> {
+                scoreBlack = r.readSignedVarint();
+                scoreWhite = r.readSignedVarint();
+            }
+            case BinaryProtocol.OP_BOARD -> {
+                int n = r.readVarint();
+                int[] codes = r.readPacked(n * n, 2);
+                int[][] b = new int[n][n];
+                for (int y = 0; y < n; y++) {
+                    for (int x = 0; x < n; x++) {
+                        b[x][y] = codes[y * n + x];
+                    }
+                }
+                boardSize = n;
+                board = b;
+            }
+            case BinaryProtocol.OP_TERRITORY -> {
+                int n = r.readVarint();
+                int[] codes = r.readPacked(n * n, 3);
+                char[][] map = new char[n][n];
+                for (int y = 0; y < n; y++) {
+                    for (int x = 0; x < n; x++) {
+                        map[x][y] = BinaryProtocol.TERRITORY_CHARS.charAt(codes[y * n + x]);
+                    }
+                }
+                territoryMap = map;
+            }
+            case BinaryProtocol.OP_DEADSTONES -> {
+                int n = r.readVarint();
+                int[] codes = r.readPacked(n * n, 1);
+                boolean[][] dm = new boolean[n][n];
+                for (int y = 0; y < n; y++) {
+                    for (int x = 0; x < n; x++) {
+                        dm[x][y] = codes[y * n + x] == 1;
+                    }
+                }
+                deadMask = dm;
+            }
+            case BinaryProtocol.OP_END -> {
+                acceptServerLine("END " + r.readString());
+                return;
+            }
+            case BinaryProtocol.OP_INFO -> {
+                acceptServerLine("INFO " + r.readString());
+                return;
+            }
+            case BinaryProtocol.OP_ERROR -> {
+                acceptServerLine("ERROR " + r.readString());
+                return;
+            }
+            case BinaryProtocol.OP_TEXT -> {
+                acceptServerLine(r.readString());
+                return;
+            }
+            default -> {
+                System.out.println("[SERVER] unknown frame opcode " + (payload[0] & 0xFF));
+                return;
+            }
+        }
+        notifyListeners();
+    }
+
     public PlayerColor getMyColor() { return myColor; }
     public PlayerColor getCurrentTurn() { return currentTurn; }
     public GamePhase getPhase() { return phase; }
@@ -253,9 +388,32 @@ public final class GameModel {
     public Integer getScoreBlack() { return scoreBlack; }
     public Integer getScoreWhite() { return scoreWhite; }
 
+    /**
+     * Zwraca czas gracza z ostatniej linii {@code CLOCK} (w bieżącym odcinku: czas podstawowy lub okres byo-yomi).
+     *
+     * @param color gracz
+     * @return czas w ms albo {@code -1}, gdy gra jest bez zegara
+     */
+    public long getClockMillis(PlayerColor color) { return clockMillis == null ? -1 : clockMillis[color.ordinal()]; }
+
+    /**
+     * Zwraca liczbę okresów byo-yomi gracza z ostatniej linii {@code CLOCK}.
+     *
+     * @param color gracz
+     * @return liczba okresów (0 poza byo-yomi i bez zegara)
+     */
+    public int getClockPeriods(PlayerColor color) { return clockPeriods == null ? 0 : clockPeriods[color.ordinal()]; }
+
+    /** @return gracz, którego zegar chodzi, albo {@code null} */
+    public PlayerColor getClockRunning() { return clockRunning; }
+
     public char[][] getTerritoryMap() { return territoryMap; }
     public boolean[][] getDeadMask() { return deadMask; }
 
+    public int getGameId() { return gameId; }
+    public String getSessionToken() { return sessionToken; }
+    public long getLastSeq() { return lastSeq; }
+
     public boolean isFinished() { return finished; }
     public String getEndMessage() { return endMessage; }
 
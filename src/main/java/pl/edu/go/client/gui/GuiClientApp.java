@@ -9,6 +9,7 @@ import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import pl.edu.go.client.net.NetworkClient;
 import pl.edu.go.game.GamePhase;
+import pl.edu.go.game.PlayerColor;
 
 /**
  * {@code GuiClientApp} jest główną aplikacją JavaFX klienta gry Go.
@@ -38,6 +39,7 @@ public final class GuiClientApp extends Application {
     private Label colorLabel;
     private Label phaseLabel;
     private Label scoreLabel;
+    private Label clockLabel;
 
     private Button passBtn;
     private Button resignBtn;
@@ -50,7 +52,8 @@ public final class GuiClientApp extends Application {
      * <p>Najważniejsze powiązania:
      * <ul>
      *   <li>kliknięcia w {@link BoardView} → {@link GameController#onIntersectionClicked(int, int)}</li>
-     *   <li>linie z serwera → {@link GameModel#acceptServerLine(String)}</li>
+     *   <li>linie z serwera → {@link GameModel#acceptServerLine(String)}
+     *       (ramki protokołu binarnego → {@link GameModel#acceptServerFrame(byte[])})</li>
      *   <li>zmiana modelu → {@link #refreshUI()} na wątku JavaFX</li>
      * </ul>
      */
@@ -64,6 +67,8 @@ public final class GuiClientApp extends Application {
         TextField portField = new TextField("5001");
         portField.setPrefColumnCount(6);
 
+        CheckBox binaryBox = new CheckBox("Binary protocol");
+
         Button connectBtn = new Button("Connect");
         Button disconnectBtn = new Button("Disconnect");
         disconnectBtn.setDisable(true);
@@ -71,7 +76,7 @@ public final class GuiClientApp extends Application {
         HBox connectBar = new HBox(8,
                 new Label("Host:"), hostField,
                 new Label("Port:"), portField,
-                connectBtn, disconnectBtn);
+                binaryBox, connectBtn, disconnectBtn);
         connectBar.setPadding(new Insets(10));
 
         statusLabel = new Label("Disconnected");
@@ -79,8 +84,9 @@ public final class GuiClientApp extends Application {
         turnLabel = new Label("Turn: -");
         phaseLabel = new Label("Phase: -");
         scoreLabel = new Label("Score: -");
+        clockLabel = new Label("Clock: -");
 
-        VBox infoBox = new VBox(6, statusLabel, colorLabel, turnLabel, phaseLabel, scoreLabel);
+        VBox infoBox = new VBox(6, statusLabel, colorLabel, turnLabel, phaseLabel, scoreLabel, clockLabel);
         infoBox.setPadding(new Insets(10));
 
         boardView = new BoardView(model, 560, 560);
@@ -127,6 +133,7 @@ public final class GuiClientApp extends Application {
 
         // Odbierane linie z serwera aktualizują model; model sam powiadamia GUI przez listener
         net.setOnLine(model::acceptServerLine);
+        net.setOnFrame(model::acceptServerFrame);
 
         // Obsługa błędów sieciowych: przełączamy UI do stanu rozłączonego
         net.setOnError(ex -> Platform.runLater(() -> {
@@ -150,8 +157,16 @@ public final class GuiClientApp extends Application {
             }
 
             try {
-                net.connect(host, port);
+                net.connect(host, port, binaryBox.isSelected());
                 statusLabel.setText("Connected: " + host + ":" + port);
+
+                // ponowne połączenie w trakcie gry: wracamy na swoje miejsce i dociągamy brakujące zdarzenia;
+                // w przeciwnym razie prosimy o miejsce w nowej grze (serwer sadza dopiero po pierwszej linii)
+                if (model.getSessionToken() != null && !model.isFinished()) {
+                    net.sendLine("RESUME_SESSION " + model.getSessionToken() + " " + model.getLastSeq());
+                } else {
+                    net.sendLine("PLAY");
+                }
                 connectBtn.setDisable(true);
                 disconnectBtn.setDisable(false);
                 refreshUI();
@@ -206,6 +221,12 @@ public final class GuiClientApp extends Application {
             scoreLabel.setText("Score: -");
         }
 
+        if (model.getClockMillis(PlayerColor.BLACK) >= 0) {
+            clockLabel.setText("Clock: BLACK " + clockText(PlayerColor.BLACK) + " / WHITE " + clockText(PlayerColor.WHITE));
+        } else {
+            clockLabel.setText("Clock: -");
+        }
+
         boolean connected = net.isConnected();
         boolean finished = model.isFinished();
 
@@ -223,6 +244,17 @@ public final class GuiClientApp extends Application {
         }
     }
 
+    /** Czas gracza z ostatniej linii CLOCK jako {@code m:ss} (z liczbą okresów byo-yomi i gwiazdką przy chodzącym zegarze). */
+    private String clockText(PlayerColor color) {
+        long s = model.getClockMillis(color) / 1000;
+        String text = String.format("%d:%02d", s / 60, s % 60);
+        int periods = model.getClockPeriods(color);
+        if (periods > 0) {
+            text += " (" + periods + ")";
+        }
+        return model.getClockRunning() == color ? text + " *" : text;
+    }
+
     /**
      * Sprząta zasoby po zamknięciu aplikacji (rozłącza klienta).
      */
@@ -1,5 +1,7 @@
 package pl.edu.go.client.net;
 
+import pl.edu.go.protocol.BinaryProtocol;
+
 import java.io.*;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
@@ -17,17 +19,27 @@ import java.util.function.Consumer;
  *   <li>delegowanie odebranych linii do callbacku {@code onLine},</li>
  *   <li>wysyłanie komend tekstowych metodą {@link #sendLine(String)}.</li>
  * </ul>
+ *
+ * <p>Po połączeniu przez {@link #connect(String, int, boolean)} z {@code binary = true} klient negocjuje
+ * {@link BinaryProtocol}: komendy są wysyłane jako ramki binarne, a ramki odebrane po potwierdzeniu
+ * trafiają do callbacku {@code onFrame} (linie sprzed potwierdzenia nadal do {@code onLine}).
+ *
+ * <p>Na heartbeat serwera {@code PING [x]} klient odpowiada sam {@code PONG [x]}; linia nie trafia
+ * do callbacków, więc GUI i CLI nie muszą jej obsługiwać.
  */
 public final class NetworkClient {
 
     /** Gniazdo TCP (null, gdy rozłączono). */
     private Socket socket;
 
-    /** Strumień wejściowy w trybie liniowym (UTF-8). */
-    private BufferedReader in;
+    /** Surowy strumień wejściowy (linie UTF-8 lub ramki binarne). */
+    private InputStream in;
 
-    /** Strumień wyjściowy w trybie liniowym (UTF-8). */
-    private BufferedWriter out;
+    /** Surowy strumień wyjściowy (linie UTF-8 lub ramki binarne). */
+    private OutputStream out;
+
+    /** Czy komendy są wysyłane w protokole binarnym. */
+    private boolean binary;
 
     /** Wątek, który czyta linie z serwera i wywołuje {@code onLine}. */
     private Thread readerThread;
@@ -38,6 +50,9 @@ public final class NetworkClient {
     /** Callback wywoływany dla każdej odebranej linii protokołu. */
     private Consumer<String> onLine = s -> {};
 
+    /** Callback wywoływany dla każdej odebranej ramki binarnej (opcode + dane). */
+    private Consumer<byte[]> onFrame = f -> {};
+
     /** Callback wywoływany przy błędzie sieciowym podczas działania klienta. */
     private Consumer<Exception> onError = e -> {};
 
@@ -50,6 +65,15 @@ public final class NetworkClient {
         this.onLine = Objects.requireNonNull(onLine);
     }
 
+    /**
+     * Ustawia callback dla ramek binarnych (po wynegocjowaniu {@link BinaryProtocol}).
+     *
+     * @param onFrame funkcja obsługująca ramki z serwera (nie może być null)
+     */
+    public void setOnFrame(Consumer<byte[]> onFrame) {
+        this.onFrame = Objects.requireNonNull(onFrame);
+    }
+
     /**
      * Ustawia callback dla błędów sieciowych.
      *
@@ -67,13 +91,32 @@ public final class NetworkClient {
      * @throws IOException gdy już połączono lub nie udało się połączyć
      */
     public synchronized void connect(String host, int port) throws IOException {
+        connect(host, port, false);
+    }
+
+    /**
+     * Nawiązuje połączenie z serwerem, opcjonalnie negocjuje protokół binarny i uruchamia wątek odczytu.
+     *
+     * @param host   adres serwera
+     * @param port   port serwera
+     * @param binary czy użyć {@link BinaryProtocol}
+     * @throws IOException gdy już połączono lub nie udało się połączyć
+     */
+    public synchronized void connect(String host, int port, boolean binary) throws IOException {
         if (isConnected()) {
             throw new IOException("Already connected");
         }
 
         socket = new Socket(host, port);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
-        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+        this.binary = false;
+
+        if (binary) {
+            // od następnego bajtu serwer czyta nasze ramki binarne
+            sendLine(BinaryProtocol.HANDSHAKE);
+            this.binary = true;
+        }
 
         running.set(true);
         readerThread = new Thread(this::readLoop, "NetworkClient-Reader");
@@ -116,20 +159,58 @@ public final class NetworkClient {
         if (!isConnected() || out == null) {
             throw new IOException("Not connected");
         }
-        out.write(line);
-        out.write("\n");
+        if (binary) {
+            out.write(BinaryProtocol.encodeClientLine(line));
+        } else {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
         out.flush();
     }
 
+    /**
+     * Odpowiada na heartbeat serwera.
+     *
+     * @param line odebrana linia
+     * @return {@code true}, jeśli była to linia {@code PING} (obsłużona tutaj)
+     * @throws IOException gdy nie udało się wysłać {@code PONG}
+     */
+    private boolean answerPing(String line) throws IOException {
+        if (!line.startsWith("PING") || (line.length() > 4 && line.charAt(4) != ' ')) {
+            return false;
+        }
+        sendLine("PONG" + line.substring(4));
+        return true;
+    }
+
     /**
      * Pętla odczytu działająca w osobnym wątku.
-     * Czyta linie dopóki {@code running == true} i strumień nie zostanie zamknięty.
+     * Czyta linie dopóki {@code running == true} i strumień nie zostanie zamknięty;
+     * po potwierdzeniu {@value BinaryProtocol#HANDSHAKE} czyta ramki binarne.
      */
     private void readLoop() {
+        InputStream input = in;
         try {
-            String line;
-            while (running.get() && (line = in.readLine()) != null) {
-                onLine.accept(line);
+            boolean binaryInput = false;
+            while (running.get()) {
+                if (binaryInput) {
+                    byte[] frame = BinaryProtocol.readFrame(input);
+                    if (frame == null) break;
+                    if (frame[0] == BinaryProtocol.OP_TEXT && answerPing(BinaryProtocol.readText(frame))) {
+                        continue;
+                    }
+                    onFrame.accept(frame);
+                } else {
+                    String line = BinaryProtocol.readLine(input);
+                    if (line == null) break;
+                    if (line.equals(BinaryProtocol.HANDSHAKE)) {
+                        binaryInput = true;
+                        continue;
+                    }
+                    if (answerPing(line)) {
+                        continue;
+                    }
+                    onLine.accept(line);
+                }
             }
         } catch (Exception e) {
             if (running.get()) {
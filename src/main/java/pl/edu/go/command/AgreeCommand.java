@@ -14,6 +14,11 @@ public class AgreeCommand implements GameCommand {
     /** Kolor gracza, który wysłał komendę. */
     private final PlayerColor player;
 
+    /** Współdzielone instancje dla BLACK i WHITE (komenda jest niezmienna). */
+    private static final AgreeCommand[] SHARED = {
+            new AgreeCommand(PlayerColor.BLACK), new AgreeCommand(PlayerColor.WHITE)
+    };
+
     /**
      * @param player gracz wysyłający {@code AGREE}
      */
@@ -21,6 +26,16 @@ public class AgreeCommand implements GameCommand {
         this.player = player;
     }
 
+    /**
+     * Zwraca współdzieloną instancję komendy {@code AGREE} dla gracza (flyweight — bez alokacji na komendę).
+     *
+     * @param player gracz wysyłający {@code AGREE}
+     * @return komenda
+     */
+    public static AgreeCommand of(PlayerColor player) {
+        return SHARED[player.ordinal()];
+    }
+
     /**
      * Deleguje obsługę do {@link Game#agree(PlayerColor)}.
      */
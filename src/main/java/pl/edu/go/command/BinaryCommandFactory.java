@@ -0,0 +1,157 @@
+package pl.edu.go.command;
+
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.move.Move;
+import pl.edu.go.move.MoveFactory;
+import pl.edu.go.protocol.BinaryProtocol;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * {@code BinaryCommandFactory} mapuje ramkę protokołu binarnego na obiekt {@link GameCommand}.
+ *
+ * <p>Odpowiednik {@link TextCommandFactory} dla klientów w trybie {@link BinaryProtocol}:
+ * opcode wybiera komendę, a współrzędne ruchu są odczytywane bez parsowania tekstu.
+ * Fabryka waliduje format ramki, ale nie waliduje reguł gry.
+ *
+ * <p>Ramka {@link BinaryProtocol#OP_MOVES}: {@code varint liczba ruchów}, a dla każdego ruchu bajt rodzaju —
+ * {@value #MOVES_STONE} i dwie współrzędne ({@code signed varint}) albo {@value #MOVES_PASS} dla PASS.
+ * Współrzędna {@link Integer#MIN_VALUE} ({@link Game#PASS_COORDINATE}) jest odrzucana,
+ * więc PASS nie da się zakodować jako ruchu.
+ *
+ * <p>Ten sam format służy do zapisu zaakceptowanych komend w dzienniku gry:
+ * {@link #encode(GameCommand)} jest odwrotnością {@link #fromFrame(byte[], PlayerColor)}
+ * (kolor gracza zapisywany jest osobno).
+ */
+public class BinaryCommandFactory {
+
+    /** Rodzaj ruchu w ramce {@code MOVES}: kamień (za nim współrzędne x, y). */
+    static final int MOVES_STONE = 0;
+
+    /** Rodzaj ruchu w ramce {@code MOVES}: PASS. */
+    static final int MOVES_PASS = 1;
+
+    /** Czy seria ruchów {@code MOVES} jest dozwolona (jak w {@link TextCommandFactory}). */
+    private final boolean allowBatchMoves;
+
+    /**
+     * Tworzy fabrykę bez obsługi {@code MOVES}.
+     */
+    public BinaryCommandFactory() {
+        this(false);
+    }
+
+    /**
+     * @param allowBatchMoves czy akceptować serie ruchów {@code MOVES}
+     */
+    public BinaryCommandFactory(boolean allowBatchMoves) {
+        this.allowBatchMoves = allowBatchMoves;
+    }
+
+    /**
+     * Dekoduje ramkę i buduje odpowiadającą jej komendę.
+     *
+     * @param payload treść ramki (opcode + dane)
+     * @param player  gracz, w imieniu którego wykonujemy komendę
+     * @return obiekt komendy gotowy do wykonania na {@code Game}
+     * @throws IllegalArgumentException gdy ramka jest niepoprawna lub opcode nieznany
+     */
+    public GameCommand fromFrame(byte[] payload, PlayerColor player) {
+        if (payload == null || payload.length == 0) {
+            throw new IllegalArgumentException("Empty command");
+        }
+
+        byte opcode = payload[0];
+        if (opcode != BinaryProtocol.OP_MOVE && opcode != BinaryProtocol.OP_MOVES && payload.length != 1) {
+            throw new IllegalArgumentException("Command takes no arguments");
+        }
+
+        return switch (opcode) {
+            case BinaryProtocol.OP_MOVE -> {
+                BinaryProtocol.Reader r = new BinaryProtocol.Reader(payload, 1);
+                int x = r.readSignedVarint();
+                int y = r.readSignedVarint();
+                if (r.hasRemaining()) {
+                    throw new IllegalArgumentException("MOVE format: MOVE x y");
+                }
+                Move move = MoveFactory.createMove(player.toBoardColor(), x, y);
+                yield new PlaceStoneCommand(move);
+            }
+            case BinaryProtocol.OP_MOVES -> {
+                if (!allowBatchMoves) {
+                    throw new IllegalArgumentException("MOVES is disabled on this server");
+                }
+                BinaryProtocol.Reader r = new BinaryProtocol.Reader(payload, 1);
+                int count = r.readVarint();
+                if (count <= 0 || count > TextCommandFactory.MAX_BATCH_MOVES) {
+                    throw new IllegalArgumentException("MOVES accepts 1.." + TextCommandFactory.MAX_BATCH_MOVES + " moves");
+                }
+                int[] xs = new int[count];
+                int[] ys = new int[count];
+                for (int i = 0; i < count; i++) {
+                    int kind = r.readByte();
+                    if (kind == MOVES_PASS) {
+                        xs[i] = Game.PASS_COORDINATE;
+                    } else if (kind == MOVES_STONE) {
+                        xs[i] = r.readSignedVarint();
+                        ys[i] = r.readSignedVarint();
+                        if (xs[i] == Game.PASS_COORDINATE || ys[i] == Game.PASS_COORDINATE) {
+                            throw new IllegalArgumentException("Coordinate out of range: " + Integer.MIN_VALUE);
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Unknown MOVES entry: " + kind);
+                    }
+                }
+                if (r.hasRemaining()) {
+                    throw new IllegalArgumentException("MOVES frame has trailing data");
+                }
+                yield new MovesCommand(player, xs, ys);
+            }
+            case BinaryProtocol.OP_PASS -> PassCommand.of(player);
+            case BinaryProtocol.OP_RESIGN -> ResignCommand.of(player);
+            case BinaryProtocol.OP_AGREE -> AgreeCommand.of(player);
+            case BinaryProtocol.OP_RESUME -> ResumeCommand.of(player);
+            default -> throw new IllegalArgumentException("Unknown command opcode: " + (opcode & 0xFF));
+        };
+    }
+
+    /**
+     * Koduje komendę do treści ramki (opcode + dane), bez koloru gracza.
+     *
+     * @param command komenda
+     * @return treść ramki
+     * @throws IllegalArgumentException dla nieznanego typu komendy
+     */
+    public byte[] encode(GameCommand command) {
+        if (command instanceof PlaceStoneCommand place) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8);
+            out.write(BinaryProtocol.OP_MOVE);
+            BinaryProtocol.writeSignedVarint(out, place.getMove().getX());
+            BinaryProtocol.writeSignedVarint(out, place.getMove().getY());
+            return out.toByteArray();
+        }
+        if (command instanceof MovesCommand moves) {
+            int[] xs = moves.xs();
+            int[] ys = moves.ys();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(4 + 3 * xs.length);
+            out.write(BinaryProtocol.OP_MOVES);
+            BinaryProtocol.writeVarint(out, xs.length);
+            for (int i = 0; i < xs.length; i++) {
+                if (xs[i] == Game.PASS_COORDINATE) {
+                    out.write(MOVES_PASS);
+                } else {
+                    out.write(MOVES_STONE);
+                    BinaryProtocol.writeSignedVarint(out, xs[i]);
+                    BinaryProtocol.writeSignedVarint(out, ys[i]);
+                }
+            }
+            return out.toByteArray();
+        }
+        if (command instanceof PassCommand) return new byte[]{BinaryProtocol.OP_PASS};
+        if (command instanceof ResignCommand) return new byte[]{BinaryProtocol.OP_RESIGN};
+        if (command instanceof AgreeCommand) return new byte[]{BinaryProtocol.OP_AGREE};
+        if (command instanceof ResumeCommand) return new byte[]{BinaryProtocol.OP_RESUME};
+        throw new IllegalArgumentException("Unsupported command: " + command.getClass().getSimpleName());
+    }
+}
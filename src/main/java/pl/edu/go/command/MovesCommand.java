@@ -0,0 +1,62 @@
+package pl.edu.go.command;
+
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+
+/**
+ * {@code MovesCommand} enkapsuluje serię ruchów ({@code MOVES}) wykonywaną atomowo.
+ *
+ * <p><b>Wzorzec projektowy:</b> <b>Command</b>.
+ * Komenda deleguje wykonanie do {@link Game#playMoves(PlayerColor, int[], int[])}:
+ * ruchy są naprzemienne (od gracza wysyłającego), a cała seria daje jedną migawkę dla obserwatorów.
+ * Służy do importu partii, ustawiania pozycji szkoleniowych i gry botów ze sobą.
+ */
+public class MovesCommand implements GameCommand {
+
+    /** Gracz wykonujący pierwszy ruch serii. */
+    private final PlayerColor player;
+
+    /** Współrzędne x (lub {@link Game#PASS_COORDINATE} dla PASS). */
+    private final int[] xs;
+
+    /** Współrzędne y. */
+    private final int[] ys;
+
+    /**
+     * @param player gracz wysyłający {@code MOVES}
+     * @param xs     współrzędne x kolejnych ruchów (lub {@link Game#PASS_COORDINATE})
+     * @param ys     współrzędne y kolejnych ruchów
+     */
+    public MovesCommand(PlayerColor player, int[] xs, int[] ys) {
+        this.player = player;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * Zwraca liczbę ruchów w serii.
+     *
+     * @return liczba ruchów
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    /** @return współrzędne x (bez kopiowania — tylko do kodowania komendy) */
+    int[] xs() {
+        return xs;
+    }
+
+    /** @return współrzędne y (bez kopiowania — tylko do kodowania komendy) */
+    int[] ys() {
+        return ys;
+    }
+
+    /**
+     * Deleguje wykonanie serii do {@link Game#playMoves(PlayerColor, int[], int[])}.
+     */
+    @Override
+    public void execute(Game game) {
+        game.playMoves(player, xs, ys);
+    }
+}
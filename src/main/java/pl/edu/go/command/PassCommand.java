@@ -15,6 +15,11 @@ public class PassCommand implements GameCommand {
     /** Kolor gracza, który wykonał PASS. */
     private final PlayerColor player;
 
+    /** Współdzielone instancje dla BLACK i WHITE (komenda jest niezmienna). */
+    private static final PassCommand[] SHARED = {
+            new PassCommand(PlayerColor.BLACK), new PassCommand(PlayerColor.WHITE)
+    };
+
     /**
      * @param player gracz wykonujący {@code PASS}
      */
@@ -22,6 +27,16 @@ public class PassCommand implements GameCommand {
         this.player = player;
     }
 
+    /**
+     * Zwraca współdzieloną instancję komendy {@code PASS} dla gracza (flyweight — bez alokacji na komendę).
+     *
+     * @param player gracz wysyłający {@code PASS}
+     * @return komenda
+     */
+    public static PassCommand of(PlayerColor player) {
+        return SHARED[player.ordinal()];
+    }
+
     @Override
     public void execute(Game game) {
         // bez checka tury tutaj — walidacja tego, czy to tura gracza, jest po stronie Game/Board
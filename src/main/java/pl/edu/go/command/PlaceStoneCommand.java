@@ -22,6 +22,13 @@ public class PlaceStoneCommand implements GameCommand {
         this.move = move;
     }
 
+    /**
+     * @return ruch do wykonania
+     */
+    Move getMove() {
+        return move;
+    }
+
     @Override
     public void execute(Game game) {
         // bez żadnych checków tury tutaj — serwer jest Single Source of Truth dla walidacji
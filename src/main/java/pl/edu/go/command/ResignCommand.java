@@ -14,6 +14,11 @@ public class ResignCommand implements GameCommand {
     /** Gracz, który rezygnuje. */
     private final PlayerColor player;
 
+    /** Współdzielone instancje dla BLACK i WHITE (komenda jest niezmienna). */
+    private static final ResignCommand[] SHARED = {
+            new ResignCommand(PlayerColor.BLACK), new ResignCommand(PlayerColor.WHITE)
+    };
+
     /**
      * @param player gracz wysyłający {@code RESIGN}
      */
@@ -21,6 +26,16 @@ public class ResignCommand implements GameCommand {
         this.player = player;
     }
 
+    /**
+     * Zwraca współdzieloną instancję komendy {@code RESIGN} dla gracza (flyweight — bez alokacji na komendę).
+     *
+     * @param player gracz wysyłający {@code RESIGN}
+     * @return komenda
+     */
+    public static ResignCommand of(PlayerColor player) {
+        return SHARED[player.ordinal()];
+    }
+
     /**
      * Deleguje obsługę do {@link Game#resign(PlayerColor)}.
      */
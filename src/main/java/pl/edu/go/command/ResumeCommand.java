@@ -14,6 +14,11 @@ public class ResumeCommand implements GameCommand {
     /** Gracz wznawiający grę. */
     private final PlayerColor player;
 
+    /** Współdzielone instancje dla BLACK i WHITE (komenda jest niezmienna). */
+    private static final ResumeCommand[] SHARED = {
+            new ResumeCommand(PlayerColor.BLACK), new ResumeCommand(PlayerColor.WHITE)
+    };
+
     /**
      * @param player gracz wysyłający {@code RESUME}
      */
@@ -21,6 +26,16 @@ public class ResumeCommand implements GameCommand {
         this.player = player;
     }
 
+    /**
+     * Zwraca współdzieloną instancję komendy {@code RESUME} dla gracza (flyweight — bez alokacji na komendę).
+     *
+     * @param player gracz wysyłający {@code RESUME}
+     * @return komenda
+     */
+    public static ResumeCommand of(PlayerColor player) {
+        return SHARED[player.ordinal()];
+    }
+
     /**
      * Deleguje obsługę do {@link Game#resume(PlayerColor)}.
      */
@@ -1,5 +1,6 @@
 package pl.edu.go.command;
 
+import pl.edu.go.game.Game;
 import pl.edu.go.game.PlayerColor;
 import pl.edu.go.move.Move;
 import pl.edu.go.move.MoveFactory;
@@ -11,12 +12,42 @@ import pl.edu.go.move.MoveFactory;
  * <ul>
  *   <li><b>Simple Factory / Factory Method</b> — centralizuje tworzenie obiektów komend na podstawie tokenów.</li>
  *   <li><b>Command</b> — zwracane obiekty są implementacjami {@link GameCommand}.</li>
+ *   <li><b>Flyweight</b> — komendy bez argumentów ({@code PASS/RESIGN/AGREE/RESUME}) są współdzielonymi
+ *       instancjami per gracz.</li>
  * </ul>
  *
+ * <p>Parser działa wprost na {@link CharSequence}: ręcznie wyznacza granice tokenów, porównuje słowo kluczowe
+ * bez względu na wielkość liter i parsuje liczby bez tworzenia podciągów (bez regex i {@code split}).
+ * Jedyną alokacją poprawnej komendy jest ruch {@code MOVE}.
+ *
+ * <p><b>MOVES:</b> {@code MOVES x y [x y | PASS]...} — seria ruchów wykonywana atomowo
+ * ({@link MovesCommand}). Komenda jest domyślnie wyłączona, bo pozwala jednemu klientowi grać
+ * oboma kolorami; włącza ją konstruktor {@link #TextCommandFactory(boolean)}.
+ *
  * <p>Fabryka waliduje format wiadomości (liczbę argumentów, typy), ale nie waliduje reguł gry.
  */
 public class TextCommandFactory {
 
+    /** Maksymalna liczba ruchów w jednej komendzie {@code MOVES}. */
+    public static final int MAX_BATCH_MOVES = 1024;
+
+    /** Czy komenda {@code MOVES} jest dozwolona. */
+    private final boolean allowBatchMoves;
+
+    /**
+     * Tworzy fabrykę bez obsługi {@code MOVES}.
+     */
+    public TextCommandFactory() {
+        this(false);
+    }
+
+    /**
+     * @param allowBatchMoves czy akceptować serie ruchów {@code MOVES}
+     */
+    public TextCommandFactory(boolean allowBatchMoves) {
+        this.allowBatchMoves = allowBatchMoves;
+    }
+
     /**
      * Parsuje wiadomość protokołu i buduje odpowiadającą jej komendę.
      *
@@ -25,67 +56,197 @@ public class TextCommandFactory {
      * @return obiekt komendy gotowy do wykonania na {@code Game}
      * @throws IllegalArgumentException gdy format wiadomości jest niepoprawny lub komenda nieznana
      */
-    public GameCommand fromNetworkMessage(String message, PlayerColor player) {
+    public GameCommand fromNetworkMessage(CharSequence message, PlayerColor player) {
         if (message == null) {
             throw new IllegalArgumentException("Empty command");
         }
 
-        String trimmed = message.trim();
-        if (trimmed.isEmpty()) {
+        int len = message.length();
+
+        // granice tokenów: słowo kluczowe, dwa argumenty i ewentualny nadmiar
+        int keyStart = skipSpaces(message, 0, len);
+        if (keyStart == len) {
             throw new IllegalArgumentException("Empty command");
         }
+        int keyEnd = skipToken(message, keyStart, len);
+        int arg1Start = skipSpaces(message, keyEnd, len);
+        int arg1End = skipToken(message, arg1Start, len);
+        int arg2Start = skipSpaces(message, arg1End, len);
+        int arg2End = skipToken(message, arg2Start, len);
+        int restStart = skipSpaces(message, arg2End, len);
+
+        // liczba argumentów (3 = więcej niż dwa)
+        int args = arg1Start == len ? 0 : arg2Start == len ? 1 : restStart == len ? 2 : 3;
 
-        String[] parts = trimmed.split("\\s+");
-        String keyword = parts[0].toUpperCase();
-
-        return switch (keyword) {
-            case "MOVE" -> {
-                if (parts.length != 3) {
-                    throw new IllegalArgumentException("MOVE format: MOVE x y");
-                }
-                int x;
-                int y;
-                try {
-                    x = Integer.parseInt(parts[1]);
-                    y = Integer.parseInt(parts[2]);
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("MOVE coordinates must be integers: MOVE x y");
-                }
-
-                // MoveFactory buduje obiekt ruchu; walidacja legalności ruchu należy do Game/Board
-                Move move = MoveFactory.createMove(player.toBoardColor(), x, y);
-                yield new PlaceStoneCommand(move);
+        if (keywordIs(message, keyStart, keyEnd, "MOVE")) {
+            if (args != 2) {
+                throw new IllegalArgumentException("MOVE format: MOVE x y");
             }
+            int x = parseCoordinate(message, arg1Start, arg1End);
+            int y = parseCoordinate(message, arg2Start, arg2End);
+
+            // MoveFactory buduje obiekt ruchu; walidacja legalności ruchu należy do Game/Board
+            Move move = MoveFactory.createMove(player.toBoardColor(), x, y);
+            return new PlaceStoneCommand(move);
+        }
 
-            case "PASS" -> {
-                if (parts.length != 1) {
-                    throw new IllegalArgumentException("PASS takes no arguments");
-                }
-                yield new PassCommand(player);
+        if (keywordIs(message, keyStart, keyEnd, "MOVES")) {
+            if (!allowBatchMoves) {
+                throw new IllegalArgumentException("MOVES is disabled on this server");
+            }
+            return parseMoves(message, keyEnd, len, player);
+        }
+
+        if (keywordIs(message, keyStart, keyEnd, "PASS")) {
+            requireNoArguments(args, "PASS");
+            return PassCommand.of(player);
+        }
+
+        if (keywordIs(message, keyStart, keyEnd, "RESIGN")) {
+            requireNoArguments(args, "RESIGN");
+            return ResignCommand.of(player);
+        }
+
+        if (keywordIs(message, keyStart, keyEnd, "AGREE")) {
+            requireNoArguments(args, "AGREE");
+            return AgreeCommand.of(player);
+        }
+
+        if (keywordIs(message, keyStart, keyEnd, "RESUME")) {
+            requireNoArguments(args, "RESUME");
+            return ResumeCommand.of(player);
+        }
+
+        throw new IllegalArgumentException(
+                "Unknown command: " + message.subSequence(keyStart, keyEnd).toString().toUpperCase());
+    }
+
+    /**
+     * Parsuje argumenty {@code MOVES}: pary współrzędnych lub {@code PASS}.
+     */
+    private static GameCommand parseMoves(CharSequence s, int from, int len, PlayerColor player) {
+        // pierwszy przebieg: liczba ruchów (bez alokacji pośrednich tokenów)
+        int count = 0;
+        int i = skipSpaces(s, from, len);
+        while (i < len) {
+            int end = skipToken(s, i, len);
+            if (keywordIs(s, i, end, "PASS")) {
+                count++;
+                i = skipSpaces(s, end, len);
+                continue;
             }
+            int yStart = skipSpaces(s, end, len);
+            if (yStart == len) {
+                throw new IllegalArgumentException("MOVES format: MOVES x y [x y | PASS]...");
+            }
+            count++;
+            i = skipSpaces(s, skipToken(s, yStart, len), len);
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("MOVES format: MOVES x y [x y | PASS]...");
+        }
+        if (count > MAX_BATCH_MOVES) {
+            throw new IllegalArgumentException("MOVES accepts at most " + MAX_BATCH_MOVES + " moves");
+        }
 
-            case "RESIGN" -> {
-                if (parts.length != 1) {
-                    throw new IllegalArgumentException("RESIGN takes no arguments");
-                }
-                yield new ResignCommand(player);
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        i = skipSpaces(s, from, len);
+        for (int k = 0; k < count; k++) {
+            int end = skipToken(s, i, len);
+            if (keywordIs(s, i, end, "PASS")) {
+                xs[k] = Game.PASS_COORDINATE;
+                i = skipSpaces(s, end, len);
+                continue;
             }
+            int yStart = skipSpaces(s, end, len);
+            int yEnd = skipToken(s, yStart, len);
+            xs[k] = parseCoordinate(s, i, end);
+            ys[k] = parseCoordinate(s, yStart, yEnd);
+            i = skipSpaces(s, yEnd, len);
+        }
+        return new MovesCommand(player, xs, ys);
+    }
+
+    private static void requireNoArguments(int args, String keyword) {
+        if (args != 0) {
+            throw new IllegalArgumentException(keyword + " takes no arguments");
+        }
+    }
+
+    /** Czy znak jest białym znakiem w sensie {@code \s} (spacja, tab, końce linii, VT, FF). */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static int skipSpaces(CharSequence s, int from, int len) {
+        while (from < len && isSpace(s.charAt(from))) from++;
+        return from;
+    }
+
+    private static int skipToken(CharSequence s, int from, int len) {
+        while (from < len && !isSpace(s.charAt(from))) from++;
+        return from;
+    }
 
-            case "AGREE" -> {
-                if (parts.length != 1) {
-                    throw new IllegalArgumentException("AGREE takes no arguments");
-                }
-                yield new AgreeCommand(player);
+    /**
+     * Porównuje token z wielkimi literami słowa kluczowego bez względu na wielkość liter (ASCII).
+     */
+    private static boolean keywordIs(CharSequence s, int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = s.charAt(start + i);
+            if (c >= 'a' && c <= 'z') {
+                c = (char) (c - ('a' - 'A'));
             }
+            if (c != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            case "RESUME" -> {
-                if (parts.length != 1) {
-                    throw new IllegalArgumentException("RESUME takes no arguments");
-                }
-                yield new ResumeCommand(player);
+    /**
+     * Parsuje liczbę całkowitą z tokenu (jak {@link Integer#parseInt(String)}: opcjonalny znak, cyfry dziesiętne).
+     * {@link Integer#MIN_VALUE} jest odrzucany — w {@code MOVES} oznacza PASS ({@link Game#PASS_COORDINATE}).
+     *
+     * @throws IllegalArgumentException gdy token nie jest liczbą typu {@code int} albo jest nią {@code MIN_VALUE}
+     */
+    private static int parseCoordinate(CharSequence s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        if (i == end) {
+            throw notAnInteger();
+        }
+
+        // akumulujemy ujemnie, żeby objąć Integer.MIN_VALUE
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw notAnInteger();
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw notAnInteger();
             }
+            result -= digit;
+        }
+        if (result == Integer.MIN_VALUE) {
+            throw new IllegalArgumentException("Coordinate out of range: " + Integer.MIN_VALUE);
+        }
+        return negative ? result : -result;
+    }
 
-            default -> throw new IllegalArgumentException("Unknown command: " + keyword);
-        };
+    private static IllegalArgumentException notAnInteger() {
+        return new IllegalArgumentException("MOVE coordinates must be integers: MOVE x y");
     }
 }
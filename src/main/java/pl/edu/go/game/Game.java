@@ -21,7 +21,7 @@ import java.util.List;
  * <p><b>Wzorzec projektowy:</b>
  * <ul>
  *   <li><b>Observer</b> — {@code Game} publikuje zdarzenia do {@link pl.edu.go.game.GameObserver}
- *       (zmiana planszy, tury, fazy, zakończenie gry).</li>
+ *       (zmiana planszy, delty ruchu, tury, fazy, zakończenie gry).</li>
  * </ul>
  *
  * <p><b>Zasada 8 (minimal review):</b>
@@ -33,6 +33,14 @@ import java.util.List;
  * </ul>
  *
  * <p><b>Zadanie 10:</b> gracz może zakończyć grę w dowolnym momencie przez {@code RESIGN}.
+ * Przekroczenie czasu ({@link #timeout(PlayerColor)}) kończy grę tak samo, z powodem {@code time}.
+ *
+ * <p><b>Historia:</b> każdy ruch, PASS, AGREE, RESUME, RESIGN i TIMEOUT jest dopisywany do {@link MoveHistory}
+ * (jeden {@code short} na zdarzenie). Kamienie ustawione przed partią ({@link #placeSetupStone(PlayerColor, int, int)})
+ * tworzą sekcję ustawienia na początku historii.
+ *
+ * <p><b>Seria ruchów:</b> {@link #playMoves(PlayerColor, int[], int[])} wykonuje wiele ruchów atomowo —
+ * obserwatorzy dostają jedną migawkę stanu po całej serii, a błąd dowolnego ruchu cofa całość.
  */
 public class Game {
 
@@ -49,14 +57,33 @@ public class Game {
     private boolean agreedBlack = false;
     private boolean agreedWhite = false;
 
+    /** Ostatnio opublikowany punkt KO ({@code -1} gdy brak). */
+    private int koPoint = -1;
+
     private final List<GameObserver> observers = new ArrayList<>();
 
+    /** Wartość współrzędnej {@code x} oznaczająca PASS w serii ruchów {@link #playMoves(PlayerColor, int[], int[])}. */
+    public static final int PASS_COORDINATE = Integer.MIN_VALUE;
+
+    /** Zapis przebiegu gry. */
+    private final MoveHistory history = new MoveHistory();
+
+    /** Numer ostatniego ruchu (kamienie i PASS). */
+    private int moveNumber = 0;
+
+    /** Głębokość wyciszenia powiadomień (> 0 podczas serii ruchów wykonywanej atomowo). */
+    private int silentDepth = 0;
+
     /**
      * Tworzy nową sesję gry na podanej planszy.
      *
      * @param board plansza gry (źródło prawdy dla reguł planszy)
+     * @throws IllegalArgumentException gdy plansza jest zbyt duża, by zapisać jej ruchy w {@link MoveHistory}
      */
     public Game(Board board) {
+        if (board.getSize() * board.getSize() > MoveHistory.MAX_POINTS) {
+            throw new IllegalArgumentException("Board too large: " + board.getSize());
+        }
         this.board = board;
     }
 
@@ -81,12 +108,21 @@ public class Game {
     /**
      * Informuje, czy gra jest zakończona.
      *
-     * @return {@code true} jeśli gra została zakończona (RESIGN lub punktacja)
+     * @return {@code true} jeśli gra została zakończona (RESIGN, przekroczenie czasu lub punktacja)
      */
     public boolean isFinished() {
         return finished;
     }
 
+    /**
+     * Zwraca wynik zakończonej gry.
+     *
+     * @return wynik gry lub {@code null}, jeśli gra trwa
+     */
+    public GameResult getResult() {
+        return result;
+    }
+
     /**
      * Zwraca aktualną fazę gry.
      *
@@ -114,11 +150,117 @@ public class Game {
         observers.remove(observer);
     }
 
+    /**
+     * Zwraca aktualny punkt KO (pole zakazane dla gracza na ruchu).
+     *
+     * @return punkt w kodowaniu {@code y * size + x} lub {@code -1}, gdy brak KO
+     */
+    public int getKoPoint() {
+        return koPoint;
+    }
+
+    /**
+     * Zwraca historię gry (tylko do odczytu).
+     *
+     * @return zapis ruchów, PASS, AGREE, RESUME, RESIGN i TIMEOUT
+     */
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Zwraca numer ostatniego ruchu — liczbę postawionych kamieni i PASS od początku gry.
+     *
+     * @return numer ruchu (0 przed pierwszym ruchem)
+     */
+    public int getMoveNumber() {
+        return moveNumber;
+    }
+
+    /**
+     * Ustala gracza rozpoczynającego partię (np. WHITE po kamieniach handicapowych przy imporcie SGF).
+     *
+     * @param player gracz wykonujący pierwszy ruch
+     * @throws IllegalStateException gdy w grze zapisano już jakieś zdarzenie (poza kamieniami ustawionymi)
+     */
+    public void setStartingPlayer(PlayerColor player) {
+        if (history.size() > history.setupSize() || phase != GamePhase.PLAYING) {
+            throw new IllegalStateException("Starting player can be set only before the first move");
+        }
+        if (currentPlayer != player) {
+            currentPlayer = player;
+            notifyPlayerToMoveChanged();
+        }
+    }
+
+    /**
+     * Stawia kamień ustawiony przed partią (np. handicap albo {@code AB}/{@code AW} z SGF).
+     *
+     * <p>Kamień trafia do sekcji ustawienia {@link MoveHistory}, więc eksport i powtórka zaczynają
+     * od tej samej pozycji co gra. Nie zmienia tury ani numeru ruchu.</p>
+     *
+     * @param color kolor kamienia
+     * @param x     kolumna
+     * @param y     wiersz
+     * @throws IllegalStateException    gdy w grze zapisano już ruch lub inne zdarzenie
+     * @throws IllegalArgumentException gdy kamienia nie można postawić na {@link Board}
+     */
+    public void placeSetupStone(PlayerColor color, int x, int y) {
+        if (history.size() > history.setupSize() || phase != GamePhase.PLAYING) {
+            throw new IllegalStateException("Setup stones can be placed only before the first move");
+        }
+        if (!board.playMove(color.toBoardColor(), x, y)) {
+            throw new IllegalArgumentException("Illegal setup stone");
+        }
+        history.append(MoveHistory.encodeSetup(color, board.point(x, y)));
+        notifyBoardChanged();
+    }
+
+    /**
+     * Odtwarza historię z migawki ({@link GameSnapshotCodec}).
+     */
+    void restoreHistory(short[] entries) {
+        history.truncate(0);
+        moveNumber = 0;
+        for (short e : entries) {
+            history.append(e);
+            if (MoveHistory.isStone(e) || MoveHistory.code(e) == MoveHistory.PASS) {
+                moveNumber++;
+            }
+        }
+    }
+
+    /** Liczba kolejnych PASS (dla {@link GameSnapshotCodec}). */
+    int getConsecutivePasses() {
+        return consecutivePasses;
+    }
+
+    /** Czy gracz zaakceptował wynik w {@code SCORING_REVIEW} (dla {@link GameSnapshotCodec}). */
+    boolean hasAgreed(PlayerColor player) {
+        return player == PlayerColor.BLACK ? agreedBlack : agreedWhite;
+    }
+
+    /**
+     * Ustawia stan gry odczytany z migawki ({@link GameSnapshotCodec}) bez powiadamiania obserwatorów.
+     */
+    void restoreState(PlayerColor currentPlayer, GamePhase phase, boolean finished, int consecutivePasses,
+                      boolean agreedBlack, boolean agreedWhite, GameResult result, int koPoint) {
+        this.currentPlayer = currentPlayer;
+        this.phase = phase;
+        this.finished = finished;
+        this.consecutivePasses = consecutivePasses;
+        this.agreedBlack = agreedBlack;
+        this.agreedWhite = agreedWhite;
+        this.result = result;
+        this.koPoint = koPoint;
+    }
+
     /**
      * Powiadamia obserwatorów o zmianie planszy.
      * Wywoływane po poprawnym ruchu (MOVE) lub po zdarzeniach wpływających na widok planszy.
      */
     private void notifyBoardChanged() {
+        if (silentDepth > 0) return;
         for (GameObserver o : observers) {
             o.onBoardChanged(board);
         }
@@ -129,6 +271,7 @@ public class Game {
      * Wywoływane po ruchu lub PASS/RESUME.
      */
     private void notifyPlayerToMoveChanged() {
+        if (silentDepth > 0) return;
         for (GameObserver o : observers) {
             o.onPlayerToMoveChanged(currentPlayer);
         }
@@ -139,6 +282,7 @@ public class Game {
      * Przekazuje końcowy {@link GameResult}.
      */
     private void notifyGameEnded() {
+        if (silentDepth > 0) return;
         for (GameObserver o : observers) {
             o.onGameEnded(result);
         }
@@ -149,11 +293,63 @@ public class Game {
      * Np. przejście do {@code SCORING_REVIEW} lub {@code FINISHED}.
      */
     private void notifyPhaseChanged() {
+        if (silentDepth > 0) return;
         for (GameObserver o : observers) {
             o.onPhaseChanged(phase);
         }
     }
 
+    /**
+     * Powiadamia obserwatorów o postawieniu kamienia.
+     */
+    private void notifyStonePlaced(PlayerColor player, int x, int y) {
+        if (silentDepth > 0) return;
+        for (GameObserver o : observers) {
+            o.onStonePlaced(player, x, y);
+        }
+    }
+
+    /**
+     * Powiadamia obserwatorów o zbitych kamieniach (jedna tablica dla wszystkich obserwatorów).
+     */
+    private void notifyStonesCaptured(PlayerColor capturedColor, int[] points) {
+        if (silentDepth > 0) return;
+        for (GameObserver o : observers) {
+            o.onStonesCaptured(capturedColor, points);
+        }
+    }
+
+    /**
+     * Powiadamia obserwatorów o zmianie punktu KO.
+     */
+    private void notifyKoPointChanged() {
+        if (silentDepth > 0) return;
+        for (GameObserver o : observers) {
+            o.onKoPointChanged(koPoint);
+        }
+    }
+
+    /**
+     * Publikuje zdarzenia szczegółowe ostatniego ruchu na podstawie delty z {@link Board}.
+     *
+     * @param player gracz, który wykonał ruch
+     * @param x      kolumna
+     * @param y      wiersz
+     */
+    private void publishMoveDelta(PlayerColor player, int x, int y) {
+        notifyStonePlaced(player, x, y);
+
+        if (board.getLastCapturedCount() > 0) {
+            notifyStonesCaptured(player.opposite(), board.getLastCaptured());
+        }
+
+        int newKo = board.getKoPoint();
+        if (newKo != koPoint) {
+            koPoint = newKo;
+            notifyKoPointChanged();
+        }
+    }
+
     // ===== MOVE =====
 
     /**
@@ -200,12 +396,93 @@ public class Game {
         }
 
         consecutivePasses = 0;
+        record(player, board.point(x, y));
+        moveNumber++;
 
         currentPlayer = currentPlayer.opposite();
+        publishMoveDelta(player, x, y);
         notifyBoardChanged();
         notifyPlayerToMoveChanged();
     }
 
+    // ===== MOVES (seria ruchów) =====
+
+    /**
+     * Wykonuje serię ruchów jako jedną, atomową operację (komenda {@code MOVES}).
+     *
+     * <p>Ruchy wykonywane są naprzemiennie, począwszy od gracza {@code player} (który musi być na ruchu).
+     * Element z {@code xs[i] == }{@link #PASS_COORDINATE} oznacza PASS. W trakcie serii powiadomienia
+     * obserwatorów są wstrzymane; po jej zakończeniu publikowana jest jedna migawka:
+     * plansza, ewentualna zmiana punktu KO oraz tura albo nowa faza (gdy seria kończy się dwoma PASS).
+     *
+     * <p>Jeśli którykolwiek ruch jest niepoprawny, stan gry i planszy wraca do stanu sprzed serii,
+     * a wyjątek wskazuje numer ruchu.
+     *
+     * @param player gracz wykonujący pierwszy ruch serii
+     * @param xs     współrzędne x (lub {@link #PASS_COORDINATE})
+     * @param ys     współrzędne y
+     * @throws IllegalStateException    gdy gra jest zakończona, nie trwa faza PLAYING lub nie jest to tura gracza
+     * @throws IllegalArgumentException gdy seria jest pusta lub któryś ruch jest nielegalny
+     */
+    public void playMoves(PlayerColor player, int[] xs, int[] ys) {
+        if (finished) {
+            throw new IllegalStateException("Game already finished");
+        }
+        if (phase != GamePhase.PLAYING) {
+            throw new IllegalStateException("Not in PLAYING phase");
+        }
+        if (player != currentPlayer) {
+            throw new IllegalStateException("Not your turn: " + player.name());
+        }
+        if (xs.length == 0 || xs.length != ys.length) {
+            throw new IllegalArgumentException("MOVES requires at least one move");
+        }
+
+        // stan do ewentualnego cofnięcia
+        Board saved = new Board(board.getSize());
+        saved.copyFrom(board);
+        PlayerColor savedPlayer = currentPlayer;
+        int savedPasses = consecutivePasses;
+        int savedKo = koPoint;
+        int savedHistory = history.size();
+        int savedMoveNumber = moveNumber;
+
+        silentDepth++;
+        try {
+            for (int i = 0; i < xs.length; i++) {
+                try {
+                    if (xs[i] == PASS_COORDINATE) {
+                        pass(currentPlayer);
+                    } else {
+                        playMove(currentPlayer, xs[i], ys[i]);
+                    }
+                } catch (RuntimeException e) {
+                    board.copyFrom(saved);
+                    currentPlayer = savedPlayer;
+                    consecutivePasses = savedPasses;
+                    koPoint = savedKo;
+                    history.truncate(savedHistory);
+                    moveNumber = savedMoveNumber;
+                    phase = GamePhase.PLAYING;
+                    throw new IllegalArgumentException("MOVES #" + (i + 1) + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            silentDepth--;
+        }
+
+        // jedna migawka po całej serii
+        notifyBoardChanged();
+        if (koPoint != savedKo) {
+            notifyKoPointChanged();
+        }
+        if (phase != GamePhase.PLAYING) {
+            notifyPhaseChanged();
+        } else {
+            notifyPlayerToMoveChanged();
+        }
+    }
+
     // ===== PASS =====
 
     /**
@@ -229,6 +506,8 @@ public class Game {
         }
 
         consecutivePasses++;
+        record(player, MoveHistory.PASS);
+        moveNumber++;
 
         if (consecutivePasses >= 2) {
             phase = GamePhase.SCORING_REVIEW;
@@ -259,6 +538,7 @@ public class Game {
             throw new IllegalStateException("AGREE allowed only in SCORING_REVIEW");
         }
 
+        record(player, MoveHistory.AGREE);
         if (player == PlayerColor.BLACK) {
             agreedBlack = true;
         } else {
@@ -287,6 +567,7 @@ public class Game {
             throw new IllegalStateException("RESUME allowed only in SCORING_REVIEW");
         }
 
+        record(player, MoveHistory.RESUME);
         phase = GamePhase.PLAYING;
         consecutivePasses = 0;
         agreedBlack = false;
@@ -312,6 +593,7 @@ public class Game {
             throw new IllegalStateException("Game already finished");
         }
 
+        record(player, MoveHistory.RESIGN);
         finished = true;
         phase = GamePhase.FINISHED;
         notifyPhaseChanged();
@@ -320,6 +602,36 @@ public class Game {
         notifyGameEnded();
     }
 
+    // ===== TIMEOUT =====
+
+    /**
+     * Kończy grę przekroczeniem czasu ({@link GameClock}) — wygrywa przeciwnik, powód {@code time}.
+     *
+     * <p>Przekroczenie stwierdza zegar poza {@code Game}; gra tylko zapisuje je w historii
+     * i publikuje wynik tą samą drogą co {@code RESIGN}.</p>
+     *
+     * @param player gracz, który przekroczył czas
+     * @throws IllegalStateException jeśli gra już jest zakończona
+     */
+    public void timeout(PlayerColor player) {
+        if (finished) {
+            throw new IllegalStateException("Game already finished");
+        }
+
+        record(player, MoveHistory.TIMEOUT);
+        finished = true;
+        phase = GamePhase.FINISHED;
+        notifyPhaseChanged();
+
+        result = new GameResult(player.opposite(), "time");
+        notifyGameEnded();
+    }
+
+    /** Dopisuje zdarzenie gracza do historii. */
+    private void record(PlayerColor player, int code) {
+        history.append(MoveHistory.encode(player, code));
+    }
+
     // ===== koniec przez terytorium (zasada 9) =====
 
     /**
@@ -0,0 +1,224 @@
+package pl.edu.go.game;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GameClock} to zegar szachowy partii: odlicza czas gracza na ruchu według {@link TimeControl}.
+ *
+ * <p>Zegar nie ma własnego wątku ani źródła czasu — każda operacja dostaje bieżący czas
+ * ({@link System#nanoTime()} albo czas testu). Dzięki temu jest deterministyczny, a o tym,
+ * <b>kiedy</b> sprawdzić przekroczenie czasu, decyduje właściciel (np. timer ustawiony na {@link #deadline()}).
+ *
+ * <p>Przebieg: {@link #start(PlayerColor, long)} uruchamia zegar gracza na ruchu, a kolejny
+ * {@code start} albo {@link #stop(long)} rozlicza zużyty czas (przyrost Fischera, okresy byo-yomi).
+ * Gracz przekracza czas, gdy zegar jest uruchomiony, a bieżący czas osiąga {@link #deadline()}.
+ *
+ * <p>Klasa nie jest bezpieczna wielowątkowo (używa jej sesja pod swoją blokadą).
+ */
+public final class GameClock {
+
+    private final TimeControl control;
+
+    /** Pozostały czas podstawowy graczy w ns (indeks: {@link PlayerColor#ordinal()}). */
+    private final long[] main = new long[2];
+
+    /** Pozostałe okresy byo-yomi graczy. */
+    private final int[] periods = new int[2];
+
+    /** Gracz, którego zegar chodzi ({@code null} = zegar zatrzymany). */
+    private PlayerColor running;
+
+    /** Początek bieżącego ruchu ({@link System#nanoTime()}). */
+    private long turnStart;
+
+    /**
+     * Tworzy zatrzymany zegar z pełnym czasem obu graczy.
+     *
+     * @param control kontrola czasu
+     */
+    public GameClock(TimeControl control) {
+        this.control = control;
+        long mainNanos = TimeUnit.MILLISECONDS.toNanos(control.getMainMillis());
+        main[0] = mainNanos;
+        main[1] = mainNanos;
+        periods[0] = control.getPeriods();
+        periods[1] = control.getPeriods();
+    }
+
+    /**
+     * Zwraca kontrolę czasu zegara.
+     *
+     * @return kontrola czasu
+     */
+    public TimeControl getControl() {
+        return control;
+    }
+
+    /**
+     * Zwraca gracza, którego zegar chodzi.
+     *
+     * @return gracz na ruchu albo {@code null}, gdy zegar jest zatrzymany
+     */
+    public PlayerColor getRunning() {
+        return running;
+    }
+
+    /**
+     * Uruchamia zegar gracza; wcześniej rozlicza ruch gracza, którego zegar chodził.
+     *
+     * @param player gracz na ruchu
+     * @param now    bieżący czas w ns
+     * @return {@code false}, jeśli rozliczany gracz przekroczył czas (jego zegar zostaje wtedy zatrzymany)
+     */
+    public boolean start(PlayerColor player, long now) {
+        if (!stop(now)) {
+            return false;
+        }
+        running = player;
+        turnStart = now;
+        return true;
+    }
+
+    /**
+     * Zatrzymuje zegar i rozlicza ruch gracza, którego zegar chodził.
+     *
+     * @param now bieżący czas w ns
+     * @return {@code false}, jeśli gracz przekroczył czas przed zatrzymaniem zegara
+     */
+    public boolean stop(long now) {
+        PlayerColor p = running;
+        if (p == null) {
+            return true;
+        }
+        running = null;
+        int i = p.ordinal();
+        long elapsed = now - turnStart;
+        switch (control.getType()) {
+            case ABSOLUTE -> {
+                main[i] -= elapsed;
+                if (main[i] <= 0) {
+                    main[i] = 0;
+                    return false;
+                }
+            }
+            case FISCHER -> {
+                main[i] -= elapsed;
+                if (main[i] <= 0) {
+                    main[i] = 0;
+                    return false;
+                }
+                main[i] += TimeUnit.MILLISECONDS.toNanos(control.getIncrementMillis());
+            }
+            case BYO_YOMI -> {
+                if (elapsed < main[i]) {
+                    main[i] -= elapsed;
+                } else {
+                    long over = elapsed - main[i];
+                    main[i] = 0;
+                    // każdy pełny okres przekroczony w tym ruchu przepada; bieżący odnawia się
+                    long used = over / periodNanos();
+                    if (used >= periods[i]) {
+                        periods[i] = 0;
+                        return false;
+                    }
+                    periods[i] -= (int) used;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Zwraca chwilę, w której gracz na ruchu przekroczy czas.
+     *
+     * @return czas w ns ({@link System#nanoTime()}) albo {@link Long#MAX_VALUE}, gdy zegar jest zatrzymany
+     */
+    public long deadline() {
+        if (running == null) {
+            return Long.MAX_VALUE;
+        }
+        int i = running.ordinal();
+        return turnStart + main[i] + periods[i] * periodNanos();
+    }
+
+    /**
+     * Informuje, czy gracz na ruchu przekroczył czas.
+     *
+     * @param now bieżący czas w ns
+     * @return {@code true}, gdy zegar chodzi i minął {@link #deadline()}
+     */
+    public boolean isFlagged(long now) {
+        return running != null && now - deadline() >= 0;
+    }
+
+    /**
+     * Zwraca czas pozostały graczowi w bieżącym odcinku: czas podstawowy, a po jego wyczerpaniu
+     * (byo-yomi) — czas bieżącego okresu.
+     *
+     * @param player gracz
+     * @param now    bieżący czas w ns
+     * @return pozostały czas w ms (0 po przekroczeniu)
+     */
+    public long remainingMillis(PlayerColor player, long now) {
+        int i = player.ordinal();
+        long elapsed = player == running ? now - turnStart : 0;
+        long left;
+        if (elapsed < main[i]) {
+            left = main[i] - elapsed;
+        } else if (control.getType() == TimeControl.Type.BYO_YOMI && periods[i] > 0) {
+            long over = elapsed - main[i];
+            left = over / periodNanos() >= periods[i] ? 0 : periodNanos() - over % periodNanos();
+        } else {
+            left = 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(left);
+    }
+
+    /**
+     * Zwraca liczbę okresów byo-yomi pozostałych graczowi (łącznie z bieżącym).
+     *
+     * @param player gracz
+     * @param now    bieżący czas w ns
+     * @return liczba okresów (0 poza byo-yomi)
+     */
+    public int periodsLeft(PlayerColor player, long now) {
+        int i = player.ordinal();
+        if (player != running || periods[i] == 0) {
+            return periods[i];
+        }
+        long over = now - turnStart - main[i];
+        return over <= 0 ? periods[i] : (int) Math.max(0, periods[i] - over / periodNanos());
+    }
+
+    /**
+     * Zwraca czas podstawowy gracza rozliczony do początku bieżącego ruchu (bez czasu, który właśnie upływa).
+     * Razem z {@link #periodsLeft(PlayerColor, long)} opisuje stan zegara gracza zapisywany w dzienniku.
+     *
+     * @param player gracz
+     * @return pozostały czas podstawowy w ms
+     */
+    public long bankedMillis(PlayerColor player) {
+        return TimeUnit.NANOSECONDS.toMillis(main[player.ordinal()]);
+    }
+
+    /**
+     * Ustawia stan zegara gracza, np. odtworzony z dziennika po restarcie serwera.
+     *
+     * @param player     gracz
+     * @param mainMillis pozostały czas podstawowy w ms
+     * @param periods    pozostałe okresy byo-yomi
+     * @throws IllegalStateException gdy zegar chodzi
+     */
+    public void restore(PlayerColor player, long mainMillis, int periods) {
+        if (running != null) {
+            throw new IllegalStateException("Clock is running");
+        }
+        int i = player.ordinal();
+        main[i] = TimeUnit.MILLISECONDS.toNanos(Math.max(0, mainMillis));
+        this.periods[i] = Math.max(0, periods);
+    }
+
+    private long periodNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(control.getPeriodMillis());
+    }
+}
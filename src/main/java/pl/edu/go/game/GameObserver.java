@@ -8,6 +8,14 @@ import pl.edu.go.board.Board;
  * <p><b>Wzorzec projektowy:</b> <b>Observer</b>.
  * Implementacje subskrybują zdarzenia z {@link pl.edu.go.game.Game}
  * i reagują na zmiany (np. rozsyłając protokół do klientów).
+ *
+ * <p><b>Zdarzenia szczegółowe (delty ruchu):</b> oprócz {@link #onBoardChanged(Board)},
+ * które przekazuje całą planszę, {@code Game} publikuje zmiany wykonane przez pojedynczy ruch
+ * ({@link #onStonePlaced}, {@link #onStonesCaptured}, {@link #onKoPointChanged}).
+ * Mają one prymitywne argumenty i domyślne puste implementacje, więc obserwator może reagować
+ * w czasie O(zmian) zamiast O(planszy), a dotychczasowe implementacje działają bez zmian.
+ *
+ * <p>Punkty są kodowane jako {@code y * size + x} (zob. {@link Board#point(int, int)}).
  */
 public interface GameObserver {
 
@@ -38,4 +46,34 @@ public interface GameObserver {
      * @param phase nowa faza gry
      */
     void onPhaseChanged(GamePhase phase);
+
+    /**
+     * Zdarzenie: postawienie kamienia przez poprawny ruch (przed {@link #onBoardChanged(Board)}).
+     *
+     * @param player gracz, który postawił kamień
+     * @param x      kolumna
+     * @param y      wiersz
+     */
+    default void onStonePlaced(PlayerColor player, int x, int y) {
+    }
+
+    /**
+     * Zdarzenie: zbicie kamieni w wyniku ostatniego ruchu.
+     *
+     * <p>Tablica jest współdzielona przez wszystkich obserwatorów tego zdarzenia
+     * i nie powinna być modyfikowana.
+     *
+     * @param capturedColor kolor zbitych kamieni
+     * @param points        zbite punkty w kodowaniu {@code y * size + x}
+     */
+    default void onStonesCaptured(PlayerColor capturedColor, int[] points) {
+    }
+
+    /**
+     * Zdarzenie: zmiana punktu KO (pola zakazanego dla przeciwnika w następnym ruchu).
+     *
+     * @param koPoint punkt w kodowaniu {@code y * size + x} lub {@code -1}, gdy KO zniknęło
+     */
+    default void onKoPointChanged(int koPoint) {
+    }
 }
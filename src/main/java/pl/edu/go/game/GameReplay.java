@@ -0,0 +1,169 @@
+package pl.edu.go.game;
+
+import pl.edu.go.board.Board;
+import pl.edu.go.board.BoardCodec;
+
+/**
+ * {@code GameReplay} pozwala szybko przewijać zapisaną partię do dowolnego numeru ruchu.
+ *
+ * <p>Przy tworzeniu partia jest rozgrywana raz, a co {@code keyframeInterval} ruchów zapisywana jest
+ * migawka planszy ({@link BoardCodec}, razem ze stanem KO). Przejście do ruchu {@code n} odtwarza
+ * najbliższą wcześniejszą migawkę i dogrywa co najwyżej {@code keyframeInterval - 1} ruchów,
+ * zamiast zaczynać od pustej planszy. Przewijanie do przodu o mniej niż odstęp migawek kontynuuje
+ * od ostatnio odwiedzonej pozycji.
+ *
+ * <p>Numer ruchu liczy kamienie i PASS (jak {@link Game#getMoveNumber()}); wpisy RESUME/AGREE/RESIGN/TIMEOUT
+ * z {@link MoveHistory} nie zmieniają planszy i są pomijane. Kamienie z sekcji ustawienia historii (np. handicap)
+ * stoją już na planszy ruchu 0, czyli w pierwszej migawce.
+ *
+ * <p>Klasa nie jest bezpieczna wątkowo (przechowuje pozycję kursora).
+ */
+public final class GameReplay {
+
+    /** Domyślny odstęp migawek (w ruchach). */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    private final int size;
+    private final int keyframeInterval;
+
+    /** Punkty kolejnych ruchów ({@code -1} = PASS) i ich kolory ({@link Board#BLACK}/{@link Board#WHITE}). */
+    private final int[] points;
+    private final byte[] colors;
+
+    /** Migawka planszy po {@code i * keyframeInterval} ruchach. */
+    private final byte[][] keyframes;
+
+    /** Plansza ostatnio odwiedzonej pozycji i jej numer ruchu. */
+    private Board cursor;
+    private int cursorMove;
+
+    /**
+     * Buduje powtórkę z historii gry.
+     *
+     * @param game gra
+     * @return powtórka z domyślnym odstępem migawek
+     */
+    public static GameReplay of(Game game) {
+        return new GameReplay(game.getBoard().getSize(), game.getHistory().toArray(), DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Buduje powtórkę z zapisu partii.
+     *
+     * @param boardSize        rozmiar planszy
+     * @param history          wpisy historii ({@link MoveHistory})
+     * @param keyframeInterval co ile ruchów zapisywać migawkę planszy
+     * @throws IllegalArgumentException gdy odstęp jest niedodatni lub któryś ruch (albo kamień ustawiony) jest nielegalny
+     */
+    public GameReplay(int boardSize, short[] history, int keyframeInterval) {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive");
+        }
+        this.size = boardSize;
+        this.keyframeInterval = keyframeInterval;
+
+        int moves = 0;
+        for (short e : history) {
+            if (isMove(e)) moves++;
+        }
+        this.points = new int[moves];
+        this.colors = new byte[moves];
+        int n = 0;
+        for (short e : history) {
+            if (!isMove(e)) continue;
+            int code = MoveHistory.code(e);
+            points[n] = code == MoveHistory.PASS ? -1 : code;
+            colors[n] = (byte) MoveHistory.player(e).toBoardColor();
+            n++;
+        }
+
+        // jedno przejście przez partię: kamienie ustawione, potem migawki co keyframeInterval ruchów
+        this.keyframes = new byte[moves / keyframeInterval + 1][];
+        Board board = new Board(boardSize);
+        for (short e : history) {
+            if (!MoveHistory.isSetup(e)) continue;
+            int p = MoveHistory.code(e);
+            if (!board.playMove(MoveHistory.player(e).toBoardColor(), board.pointX(p), board.pointY(p))) {
+                throw new IllegalArgumentException("Illegal setup stone at point " + p);
+            }
+        }
+        keyframes[0] = BoardCodec.encode(board);
+        for (int i = 0; i < moves; i++) {
+            apply(board, i);
+            if ((i + 1) % keyframeInterval == 0) {
+                keyframes[(i + 1) / keyframeInterval] = BoardCodec.encode(board);
+            }
+        }
+        this.cursor = board;
+        this.cursorMove = moves;
+    }
+
+    private static boolean isMove(short entry) {
+        return MoveHistory.isStone(entry) || MoveHistory.code(entry) == MoveHistory.PASS;
+    }
+
+    /**
+     * Zwraca liczbę ruchów (kamieni i PASS) w partii.
+     *
+     * @return liczba ruchów
+     */
+    public int getMoveCount() {
+        return points.length;
+    }
+
+    /**
+     * Zwraca planszę po wskazanym ruchu.
+     *
+     * @param moveNumber numer ruchu (0 = pozycja przed pierwszym ruchem, {@link #getMoveCount()} = pozycja końcowa)
+     * @return nowa plansza (kopia; można ją dalej modyfikować)
+     * @throws IndexOutOfBoundsException gdy numer ruchu jest poza zakresem
+     */
+    public Board boardAt(int moveNumber) {
+        seek(moveNumber);
+        Board copy = new Board(size);
+        copy.copyFrom(cursor);
+        return copy;
+    }
+
+    /**
+     * Zwraca stan pól planszy po wskazanym ruchu (jak {@link Board#getState()}).
+     *
+     * @param moveNumber numer ruchu
+     * @return tablica {@code [x][y]}
+     * @throws IndexOutOfBoundsException gdy numer ruchu jest poza zakresem
+     */
+    public int[][] stateAt(int moveNumber) {
+        seek(moveNumber);
+        return cursor.getState();
+    }
+
+    /**
+     * Ustawia kursor na pozycji po ruchu {@code moveNumber}: kontynuuje od bieżącej pozycji
+     * albo od najbliższej wcześniejszej migawki.
+     */
+    private void seek(int moveNumber) {
+        if (moveNumber < 0 || moveNumber > points.length) {
+            throw new IndexOutOfBoundsException("Move " + moveNumber + " out of 0.." + points.length);
+        }
+        int keyframe = moveNumber / keyframeInterval;
+        boolean forward = moveNumber >= cursorMove && moveNumber - cursorMove < keyframeInterval;
+        if (!forward) {
+            cursor = BoardCodec.decode(keyframes[keyframe]);
+            cursorMove = keyframe * keyframeInterval;
+        }
+        while (cursorMove < moveNumber) {
+            apply(cursor, cursorMove++);
+        }
+    }
+
+    /** Wykonuje ruch {@code i} na planszy (PASS nie zmienia planszy). */
+    private void apply(Board board, int i) {
+        int p = points[i];
+        if (p < 0) {
+            return;
+        }
+        if (!board.playMove(colors[i], board.pointX(p), board.pointY(p))) {
+            throw new IllegalArgumentException("Illegal move #" + (i + 1));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package pl.edu.go.game;
+
+import pl.edu.go.board.Board;
+import pl.edu.go.board.BoardCodec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code GameSnapshotCodec} zapisuje i odtwarza pełny stan {@link Game} w zwartym formacie binarnym.
+ *
+ * <p>Migawka obejmuje fazę, gracza na ruchu, licznik kolejnych PASS, akceptacje wyniku z review,
+ * wynik zakończonej gry i punkt KO, a za nimi migawkę planszy z {@link BoardCodec}.
+ * Odtworzenie to jedno przejście po buforze, bez refleksji i bez ponownego rozgrywania ruchów —
+ * służy do kompaktowania dziennika, usypiania sesji i przenoszenia gier między serwerami.
+ * Obserwatorzy nie są częścią migawki.
+ *
+ * <p><b>Format (wersja {@value #VERSION}):</b>
+ * <pre>
+ * byte   wersja
+ * byte   gracz na ruchu (0 = BLACK, 1 = WHITE)
+ * byte   faza (0 = PLAYING, 1 = SCORING_REVIEW, 2 = FINISHED)
+ * byte   flagi (bit 0: zakończona, 1: AGREE BLACK, 2: AGREE WHITE, 3: jest wynik, 4: wynik ma zwycięzcę)
+ * byte   liczba kolejnych PASS
+ * int    punkt KO gry (-1 = brak)
+ * [byte zwycięzca] [short długość + UTF-8 powodu]   (gdy jest wynik)
+ * int    liczba wpisów historii, a dalej tyle wpisów (short, {@link MoveHistory})   (od wersji 2)
+ * ...    migawka planszy ({@link BoardCodec})
+ * </pre>
+ * Migawki w wersji 1 (bez historii) są nadal odczytywane — gra dostaje pustą historię.
+ */
+public final class GameSnapshotCodec {
+
+    /** Bieżąca wersja formatu migawki gry. */
+    public static final int VERSION = 2;
+
+    private static final int FLAG_FINISHED = 1;
+    private static final int FLAG_AGREED_BLACK = 1 << 1;
+    private static final int FLAG_AGREED_WHITE = 1 << 2;
+    private static final int FLAG_RESULT = 1 << 3;
+    private static final int FLAG_WINNER = 1 << 4;
+
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+    private static final GamePhase[] PHASES = GamePhase.values();
+
+    private GameSnapshotCodec() {
+    }
+
+    /**
+     * Koduje stan gry do nowej tablicy bajtów.
+     *
+     * @param game gra
+     * @return migawka gry
+     */
+    public static byte[] encode(Game game) {
+        GameResult result = game.getResult();
+        byte[] reason = result == null ? null : result.getReason().getBytes(StandardCharsets.UTF_8);
+
+        short[] history = game.getHistory().toArray();
+
+        int length = 1 + 1 + 1 + 1 + 1 + 4 + 4 + 2 * history.length + BoardCodec.encodedLength(game.getBoard());
+        if (result != null) {
+            length += (result.getWinner() != null ? 1 : 0) + 2 + reason.length;
+        }
+
+        int flags = 0;
+        if (game.isFinished()) flags |= FLAG_FINISHED;
+        if (game.hasAgreed(PlayerColor.BLACK)) flags |= FLAG_AGREED_BLACK;
+        if (game.hasAgreed(PlayerColor.WHITE)) flags |= FLAG_AGREED_WHITE;
+        if (result != null) flags |= FLAG_RESULT;
+        if (result != null && result.getWinner() != null) flags |= FLAG_WINNER;
+
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        buf.put((byte) VERSION);
+        buf.put((byte) game.getCurrentPlayer().ordinal());
+        buf.put((byte) game.getPhase().ordinal());
+        buf.put((byte) flags);
+        buf.put((byte) Math.min(game.getConsecutivePasses(), 127));
+        buf.putInt(game.getKoPoint());
+        if (result != null) {
+            if (result.getWinner() != null) {
+                buf.put((byte) result.getWinner().ordinal());
+            }
+            buf.putShort((short) reason.length);
+            buf.put(reason);
+        }
+        buf.putInt(history.length);
+        for (short entry : history) {
+            buf.putShort(entry);
+        }
+        BoardCodec.write(game.getBoard(), buf);
+        return buf.array();
+    }
+
+    /**
+     * Odtwarza grę z migawki. Zwracana gra nie ma obserwatorów.
+     *
+     * @param data migawka zapisana przez {@link #encode(Game)}
+     * @return nowa gra w stanie z migawki
+     * @throws IllegalArgumentException gdy migawka jest niepoprawna lub ma nieobsługiwaną wersję
+     */
+    public static Game decode(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        try {
+            int version = buf.get();
+            if (version != 1 && version != VERSION) {
+                throw new IllegalArgumentException("Unsupported game snapshot version: " + version);
+            }
+            PlayerColor current = enumAt(COLORS, buf.get(), "player");
+            GamePhase phase = enumAt(PHASES, buf.get(), "phase");
+            int flags = buf.get();
+            int passes = buf.get();
+            int koPoint = buf.getInt();
+
+            GameResult result = null;
+            if ((flags & FLAG_RESULT) != 0) {
+                PlayerColor winner = (flags & FLAG_WINNER) != 0 ? enumAt(COLORS, buf.get(), "winner") : null;
+                byte[] reason = new byte[buf.getShort() & 0xFFFF];
+                buf.get(reason);
+                result = new GameResult(winner, new String(reason, StandardCharsets.UTF_8));
+            }
+
+            short[] history = new short[0];
+            if (version >= 2) {
+                int count = buf.getInt();
+                if (count < 0 || count > buf.remaining() / 2) {
+                    throw new IllegalArgumentException("Game snapshot has invalid history length: " + count);
+                }
+                history = new short[count];
+                for (int i = 0; i < count; i++) {
+                    history[i] = buf.getShort();
+                }
+            }
+
+            Board board = BoardCodec.read(buf);
+            if (buf.hasRemaining()) {
+                throw new IllegalArgumentException("Game snapshot has trailing data");
+            }
+
+            Game game = new Game(board);
+            game.restoreState(current, phase, (flags & FLAG_FINISHED) != 0, passes,
+                    (flags & FLAG_AGREED_BLACK) != 0, (flags & FLAG_AGREED_WHITE) != 0, result, koPoint);
+            game.restoreHistory(history);
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Game snapshot is truncated");
+        }
+    }
+
+    private static <E> E enumAt(E[] values, int index, String what) {
+        if (index < 0 || index >= values.length) {
+            throw new IllegalArgumentException("Game snapshot has invalid " + what + ": " + index);
+        }
+        return values[index];
+    }
+}
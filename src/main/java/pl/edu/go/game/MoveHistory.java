@@ -0,0 +1,180 @@
+package pl.edu.go.game;
+
+import java.util.Arrays;
+
+/**
+ * {@code MoveHistory} to zapis przebiegu gry: każde zdarzenie (ruch, PASS, RESIGN, RESUME, AGREE, TIMEOUT)
+ * jest jedną wartością {@code short}, bez kopii planszy na ruch.
+ *
+ * <p><b>Kodowanie wpisu:</b>
+ * <ul>
+ *   <li>bit {@code 0x4000} — kamień ustawiony przed partią ({@link #SETUP_BIT}),</li>
+ *   <li>bit {@code 0x2000} — zdarzenie gracza WHITE (brak bitu = BLACK),</li>
+ *   <li>bity {@code 0x1FFF} — punkt ruchu ({@code y * size + x}) albo jeden z kodów specjalnych:
+ *       {@link #PASS}, {@link #RESIGN}, {@link #RESUME}, {@link #AGREE}, {@link #TIMEOUT}.</li>
+ * </ul>
+ * Punkt ruchu musi być mniejszy od {@link #TIMEOUT}, co ogranicza zapis do plansz 90×90.
+ *
+ * <p><b>Sekcja ustawienia:</b> kamienie postawione przed pierwszym ruchem (np. handicap, {@code AB}/{@code AW}
+ * z SGF) są pierwszymi wpisami historii ({@link #setupSize()}). Nie są ruchami: {@link #isStone(short)}
+ * zwraca dla nich {@code false}, a numeracja ruchów zaczyna się za nimi.
+ *
+ * <p>Publicznie historia jest tylko do odczytu; dopisuje do niej {@link Game}.
+ * Jest podstawą powtórek, cofania ruchów i eksportu partii.
+ */
+public final class MoveHistory {
+
+    /** Bit koloru: wpis gracza WHITE. */
+    public static final int WHITE_BIT = 0x2000;
+
+    /** Bit sekcji ustawienia: kamień postawiony przed partią, a nie ruch gracza. */
+    public static final int SETUP_BIT = 0x4000;
+
+    /** Maska punktu / kodu specjalnego. */
+    public static final int CODE_MASK = 0x1FFF;
+
+    /** Kod specjalny: PASS. */
+    public static final int PASS = 0x1FFF;
+
+    /** Kod specjalny: RESIGN. */
+    public static final int RESIGN = 0x1FFE;
+
+    /** Kod specjalny: RESUME (powrót z review do gry). */
+    public static final int RESUME = 0x1FFD;
+
+    /** Kod specjalny: AGREE (akceptacja wyniku w review). */
+    public static final int AGREE = 0x1FFC;
+
+    /** Kod specjalny: TIMEOUT (gracz przekroczył czas, zob. {@link GameClock}). */
+    public static final int TIMEOUT = 0x1FFB;
+
+    /** Największa liczba pól planszy, której ruchy da się zapisać. */
+    public static final int MAX_POINTS = TIMEOUT;
+
+    private short[] entries = new short[64];
+    private int size = 0;
+    private int setupSize = 0;
+
+    MoveHistory() {
+    }
+
+    /**
+     * Koduje wpis historii.
+     *
+     * @param player gracz
+     * @param code   punkt ruchu lub kod specjalny
+     * @return wpis historii
+     */
+    public static short encode(PlayerColor player, int code) {
+        return (short) ((player == PlayerColor.WHITE ? WHITE_BIT : 0) | (code & CODE_MASK));
+    }
+
+    /**
+     * Koduje kamień sekcji ustawienia.
+     *
+     * @param color kolor kamienia
+     * @param point punkt ({@code y * size + x})
+     * @return wpis historii
+     */
+    public static short encodeSetup(PlayerColor color, int point) {
+        return (short) (encode(color, point) | SETUP_BIT);
+    }
+
+    /**
+     * Zwraca gracza wpisu.
+     *
+     * @param entry wpis historii
+     * @return BLACK/WHITE
+     */
+    public static PlayerColor player(short entry) {
+        return (entry & WHITE_BIT) != 0 ? PlayerColor.WHITE : PlayerColor.BLACK;
+    }
+
+    /**
+     * Zwraca punkt ruchu albo kod specjalny wpisu.
+     *
+     * @param entry wpis historii
+     * @return punkt ({@code y * size + x}) lub {@link #PASS}/{@link #RESIGN}/{@link #RESUME}/{@link #AGREE}/{@link #TIMEOUT}
+     */
+    public static int code(short entry) {
+        return entry & CODE_MASK;
+    }
+
+    /**
+     * Informuje, czy wpis jest postawieniem kamienia.
+     *
+     * @param entry wpis historii
+     * @return {@code true} dla ruchu na planszy (kamienie ustawione nie są ruchami)
+     */
+    public static boolean isStone(short entry) {
+        return !isSetup(entry) && code(entry) < MAX_POINTS;
+    }
+
+    /**
+     * Informuje, czy wpis jest kamieniem ustawionym przed partią.
+     *
+     * @param entry wpis historii
+     * @return {@code true} dla wpisu sekcji ustawienia
+     */
+    public static boolean isSetup(short entry) {
+        return (entry & SETUP_BIT) != 0;
+    }
+
+    /**
+     * Zwraca liczbę wpisów.
+     *
+     * @return liczba wpisów
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Zwraca liczbę wpisów sekcji ustawienia na początku historii.
+     *
+     * @return liczba kamieni ustawionych; {@code size() > setupSize()} gdy partia się zaczęła
+     */
+    public int setupSize() {
+        return setupSize;
+    }
+
+    /**
+     * Zwraca wpis o podanym indeksie.
+     *
+     * @param index indeks (od 0)
+     * @return wpis historii
+     * @throws IndexOutOfBoundsException gdy indeks jest poza zakresem
+     */
+    public short get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("History index " + index + " out of " + size);
+        }
+        return entries[index];
+    }
+
+    /**
+     * Zwraca kopię wszystkich wpisów.
+     *
+     * @return tablica wpisów w kolejności zdarzeń
+     */
+    public short[] toArray() {
+        return Arrays.copyOf(entries, size);
+    }
+
+    /** Dopisuje wpis na końcu historii. */
+    void append(short entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        if (size == setupSize && isSetup(entry)) {
+            setupSize++;
+        }
+        entries[size++] = entry;
+    }
+
+    /** Obcina historię do {@code newSize} wpisów (cofnięcie serii ruchów). */
+    void truncate(int newSize) {
+        size = newSize;
+        setupSize = Math.min(setupSize, newSize);
+    }
+}
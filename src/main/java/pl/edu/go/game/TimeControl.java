@@ -0,0 +1,200 @@
+package pl.edu.go.game;
+
+import java.util.Locale;
+
+/**
+ * {@code TimeControl} opisuje kontrolę czasu partii (niezmienny obiekt wartości).
+ *
+ * <p>Obsługiwane systemy:
+ * <ul>
+ *   <li>{@link Type#ABSOLUTE} — każdy gracz ma stały czas na całą partię,</li>
+ *   <li>{@link Type#FISCHER} — czas podstawowy, a po każdym ruchu doliczany jest przyrost,</li>
+ *   <li>{@link Type#BYO_YOMI} — po wyczerpaniu czasu podstawowego gracz ma {@code n} okresów;
+ *       ruch wykonany w okresie odnawia go, a przekroczony okres przepada.</li>
+ * </ul>
+ *
+ * <p>Zapis tekstowy ({@link #parse(String)}, {@link #toString()}), czasy w sekundach:
+ * {@code absolute:600}, {@code fischer:300+5}, {@code byoyomi:600+5x30} (600 s i 5 okresów po 30 s).
+ * Odliczaniem czasu zajmuje się {@link GameClock}.
+ */
+public final class TimeControl {
+
+    /** System kontroli czasu. */
+    public enum Type {
+        ABSOLUTE,
+        FISCHER,
+        BYO_YOMI
+    }
+
+    private final Type type;
+    private final long mainMillis;
+    private final long incrementMillis;
+    private final int periods;
+    private final long periodMillis;
+
+    private TimeControl(Type type, long mainMillis, long incrementMillis, int periods, long periodMillis) {
+        if (mainMillis < 0 || incrementMillis < 0 || periods < 0 || periodMillis < 0) {
+            throw new IllegalArgumentException("Negative time control value");
+        }
+        if (mainMillis == 0 && (type != Type.BYO_YOMI || periods == 0)) {
+            throw new IllegalArgumentException("Time control without time");
+        }
+        if (type == Type.BYO_YOMI && (periods == 0 || periodMillis == 0)) {
+            throw new IllegalArgumentException("Byo-yomi requires periods");
+        }
+        this.type = type;
+        this.mainMillis = mainMillis;
+        this.incrementMillis = incrementMillis;
+        this.periods = periods;
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * Tworzy kontrolę czasu absolutnego.
+     *
+     * @param mainMillis czas na partię w ms
+     * @return kontrola czasu
+     * @throws IllegalArgumentException gdy czas nie jest dodatni
+     */
+    public static TimeControl absolute(long mainMillis) {
+        return new TimeControl(Type.ABSOLUTE, mainMillis, 0, 0, 0);
+    }
+
+    /**
+     * Tworzy kontrolę czasu Fischera.
+     *
+     * @param mainMillis      czas podstawowy w ms
+     * @param incrementMillis przyrost po każdym ruchu w ms
+     * @return kontrola czasu
+     * @throws IllegalArgumentException gdy wartości są ujemne albo czas podstawowy nie jest dodatni
+     */
+    public static TimeControl fischer(long mainMillis, long incrementMillis) {
+        return new TimeControl(Type.FISCHER, mainMillis, incrementMillis, 0, 0);
+    }
+
+    /**
+     * Tworzy kontrolę byo-yomi.
+     *
+     * @param mainMillis   czas podstawowy w ms (może być 0)
+     * @param periods      liczba okresów
+     * @param periodMillis długość okresu w ms
+     * @return kontrola czasu
+     * @throws IllegalArgumentException gdy wartości są ujemne albo brak okresów
+     */
+    public static TimeControl byoYomi(long mainMillis, int periods, long periodMillis) {
+        return new TimeControl(Type.BYO_YOMI, mainMillis, 0, periods, periodMillis);
+    }
+
+    /**
+     * Odczytuje kontrolę czasu z zapisu tekstowego (czasy w sekundach, także ułamkowe):
+     * {@code absolute:<main>}, {@code fischer:<main>+<increment>}, {@code byoyomi:<main>+<periods>x<period>}.
+     *
+     * @param spec zapis kontroli czasu
+     * @return kontrola czasu
+     * @throws IllegalArgumentException gdy zapis jest niepoprawny
+     */
+    public static TimeControl parse(String spec) {
+        String s = spec.trim().toLowerCase(Locale.ROOT);
+        int colon = s.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Bad time control: " + spec);
+        }
+        String kind = s.substring(0, colon);
+        String[] parts = s.substring(colon + 1).split("\\+", -1);
+        try {
+            switch (kind) {
+                case "absolute" -> {
+                    if (parts.length == 1) {
+                        return absolute(millis(parts[0]));
+                    }
+                }
+                case "fischer" -> {
+                    if (parts.length == 2) {
+                        return fischer(millis(parts[0]), millis(parts[1]));
+                    }
+                }
+                case "byoyomi" -> {
+                    int x = parts.length == 2 ? parts[1].indexOf('x') : -1;
+                    if (x > 0) {
+                        return byoYomi(millis(parts[0]), Integer.parseInt(parts[1].substring(0, x)),
+                                millis(parts[1].substring(x + 1)));
+                    }
+                }
+                default -> {
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad time control: " + spec, e);
+        }
+        throw new IllegalArgumentException("Bad time control: " + spec);
+    }
+
+    private static long millis(String seconds) {
+        return Math.round(Double.parseDouble(seconds) * 1000);
+    }
+
+    /**
+     * Zwraca system kontroli czasu.
+     *
+     * @return system
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Zwraca czas podstawowy.
+     *
+     * @return czas podstawowy w ms
+     */
+    public long getMainMillis() {
+        return mainMillis;
+    }
+
+    /**
+     * Zwraca przyrost Fischera.
+     *
+     * @return przyrost po ruchu w ms (0 poza {@link Type#FISCHER})
+     */
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * Zwraca liczbę okresów byo-yomi.
+     *
+     * @return liczba okresów (0 poza {@link Type#BYO_YOMI})
+     */
+    public int getPeriods() {
+        return periods;
+    }
+
+    /**
+     * Zwraca długość okresu byo-yomi.
+     *
+     * @return długość okresu w ms (0 poza {@link Type#BYO_YOMI})
+     */
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * Zwraca zapis tekstowy akceptowany przez {@link #parse(String)}.
+     *
+     * @return np. {@code fischer:300+5}
+     */
+    @Override
+    public String toString() {
+        return switch (type) {
+            case ABSOLUTE -> "absolute:" + seconds(mainMillis);
+            case FISCHER -> "fischer:" + seconds(mainMillis) + "+" + seconds(incrementMillis);
+            case BYO_YOMI -> "byoyomi:" + seconds(mainMillis) + "+" + periods + "x" + seconds(periodMillis);
+        };
+    }
+
+    private static String seconds(long millis) {
+        return millis % 1000 == 0
+                ? Long.toString(millis / 1000)
+                : String.format(Locale.ROOT, "%.3f", millis / 1000.0).replaceAll("0+$", "");
+    }
+}
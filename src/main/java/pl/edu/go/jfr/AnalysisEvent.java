@@ -0,0 +1,27 @@
+package pl.edu.go.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR analizy pozycji: {@code ScoreCalculator}, {@code TerritoryAnalyzer}, {@code PositionAnalyzer}.
+ */
+@Name("pl.edu.go.Analysis")
+@Label("Position Analysis")
+@Category({GoEvents.CATEGORY, "Analysis"})
+@Description("Scoring, territory and dead-group analysis runs")
+public final class AnalysisEvent extends Event {
+
+    @Label("Analysis")
+    @Description("Analyzer method, e.g. ScoreCalculator.computeScore")
+    public String analysis;
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Result")
+    public String result;
+}
@@ -0,0 +1,41 @@
+package pl.edu.go.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR rozesłania jednego zdarzenia gry ({@code SEQ}) do graczy i obserwatorów.
+ */
+@Name("pl.edu.go.Broadcast")
+@Label("Broadcast")
+@Category({GoEvents.CATEGORY, "Server"})
+@Description("Encoding and fan-out of one numbered game event")
+public final class BroadcastEvent extends Event {
+
+    @Label("Session Id")
+    public int sessionId;
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Sequence")
+    public long seq;
+
+    @Label("Frames")
+    public int frames;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("Resyncs")
+    @Description("Recipients whose outbound queue overflowed and who were sent a full snapshot")
+    public int resyncs;
+}
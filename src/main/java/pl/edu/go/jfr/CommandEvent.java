@@ -0,0 +1,37 @@
+package pl.edu.go.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR komendy klienta obsłużonej przez sesję: parsowanie, wykonanie na grze i wysyłka zmian.
+ */
+@Name("pl.edu.go.Command")
+@Label("Client Command")
+@Category({GoEvents.CATEGORY, "Server"})
+@Description("GameSession command handling, from parse to flushed broadcast")
+public final class CommandEvent extends Event {
+
+    @Label("Session Id")
+    public int sessionId;
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Player")
+    public String player;
+
+    @Label("Command")
+    @Description("Command class, or INVALID when the message could not be parsed")
+    public String command;
+
+    @Label("Binary")
+    public boolean binary;
+
+    @Label("Outcome")
+    @Description("OK or the error sent to the client")
+    public String outcome;
+}
@@ -0,0 +1,25 @@
+package pl.edu.go.jfr;
+
+/**
+ * {@code GoEvents} włącza zdarzenia Java Flight Recorder gry Go.
+ *
+ * <p>Zdarzenia ({@link MoveEvent}, {@link AnalysisEvent}, {@link CommandEvent}, {@link BroadcastEvent})
+ * są tworzone tylko przy {@code -Dgo.jfr=true}. Flaga jest stałą, więc przy wyłączonych zdarzeniach
+ * JIT usuwa całą instrumentację z gorących ścieżek. Przy włączonej fladze zdarzenia trafiają do
+ * nagrania dopiero wtedy, gdy nagranie JFR jest aktywne, np.:
+ * <pre>
+ * java -Dgo.jfr=true -XX:StartFlightRecording=filename=go.jfr,settings=profile -cp ... pl.edu.go.server.GameServer
+ * jfr print --categories Go go.jfr
+ * </pre>
+ */
+public final class GoEvents {
+
+    /** Czy zdarzenia JFR gry są tworzone (właściwość {@code go.jfr}). */
+    public static final boolean ENABLED = Boolean.getBoolean("go.jfr");
+
+    /** Kategoria wszystkich zdarzeń gry w JFR. */
+    static final String CATEGORY = "Go";
+
+    private GoEvents() {
+    }
+}
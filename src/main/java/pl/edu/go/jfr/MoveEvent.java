@@ -0,0 +1,36 @@
+package pl.edu.go.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR jednego wywołania {@code Board.playMove}: czas, ruch, liczba zbitych kamieni i wynik.
+ */
+@Name("pl.edu.go.Move")
+@Label("Move")
+@Category({GoEvents.CATEGORY, "Board"})
+@Description("Board.playMove: stone placement with captures and rule checks")
+public final class MoveEvent extends Event {
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Color")
+    public String color;
+
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Captures")
+    public int captures;
+
+    @Label("Result")
+    @Description("OK or rejection reason: OUTSIDE, OCCUPIED, SUICIDE, KO")
+    public String result;
+}
@@ -0,0 +1,375 @@
+package pl.edu.go.log;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code AsyncLog} to asynchroniczny log o stałym koszcie po stronie wątku wołającego.
+ *
+ * <p>Wpis (czas, poziom, wątek, szablon i do dwóch argumentów) trafia do wstępnie zaalokowanego
+ * bufora pierścieniowego: wątek wołający rezerwuje slot jednym {@code compareAndSet} i zapisuje
+ * w nim referencje — bez formatowania, blokad i alokacji. Formatowanie oraz zapis do strumienia
+ * wykonuje osobny wątek, paczkami (jeden zapis na wiele linii).
+ *
+ * <p>Gdy bufor jest pełny, wpis jest <b>odrzucany</b> (wątek gry nigdy nie czeka na konsolę),
+ * a liczba odrzuconych wpisów jest raportowana w logu przy najbliższym opróżnieniu bufora.
+ * Wpisy poniżej progu poziomu są pomijane przed rezerwacją slotu.
+ *
+ * <p>Szablon używa znaczników {@code {}} zastępowanych kolejnymi argumentami; argument
+ * {@link Throwable} spoza znaczników dopisuje do wpisu stos wywołań.
+ *
+ * <p>Log procesu ({@link #get()}) pisze na {@code System.out}; konfiguracja przez właściwości
+ * {@code go.log.level} (domyślnie {@code INFO}) i {@code go.log.bufferSize} (domyślnie {@value #DEFAULT_CAPACITY}).
+ */
+public final class AsyncLog implements Closeable {
+
+    /** Domyślna liczba slotów bufora. */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /** Po tylu znakach paczka linii jest zapisywana, nawet jeśli bufor nie jest pusty. */
+    private static final int BATCH_CHARS = 32 * 1024;
+
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final Level threshold;
+    private final PrintStream out;
+
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * Numer sekwencji slotu: {@code n} — wolny dla wpisu {@code n}, {@code n + 1} — wpis {@code n}
+     * opublikowany (gotowy do zapisu).
+     */
+    private final AtomicLongArray sequences;
+    private final long[] times;
+    private final Level[] levels;
+    private final String[] threads;
+    private final String[] templates;
+    private final Object[] firstArgs;
+    private final Object[] secondArgs;
+
+    /** Numer następnego wpisu do zarezerwowania. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Numer następnego wpisu do zapisu (tylko wątek piszący). */
+    private long head;
+
+    /** Liczba wpisów zapisanych do strumienia (do {@link #flush(long)}). */
+    private volatile long written;
+
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported;
+
+    private final Thread writer;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    /** Leniwa inicjalizacja logu procesu. */
+    private static final class Holder {
+        static final AsyncLog INSTANCE = fromProperties();
+    }
+
+    /**
+     * Tworzy log i uruchamia jego wątek piszący.
+     *
+     * @param capacity  liczba slotów bufora (zaokrąglana w górę do potęgi dwójki)
+     * @param threshold najniższy zapisywany poziom
+     * @param out       strumień docelowy
+     */
+    public AsyncLog(int capacity, Level threshold, PrintStream out) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.threshold = threshold;
+        this.out = out;
+
+        sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+        times = new long[this.capacity];
+        levels = new Level[this.capacity];
+        threads = new String[this.capacity];
+        templates = new String[this.capacity];
+        firstArgs = new Object[this.capacity];
+        secondArgs = new Object[this.capacity];
+
+        writer = new Thread(this::writeLoop, "AsyncLog");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Zwraca log procesu (konfigurowany właściwościami {@code go.log.*}). Przy zamykaniu JVM
+     * zaległe wpisy są zapisywane.
+     *
+     * @return wspólny log
+     */
+    public static AsyncLog get() {
+        return Holder.INSTANCE;
+    }
+
+    private static AsyncLog fromProperties() {
+        Level level = Level.valueOf(System.getProperty("go.log.level", Level.INFO.name()).toUpperCase(Locale.ROOT));
+        int capacity = Integer.getInteger("go.log.bufferSize", DEFAULT_CAPACITY);
+        AsyncLog log = new AsyncLog(capacity, level, System.out);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> log.flush(1000), "AsyncLog-Shutdown"));
+        return log;
+    }
+
+    /**
+     * Informuje, czy wpisy danego poziomu są zapisywane.
+     *
+     * @param level poziom
+     * @return {@code true}, jeśli poziom nie jest poniżej progu
+     */
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    /** Wpis DEBUG (zob. {@link #log(Level, String, Object, Object)}). */
+    public void debug(String message) {
+        log(Level.DEBUG, message, null, null);
+    }
+
+    /** Wpis DEBUG (zob. {@link #log(Level, String, Object, Object)}). */
+    public void debug(String template, Object arg) {
+        log(Level.DEBUG, template, arg, null);
+    }
+
+    /** Wpis DEBUG (zob. {@link #log(Level, String, Object, Object)}). */
+    public void debug(String template, Object first, Object second) {
+        log(Level.DEBUG, template, first, second);
+    }
+
+    /** Wpis INFO (zob. {@link #log(Level, String, Object, Object)}). */
+    public void info(String message) {
+        log(Level.INFO, message, null, null);
+    }
+
+    /** Wpis INFO (zob. {@link #log(Level, String, Object, Object)}). */
+    public void info(String template, Object arg) {
+        log(Level.INFO, template, arg, null);
+    }
+
+    /** Wpis INFO (zob. {@link #log(Level, String, Object, Object)}). */
+    public void info(String template, Object first, Object second) {
+        log(Level.INFO, template, first, second);
+    }
+
+    /** Wpis WARN (zob. {@link #log(Level, String, Object, Object)}). */
+    public void warn(String message) {
+        log(Level.WARN, message, null, null);
+    }
+
+    /** Wpis WARN (zob. {@link #log(Level, String, Object, Object)}). */
+    public void warn(String template, Object arg) {
+        log(Level.WARN, template, arg, null);
+    }
+
+    /** Wpis WARN (zob. {@link #log(Level, String, Object, Object)}). */
+    public void warn(String template, Object first, Object second) {
+        log(Level.WARN, template, first, second);
+    }
+
+    /** Wpis ERROR (zob. {@link #log(Level, String, Object, Object)}). */
+    public void error(String message) {
+        log(Level.ERROR, message, null, null);
+    }
+
+    /** Wpis ERROR (zob. {@link #log(Level, String, Object, Object)}). */
+    public void error(String template, Object arg) {
+        log(Level.ERROR, template, arg, null);
+    }
+
+    /** Wpis ERROR (zob. {@link #log(Level, String, Object, Object)}). */
+    public void error(String template, Object first, Object second) {
+        log(Level.ERROR, template, first, second);
+    }
+
+    /**
+     * Dodaje wpis do bufora (albo odrzuca go, gdy bufor jest pełny).
+     *
+     * @param level    poziom wpisu
+     * @param template szablon ze znacznikami {@code {}}
+     * @param first    pierwszy argument (może być null)
+     * @param second   drugi argument (może być null)
+     * @return {@code false}, jeśli wpis pominięto (poziom, pełny bufor, log zamknięty)
+     */
+    public boolean log(Level level, String template, Object first, Object second) {
+        if (!isEnabled(level) || closed) {
+            return false;
+        }
+
+        long n = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) n & mask;
+            long s = sequences.get(slot);
+            if (s == n) {
+                if (tail.compareAndSet(n, n + 1)) {
+                    break;
+                }
+                n = tail.get();
+            } else if (s < n) {
+                // slot wciąż zajęty wpisem sprzed okrążenia: bufor pełny
+                dropped.increment();
+                return false;
+            } else {
+                n = tail.get();
+            }
+        }
+
+        times[slot] = System.currentTimeMillis();
+        levels[slot] = level;
+        threads[slot] = Thread.currentThread().getName();
+        templates[slot] = template;
+        firstArgs[slot] = first;
+        secondArgs[slot] = second;
+        sequences.set(slot, n + 1);
+
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Zwraca liczbę wpisów odrzuconych z powodu pełnego bufora.
+     *
+     * @return liczba odrzuconych wpisów
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Czeka, aż wszystkie wpisy dodane przed wywołaniem zostaną zapisane do strumienia.
+     *
+     * @param timeoutMs maksymalny czas oczekiwania w ms
+     * @return {@code true}, jeśli zdążyły
+     */
+    public boolean flush(long timeoutMs) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (written < target) {
+            if (!writer.isAlive() || System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Zapisuje zaległe wpisy i zatrzymuje wątek piszący; kolejne wpisy są pomijane.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pętla wątku piszącego: formatuje opublikowane wpisy po kolei i zapisuje je paczkami;
+     * przy pustym buforze usypia do czasu kolejnego wpisu.
+     */
+    private void writeLoop() {
+        StringBuilder batch = new StringBuilder(BATCH_CHARS + 1024);
+        while (true) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) == head + 1) {
+                format(slot, batch);
+                levels[slot] = null;
+                threads[slot] = null;
+                templates[slot] = null;
+                firstArgs[slot] = null;
+                secondArgs[slot] = null;
+                sequences.set(slot, head + capacity);
+                head++;
+                if (batch.length() >= BATCH_CHARS) {
+                    write(batch);
+                }
+                continue;
+            }
+
+            reportDropped(batch);
+            write(batch);
+            if (closed) {
+                return;
+            }
+
+            sleeping = true;
+            // ponowne sprawdzenie po ustawieniu flagi: wpis opublikowany wcześniej nie zostanie przespany
+            if (sequences.get(slot) != head + 1 && !closed) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            sleeping = false;
+        }
+    }
+
+    private void write(StringBuilder batch) {
+        if (batch.length() > 0) {
+            out.print(batch);
+            batch.setLength(0);
+        }
+        out.flush();
+        written = head;
+    }
+
+    private void reportDropped(StringBuilder batch) {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            batch.append(TIME.format(Instant.now())).append(" WARN  [AsyncLog] Dropped ")
+                    .append(total - droppedReported).append(" log message(s): buffer full\n");
+            droppedReported = total;
+        }
+    }
+
+    /** Linia wpisu: {@code HH:mm:ss.SSS LEVEL [wątek] treść}. */
+    private void format(int slot, StringBuilder sb) {
+        String level = levels[slot].name();
+        sb.append(TIME.format(Instant.ofEpochMilli(times[slot]))).append(' ').append(level);
+        for (int i = level.length(); i < 5; i++) {
+            sb.append(' ');
+        }
+        sb.append(" [").append(threads[slot]).append("] ");
+
+        String template = templates[slot];
+        Object[] args = {firstArgs[slot], secondArgs[slot]};
+        int used = 0;
+        int from = 0;
+        int at;
+        while (used < 2 && (at = template.indexOf("{}", from)) >= 0) {
+            sb.append(template, from, at).append(args[used++]);
+            from = at + 2;
+        }
+        sb.append(template, from, template.length()).append('\n');
+
+        for (int i = used; i < 2; i++) {
+            if (args[i] instanceof Throwable t) {
+                StringWriter trace = new StringWriter();
+                t.printStackTrace(new PrintWriter(trace));
+                sb.append(trace);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package pl.edu.go.log;
+
+/**
+ * Poziom ważności wpisu w {@link AsyncLog}.
+ *
+ * <p>{@link #OFF} służy wyłącznie jako próg ({@code -Dgo.log.level=OFF} wyłącza log).
+ */
+public enum Level {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF
+}
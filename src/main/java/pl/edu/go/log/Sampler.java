@@ -0,0 +1,31 @@
+package pl.edu.go.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code Sampler} przepuszcza co {@code n}-te wywołanie — do logowania częstych zdarzeń
+ * (np. każdej komendy gry) bez zapisu każdego z nich.
+ */
+public final class Sampler {
+
+    private final int every;
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * Tworzy sampler.
+     *
+     * @param every co które wywołanie przepuścić ({@code 1} lub mniej = każde)
+     */
+    public Sampler(int every) {
+        this.every = Math.max(1, every);
+    }
+
+    /**
+     * Informuje, czy bieżące wywołanie ma zostać zalogowane (pierwsze zawsze jest).
+     *
+     * @return {@code true} dla co {@code every}-tego wywołania
+     */
+    public boolean sample() {
+        return every == 1 || calls.getAndIncrement() % every == 0;
+    }
+}
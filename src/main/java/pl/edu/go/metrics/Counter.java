@@ -0,0 +1,37 @@
+package pl.edu.go.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code Counter} to monotoniczny licznik zdarzeń.
+ *
+ * <p>Oparty na {@link LongAdder}: wątki zwiększają osobne komórki, więc zapis nie rywalizuje
+ * o jedną linię pamięci podręcznej nawet przy wielu równoległych sesjach.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    /** Zwiększa licznik o 1. */
+    public void inc() {
+        value.increment();
+    }
+
+    /**
+     * Zwiększa licznik.
+     *
+     * @param n przyrost (nieujemny)
+     */
+    public void add(long n) {
+        value.add(n);
+    }
+
+    /**
+     * Zwraca bieżącą wartość licznika.
+     *
+     * @return suma przyrostów
+     */
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,48 @@
+package pl.edu.go.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * {@code Family} to rodzina metryk jednego typu rozróżnianych wartością jednej etykiety
+ * (np. {@code go_commands_total{command="PassCommand"}}).
+ *
+ * <p>Metryka dla nowej wartości etykiety jest tworzona przy pierwszym użyciu; kolejne odczyty
+ * to {@link ConcurrentHashMap#get(Object)} bez blokad i bez alokacji.
+ *
+ * @param <T> typ metryki ({@link Counter} albo {@link LatencyHistogram})
+ */
+public final class Family<T> {
+
+    private final String label;
+    private final Supplier<T> factory;
+    private final ConcurrentHashMap<String, T> children = new ConcurrentHashMap<>();
+
+    Family(String label, Supplier<T> factory) {
+        this.label = label;
+        this.factory = factory;
+    }
+
+    /**
+     * Zwraca metrykę dla wartości etykiety.
+     *
+     * @param value wartość etykiety
+     * @return metryka (tworzona przy pierwszym użyciu)
+     */
+    public T labels(String value) {
+        T child = children.get(value);
+        return child != null ? child : children.computeIfAbsent(value, v -> factory.get());
+    }
+
+    /** Nazwa etykiety. */
+    String label() {
+        return label;
+    }
+
+    /** Migawka metryk posortowana po wartości etykiety (stabilna kolejność w eksporcie). */
+    Map<String, T> children() {
+        return new TreeMap<>(children);
+    }
+}
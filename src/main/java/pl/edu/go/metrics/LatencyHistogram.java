@@ -0,0 +1,148 @@
+package pl.edu.go.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code LatencyHistogram} to współbieżny histogram czasów (w nanosekundach) o stałej precyzji względnej,
+ * w stylu HdrHistogram.
+ *
+ * <p>Każda potęga dwójki jest dzielona na {@value #SUB_BUCKETS} równych przedziałów, więc błąd
+ * odczytu percentyla nie przekracza ok. 6% wartości, a cała tablica ma stały rozmiar niezależnie
+ * od zakresu pomiarów. Zapis to jeden {@code incrementAndGet} bez blokad.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Przedziały dla wartości do {@code 2^63 - 1}. */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Rejestruje pomiar.
+     *
+     * @param nanos czas w nanosekundach (wartości ujemne są traktowane jak 0)
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(index(v));
+        total.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * Zwraca liczbę pomiarów.
+     *
+     * @return liczba pomiarów
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Zwraca sumę pomiarów.
+     *
+     * @return suma w nanosekundach
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Zwraca największy zarejestrowany pomiar.
+     *
+     * @return maksimum w nanosekundach
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Zwraca średnią pomiarów.
+     *
+     * @return średnia w nanosekundach ({@code 0} dla pustego histogramu)
+     */
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Zwraca wartość percentyla (górną granicę przedziału, nie większą od maksimum).
+     *
+     * @param percentile percentyl z zakresu {@code 0..100}
+     * @return wartość w nanosekundach ({@code 0} dla pustego histogramu)
+     */
+    public long percentile(double percentile) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Zlicza pomiary nie większe od kolejnych granic (skumulowane kubełki histogramu Prometheusa).
+     *
+     * <p>Przedział, który zawiera granicę, nie jest do niej doliczany, więc wynik może być zaniżony
+     * o pomiary z zakresu ok. 6% poniżej granicy. Ostatni element wyniku to liczba wszystkich pomiarów
+     * z tego samego przebiegu (spójna z kubełkami także przy równoległych zapisach).
+     *
+     * @param bounds rosnące granice w nanosekundach
+     * @return tablica o długości {@code bounds.length + 1}
+     */
+    public long[] cumulativeCounts(long[] bounds) {
+        long[] out = new long[bounds.length + 1];
+        long seen = 0;
+        int b = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long high = highestEquivalent(i);
+            while (b < bounds.length && high > bounds[b]) {
+                out[b++] = seen;
+            }
+            seen += counts.get(i);
+        }
+        while (b < bounds.length) {
+            out[b++] = seen;
+        }
+        out[bounds.length] = seen;
+        return out;
+    }
+
+    /** Indeks przedziału: wartości poniżej {@link #SUB_BUCKETS} liniowo, dalej 16 przedziałów na potęgę dwójki. */
+    static int index(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);
+        int shift = magnitude - SUB_BITS;
+        int sub = (int) (v >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Największa wartość trafiająca do przedziału {@code i}. */
+    static long highestEquivalent(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = i / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + i % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,85 @@
+package pl.edu.go.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@code MetricsHttpServer} udostępnia {@link MetricsRegistry} pod {@code GET /metrics}
+ * w formacie tekstowym Prometheusa (wbudowany {@code com.sun.net.httpserver}, bez zależności).
+ *
+ * <p>Zapytania obsługuje jeden wątek demona, więc eksport nie konkuruje z wątkami gry o więcej
+ * niż jeden rdzeń. Serwer jest przeznaczony do nasłuchu na adresie lokalnym (scraper na tej samej
+ * maszynie lub tunel), bez uwierzytelniania.
+ */
+public final class MetricsHttpServer implements Closeable {
+
+    /** Typ treści ekspozycji tekstowej Prometheusa. */
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Uruchamia serwer.
+     *
+     * @param registry eksportowane metryki
+     * @param address  adres nasłuchu (port {@code 0} = wolny port)
+     * @throws IOException gdy nie można otworzyć portu
+     */
+    public MetricsHttpServer(MetricsRegistry registry, InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "MetricsHttp");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", exchange -> handle(exchange, registry));
+        server.start();
+    }
+
+    /**
+     * Zwraca port, na którym serwer nasłuchuje.
+     *
+     * @return numer portu
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private static void handle(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /** Zatrzymuje serwer (bez czekania na trwające zapytania). */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,190 @@
+package pl.edu.go.metrics;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * {@code MetricsRegistry} przechowuje metryki procesu i eksportuje je w formacie tekstowym Prometheusa
+ * (wersja 0.0.4).
+ *
+ * <p>Obsługiwane typy:
+ * <ul>
+ *   <li><b>counter</b> — {@link Counter} lub rodzina liczników z jedną etykietą,</li>
+ *   <li><b>gauge</b> — wartość odczytywana w chwili eksportu z {@link LongSupplier},</li>
+ *   <li><b>histogram</b> — {@link LatencyHistogram} (pomiary w nanosekundach, eksport w sekundach
+ *       z kubełkami {@link #LATENCY_BUCKETS}), także jako rodzina z jedną etykietą.</li>
+ * </ul>
+ *
+ * <p>Rejestracja odbywa się zwykle raz, przy inicjalizacji; aktualizacja metryk nie blokuje,
+ * a eksport czyta je bez zatrzymywania piszących (wartości różnych metryk nie są odczytywane atomowo).
+ */
+public final class MetricsRegistry {
+
+    /** Górne granice kubełków histogramów w sekundach (od 50 µs do 10 s). */
+    public static final double[] LATENCY_BUCKETS = {
+            0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+            0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final long[] BUCKET_NANOS = new long[LATENCY_BUCKETS.length];
+    private static final String[] BUCKET_LABELS = new String[LATENCY_BUCKETS.length];
+
+    static {
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = Math.round(LATENCY_BUCKETS[i] * 1e9);
+            BUCKET_LABELS[i] = BigDecimal.valueOf(LATENCY_BUCKETS[i]).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /** Zarejestrowana metryka: nagłówek {@code HELP}/{@code TYPE} i zapis próbek. */
+    private record Entry(String name, String help, String type, Writer writer) {
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(StringBuilder out, String name);
+    }
+
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Rejestruje licznik.
+     *
+     * @param name nazwa metryki (zwyczajowo z sufiksem {@code _total})
+     * @param help opis
+     * @return licznik
+     */
+    public Counter counter(String name, String help) {
+        Counter counter = new Counter();
+        register(name, help, "counter", (out, n) -> sample(out, n, null, null, Long.toString(counter.get())));
+        return counter;
+    }
+
+    /**
+     * Rejestruje rodzinę liczników rozróżnianych jedną etykietą.
+     *
+     * @param name  nazwa metryki
+     * @param help  opis
+     * @param label nazwa etykiety
+     * @return rodzina liczników
+     */
+    public Family<Counter> counter(String name, String help, String label) {
+        Family<Counter> family = new Family<>(label, Counter::new);
+        register(name, help, "counter", (out, n) -> {
+            for (Map.Entry<String, Counter> e : family.children().entrySet()) {
+                sample(out, n, label, e.getKey(), Long.toString(e.getValue().get()));
+            }
+        });
+        return family;
+    }
+
+    /**
+     * Rejestruje wskaźnik odczytywany w chwili eksportu.
+     *
+     * @param name  nazwa metryki
+     * @param help  opis
+     * @param value źródło wartości (wywoływane z wątku eksportu)
+     */
+    public void gauge(String name, String help, LongSupplier value) {
+        register(name, help, "gauge", (out, n) -> sample(out, n, null, null, Long.toString(value.getAsLong())));
+    }
+
+    /**
+     * Rejestruje histogram czasów.
+     *
+     * @param name nazwa metryki (zwyczajowo z sufiksem {@code _seconds})
+     * @param help opis
+     * @return histogram (pomiary w nanosekundach)
+     */
+    public LatencyHistogram histogram(String name, String help) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        register(name, help, "histogram", (out, n) -> writeHistogram(out, n, null, null, histogram));
+        return histogram;
+    }
+
+    /**
+     * Rejestruje rodzinę histogramów czasów rozróżnianych jedną etykietą.
+     *
+     * @param name  nazwa metryki
+     * @param help  opis
+     * @param label nazwa etykiety
+     * @return rodzina histogramów (pomiary w nanosekundach)
+     */
+    public Family<LatencyHistogram> histogram(String name, String help, String label) {
+        Family<LatencyHistogram> family = new Family<>(label, LatencyHistogram::new);
+        register(name, help, "histogram", (out, n) -> {
+            for (Map.Entry<String, LatencyHistogram> e : family.children().entrySet()) {
+                writeHistogram(out, n, label, e.getKey(), e.getValue());
+            }
+        });
+        return family;
+    }
+
+    /**
+     * Eksportuje wszystkie metryki w formacie tekstowym Prometheusa.
+     *
+     * @return tekst ekspozycji (linie zakończone {@code '\n'})
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Entry e : entries) {
+            out.append("# HELP ").append(e.name()).append(' ').append(escapeHelp(e.help())).append('\n');
+            out.append("# TYPE ").append(e.name()).append(' ').append(e.type()).append('\n');
+            e.writer().write(out, e.name());
+        }
+        return out.toString();
+    }
+
+    private void register(String name, String help, String type, Writer writer) {
+        if (!name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*")) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        if (!names.add(name)) {
+            throw new IllegalArgumentException("Metric already registered: " + name);
+        }
+        entries.add(new Entry(name, help, type, writer));
+    }
+
+    /** Kubełki {@code _bucket{le=...}}, {@code _sum} i {@code _count} jednego histogramu. */
+    private static void writeHistogram(StringBuilder out, String name, String label, String value,
+                                       LatencyHistogram histogram) {
+        long[] cumulative = histogram.cumulativeCounts(BUCKET_NANOS);
+        long count = cumulative[cumulative.length - 1];
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            bucket(out, name, label, value, BUCKET_LABELS[i], cumulative[i]);
+        }
+        bucket(out, name, label, value, "+Inf", count);
+        sample(out, name + "_sum", label, value, Double.toString(histogram.sum() / 1e9));
+        sample(out, name + "_count", label, value, Long.toString(count));
+    }
+
+    private static void bucket(StringBuilder out, String name, String label, String value, String le, long n) {
+        out.append(name).append("_bucket{");
+        if (label != null) {
+            out.append(label).append("=\"").append(escapeLabel(value)).append("\",");
+        }
+        out.append("le=\"").append(le).append("\"} ").append(n).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String labelValue, String value) {
+        out.append(name);
+        if (label != null) {
+            out.append('{').append(label).append("=\"").append(escapeLabel(labelValue)).append("\"}");
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escapeHelp(String s) {
+        return s.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabel(String s) {
+        return escapeHelp(s).replace("\"", "\\\"");
+    }
+}
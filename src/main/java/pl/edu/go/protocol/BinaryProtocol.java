@@ -0,0 +1,576 @@
+package pl.edu.go.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code BinaryProtocol} opisuje zwarty, binarny wariant protokołu klient–serwer.
+ *
+ * <p><b>Negocjacja:</b> klient wysyła linię tekstową {@value #HANDSHAKE}. Od następnego bajtu
+ * klient pisze już ramki binarne. Serwer odpowiada tą samą linią tekstową i od niej
+ * również przechodzi na ramki binarne. Klienci, którzy nie wyślą tej linii, zostają przy protokole tekstowym.
+ *
+ * <p><b>Ramka:</b> {@code varint długość} + {@code opcode (1 bajt)} + treść.
+ * Liczby nieujemne są kodowane jako varint (7 bitów na bajt, LSB first), liczby ze znakiem — zigzag + varint,
+ * napisy — {@code varint długość} + UTF-8.
+ *
+ * <p><b>Plansze</b> są pakowane bitowo w kolejności {@code y * size + x}:
+ * {@code BOARD} — 2 bity na pole (0 puste, 1 czarny, 2 biały),
+ * {@code TERRITORY} — 3 bity na pole (kody {@link #TERRITORY_CHARS}),
+ * {@code DEADSTONES} — 1 bit na pole.
+ *
+ * <p>Klasa jest bezstanowa (same metody statyczne) i współdzielona przez serwer i klienta.
+ */
+public final class BinaryProtocol {
+
+    /** Linia negocjacji trybu binarnego (w obie strony, jako tekst). */
+    public static final String HANDSHAKE = "PROTO BINARY";
+
+    /** Maksymalna długość treści pojedynczej ramki (ochrona przed uszkodzonym strumieniem). */
+    public static final int MAX_FRAME_LENGTH = 1 << 16;
+
+    // --- serwer → klient ---
+    public static final byte OP_WELCOME = 0x01;
+    public static final byte OP_SESSION = 0x02;
+    public static final byte OP_SEQ = 0x03;
+    public static final byte OP_PHASE = 0x04;
+    public static final byte OP_TURN = 0x05;
+    public static final byte OP_SCORE = 0x06;
+    public static final byte OP_BOARD = 0x07;
+    public static final byte OP_TERRITORY = 0x08;
+    public static final byte OP_DEADSTONES = 0x09;
+    public static final byte OP_END = 0x0A;
+    public static final byte OP_INFO = 0x0B;
+    public static final byte OP_ERROR = 0x0C;
+
+    // --- klient → serwer ---
+    public static final byte OP_MOVE = 0x20;
+    public static final byte OP_PASS = 0x21;
+    public static final byte OP_RESIGN = 0x22;
+    public static final byte OP_AGREE = 0x23;
+    public static final byte OP_RESUME = 0x24;
+    public static final byte OP_MOVES = 0x25;
+
+    /** Dowolna linia protokołu tekstowego (w obie strony) — dla komunikatów bez własnego opcode. */
+    public static final byte OP_TEXT = 0x7F;
+
+    /** Znaki {@code TROW} w kolejności kodów 3-bitowych. */
+    public static final String TERRITORY_CHARS = ".XObws";
+
+    /** Kolory w kolejności kodów (zgodnie z {@code PlayerColor}). */
+    private static final String[] COLORS = {"BLACK", "WHITE"};
+
+    /** Fazy w kolejności kodów (zgodnie z {@code GamePhase}). */
+    private static final String[] PHASES = {"PLAYING", "SCORING_REVIEW", "FINISHED"};
+
+    private BinaryProtocol() {
+    }
+
+    // =========================================================================
+    // Ramki i liczby
+    // =========================================================================
+
+    /**
+     * Dopisuje liczbę nieujemną jako varint.
+     *
+     * @param out   bufor docelowy
+     * @param value wartość (>= 0)
+     */
+    public static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Dopisuje liczbę ze znakiem (zigzag + varint).
+     *
+     * @param out   bufor docelowy
+     * @param value wartość
+     */
+    public static void writeSignedVarint(ByteArrayOutputStream out, int value) {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Dopisuje napis: {@code varint długość} + UTF-8.
+     *
+     * @param out  bufor docelowy
+     * @param text napis
+     */
+    public static void writeString(ByteArrayOutputStream out, String text) {
+        byte[] b = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, b.length);
+        out.write(b, 0, b.length);
+    }
+
+    /**
+     * Opakowuje treść (opcode + dane) w ramkę z prefiksem długości.
+     *
+     * @param payload treść ramki
+     * @return bajty ramki gotowe do zapisu
+     */
+    public static byte[] frame(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 3);
+        writeVarint(out, payload.length);
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Czyta jedną ramkę ze strumienia.
+     *
+     * @param in strumień wejściowy
+     * @return treść ramki (opcode + dane) lub {@code null} przy końcu strumienia przed początkiem ramki
+     * @throws IOException gdy ramka jest ucięta lub za długa
+     */
+    public static byte[] readFrame(InputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) return null;
+                throw new EOFException("Truncated frame length");
+            }
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+            if (shift > 28) throw new IOException("Malformed frame length");
+        }
+        if (length <= 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+
+        byte[] payload = new byte[length];
+        int off = 0;
+        while (off < length) {
+            int n = in.read(payload, off, length - off);
+            if (n < 0) throw new EOFException("Truncated frame");
+            off += n;
+        }
+        return payload;
+    }
+
+    /**
+     * Czyta jedną linię tekstu (UTF-8, zakończoną {@code '\n'}) bez buforowania ponad jej koniec,
+     * dzięki czemu po linii {@value #HANDSHAKE} strumień można czytać dalej jako ramki.
+     *
+     * @param in strumień wejściowy (najlepiej buforowany)
+     * @return linia bez znaku końca linii lub {@code null} przy końcu strumienia
+     * @throws IOException błąd odczytu lub zbyt długa linia
+     */
+    public static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') {
+                return toLine(line);
+            }
+            if (line.size() >= MAX_FRAME_LENGTH) {
+                throw new IOException("Line too long");
+            }
+            line.write(b);
+        }
+        return line.size() == 0 ? null : toLine(line);
+    }
+
+    private static String toLine(ByteArrayOutputStream line) {
+        String s = line.toString(StandardCharsets.UTF_8);
+        return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+    }
+
+    /**
+     * Kursor odczytu treści ramki (varinty, napisy, bajty).
+     */
+    public static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        /**
+         * @param payload treść ramki
+         * @param offset  pozycja początkowa (zwykle 1 — za opcode)
+         */
+        public Reader(byte[] payload, int offset) {
+            this.data = payload;
+            this.pos = offset;
+        }
+
+        public int readByte() {
+            if (pos >= data.length) throw new IllegalArgumentException("Truncated frame");
+            return data[pos++] & 0xFF;
+        }
+
+        public int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        public int readSignedVarint() {
+            int v = readVarint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        public String readString() {
+            int len = readVarint();
+            if (len < 0 || pos + len > data.length) throw new IllegalArgumentException("Truncated string");
+            String s = new String(data, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+
+        /**
+         * Czyta {@code count} pól po {@code bits} bitów (upakowanych od najmłodszego bitu).
+         */
+        public int[] readPacked(int count, int bits) {
+            int bytes = (count * bits + 7) / 8;
+            if (pos + bytes > data.length) throw new IllegalArgumentException("Truncated packed data");
+            int[] codes = unpack(data, pos, count, bits);
+            pos += bytes;
+            return codes;
+        }
+
+        public boolean hasRemaining() {
+            return pos < data.length;
+        }
+
+        /** Pozycja następnego bajtu do odczytu. */
+        public int position() {
+            return pos;
+        }
+    }
+
+    // =========================================================================
+    // Pakowanie bitowe
+    // =========================================================================
+
+    /**
+     * Pakuje kody pól po {@code bits} bitów (od najmłodszego bitu pierwszego bajtu).
+     *
+     * @param out   bufor docelowy
+     * @param codes kody pól
+     * @param bits  liczba bitów na pole (1..8)
+     */
+    public static void writePacked(ByteArrayOutputStream out, int[] codes, int bits) {
+        int acc = 0;
+        int used = 0;
+        for (int code : codes) {
+            acc |= code << used;
+            used += bits;
+            while (used >= 8) {
+                out.write(acc & 0xFF);
+                acc >>>= 8;
+                used -= 8;
+            }
+        }
+        if (used > 0) {
+            out.write(acc & 0xFF);
+        }
+    }
+
+    private static int[] unpack(byte[] data, int offset, int count, int bits) {
+        int[] codes = new int[count];
+        int mask = (1 << bits) - 1;
+        int acc = 0;
+        int avail = 0;
+        int p = offset;
+        for (int i = 0; i < count; i++) {
+            while (avail < bits) {
+                acc |= (data[p++] & 0xFF) << avail;
+                avail += 8;
+            }
+            codes[i] = acc & mask;
+            acc >>>= bits;
+            avail -= bits;
+        }
+        return codes;
+    }
+
+    /**
+     * Koduje stan planszy ({@code state[x][y]}: 0 puste, 1 czarny, 2 biały) jako ramkę {@code BOARD}.
+     *
+     * @param state stan planszy
+     * @return bajty ramki (z prefiksem długości)
+     */
+    public static byte[] encodeBoard(int[][] state) {
+        int size = state.length;
+        int[] codes = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                codes[y * size + x] = state[x][y];
+            }
+        }
+        return frame(packedPayload(OP_BOARD, size, codes, 2));
+    }
+
+    private static byte[] packedPayload(byte opcode, int size, int[] codes, int bits) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + (codes.length * bits + 7) / 8);
+        out.write(opcode);
+        writeVarint(out, size);
+        writePacked(out, codes, bits);
+        return out.toByteArray();
+    }
+
+    // =========================================================================
+    // Serwer → klient: tłumaczenie ramek tekstowych
+    // =========================================================================
+
+    /**
+     * Tłumaczy zakodowaną ramkę protokołu tekstowego (linie UTF-8) na ramki binarne.
+     *
+     * <p>Serwer wywołuje to raz na ramkę zdarzenia; wynik jest współdzielony przez wszystkich
+     * klientów binarnych. Linie bez własnego opcode trafiają do {@link #OP_TEXT}.
+     *
+     * @param text linie zakończone {@code '\n'} (UTF-8)
+     * @return sklejone ramki binarne
+     */
+    public static byte[] encodeServerText(byte[] text) {
+        String[] lines = new String(text, StandardCharsets.UTF_8).split("\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length / 2 + 8);
+
+        int i = 0;
+        while (i < lines.length) {
+            String line = lines[i];
+            if (line.isEmpty()) {
+                i++;
+                continue;
+            }
+            int consumed = encodeBlock(lines, i, out);
+            if (consumed == 0) {
+                writeFrame(out, textPayload(OP_TEXT, line));
+                consumed = 1;
+            }
+            i += consumed;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Próbuje zakodować komunikat zaczynający się w linii {@code i}.
+     *
+     * @return liczba zużytych linii lub 0, gdy komunikat trzeba przesłać jako {@link #OP_TEXT}
+     */
+    private static int encodeBlock(String[] lines, int i, ByteArrayOutputStream out) {
+        String line = lines[i];
+        int sp = line.indexOf(' ');
+        String verb = sp < 0 ? line : line.substring(0, sp);
+        String rest = sp < 0 ? "" : line.substring(sp + 1);
+
+        try {
+            switch (verb) {
+                case "WELCOME", "TURN" -> {
+                    int code = indexOf(COLORS, rest);
+                    if (code < 0) return 0;
+                    writeFrame(out, new byte[]{verb.equals("TURN") ? OP_TURN : OP_WELCOME, (byte) code});
+                    return 1;
+                }
+                case "PHASE" -> {
+                    int code = indexOf(PHASES, rest);
+                    if (code < 0) return 0;
+                    writeFrame(out, new byte[]{OP_PHASE, (byte) code});
+                    return 1;
+                }
+                case "SEQ" -> {
+                    ByteArrayOutputStream p = payload(OP_SEQ);
+                    writeVarint(p, Integer.parseInt(rest));
+                    writeFrame(out, p.toByteArray());
+                    return 1;
+                }
+                case "SESSION" -> {
+                    String[] parts = rest.split(" ");
+                    if (parts.length != 2) return 0;
+                    ByteArrayOutputStream p = payload(OP_SESSION);
+                    writeVarint(p, Integer.parseInt(parts[0]));
+                    writeString(p, parts[1]);
+                    writeFrame(out, p.toByteArray());
+                    return 1;
+                }
+                case "SCORE" -> {
+                    String[] parts = rest.split(" ");
+                    if (parts.length != 2) return 0;
+                    ByteArrayOutputStream p = payload(OP_SCORE);
+                    writeSignedVarint(p, Integer.parseInt(parts[0]));
+                    writeSignedVarint(p, Integer.parseInt(parts[1]));
+                    writeFrame(out, p.toByteArray());
+                    return 1;
+                }
+                case "BOARD" -> {
+                    return encodeGrid(lines, i, out, OP_BOARD, "ROW ", "END_BOARD", ".XO", 2);
+                }
+                case "TERRITORY" -> {
+                    return encodeGrid(lines, i, out, OP_TERRITORY, "TROW ", "END_TERRITORY", TERRITORY_CHARS, 3);
+                }
+                case "DEADSTONES" -> {
+                    return encodeGrid(lines, i, out, OP_DEADSTONES, "DROW ", "END_DEADSTONES", "01", 1);
+                }
+                case "END" -> {
+                    writeFrame(out, textPayload(OP_END, rest));
+                    return 1;
+                }
+                case "INFO" -> {
+                    writeFrame(out, textPayload(OP_INFO, rest));
+                    return 1;
+                }
+                case "ERROR" -> {
+                    writeFrame(out, textPayload(OP_ERROR, rest));
+                    return 1;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Koduje blok {@code <HEAD> size} + {@code size} wierszy + linia końca jako jedną ramkę upakowaną bitowo.
+     */
+    private static int encodeGrid(String[] lines, int i, ByteArrayOutputStream out, byte opcode,
+                                  String rowPrefix, String endLine, String alphabet, int bits) {
+        int size = Integer.parseInt(lines[i].substring(lines[i].indexOf(' ') + 1));
+        if (size <= 0 || i + size + 1 >= lines.length || !lines[i + size + 1].equals(endLine)) {
+            return 0;
+        }
+
+        int[] codes = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            String row = lines[i + 1 + y];
+            if (!row.startsWith(rowPrefix) || row.length() != rowPrefix.length() + size) {
+                return 0;
+            }
+            for (int x = 0; x < size; x++) {
+                int code = alphabet.indexOf(row.charAt(rowPrefix.length() + x));
+                if (code < 0) return 0;
+                codes[y * size + x] = code;
+            }
+        }
+        writeFrame(out, packedPayload(opcode, size, codes, bits));
+        return size + 2;
+    }
+
+    // =========================================================================
+    // Klient → serwer
+    // =========================================================================
+
+    /**
+     * Koduje linię komendy klienta jako ramkę binarną.
+     * {@code MOVE x y}, {@code PASS}, {@code RESIGN}, {@code AGREE}, {@code RESUME} dostają własne opcode,
+     * pozostałe komendy (np. {@code WATCH}) są przesyłane jako {@link #OP_TEXT}.
+     *
+     * @param line linia komendy
+     * @return bajty ramki (z prefiksem długości)
+     */
+    public static byte[] encodeClientLine(String line) {
+        String trimmed = line.trim();
+        String[] parts = trimmed.split("\\s+");
+        String verb = parts[0].toUpperCase();
+
+        if (parts.length == 1) {
+            byte op = switch (verb) {
+                case "PASS" -> OP_PASS;
+                case "RESIGN" -> OP_RESIGN;
+                case "AGREE" -> OP_AGREE;
+                case "RESUME" -> OP_RESUME;
+                default -> 0;
+            };
+            if (op != 0) {
+                return frame(new byte[]{op});
+            }
+        }
+        if (verb.equals("MOVE") && parts.length == 3) {
+            try {
+                return encodeMove(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            } catch (NumberFormatException ignored) {
+                // niepoprawny format — serwer odpowie ERROR na wersję tekstową
+            }
+        }
+        return frame(textPayload(OP_TEXT, trimmed));
+    }
+
+    /**
+     * Koduje ruch jako ramkę {@code MOVE} (współrzędne jako varint ze znakiem —
+     * walidacja zakresu należy do serwera).
+     *
+     * @param x kolumna
+     * @param y wiersz
+     * @return bajty ramki (z prefiksem długości)
+     */
+    public static byte[] encodeMove(int x, int y) {
+        ByteArrayOutputStream p = payload(OP_MOVE);
+        writeSignedVarint(p, x);
+        writeSignedVarint(p, y);
+        return frame(p.toByteArray());
+    }
+
+    /**
+     * Odczytuje napis z ramki {@link #OP_TEXT} (oraz INFO/ERROR/END).
+     *
+     * @param payload treść ramki
+     * @return napis
+     */
+    public static String readText(byte[] payload) {
+        return new Reader(payload, 1).readString();
+    }
+
+    /**
+     * Zwraca nazwę koloru dla kodu z ramek {@code WELCOME}/{@code TURN}.
+     *
+     * @param code kod koloru
+     * @return nazwa koloru
+     */
+    public static String colorName(int code) {
+        if (code < 0 || code >= COLORS.length) throw new IllegalArgumentException("Unknown color code: " + code);
+        return COLORS[code];
+    }
+
+    /**
+     * Zwraca nazwę fazy dla kodu z ramki {@code PHASE}.
+     *
+     * @param code kod fazy
+     * @return nazwa fazy
+     */
+    public static String phaseName(int code) {
+        if (code < 0 || code >= PHASES.length) throw new IllegalArgumentException("Unknown phase code: " + code);
+        return PHASES[code];
+    }
+
+    // =========================================================================
+    // Pomocnicze
+    // =========================================================================
+
+    private static ByteArrayOutputStream payload(byte opcode) {
+        ByteArrayOutputStream p = new ByteArrayOutputStream(16);
+        p.write(opcode);
+        return p;
+    }
+
+    private static byte[] textPayload(byte opcode, String text) {
+        ByteArrayOutputStream p = payload(opcode);
+        writeString(p, text);
+        return p.toByteArray();
+    }
+
+    private static void writeFrame(ByteArrayOutputStream out, byte[] payload) {
+        writeVarint(out, payload.length);
+        out.write(payload, 0, payload.length);
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return -1;
+    }
+}
@@ -1,17 +1,25 @@
 package pl.edu.go.server;
 
 import pl.edu.go.game.PlayerColor;
+import pl.edu.go.log.AsyncLog;
+import pl.edu.go.protocol.BinaryProtocol;
+import pl.edu.go.trace.TraceStage;
+import pl.edu.go.trace.Tracer;
 
 import java.io.*;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
- * {@code ClientHandler} obsługuje pojedyncze połączenie TCP klienta (socket I/O).
+ * {@code ClientHandler} obsługuje pojedyncze połączenie klienta.
  *
  * <p><b>Architektura:</b> warstwa transportowa (Layered Architecture).
  * Klasa odpowiada wyłącznie za komunikację: czytanie linii i wysyłanie odpowiedzi.
+ * Bajty płyną przez {@link Transport} — gniazdo TCP ({@link SocketTransport}) albo połączenie
+ * w pamięci ({@link LoopbackTransport}); protokół i kolejkowanie są w obu przypadkach takie same.
  *
  * <p><b>Wzorzec projektowy:</b>
  * <ul>
@@ -20,39 +28,234 @@ import java.util.concurrent.TimeUnit;
  *       ({@link pl.edu.go.server.GameSession}).</li>
  * </ul>
  *
+ * <p><b>Batching wyjścia:</b> strumień wyjściowy nie jest opróżniany po każdej linii.
+ * Komunikaty wysłane pomiędzy {@link #beginBatch()} a {@link #endBatch()} trafiają do bufora
+ * i są wysyłane jednym {@code flush()} na końcu ramki (np. jednej komendy w {@link GameSession}).
+ * Poza ramką każda linia jest wysyłana od razu.
+ *
+ * <p><b>Kolejka wyjściowa:</b> po starcie {@link #run()} zapis do transportu wykonuje osobny wątek piszący,
+ * a wątek gry jedynie dokłada ramki do ograniczonej {@link OutboundQueue}. Gdy klient nie nadąża,
+ * kolejka stosuje {@link OverflowPolicy}: scala migawki planszy, zleca sesji resynchronizację
+ * ({@link #takeResyncRequest()}) albo rozłącza klienta. Zanim wątek piszący wystartuje
+ * (np. w testach), ramki są zapisywane do transportu synchronicznie.
+ *
+ * <p><b>Obserwatorzy:</b> połączenie bez koloru ({@code color == null}) jest obserwatorem gry
+ * (komenda {@code WATCH}); dostaje te same, raz zakodowane ramki co gracze.
+ *
+ * <p><b>Protokół binarny:</b> klient może wynegocjować {@link BinaryProtocol} linią
+ * {@value BinaryProtocol#HANDSHAKE}. Od tej chwili wejście jest czytane jako ramki binarne,
+ * a ramki wyjściowe są wysyłane w wersji binarnej (tłumaczonej raz na ramkę, współdzielonej przez klientów).
+ *
+ * <p><b>Heartbeat:</b> każda odebrana linia lub ramka odświeża {@link #lastSeen()}. Na {@code PING [x]}
+ * handler odpowiada sam {@code PONG [x]}, a {@code PONG} jedynie potwierdza, że klient żyje — żadna z nich
+ * nie trafia do sesji. {@link ConnectionReaper} wysyła {@code PING <n>} cichym klientom ({@link #ping()})
+ * i zamyka połączenia, które nie odpowiadają.
+ *
  * <p>Klasa nie zawiera reguł gry; logika pozostaje w {@code Game}.
  */
 public final class ClientHandler implements Runnable {
 
-    private final Socket socket;
-    private final GameSession session;
-    private final PlayerColor color;
+    private static final AsyncLog LOG = AsyncLog.get();
+
+    private final Transport transport;
 
-    // Ustawiane dopiero po starcie run()
-    private volatile PrintWriter out;
+    // Sesja i kolor mogą się zmienić po WATCH (gracz oczekujący → obserwator innej gry)
+    private volatile GameSession session;
+    private volatile PlayerColor color;
 
-    // Sygnał „gotowości” (czy out jest ustawione i można wysyłać)
+    // Router komend poziomu serwera (WATCH); null = linie trafiają wprost do sesji
+    private final SessionRegistry registry;
+
+    // Buforowany strumień wyjściowy transportu (otwierany przy pierwszym zapisie)
+    private OutputStream out;
+
+    // Sygnał „gotowości” (czy run() uruchomił wątek piszący)
     private final CountDownLatch readyLatch = new CountDownLatch(1);
 
+    // Głębokość zagnieżdżenia ramek batchingu (0 = każda linia jest od razu wysyłana)
+    private int batchDepth = 0;
+
+    // Ramki zebrane w bieżącej ramce batchingu
+    private final List<OutboundQueue.Frame> pending = new ArrayList<>();
+
+    // Ograniczona kolejka wyjściowa obsługiwana przez wątek piszący
+    private final OutboundQueue queue;
+
+    // Wątek piszący (null dopóki run() go nie uruchomi — wtedy zapis jest synchroniczny)
+    private Thread writerThread;
+
+    // Ustawiane, gdy kolejka odrzuciła zaległe ramki i klient potrzebuje pełnego stanu
+    private boolean resyncRequested = false;
+
+    // Połączenie zostało zamknięte (dalsze ramki są odrzucane)
+    private volatile boolean closed = false;
+
+    // Klient wynegocjował protokół binarny (ramki wyjściowe w wersji binarnej)
+    private boolean binary = false;
+
+    // Ślad ostatnio odczytanej komendy (tylko przy Tracer.ENABLED; czytane przez sesję w wątku odczytu)
+    private long traceId;
+    private long readNanos;
+
+    // Chwila ostatniej odebranej linii/ramki (System.nanoTime()); pingedFor = lastSeen, dla którego wysłano PING
+    private volatile long lastSeen = System.nanoTime();
+    private long pingedFor = lastSeen - 1;
+    private int pingSeq;
+
     public ClientHandler(Socket socket, GameSession session, PlayerColor color) {
-        this.socket = socket;
+        this(new SocketTransport(socket), session, color, new OutboundQueue(), null);
+    }
+
+    /**
+     * Tworzy handler połączenia o dowolnym transporcie, z domyślną kolejką wyjściową.
+     *
+     * @param transport połączenie klienta (np. {@link LoopbackTransport})
+     * @param session   sesja gry
+     * @param color     kolor przypisany klientowi ({@code null} = obserwator)
+     */
+    public ClientHandler(Transport transport, GameSession session, PlayerColor color) {
+        this(transport, session, color, new OutboundQueue(), null);
+    }
+
+    /**
+     * Tworzy handler z własną konfiguracją kolejki wyjściowej.
+     *
+     * @param transport połączenie klienta
+     * @param session   sesja gry
+     * @param color     kolor przypisany klientowi
+     * @param queue     kolejka wyjściowa (limity i polityka przepełnienia)
+     * @param registry  rejestr sesji obsługujący komendy serwera (np. {@code WATCH}); może być null
+     */
+    public ClientHandler(Transport transport, GameSession session, PlayerColor color,
+                         OutboundQueue queue, SessionRegistry registry) {
+        this.transport = transport;
         this.session = session;
         this.color = color;
+        this.queue = queue;
+        this.registry = registry;
     }
 
     /**
      * Zwraca kolor przypisany do tego połączenia (BLACK/WHITE).
      *
-     * @return kolor klienta
+     * @return kolor klienta lub {@code null} dla obserwatora
      */
     public PlayerColor getColor() {
         return color;
     }
 
     /**
-     * Czeka aż handler przygotuje strumień wyjściowy ({@code out}).
-     * Dzięki temu serwer może bezpiecznie wysłać komunikaty startowe (np. WELCOME/INFO)
-     * bez ryzyka, że {@code out == null}.
+     * Zwraca sesję, do której należy połączenie.
+     *
+     * @return sesja gry albo {@code null}, dopóki {@link SessionRegistry} nie posadzi klienta
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
+    /**
+     * Czy połączenie jest obserwatorem (bez miejsca przy planszy).
+     *
+     * @return {@code true} dla obserwatora
+     */
+    public boolean isSpectator() {
+        return color == null;
+    }
+
+    /**
+     * Przepina połączenie do innej sesji (po {@code WATCH} lub {@code RESUME_SESSION}).
+     *
+     * @param target sesja docelowa
+     * @param color  kolor miejsca w sesji lub {@code null} dla obserwatora
+     */
+    void rebind(GameSession target, PlayerColor color) {
+        this.session = target;
+        this.color = color;
+    }
+
+    /** Etykieta połączenia do logów i nazw wątków. */
+    String label() {
+        GameSession s = session;
+        PlayerColor c = color;
+        if (s == null) {
+            return "NEW";
+        }
+        return (c == null ? "SPECTATOR" : c.name()) + "@" + s.getId();
+    }
+
+    /** Identyfikator śladu komendy obsługiwanej przez wątek odczytu ({@code 0} = brak). */
+    long traceId() {
+        return traceId;
+    }
+
+    /** Chwila odczytu tej komendy z transportu ({@link System#nanoTime()}). */
+    long readNanos() {
+        return readNanos;
+    }
+
+    /** Oznacza właśnie odczytaną komendę nowym śladem. */
+    private void traceRead() {
+        readNanos = System.nanoTime();
+        traceId = Tracer.nextId();
+    }
+
+    /**
+     * Zwraca chwilę ostatniej aktywności klienta (odebranej linii lub ramki).
+     *
+     * @return czas {@link System#nanoTime()}; przed pierwszą komendą — chwila utworzenia handlera
+     */
+    public long lastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * Czy połączenie zostało zamknięte.
+     *
+     * @return {@code true} po {@link #close()} albo zakończeniu pętli odczytu
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Wysyła {@code PING <n>}, jeśli od ostatniej aktywności klienta nie wysłano jeszcze PING.
+     */
+    synchronized void ping() {
+        long seen = lastSeen;
+        if (closed || pingedFor == seen) {
+            return;
+        }
+        pingedFor = seen;
+        sendLine("PING " + (++pingSeq));
+    }
+
+    /**
+     * Obsługuje linie heartbeatu (aktywność klienta odnotowuje już pętla odczytu).
+     *
+     * @param line odebrana linia
+     * @return {@code true}, jeśli była to linia {@code PING}/{@code PONG} (nie trafia do sesji)
+     */
+    private boolean heartbeat(String line) {
+        if (line.startsWith("PING") && (line.length() == 4 || line.charAt(4) == ' ')) {
+            sendLine("PONG" + line.substring(4));
+            return true;
+        }
+        return line.startsWith("PONG") && (line.length() == 4 || line.charAt(4) == ' ');
+    }
+
+    /**
+     * Zwraca kolejkę wyjściową połączenia (m.in. do odczytu metryk głębokości kolejki).
+     *
+     * @return kolejka wyjściowa
+     */
+    public OutboundQueue getOutboundQueue() {
+        return queue;
+    }
+
+    /**
+     * Czeka aż handler uruchomi pętlę odczytu i wątek piszący ({@link #run()}).
+     * Dzięki temu komunikaty startowe (np. WELCOME/INFO) idą już przez kolejkę wyjściową,
+     * a nie synchronicznie z wątku gry.
      *
      * @param timeoutMs maksymalny czas oczekiwania w ms
      * @return {@code true} jeśli handler jest gotowy do wysyłania
@@ -66,56 +269,292 @@ public final class ClientHandler implements Runnable {
         }
     }
 
+    /**
+     * Otwiera ramkę batchingu: kolejne linie są buforowane aż do {@link #endBatch()}.
+     * Ramki mogą być zagnieżdżane; bufor jest opróżniany po zamknięciu najbardziej zewnętrznej.
+     */
+    synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Zamyka ramkę batchingu. Po zamknięciu ostatniej ramki wysyła bufor jednym {@code flush()}.
+     */
+    synchronized void endBatch() {
+        if (batchDepth == 0) {
+            return;
+        }
+        batchDepth--;
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
     /**
      * Wysyła jedną linię tekstu do klienta.
      *
-     * <p>Jeżeli {@code out} nie jest jeszcze ustawione, metoda nic nie wysyła.
+     * <p>Przed startem {@link #run()} linia jest zapisywana do transportu synchronicznie.
      * W praktyce serwer powinien wcześniej użyć {@link #awaitReady(long)}.</p>
      *
+     * <p>Wewnątrz ramki batchingu linia trafia tylko do bufora; poza ramką jest od razu wysyłana.</p>
+     *
      * @param line linia do wysłania (bez '\n')
      */
     void sendLine(String line) {
-        PrintWriter w = out;
-        if (w != null) {
-            w.println(line);
+        sendFrame(OutboundQueue.Frame.of(line + "\n", false));
+    }
+
+    /**
+     * Wysyła gotową (zakodowaną) ramkę złożoną z jednej lub wielu linii.
+     *
+     * <p>Ramka jest niezmienna i może być współdzielona przez wiele połączeń —
+     * sesja koduje zdarzenie raz i przekazuje tę samą instancję wszystkim odbiorcom.</p>
+     *
+     * @param frame ramka do wysłania
+     */
+    synchronized void sendFrame(OutboundQueue.Frame frame) {
+        // kodowanie wybieramy w chwili wysłania, więc potwierdzenie PROTO BINARY rozdziela oba tryby w strumieniu
+        pending.add(binary ? frame.binary() : frame);
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Przełącza wyjście na protokół binarny: potwierdzenie {@value BinaryProtocol#HANDSHAKE}
+     * idzie jeszcze tekstem, wszystkie kolejne ramki — binarnie.
+     */
+    private synchronized void switchToBinary() {
+        sendLine(BinaryProtocol.HANDSHAKE);
+        binary = true;
+    }
+
+    /**
+     * Czy połączenie używa protokołu binarnego.
+     *
+     * @return {@code true} po wynegocjowaniu {@link BinaryProtocol}
+     */
+    public synchronized boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Sprawdza i kasuje żądanie resynchronizacji (po przepełnieniu kolejki z polityką RESYNC/COALESCE).
+     *
+     * @return {@code true} jeśli sesja powinna wysłać temu klientowi pełny stan gry
+     */
+    synchronized boolean takeResyncRequest() {
+        boolean r = resyncRequested;
+        resyncRequested = false;
+        return r;
+    }
+
+    /**
+     * Przekazuje zebrane ramki do kolejki wyjściowej albo — gdy wątek piszący nie działa —
+     * zapisuje je synchronicznie jednym {@code flush()}.
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        OutboundQueue.Offer result = queue.offer(pending);
+        pending.clear();
+
+        switch (result) {
+            case RESYNC -> resyncRequested = true;
+            case DISCONNECT -> {
+                if (!closed) {
+                    LOG.warn("Client {} too slow, disconnecting.", label());
+                    ServerMetrics.SLOW_DISCONNECTS.inc();
+                    close();
+                }
+            }
+            default -> {
+                if (writerThread == null) {
+                    List<OutboundQueue.Frame> frames = new ArrayList<>();
+                    queue.drainTo(frames);
+                    write(frames);
+                }
+            }
+        }
+    }
+
+    /**
+     * Zapisuje ramki do strumienia i opróżnia go (jeden zapis do transportu dla wszystkich ramek).
+     *
+     * @param frames ramki do zapisania
+     */
+    private void write(List<OutboundQueue.Frame> frames) {
+        if (closed) {
+            return;
+        }
+        try {
+            OutputStream w = output();
+            for (OutboundQueue.Frame f : frames) {
+                w.write(f.data);
+            }
             w.flush();
+            if (Tracer.ENABLED) {
+                traceWrites(frames);
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Zapisuje etap {@link TraceStage#WRITE} dla znaczników śledzonych komend w zapisanych ramkach.
+     */
+    private void traceWrites(List<OutboundQueue.Frame> frames) {
+        long now = System.nanoTime();
+        for (OutboundQueue.Frame f : frames) {
+            if (f.traceId != 0) {
+                GameSession s = session;
+                Tracer.span(f.traceId, TraceStage.WRITE, s == null ? 0 : s.getId(), f.tracedAt, now - f.tracedAt);
+            }
+        }
+    }
+
+    /**
+     * Zwraca buforowany strumień wyjściowy transportu, otwierając go przy pierwszym użyciu
+     * (bez autoflush: opróżnianie sterowane przez sendLine/endBatch).
+     */
+    private synchronized OutputStream output() throws IOException {
+        if (out == null) {
+            out = new BufferedOutputStream(transport.getOutputStream());
+        }
+        return out;
+    }
+
+    /**
+     * Pętla wątku piszącego: pobiera wszystkie dostępne ramki z kolejki i zapisuje je jednym {@code flush()}.
+     */
+    private void writeLoop() {
+        List<OutboundQueue.Frame> frames = new ArrayList<>();
+        try {
+            while (queue.awaitAndDrain(frames)) {
+                write(frames);
+                frames.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Przekazuje linię komendy do {@link SessionRegistry} (komendy serwera) lub wprost do sesji.
+     */
+    private void dispatch(String line) {
+        if (registry != null) {
+            registry.dispatch(this, line);
+        } else {
+            session.handleClientMessage(this, line);
+        }
+    }
+
+    /**
+     * Przekazuje binarną komendę gry do {@link SessionRegistry} (sadza nowego klienta) lub wprost do sesji.
+     */
+    private void dispatchFrame(byte[] payload) {
+        if (registry != null) {
+            registry.dispatchFrame(this, payload);
+        } else {
+            session.handleClientFrame(this, payload);
+        }
+    }
+
+    /**
+     * Zamyka połączenie z klientem (pętla odczytu w {@link #run()} kończy się błędem/EOF).
+     */
+    void close() {
+        closed = true;
+        queue.close();
+        try {
+            transport.close();
+        } catch (IOException ignored) {
+            // ignore
         }
     }
 
     /**
      * Główna pętla wątku klienta:
      * <ul>
-     *   <li>tworzy strumienie wejścia/wyjścia,</li>
-     *   <li>ustawia {@code out} i sygnalizuje gotowość,</li>
+     *   <li>otwiera strumienie transportu,</li>
+     *   <li>uruchamia wątek piszący i sygnalizuje gotowość,</li>
      *   <li>wysyła komunikat INFO po połączeniu,</li>
-     *   <li>czyta linie od klienta i przekazuje je do {@link GameSession}.</li>
+     *   <li>czyta linie od klienta i przekazuje je do {@link SessionRegistry} (komendy serwera,
+     *       posadzenie nowego klienta) lub wprost do {@link GameSession},</li>
+     *   <li>po linii {@value BinaryProtocol#HANDSHAKE} czyta ramki binarne: komendy gry trafiają do
+     *       {@link GameSession#handleClientFrame(ClientHandler, byte[])}, ramki tekstowe — jak linie.</li>
      * </ul>
      */
     @Override
     public void run() {
+        ServerMetrics.connectionOpened(queue);
         try (
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true)
+                // surowy strumień: po negocjacji te same bajty czytamy jako ramki binarne
+                InputStream in = new BufferedInputStream(transport.getInputStream())
         ) {
-            // ustawiamy strumień wyjściowy, którego używa sendLine(...)
-            this.out = writer;
+            synchronized (this) {
+                // strumień wyjściowy i wątek piszący, którego używa sendLine(...)
+                output();
+                writerThread = new Thread(this::writeLoop, "Writer-" + label());
+                writerThread.setDaemon(true);
+                writerThread.start();
+            }
             // sygnał gotowości do wysyłania
             readyLatch.countDown();
 
             // prosty komunikat informacyjny po połączeniu
-            sendLine("INFO Connected as " + color.name());
+            if (session == null) {
+                sendLine("INFO Connected. Send PLAY to join a game, RESUME_SESSION <token> [lastSeq] to return"
+                        + " or WATCH <gameId>.");
+            } else {
+                sendLine("INFO Connected as " + (color == null ? "SPECTATOR" : color.name()));
+            }
 
-            String line;
-            while ((line = in.readLine()) != null) {
-                session.handleClientMessage(this, line);
+            boolean binaryInput = false;
+            while (true) {
+                if (binaryInput) {
+                    byte[] payload = BinaryProtocol.readFrame(in);
+                    if (payload == null) break;
+                    lastSeen = System.nanoTime();
+                    if (Tracer.ENABLED) traceRead();
+                    if (payload[0] == BinaryProtocol.OP_TEXT) {
+                        String text = BinaryProtocol.readText(payload);
+                        if (!heartbeat(text)) {
+                            dispatch(text);
+                        }
+                    } else {
+                        dispatchFrame(payload);
+                    }
+                } else {
+                    String line = BinaryProtocol.readLine(in);
+                    if (line == null) break;
+                    lastSeen = System.nanoTime();
+                    if (Tracer.ENABLED) traceRead();
+                    if (line.trim().equalsIgnoreCase(BinaryProtocol.HANDSHAKE)) {
+                        switchToBinary();
+                        binaryInput = true;
+                    } else if (!heartbeat(line)) {
+                        dispatch(line);
+                    }
+                }
             }
 
-            System.out.println("Client " + color + " disconnected (EOF).");
-        } catch (IOException e) {
-            System.out.println("Client " + color + " disconnected: " + e.getMessage());
+            LOG.info("Client {} disconnected (EOF).", label());
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.info("Client {} disconnected: {}", label(), e.getMessage());
         } finally {
-            // na wypadek gdyby wyjątek był przed ustawieniem out
+            // na wypadek gdyby wyjątek był przed sygnałem gotowości
             readyLatch.countDown();
+            close();
+            ServerMetrics.connectionClosed(queue);
+            GameSession s = session;
+            if (s != null) {
+                s.connectionClosed(this);
+            }
         }
     }
 }
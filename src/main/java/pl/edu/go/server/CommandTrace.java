@@ -0,0 +1,104 @@
+package pl.edu.go.server;
+
+import pl.edu.go.trace.TraceStage;
+import pl.edu.go.trace.Tracer;
+
+/**
+ * {@code CommandTrace} mierzy etapy komendy obsługiwanej przez {@link GameSession}
+ * (używany tylko przy {@link Tracer#ENABLED}).
+ *
+ * <p>Obiekt należy do sesji i jest używany pod jej blokadą: {@link #begin} otwiera ślad komendy,
+ * każde {@link #stage(TraceStage)} zamyka odcinek od poprzedniego znacznika czasu, a callbacki
+ * obserwatora sumują swój czas przez {@link #observed(long)}. Zapis do transportu mierzy wątek
+ * piszący połączenia na podstawie ramki-znacznika ({@link OutboundQueue.Frame#traceMark(long, long)}).
+ */
+final class CommandTrace {
+
+    private final int sessionId;
+
+    /** Identyfikator bieżącej komendy ({@code 0} = brak śledzonej komendy). */
+    private long traceId;
+    private long last;
+    private long observerStart;
+    private long observerNanos;
+
+    /** Nadawca komendy (dostaje znacznik zapisu, gdy komenda nie tworzy zdarzenia). */
+    private ClientHandler origin;
+
+    CommandTrace(int sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Otwiera ślad komendy i zapisuje odcinek {@link TraceStage#QUEUE} od odczytu z gniazda.
+     *
+     * @param from nadawca (identyfikator śladu i czas odczytu z {@link ClientHandler})
+     */
+    void begin(ClientHandler from) {
+        traceId = from.traceId();
+        origin = from;
+        observerNanos = 0;
+        last = System.nanoTime();
+        if (traceId != 0) {
+            Tracer.span(traceId, TraceStage.QUEUE, sessionId, from.readNanos(), last - from.readNanos());
+        }
+    }
+
+    /**
+     * Zamyka odcinek etapu od poprzedniego znacznika. Dla {@link TraceStage#EXECUTE} czas callbacków
+     * obserwatora jest odejmowany i zapisywany osobno jako {@link TraceStage#OBSERVERS}.
+     *
+     * @param stage zakończony etap
+     */
+    void stage(TraceStage stage) {
+        long now = System.nanoTime();
+        if (traceId != 0) {
+            long duration = now - last;
+            if (stage == TraceStage.EXECUTE && observerNanos > 0) {
+                Tracer.span(traceId, TraceStage.OBSERVERS, sessionId, observerStart, observerNanos);
+                duration -= observerNanos;
+            }
+            Tracer.span(traceId, stage, sessionId, last, duration);
+        }
+        last = now;
+    }
+
+    /**
+     * Dolicza czas callbacku obserwatora rozpoczętego w chwili {@code start}.
+     *
+     * @param start początek callbacku ({@link System#nanoTime()})
+     */
+    void observed(long start) {
+        if (traceId == 0) {
+            return;
+        }
+        if (observerNanos == 0) {
+            observerStart = start;
+        }
+        observerNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Zwraca ramkę-znacznik bieżącej komendy do dołączenia za jej ramkami (albo {@code null}).
+     *
+     * @return znacznik zapisu lub {@code null}, gdy komenda nie jest śledzona
+     */
+    OutboundQueue.Frame writeMark() {
+        return traceId == 0 ? null : OutboundQueue.Frame.traceMark(traceId, System.nanoTime());
+    }
+
+    /**
+     * Zwraca nadawcę bieżącej komendy.
+     *
+     * @return połączenie nadawcy lub {@code null} poza śledzoną komendą
+     */
+    ClientHandler origin() {
+        return traceId == 0 ? null : origin;
+    }
+
+    /** Zamyka ślad komendy. */
+    void end() {
+        traceId = 0;
+        origin = null;
+    }
+}
@@ -0,0 +1,92 @@
+package pl.edu.go.server;
+
+import pl.edu.go.log.AsyncLog;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code ConnectionReaper} wykrywa martwe połączenia klientów i je zamyka.
+ *
+ * <p>Wątek {@link ClientHandler} blokuje się na odczycie, więc zerwane „w pół” połączenie TCP
+ * (klient zniknął bez FIN/RST) zajmowałoby wątek, kolejkę wyjściową i miejsce przy planszy do restartu
+ * serwera. Reaper sprawdza czas ostatniej aktywności każdego śledzonego połączenia
+ * ({@link ClientHandler#lastSeen()} — dowolna odebrana linia lub ramka, w tym {@code PONG}):
+ * <ul>
+ *   <li>po {@code pingNanos} ciszy wysyła klientowi {@code PING <n>} (jeden na okres ciszy),</li>
+ *   <li>po {@code timeoutNanos} ciszy zamyka połączenie — pętla odczytu handlera kończy się,
+ *       a sesja zwalnia miejsce ({@link GameSession#connectionClosed(ClientHandler)}) jak przy rozłączeniu.</li>
+ * </ul>
+ *
+ * <p>Jeden reaper obsługuje wszystkie połączenia serwera; {@link #reap(long)} woła okresowo
+ * {@link GameServer} (albo test, z własnym czasem). Połączenia zakończone w inny sposób są
+ * usuwane przy najbliższym przeglądzie.
+ */
+public final class ConnectionReaper {
+
+    private static final AsyncLog LOG = AsyncLog.get();
+
+    private final long pingNanos;
+    private final long timeoutNanos;
+
+    /** Śledzone połączenia. */
+    private final Set<ClientHandler> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param pingNanos    cisza, po której wysyłany jest {@code PING}
+     * @param timeoutNanos cisza, po której połączenie jest zamykane
+     * @throws IllegalArgumentException gdy czasy nie są dodatnie albo PING nie wyprzedza limitu
+     */
+    public ConnectionReaper(long pingNanos, long timeoutNanos) {
+        if (pingNanos <= 0 || timeoutNanos <= pingNanos) {
+            throw new IllegalArgumentException("Bad heartbeat: ping=" + pingNanos + "ns, timeout=" + timeoutNanos + "ns");
+        }
+        this.pingNanos = pingNanos;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Zaczyna śledzić połączenie (licząc ciszę od teraz).
+     *
+     * @param handler połączenie klienta
+     */
+    public void track(ClientHandler handler) {
+        connections.add(handler);
+    }
+
+    /**
+     * Zwraca liczbę śledzonych połączeń.
+     *
+     * @return liczba połączeń
+     */
+    public int size() {
+        return connections.size();
+    }
+
+    /**
+     * Przegląda połączenia: wysyła {@code PING} cichym i zamyka te, które milczą dłużej niż limit.
+     *
+     * @param now bieżący czas ({@link System#nanoTime()})
+     * @return liczba zamkniętych połączeń
+     */
+    public int reap(long now) {
+        int reaped = 0;
+        for (ClientHandler h : connections) {
+            if (h.isClosed()) {
+                connections.remove(h);
+                continue;
+            }
+            long idle = now - h.lastSeen();
+            if (idle >= timeoutNanos) {
+                connections.remove(h);
+                LOG.info("Client {} silent for {} ms, closing.", h.label(), idle / 1_000_000);
+                ServerMetrics.IDLE_DISCONNECTS.inc();
+                h.close();
+                reaped++;
+            } else if (idle >= pingNanos) {
+                h.ping();
+            }
+        }
+        return reaped;
+    }
+}
@@ -0,0 +1,92 @@
+package pl.edu.go.server;
+
+import java.util.List;
+
+/**
+ * {@code EventReplayBuffer} przechowuje ostatnie zdarzenia sesji (ramki rozesłane do klientów)
+ * w ograniczonym buforze cyklicznym, indeksowanym numerem sekwencyjnym.
+ *
+ * <p>Jedna pozycja bufora to wszystkie ramki jednej komendy (jedna ramka batchingu),
+ * zakończone linią {@code SEQ <n>}. Klient, który po zerwaniu połączenia wraca z ostatnim
+ * otrzymanym numerem, dostaje tylko brakujące pozycje. Jeżeli klient jest zbyt daleko w tyle
+ * (pozycje zostały już nadpisane), bufor zgłasza to przez {@link #canReplayAfter(long)},
+ * a sesja wysyła pełną migawkę stanu.
+ */
+final class EventReplayBuffer {
+
+    /** Domyślna liczba pamiętanych zdarzeń (komend). */
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final long[] seqs;
+    private final OutboundQueue.Frame[][] entries;
+
+    /** Liczba zapisanych pozycji (maks. {@code capacity}). */
+    private int count = 0;
+
+    /** Indeks następnej pozycji do zapisu. */
+    private int head = 0;
+
+    /**
+     * @param capacity liczba pamiętanych zdarzeń
+     */
+    EventReplayBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.seqs = new long[capacity];
+        this.entries = new OutboundQueue.Frame[capacity][];
+    }
+
+    /**
+     * Dopisuje zdarzenie o kolejnym numerze sekwencyjnym (najstarsze jest nadpisywane).
+     *
+     * @param seq    numer sekwencyjny (rosnący)
+     * @param frames ramki zdarzenia (w kolejności wysyłania)
+     */
+    void append(long seq, List<OutboundQueue.Frame> frames) {
+        seqs[head] = seq;
+        entries[head] = frames.toArray(new OutboundQueue.Frame[0]);
+        head = (head + 1) % seqs.length;
+        if (count < seqs.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Sprawdza, czy bufor zawiera wszystkie zdarzenia po {@code lastSeq}.
+     *
+     * @param lastSeq ostatni numer otrzymany przez klienta
+     * @return {@code true} jeśli brakujące zdarzenia można odtworzyć z bufora
+     */
+    boolean canReplayAfter(long lastSeq) {
+        if (count == 0) {
+            return lastSeq == 0;
+        }
+        long oldest = seqs[index(0)];
+        long newest = seqs[index(count - 1)];
+        return lastSeq >= oldest - 1 && lastSeq <= newest;
+    }
+
+    /**
+     * Dokłada do {@code out} ramki wszystkich zdarzeń o numerach większych niż {@code lastSeq}.
+     *
+     * @param lastSeq ostatni numer otrzymany przez klienta
+     * @param out     lista docelowa
+     */
+    void replayAfter(long lastSeq, List<OutboundQueue.Frame> out) {
+        for (int i = 0; i < count; i++) {
+            int idx = index(i);
+            if (seqs[idx] > lastSeq) {
+                for (OutboundQueue.Frame f : entries[idx]) {
+                    out.add(f);
+                }
+            }
+        }
+    }
+
+    /** Zamienia pozycję logiczną (0 = najstarsza) na indeks tablicy. */
+    private int index(int logical) {
+        int start = (head - count + seqs.length) % seqs.length;
+        return (start + logical) % seqs.length;
+    }
+}
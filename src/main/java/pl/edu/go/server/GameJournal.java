@@ -0,0 +1,682 @@
+package pl.edu.go.server;
+
+import pl.edu.go.board.BoardFactory;
+import pl.edu.go.command.BinaryCommandFactory;
+import pl.edu.go.command.GameCommand;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GameClock;
+import pl.edu.go.game.GameSnapshotCodec;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.log.AsyncLog;
+import pl.edu.go.protocol.BinaryProtocol;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * {@code GameJournal} to dziennik zdarzeń gier serwera (event sourcing) zapisywany tylko przez dopisywanie.
+ *
+ * <p><b>Co jest zapisywane:</b> start sesji (rozmiar planszy, tokeny wznawiania) oraz każda
+ * <b>zaakceptowana</b> komenda gry ({@link GameCommand}) z kolorem gracza. Komendy odrzucone przez
+ * {@code Game} nie trafiają do dziennika, więc odtworzenie jest deterministyczne.
+ *
+ * <p><b>Format rekordu:</b> {@code varint długość} + treść + {@code CRC32} (4 bajty) treści.
+ * Treść: {@code typ (1 bajt)}, {@code varint id sesji}, a dalej:
+ * <ul>
+ *   <li>{@code START}: {@code varint rozmiar planszy}, token BLACK, token WHITE (napisy jak w {@link BinaryProtocol}),</li>
+ *   <li>{@code COMMAND}: {@code kolor (1 bajt)} + komenda w formacie {@link BinaryCommandFactory#encode(GameCommand)},</li>
+ *   <li>{@code TIMEOUT}: {@code kolor (1 bajt)} gracza, który przekroczył czas ({@link Game#timeout(PlayerColor)}),</li>
+ *   <li>{@code CLOCK}: dla BLACK i WHITE {@code varint czas podstawowy (ms)} + {@code varint okresy byo-yomi} —
+ *       stan zegarów rozliczony przy przełączeniu zegara po zaakceptowanej komendzie,</li>
+ *   <li>{@code SNAPSHOT}: token BLACK, token WHITE, {@code varint liczba komend} i migawka gry
+ *       ({@link GameSnapshotCodec}) — zastępuje wcześniejsze rekordy sesji (zapisywany przy kompaktowaniu).</li>
+ * </ul>
+ * Treść rekordu ma najwyżej {@value #MAX_RECORD_LENGTH} B — dłuższego rekordu nie da się dopisać, a przy
+ * odczycie długość ponad limit oznacza uszkodzenie. Uszkodzony lub ucięty ogon pliku (awaria w trakcie
+ * zapisu) jest przy odczycie pomijany i obcinany.
+ *
+ * <p><b>Group commit:</b> {@link #appendCommand} tylko koduje rekord i dokłada go do bufora w pamięci.
+ * Osobny wątek zapisuje zebrane rekordy jednym {@code write} i jednym {@code fsync}; rekordy dopisane
+ * w trakcie trwającego {@code fsync} trafiają do następnej paczki. Ścieżka ruchu nie czeka więc na dysk —
+ * w razie awarii można stracić co najwyżej rekordy z ostatniej, niezatwierdzonej paczki.
+ *
+ * <p><b>Odtwarzanie:</b> {@link #recover(Path)} czyta dziennik przy starcie serwera i odbudowuje
+ * instancje {@link Game}, wykonując zapisane komendy na nowych planszach. Gry zakończone nie są zwracane.
+ *
+ * <p><b>Kompaktowanie:</b> bez niego plik rośnie bez końca, a każdy restart odtwarza wszystkie gry od
+ * pierwszej komendy. {@link #beginCompaction()} zaczyna budować nową zawartość pliku: każda trwająca gra
+ * dostaje rekord {@code SNAPSHOT} ({@link #compactSession}, wołane pod blokadą sesji), a rekordy sesji
+ * zapisanych w migawce (i nowych sesji) dopisywane w trakcie trafiają też do nowej zawartości.
+ * {@link #finishCompaction()} zapisuje ją atomowo w miejsce pliku; rekordy gier zakończonych przepadają.
+ */
+public final class GameJournal implements AutoCloseable {
+
+    private static final AsyncLog LOG = AsyncLog.get();
+
+    /** Typ rekordu: start sesji. */
+    static final byte REC_START = 1;
+
+    /** Typ rekordu: zaakceptowana komenda gry. */
+    static final byte REC_COMMAND = 2;
+
+    /** Typ rekordu: przekroczenie czasu. */
+    static final byte REC_TIMEOUT = 3;
+
+    /** Typ rekordu: stan zegarów graczy. */
+    static final byte REC_CLOCK = 4;
+
+    /** Typ rekordu: migawka gry (kompaktowanie). */
+    static final byte REC_SNAPSHOT = 5;
+
+    /**
+     * Maksymalna długość treści rekordu. Większa niż limit ramki protokołu, bo rekord {@code SNAPSHOT}
+     * niesie całą historię partii.
+     */
+    static final int MAX_RECORD_LENGTH = 1 << 24;
+
+    private final Path path;
+    private FileChannel channel;
+    private final BinaryCommandFactory commands = new BinaryCommandFactory(true);
+
+    private final Object lock = new Object();
+
+    /** Rekordy czekające na zapis (chronione przez {@link #lock}). */
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+
+    /** Drugi bufor wymieniany z {@link #pending} (zapisywany przez wątek dziennika). */
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(4096);
+
+    /** Liczba bajtów przyjętych do zapisu i liczba bajtów zatwierdzonych przez fsync. */
+    private long appendedBytes = 0;
+    private long durableBytes = 0;
+
+    /** Liczba wykonanych paczek (fsync) — metryka skuteczności group commit. */
+    private long commits = 0;
+
+    private boolean closed = false;
+    private IOException failure;
+
+    /** Nowa zawartość pliku budowana przez kompaktowanie ({@code null} poza kompaktowaniem). */
+    private ByteArrayOutputStream compacted;
+
+    /** Sesje, których rekordy trafiają do {@link #compacted} (zapisane w migawce albo rozpoczęte w trakcie). */
+    private final Set<Integer> compactedSessions = new HashSet<>();
+
+    private final Thread writer;
+
+    private GameJournal(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+        this.writer = new Thread(this::writeLoop, "GameJournal-Writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Otwiera dziennik do dopisywania. Plik jest obcinany do {@code validLength}
+     * (długości poprawnej części zwróconej przez {@link #recover(Path)}).
+     *
+     * @param path        ścieżka pliku dziennika
+     * @param validLength długość poprawnej części pliku
+     * @return otwarty dziennik
+     * @throws IOException błąd otwarcia pliku
+     */
+    public static GameJournal open(Path path, long validLength) throws IOException {
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        if (ch.size() > validLength) {
+            ch.truncate(validLength);
+        }
+        ch.position(validLength);
+        return new GameJournal(path, ch);
+    }
+
+    // =========================================================================
+    // Dopisywanie
+    // =========================================================================
+
+    /**
+     * Zapisuje start sesji (rozmiar planszy i tokeny wznawiania graczy).
+     *
+     * @param sessionId  identyfikator sesji
+     * @param boardSize  rozmiar planszy
+     * @param blackToken token BLACK
+     * @param whiteToken token WHITE
+     */
+    public void appendStart(int sessionId, int boardSize, String blackToken, String whiteToken) {
+        ByteArrayOutputStream p = new ByteArrayOutputStream(48);
+        p.write(REC_START);
+        BinaryProtocol.writeVarint(p, sessionId);
+        BinaryProtocol.writeVarint(p, boardSize);
+        BinaryProtocol.writeString(p, blackToken);
+        BinaryProtocol.writeString(p, whiteToken);
+        append(sessionId, p.toByteArray());
+    }
+
+    /**
+     * Zapisuje zaakceptowaną komendę gry. Metoda nie czeka na zapis na dysk.
+     *
+     * @param sessionId identyfikator sesji
+     * @param player    gracz, który wysłał komendę
+     * @param command   wykonana komenda
+     */
+    public void appendCommand(int sessionId, PlayerColor player, GameCommand command) {
+        byte[] encoded = commands.encode(command);
+        ByteArrayOutputStream p = new ByteArrayOutputStream(encoded.length + 8);
+        p.write(REC_COMMAND);
+        BinaryProtocol.writeVarint(p, sessionId);
+        p.write(player.ordinal());
+        p.write(encoded, 0, encoded.length);
+        append(sessionId, p.toByteArray());
+    }
+
+    /**
+     * Zapisuje zakończenie gry przekroczeniem czasu. Metoda nie czeka na zapis na dysk.
+     *
+     * @param sessionId identyfikator sesji
+     * @param player    gracz, który przekroczył czas
+     */
+    public void appendTimeout(int sessionId, PlayerColor player) {
+        ByteArrayOutputStream p = new ByteArrayOutputStream(8);
+        p.write(REC_TIMEOUT);
+        BinaryProtocol.writeVarint(p, sessionId);
+        p.write(player.ordinal());
+        append(sessionId, p.toByteArray());
+    }
+
+    /**
+     * Zapisuje stan zegarów obu graczy (czas rozliczony do początku bieżącego ruchu).
+     * Metoda nie czeka na zapis na dysk.
+     *
+     * @param sessionId identyfikator sesji
+     * @param clock     zegar partii
+     * @param now       bieżący czas ({@link System#nanoTime()})
+     */
+    public void appendClock(int sessionId, GameClock clock, long now) {
+        append(sessionId, clockRecord(sessionId, clock, now));
+    }
+
+    private static byte[] clockRecord(int sessionId, GameClock clock, long now) {
+        ByteArrayOutputStream p = new ByteArrayOutputStream(16);
+        p.write(REC_CLOCK);
+        BinaryProtocol.writeVarint(p, sessionId);
+        for (PlayerColor player : PlayerColor.values()) {
+            BinaryProtocol.writeVarint(p, (int) Math.min(Integer.MAX_VALUE, clock.bankedMillis(player)));
+            BinaryProtocol.writeVarint(p, clock.periodsLeft(player, now));
+        }
+        return p.toByteArray();
+    }
+
+    private void append(int sessionId, byte[] payload) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            int before = pending.size();
+            writeRecord(pending, payload);
+            appendedBytes += pending.size() - before;
+            if (compacted != null && (payload[0] == REC_START || compactedSessions.contains(sessionId))) {
+                compactedSessions.add(sessionId);
+                writeRecord(compacted, payload);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Dopisuje rekord (długość, treść, CRC32) do bufora.
+     *
+     * @throws IllegalArgumentException gdy treść przekracza {@link #MAX_RECORD_LENGTH} (odczyt uznałby rekord
+     *                                  i wszystkie następne za uszkodzony ogon)
+     */
+    private static void writeRecord(ByteArrayOutputStream out, byte[] payload) {
+        if (payload.length > MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("Journal record too long: " + payload.length + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int c = (int) crc.getValue();
+        BinaryProtocol.writeVarint(out, payload.length);
+        out.write(payload, 0, payload.length);
+        out.write(c >>> 24);
+        out.write(c >>> 16);
+        out.write(c >>> 8);
+        out.write(c);
+    }
+
+    // =========================================================================
+    // Kompaktowanie
+    // =========================================================================
+
+    /**
+     * Zaczyna kompaktowanie: od tej chwili rekordy nowych sesji są zbierane także do nowej zawartości pliku.
+     *
+     * @throws IllegalStateException gdy kompaktowanie już trwa
+     */
+    public void beginCompaction() {
+        synchronized (lock) {
+            if (compacted != null) {
+                throw new IllegalStateException("Compaction already in progress");
+            }
+            compacted = new ByteArrayOutputStream(4096);
+            compactedSessions.clear();
+        }
+    }
+
+    /**
+     * Zapisuje trwającą grę jako migawkę w nowej zawartości pliku. Wołający musi trzymać blokadę sesji,
+     * żeby migawka obejmowała dokładnie te komendy, które sesja dotąd dopisała; kolejne rekordy sesji
+     * trafią do nowej zawartości za migawką.
+     *
+     * @param sessionId  identyfikator sesji
+     * @param blackToken token BLACK
+     * @param whiteToken token WHITE
+     * @param commands   liczba zaakceptowanych komend
+     * @param snapshot   migawka gry ({@link GameSnapshotCodec#encode(Game)})
+     * @param clock      zegar partii ({@code null} = bez kontroli czasu)
+     * @param now        bieżący czas ({@link System#nanoTime()})
+     * @throws IllegalStateException gdy kompaktowanie nie trwa
+     */
+    public void compactSession(int sessionId, String blackToken, String whiteToken, int commands,
+                               byte[] snapshot, GameClock clock, long now) {
+        ByteArrayOutputStream p = new ByteArrayOutputStream(snapshot.length + 48);
+        p.write(REC_SNAPSHOT);
+        BinaryProtocol.writeVarint(p, sessionId);
+        BinaryProtocol.writeString(p, blackToken);
+        BinaryProtocol.writeString(p, whiteToken);
+        BinaryProtocol.writeVarint(p, commands);
+        p.write(snapshot, 0, snapshot.length);
+        byte[] clockState = clock != null ? clockRecord(sessionId, clock, now) : null;
+
+        synchronized (lock) {
+            if (compacted == null) {
+                throw new IllegalStateException("No compaction in progress");
+            }
+            writeRecord(compacted, p.toByteArray());
+            if (clockState != null) {
+                writeRecord(compacted, clockState);
+            }
+            compactedSessions.add(sessionId);
+        }
+    }
+
+    /**
+     * Kończy kompaktowanie: zapisuje nową zawartość do pliku tymczasowego, zatwierdza ją {@code fsync}
+     * i atomowo podmienia plik dziennika. Rekordy czekające na zapis do starego pliku są porzucane —
+     * rekordy trwających gier są już w nowej zawartości. Dopisywanie czeka na koniec podmiany.
+     *
+     * @return rozmiar pliku po kompaktowaniu w bajtach
+     * @throws IOException gdy zapis się nie powiódł (stary plik pozostaje bez zmian)
+     * @throws IllegalStateException gdy kompaktowanie nie trwa
+     */
+    public long finishCompaction() throws IOException {
+        synchronized (lock) {
+            if (compacted == null) {
+                throw new IllegalStateException("No compaction in progress");
+            }
+            ByteArrayOutputStream content = compacted;
+            compacted = null;
+            compactedSessions.clear();
+            if (closed) {
+                throw failure != null ? failure : new IOException("Journal closed");
+            }
+
+            // wątek dziennika może właśnie zapisywać paczkę do starego pliku
+            while (spare == null && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Compaction interrupted");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.wrap(content.toByteArray());
+                while (buf.hasRemaining()) {
+                    out.write(buf);
+                }
+                out.force(false);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            channel.position(channel.size());
+            pending.reset();
+            durableBytes = appendedBytes;
+            lock.notifyAll();
+            return content.size();
+        }
+    }
+
+    /**
+     * Przerywa kompaktowanie (np. po błędzie migawki); plik dziennika pozostaje bez zmian.
+     */
+    public void abortCompaction() {
+        synchronized (lock) {
+            compacted = null;
+            compactedSessions.clear();
+        }
+    }
+
+    /**
+     * Czeka, aż wszystkie dotąd dopisane rekordy zostaną zatwierdzone na dysku.
+     *
+     * @throws IOException gdy zapis dziennika się nie powiódł
+     * @throws InterruptedException gdy wątek został przerwany
+     */
+    public void awaitDurable() throws IOException, InterruptedException {
+        synchronized (lock) {
+            long target = appendedBytes;
+            while (durableBytes < target && failure == null && writer.isAlive()) {
+                lock.wait(100);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Zwraca liczbę wykonanych paczek zapisu (fsync).
+     *
+     * @return liczba paczek
+     */
+    public long getCommitCount() {
+        synchronized (lock) {
+            return commits;
+        }
+    }
+
+    /**
+     * Pętla wątku dziennika: wymienia bufory, zapisuje paczkę i wykonuje jeden {@code fsync}.
+     */
+    private void writeLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            FileChannel ch;
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return; // zamknięty i wszystko zapisane
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                ch = channel;
+            }
+
+            int size = batch.size();
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+                ch.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    closed = true;
+                    lock.notifyAll();
+                }
+                LOG.error("Journal write failed: {}", e.getMessage());
+                return;
+            }
+
+            batch.reset();
+            synchronized (lock) {
+                spare = batch;
+                durableBytes += size;
+                commits++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Zatwierdza zaległe rekordy i zamyka plik dziennika.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    // =========================================================================
+    // Odtwarzanie
+    // =========================================================================
+
+    /**
+     * Gra odtworzona z dziennika.
+     *
+     * @param id         identyfikator sesji
+     * @param game       gra po wykonaniu zapisanych komend
+     * @param blackToken token BLACK
+     * @param whiteToken token WHITE
+     * @param records    liczba rekordów sesji (start, komendy, zegary i przekroczenie czasu)
+     * @param commands   liczba odtworzonych komend
+     * @param clock      ostatni zapisany stan zegarów ({@code null}, gdy zegar nie był jeszcze przełączany)
+     */
+    public record RecoveredGame(int id, Game game, String blackToken, String whiteToken,
+                                long records, int commands, ClockState clock) {
+    }
+
+    /**
+     * Stan zegarów graczy z rekordu {@code CLOCK}.
+     *
+     * @param blackMillis  czas podstawowy BLACK w ms
+     * @param blackPeriods okresy byo-yomi BLACK
+     * @param whiteMillis  czas podstawowy WHITE w ms
+     * @param whitePeriods okresy byo-yomi WHITE
+     */
+    public record ClockState(long blackMillis, int blackPeriods, long whiteMillis, int whitePeriods) {
+    }
+
+    /**
+     * Wynik odczytu dziennika.
+     *
+     * @param games       odtworzone gry (w kolejności startu)
+     * @param validLength długość poprawnej części pliku (dalsza część jest uszkodzona lub ucięta)
+     */
+    public record Recovery(List<RecoveredGame> games, long validLength) {
+    }
+
+    /**
+     * Czyta dziennik i odbudowuje gry, wykonując zapisane komendy (od migawki, jeśli sesja ją ma).
+     * Gry zakończone są pomijane — nie ma do czego wracać. Brak pliku oznacza pusty dziennik.
+     *
+     * @param path ścieżka pliku dziennika
+     * @return odtworzone gry i długość poprawnej części pliku
+     * @throws IOException błąd odczytu pliku
+     */
+    public static Recovery recover(Path path) throws IOException {
+        Map<Integer, RecoveredGame> games = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return new Recovery(new ArrayList<>(), 0);
+        }
+
+        BinaryCommandFactory commands = new BinaryCommandFactory(true);
+        long valid = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            while (true) {
+                byte[] payload = readRecord(in);
+                if (payload == null) {
+                    break;
+                }
+                valid += recordLength(payload.length);
+
+                try {
+                    apply(payload, games, commands);
+                } catch (RuntimeException e) {
+                    LOG.warn("Journal: skipping record: {}", e.getMessage());
+                }
+            }
+        }
+        List<RecoveredGame> live = new ArrayList<>();
+        for (RecoveredGame g : games.values()) {
+            if (!g.game().isFinished()) {
+                live.add(g);
+            }
+        }
+        return new Recovery(live, valid);
+    }
+
+    /**
+     * Stosuje jeden rekord do odtwarzanych gier.
+     */
+    private static void apply(byte[] payload, Map<Integer, RecoveredGame> games, BinaryCommandFactory commands) {
+        BinaryProtocol.Reader r = new BinaryProtocol.Reader(payload, 1);
+        int sessionId = r.readVarint();
+
+        if (payload[0] == REC_START) {
+            int size = r.readVarint();
+            String black = r.readString();
+            String white = r.readString();
+            // ponowny start tej samej sesji (przeciwnik odszedł przed pierwszą komendą) zaczyna grę od nowa
+            games.put(sessionId, new RecoveredGame(sessionId, new Game(BoardFactory.createBoard(size)),
+                    black, white, 1, 0, null));
+            return;
+        }
+
+        if (payload[0] == REC_SNAPSHOT) {
+            String black = r.readString();
+            String white = r.readString();
+            int count = r.readVarint();
+            Game game = GameSnapshotCodec.decode(Arrays.copyOfRange(payload, r.position(), payload.length));
+            games.put(sessionId, new RecoveredGame(sessionId, game, black, white, 1, count, null));
+            return;
+        }
+
+        if (payload[0] == REC_COMMAND) {
+            RecoveredGame g = games.get(sessionId);
+            if (g == null) {
+                throw new IllegalArgumentException("command for unknown session " + sessionId);
+            }
+            PlayerColor player = PlayerColor.values()[r.readByte()];
+            // treść komendy zaczyna się za typem, id sesji i kolorem
+            byte[] frame = Arrays.copyOfRange(payload, 1 + varintLength(sessionId) + 1, payload.length);
+
+            GameCommand command = commands.fromFrame(frame, player);
+            try {
+                command.execute(g.game());
+            } catch (Exception e) {
+                throw new IllegalArgumentException("session " + sessionId + ": " + e.getMessage());
+            }
+            games.put(sessionId, new RecoveredGame(sessionId, g.game(), g.blackToken(), g.whiteToken(),
+                    g.records() + 1, g.commands() + 1, g.clock()));
+            return;
+        }
+
+        if (payload[0] == REC_TIMEOUT) {
+            RecoveredGame g = games.get(sessionId);
+            if (g == null) {
+                throw new IllegalArgumentException("timeout for unknown session " + sessionId);
+            }
+            try {
+                g.game().timeout(PlayerColor.values()[r.readByte()]);
+            } catch (IllegalStateException e) {
+                throw new IllegalArgumentException("session " + sessionId + ": " + e.getMessage());
+            }
+            games.put(sessionId, new RecoveredGame(sessionId, g.game(), g.blackToken(), g.whiteToken(),
+                    g.records() + 1, g.commands(), g.clock()));
+            return;
+        }
+
+        if (payload[0] == REC_CLOCK) {
+            RecoveredGame g = games.get(sessionId);
+            if (g == null) {
+                throw new IllegalArgumentException("clock for unknown session " + sessionId);
+            }
+            ClockState clock = new ClockState(r.readVarint(), r.readVarint(), r.readVarint(), r.readVarint());
+            games.put(sessionId, new RecoveredGame(sessionId, g.game(), g.blackToken(), g.whiteToken(),
+                    g.records() + 1, g.commands(), clock));
+            return;
+        }
+
+        throw new IllegalArgumentException("unknown record type " + payload[0]);
+    }
+
+    /**
+     * Czyta treść jednego rekordu i sprawdza jej CRC.
+     *
+     * @return treść rekordu lub {@code null} na końcu pliku albo na uszkodzonym ogonie
+     */
+    private static byte[] readRecord(InputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) return null;
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+            if (shift > 28) return null;
+        }
+        if (length <= 0 || length > MAX_RECORD_LENGTH) {
+            return null;
+        }
+
+        byte[] payload = in.readNBytes(length);
+        byte[] crcBytes = in.readNBytes(4);
+        if (payload.length < length || crcBytes.length < 4) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int expected = ((crcBytes[0] & 0xFF) << 24) | ((crcBytes[1] & 0xFF) << 16)
+                | ((crcBytes[2] & 0xFF) << 8) | (crcBytes[3] & 0xFF);
+        return (int) crc.getValue() == expected ? payload : null;
+    }
+
+    private static long recordLength(int payloadLength) {
+        return varintLength(payloadLength) + payloadLength + 4;
+    }
+
+    private static int varintLength(int value) {
+        int n = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            n++;
+        }
+        return n;
+    }
+}
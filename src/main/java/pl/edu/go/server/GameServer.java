@@ -1,79 +1,290 @@
 package pl.edu.go.server;
 
-import pl.edu.go.board.Board;
-import pl.edu.go.board.BoardFactory;
-import pl.edu.go.game.Game;
-import pl.edu.go.game.PlayerColor;
+import pl.edu.go.game.TimeControl;
+import pl.edu.go.log.AsyncLog;
+import pl.edu.go.metrics.MetricsHttpServer;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@code GameServer} uruchamia serwer TCP dla gry Go.
  *
  * <p><b>Architektura:</b> Client–Server.
- * {@code GameServer} inicjalizuje warstwę transportową (socket), tworzy sesję gry
- * ({@link pl.edu.go.server.GameSession}) i przypisuje łączących się klientów do kolorów.
+ * {@code GameServer} inicjalizuje warstwę transportową (socket) i przekazuje łączących się klientów
+ * do {@link SessionRegistry}, który łączy ich w pary w kolejnych sesjach gry
+ * ({@link pl.edu.go.server.GameSession}) i przypisuje im kolory.
+ *
+ * <p><b>Dziennik gier:</b> po ustawieniu właściwości {@code go.journal} (ścieżka pliku, np.
+ * {@code go-journal.bin}) zaakceptowane komendy są zapisywane w {@link GameJournal}; domyślnie dziennik
+ * jest wyłączony.
+ * Po restarcie serwer odtwarza z niego trwające gry, a gracze wracają do nich przez {@code RESUME_SESSION}.
+ * Co {@code go.journal.compactMinutes} minut (domyślnie 60; {@code 0} wyłącza) dziennik jest kompaktowany:
+ * trwające gry zapisywane są jako migawki, a rekordy gier zakończonych usuwane.
+ *
+ * <p><b>Usypianie sesji:</b> po ustawieniu katalogu {@code go.hibernate.dir} (np. {@code go-sessions})
+ * gry bez połączonych klientów, bezczynne dłużej niż {@code go.hibernate.idleSeconds} (domyślnie 900;
+ * {@code 0} wyłącza), są w nim zapisywane i zwalniane z pamięci do czasu powrotu gracza lub obserwatora.
+ * Domyślnie usypianie jest wyłączone.
+ *
+ * <p><b>Zakończone gry:</b> sesja zakończonej gry jest usuwana z rejestru (razem z tokenami wznawiania
+ * i migawką w magazynie), gdy odejdą jej gracze i obserwatorzy, najpóźniej po
+ * {@code go.session.retentionSeconds} sekundach od końca gry (domyślnie 600; {@code 0} wyłącza).
+ *
+ * <p><b>Kontrola czasu:</b> właściwość {@code go.timeControl} (np. {@code fischer:300+5},
+ * zob. {@link TimeControl#parse(String)}) włącza zegary partii; domyślnie gry są bez limitu czasu.
+ *
+ * <p><b>Heartbeat:</b> {@link ConnectionReaper} wysyła {@code PING} klientom milczącym dłużej niż
+ * {@code go.heartbeat.pingSeconds} (domyślnie 30) i zamyka połączenia milczące dłużej niż
+ * {@code go.heartbeat.timeoutSeconds} (domyślnie 90; {@code 0} wyłącza), zwalniając ich wątki i miejsca w grach.
+ *
+ * <p><b>Metryki:</b> po ustawieniu portu {@code go.metrics.port} (np. {@code 9464}) {@link ServerMetrics}
+ * są udostępniane w formacie Prometheusa pod {@code http://127.0.0.1:<port>/metrics} (adres z właściwości
+ * {@code go.metrics.host}); domyślnie endpoint jest wyłączony, a metryki tylko zbierane.
  *
  * <p>Klasa nie implementuje reguł gry ani punktacji; odpowiada za bootstrap i cykl życia serwera.
  */
 public final class GameServer {
 
+    private static final AsyncLog LOG = AsyncLog.get();
+
     /**
      * Punkt wejścia serwera.
      *
      * <p>Flow:
      * <ol>
-     *   <li>tworzy {@link Board} i {@link Game},</li>
-     *   <li>tworzy {@link GameSession} spinającą warstwę sieciową z logiką gry,</li>
-     *   <li>akceptuje dwóch klientów i przypisuje im kolory (BLACK, potem WHITE),</li>
-     *   <li>uruchamia wątki {@link ClientHandler} i startuje grę.</li>
+     *   <li>tworzy {@link SessionRegistry} (sesje z planszą {@code boardSize}),</li>
+     *   <li>akceptuje klientów w pętli i uruchamia ich wątki {@link ClientHandler},</li>
+     *   <li>po pierwszej linii klienta ({@code PLAY}) rejestr sadza go w oczekującej sesji (BLACK, potem WHITE),</li>
+     *   <li>gdy sesja ma komplet graczy — rejestr startuje grę.</li>
      * </ol>
+     *
+     * <p>Klienci mogą zamiast grać obserwować dowolną grę ({@code WATCH <gameId>}) albo wrócić na swoje
+     * miejsce ({@code RESUME_SESSION}) — bez zajmowania miejsca w oczekującej grze.
      */
     public static void main(String[] args) {
         int port = 5001;
         int boardSize = 9; // testowo 9x9
 
-        // Inicjalizacja stanu gry po stronie serwera (Single Source of Truth)
-        Board board = BoardFactory.createBoard(boardSize);
-        Game game = new Game(board);
+        GameJournal.Recovery recovery = null;
+        GameJournal journal = null;
+        String journalPath = System.getProperty("go.journal");
+        if (journalPath != null && !journalPath.isBlank() && !"off".equalsIgnoreCase(journalPath)) {
+            try {
+                recovery = GameJournal.recover(Path.of(journalPath));
+                journal = GameJournal.open(Path.of(journalPath), recovery.validLength());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open journal " + journalPath, e);
+            }
+            GameJournal opened = journal;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    opened.close();
+                } catch (IOException e) {
+                    LOG.error("Journal close failed: {}", e.getMessage());
+                }
+            }, "GameJournal-Shutdown"));
+        }
 
-        // Sesja łączy protokół sieciowy (ClientHandler) z wywołaniami na Game
-        GameSession session = new GameSession(game);
+        // Rejestr sesji: każda para klientów dostaje własną Game (Single Source of Truth)
+        String clock = System.getProperty("go.timeControl");
+        TimeControl timeControl = clock == null || clock.isBlank() ? null : TimeControl.parse(clock);
+        SessionRegistry registry = new SessionRegistry(boardSize, GameServer::newOutboundQueue, journal, timeControl);
+        if (timeControl != null) {
+            LOG.info("Time control: {}", timeControl);
+        }
+        if (recovery != null && !recovery.games().isEmpty()) {
+            registry.restore(recovery.games());
+            LOG.info("Recovered {} game(s) from {}", recovery.games().size(), journalPath);
+        }
+
+        SessionStore store = startHibernation(registry);
+        startEviction(registry, store);
+        if (journal != null) {
+            startCompaction(registry);
+        }
+        startMetrics(registry);
+        ConnectionReaper reaper = startReaper();
 
         try (ServerSocket serverSocket = new ServerSocket(port)) {
-            System.out.println("Server listening on port " + port);
-
-            // pierwszy klient = BLACK
-            Socket s1 = serverSocket.accept();
-            System.out.println("First player connected (BLACK)");
-            ClientHandler h1 = new ClientHandler(s1, session, PlayerColor.BLACK);
-            session.setPlayer(PlayerColor.BLACK, h1);
-            Thread t1 = new Thread(h1, "Client-BLACK");
-            t1.start();
-
-            // drugi klient = WHITE
-            Socket s2 = serverSocket.accept();
-            System.out.println("Second player connected (WHITE)");
-            ClientHandler h2 = new ClientHandler(s2, session, PlayerColor.WHITE);
-            session.setPlayer(PlayerColor.WHITE, h2);
-            Thread t2 = new Thread(h2, "Client-WHITE");
-            t2.start();
-
-            // KLUCZOWE: czekamy aż oba handlery będą gotowe wysyłać (żeby nie zgubić WELCOME)
-            boolean r1 = h1.awaitReady(2000);
-            boolean r2 = h2.awaitReady(2000);
-            if (!r1 || !r2) {
-                System.out.println("WARNING: Some client handlers not ready in time. Starting game anyway.");
+            LOG.info("Server listening on port {}", port);
+            int connections = 0;
+
+            while (true) {
+                Socket socket = serverSocket.accept();
+                ClientHandler handler = registry.accept(socket);
+                if (reaper != null) {
+                    reaper.track(handler);
+                }
+
+                int n = ++connections;
+                LOG.info("Client #{} connected from {}", n, socket.getRemoteSocketAddress());
+                Thread t = new Thread(handler, "Client-" + n);
+                t.start();
             }
+        } catch (IOException e) {
+            LOG.error("Server stopped: {}", e.getMessage(), e);
+        }
+    }
 
-            // Start sesji: wysyłka komunikatów startowych (WELCOME/BOARD/TURN/PHASE) i gotowość na komendy
-            session.startGame();
-            System.out.println("Game started. Waiting for moves...");
+    /**
+     * Uruchamia okresowe usypianie bezczynnych sesji (właściwości {@code go.hibernate.idleSeconds}
+     * i {@code go.hibernate.dir}).
+     *
+     * @param registry rejestr sesji
+     * @return magazyn uśpionych sesji albo {@code null}, gdy usypianie jest wyłączone
+     */
+    private static SessionStore startHibernation(SessionRegistry registry) {
+        String dir = System.getProperty("go.hibernate.dir");
+        long idleSeconds = Long.getLong("go.hibernate.idleSeconds", 900);
+        if (dir == null || dir.isBlank() || idleSeconds <= 0) {
+            return null;
+        }
+        SessionStore store;
+        try {
+            store = new SessionStore(Path.of(dir));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open session store", e);
+        }
 
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SessionHibernator");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, Math.min(idleSeconds, 60));
+        long idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        scheduler.scheduleWithFixedDelay(() -> {
+            int n = registry.hibernateIdle(store, idleNanos);
+            if (n > 0) {
+                LOG.info("Hibernated {} idle game(s)", n);
+            }
+        }, period, period, TimeUnit.SECONDS);
+        return store;
+    }
+
+    /**
+     * Uruchamia okresowe usuwanie zakończonych sesji (właściwość {@code go.session.retentionSeconds}).
+     *
+     * @param registry rejestr sesji
+     * @param store    magazyn uśpionych sesji ({@code null}, gdy usypianie jest wyłączone)
+     */
+    private static void startEviction(SessionRegistry registry, SessionStore store) {
+        long retentionSeconds = Long.getLong("go.session.retentionSeconds", 600);
+        if (retentionSeconds <= 0) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SessionEvictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, Math.min(retentionSeconds, 60));
+        long retentionNanos = TimeUnit.SECONDS.toNanos(retentionSeconds);
+        scheduler.scheduleWithFixedDelay(() -> {
+            int n = registry.evictFinished(store, retentionNanos);
+            if (n > 0) {
+                LOG.info("Evicted {} finished game(s)", n);
+            }
+        }, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Uruchamia okresowe kompaktowanie dziennika (właściwość {@code go.journal.compactMinutes}).
+     *
+     * @param registry rejestr sesji
+     */
+    private static void startCompaction(SessionRegistry registry) {
+        long minutes = Long.getLong("go.journal.compactMinutes", 60);
+        if (minutes <= 0) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "GameJournal-Compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int live = registry.compactJournal();
+                LOG.info("Journal compacted: {} live game(s)", live);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Journal compaction failed: {}", e.getMessage());
+            }
+        }, minutes, minutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Uruchamia okresowy przegląd połączeń (właściwości {@code go.heartbeat.pingSeconds}
+     * i {@code go.heartbeat.timeoutSeconds}).
+     *
+     * @return reaper śledzący połączenia albo {@code null}, gdy heartbeat jest wyłączony
+     */
+    private static ConnectionReaper startReaper() {
+        long timeoutSeconds = Long.getLong("go.heartbeat.timeoutSeconds", 90);
+        if (timeoutSeconds <= 0) {
+            return null;
+        }
+        timeoutSeconds = Math.max(2, timeoutSeconds);
+        long pingSeconds = Math.max(1, Math.min(Long.getLong("go.heartbeat.pingSeconds", 30), timeoutSeconds - 1));
+        ConnectionReaper reaper = new ConnectionReaper(
+                TimeUnit.SECONDS.toNanos(pingSeconds), TimeUnit.SECONDS.toNanos(timeoutSeconds));
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ConnectionReaper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, pingSeconds / 3);
+        scheduler.scheduleWithFixedDelay(() -> {
+            int n = reaper.reap(System.nanoTime());
+            if (n > 0) {
+                LOG.info("Closed {} silent connection(s)", n);
+            }
+        }, period, period, TimeUnit.SECONDS);
+        return reaper;
+    }
+
+    /**
+     * Uruchamia endpoint metryk (właściwości {@code go.metrics.host} i {@code go.metrics.port}).
+     * Zajęty port nie zatrzymuje serwera gry — metryki są wtedy tylko zbierane.
+     *
+     * @param registry rejestr sesji opisywany przez metryki sesji
+     */
+    private static void startMetrics(SessionRegistry registry) {
+        ServerMetrics.track(registry);
+        int port = Integer.getInteger("go.metrics.port", 0);
+        if (port <= 0) {
+            return;
+        }
+        String host = System.getProperty("go.metrics.host", "127.0.0.1");
+        try {
+            MetricsHttpServer metrics = new MetricsHttpServer(ServerMetrics.registry(), new InetSocketAddress(host, port));
+            LOG.info("Metrics on http://{}/metrics", host + ":" + metrics.getPort());
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.warn("Metrics endpoint disabled: {}", e.getMessage());
         }
     }
+
+    /**
+     * Tworzy kolejkę wyjściową połączenia zgodnie z właściwościami systemowymi:
+     * {@code go.outbound.maxFrames}, {@code go.outbound.maxBytes} oraz
+     * {@code go.outbound.policy} ({@code COALESCE}/{@code RESYNC}/{@code DISCONNECT}).
+     *
+     * @return nowa kolejka wyjściowa
+     */
+    private static OutboundQueue newOutboundQueue() {
+        int maxFrames = Integer.getInteger("go.outbound.maxFrames", OutboundQueue.DEFAULT_MAX_FRAMES);
+        int maxBytes = Integer.getInteger("go.outbound.maxBytes", OutboundQueue.DEFAULT_MAX_BYTES);
+        OverflowPolicy policy = OverflowPolicy.valueOf(
+                System.getProperty("go.outbound.policy", OverflowPolicy.COALESCE.name()));
+        return new OutboundQueue(maxFrames, maxBytes, policy);
+    }
 }
@@ -5,15 +5,34 @@ import pl.edu.go.analysis.ScoreCalculator;
 import pl.edu.go.analysis.TerritoryAnalyzer;
 import pl.edu.go.board.Board;
 import pl.edu.go.board.Territory;
+import pl.edu.go.command.BinaryCommandFactory;
 import pl.edu.go.command.GameCommand;
 import pl.edu.go.command.TextCommandFactory;
 import pl.edu.go.game.Game;
+import pl.edu.go.game.GameClock;
 import pl.edu.go.game.GameObserver;
 import pl.edu.go.game.GamePhase;
 import pl.edu.go.game.GameResult;
+import pl.edu.go.game.GameSnapshotCodec;
 import pl.edu.go.game.PlayerColor;
+import pl.edu.go.game.TimeControl;
+import pl.edu.go.jfr.BroadcastEvent;
+import pl.edu.go.jfr.CommandEvent;
+import pl.edu.go.jfr.GoEvents;
+import pl.edu.go.log.AsyncLog;
+import pl.edu.go.log.Level;
+import pl.edu.go.log.Sampler;
 import pl.edu.go.model.Stone;
 import pl.edu.go.model.StoneGroup;
+import pl.edu.go.protocol.BinaryProtocol;
+import pl.edu.go.trace.TraceStage;
+import pl.edu.go.trace.Tracer;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -51,14 +70,68 @@ import pl.edu.go.model.StoneGroup;
  *
  * <p>{@code '1'} oznacza kamień uznany za martwy przez {@code PositionAnalyzer.getDeadGroups()},
  * czyli dokładnie to, co {@code ScoreCalculator} dolicza jako jeńców.
+ *
+ * <p><b>Obserwatorzy (WATCH):</b> poza dwoma graczami sesja może mieć dowolną liczbę obserwatorów.
+ * Każde zdarzenie jest kodowane <b>raz</b> do niezmiennej ramki bajtowej
+ * ({@link OutboundQueue.Frame}), a ta sama ramka trafia do kolejek wszystkich odbiorców.
+ * Dołączający później obserwator dostaje migawkę stanu, a potem kolejne zdarzenia.
+ *
+ * <p><b>Numeracja zdarzeń i wznawianie (RESUME_SESSION):</b> wszystkie ramki rozesłane w ramach
+ * jednej komendy tworzą zdarzenie zakończone linią {@code SEQ <n>}. Ostatnie zdarzenia są trzymane
+ * w {@link EventReplayBuffer}. Gracz dostaje na starcie {@code SESSION <gameId> <token>}; po zerwaniu
+ * połączenia może wrócić komendą {@code RESUME_SESSION <token> <lastSeq>} i dostaje tylko brakujące
+ * zdarzenia albo — gdy jest zbyt daleko w tyle — pełną migawkę stanu.
+ *
+ * <p><b>Usypianie:</b> rozpoczęta sesja bez żadnego połączenia, bezczynna dłużej niż ustalony czas,
+ * może zapisać migawkę gry w {@link SessionStore} i zwolnić {@code Game}, bufor zdarzeń oraz ramki
+ * ({@link #hibernateIfIdle(SessionStore, long, long)}). Obiekt sesji zostaje w rejestrze z tokenami
+ * i numeracją; gra jest wczytywana z powrotem przy następnym {@code RESUME_SESSION} lub {@code WATCH}.
+ *
+ * <p><b>Kontrola czasu:</b> sesja z {@link TimeControl} prowadzi {@link GameClock}: zegar gracza na ruchu
+ * chodzi w fazie {@code PLAYING}, a po każdej zmianie tury i fazy odbiorcy dostają linię
+ * {@code CLOCK <BLACK|WHITE|NONE> <msBLACK> <msWHITE> <okresyBLACK> <okresyWHITE>} (czyj zegar chodzi,
+ * czas w bieżącym odcinku, pozostałe okresy byo-yomi). Termin przekroczenia czasu jest zaplanowany we
+ * współdzielonym {@link TimerWheel}; po nim gra kończy się przez {@link Game#timeout(PlayerColor)}
+ * ({@code END <zwycięzca> time}). Komenda, która nadeszła już po terminie, a przed timerem, też kończy grę.
+ * Gra z chodzącym zegarem nie jest usypiana. Przy każdym przełączeniu i zatrzymaniu zegara stan obu
+ * zegarów trafia do dziennika, więc po restarcie serwera gracze mają czas z chwili ostatniego ruchu.
  */
 public class GameSession implements GameObserver {
 
-    /** Serwerowy „single source of truth” – logika sesji gry. */
-    private final Game game;
+    /** Identyfikator sesji na serwerze (używany m.in. w {@code WATCH <id>}). */
+    private final int id;
+
+    /** Serwerowy „single source of truth” – logika sesji gry ({@code null}, gdy sesja jest uśpiona). */
+    private Game game;
+
+    /**
+     * Parser protokołu: tekst → obiekt komendy (Command).
+     * Serie {@code MOVES} włącza właściwość {@code -Dgo.allowBatchMoves=true} (boty, import partii).
+     */
+    private final TextCommandFactory commandFactory = new TextCommandFactory(ALLOW_BATCH_MOVES);
+    private final BinaryCommandFactory binaryCommandFactory = new BinaryCommandFactory(ALLOW_BATCH_MOVES);
+
+    private static final boolean ALLOW_BATCH_MOVES = Boolean.getBoolean("go.allowBatchMoves");
+
+    private static final AsyncLog LOG = AsyncLog.get();
+
+    /**
+     * Próbkowanie logu komend i ich błędów: zapisywana jest co {@code n}-ta linia
+     * (właściwość {@code go.log.sample}, domyślnie każda).
+     */
+    private static final int LOG_SAMPLE = Integer.getInteger("go.log.sample", 1);
+    private static final Sampler RECEIVED_LOG = new Sampler(LOG_SAMPLE);
+    private static final Sampler REJECTED_LOG = new Sampler(LOG_SAMPLE);
+
+    /** Dziennik zaakceptowanych komend ({@code null} = sesja bez dziennika). */
+    private final GameJournal journal;
 
-    /** Parser protokołu: tekst → obiekt komendy (Command). */
-    private final TextCommandFactory commandFactory = new TextCommandFactory();
+    /** Liczba zaakceptowanych komend gry (po pierwszej nie można już zwolnić miejsca). */
+    private int commandsAccepted = 0;
+
+    /** Czy gracz wraca po restarcie serwera lub uśpieniu sesji (bez zdarzeń w buforze — pełna migawka). */
+    private boolean blackNeedsSnapshot = false;
+    private boolean whiteNeedsSnapshot = false;
 
     /** Handler klienta BLACK (może być null do czasu połączenia). */
     private ClientHandler blackPlayer;
@@ -66,16 +139,200 @@ public class GameSession implements GameObserver {
     /** Handler klienta WHITE (może być null do czasu połączenia). */
     private ClientHandler whitePlayer;
 
+    /** Obserwatorzy gry (bez prawa wykonywania komend). */
+    private final List<ClientHandler> watchers = new ArrayList<>();
+
+    /** Czy gra została już rozpoczęta ({@link #startGame()}). */
+    private boolean started = false;
+
+    /** Ostatnia zakodowana migawka planszy (współdzielona przez rozsyłanie i migawki dla nowych obserwatorów). */
+    private OutboundQueue.Frame boardFrame;
+
+    /** Zakodowany pakiet punktacji z bieżącej fazy review ({@code null} poza review). */
+    private OutboundQueue.Frame scoringFrame;
+
+    /** Tokeny wznawiania miejsc graczy (BLACK, WHITE). */
+    private final String blackToken;
+    private final String whiteToken;
+
+    /** Numer ostatniego rozesłanego zdarzenia (0 = brak zdarzeń). */
+    private long seq = 0;
+
+    /** Głębokość ramki batchingu sesji (jedna komenda = jedna ramka = jedno zdarzenie). */
+    private int batchDepth = 0;
+
+    /** Ramki rozesłane w bieżącej ramce batchingu (treść bieżącego zdarzenia). */
+    private final List<OutboundQueue.Frame> batchFrames = new ArrayList<>();
+
+    /** Zdarzenie JFR bieżącej ramki batchingu ({@code null}, gdy {@link GoEvents#ENABLED} jest wyłączone). */
+    private BroadcastEvent broadcastEvent;
+
+    /** Pomiar etapów bieżącej komendy ({@code null}, gdy {@link Tracer#ENABLED} jest wyłączone). */
+    private final CommandTrace trace;
+
+    /** Kontrola czasu partii ({@code null} = gra bez zegara). */
+    private final TimeControl timeControl;
+
+    /** Zegar partii (tworzony przy starcie gry; {@code null} przed startem i bez kontroli czasu). */
+    private GameClock clock;
+
+    /** Koło timerów z terminami przekroczenia czasu (współdzielone przez sesje rejestru). */
+    private final TimerWheel timers;
+
+    /** Zaplanowany termin przekroczenia czasu gracza na ruchu ({@code null}, gdy zegar stoi). */
+    private TimerWheel.Timeout clockTimeout;
+
+    /** Chwila nadejścia bieżącej komendy — od niej liczony jest koniec ruchu ({@code 0} = brak). */
+    private long commandArrival;
+
+    /** Bufor ostatnich zdarzeń do odtworzenia po wznowieniu połączenia. */
+    private EventReplayBuffer replay = new EventReplayBuffer(EventReplayBuffer.DEFAULT_CAPACITY);
+
+    /** Czas ostatniej aktywności sesji ({@link System#nanoTime()}) — podstawa usypiania. */
+    private long lastActivity = System.nanoTime();
+
+    /** Chwila zakończenia gry ({@link System#nanoTime()}); {@code 0} dopóki gra trwa. */
+    private long finishedAt;
+
+    /** Magazyn z migawką gry uśpionej sesji ({@code null}, gdy sesja jest w pamięci). */
+    private SessionStore hibernatedIn;
+
+    /** Generator tokenów wznawiania. */
+    private static final SecureRandom TOKENS = new SecureRandom();
+
     /**
      * Tworzy sesję i rejestruje się jako obserwator gry (Observer).
      *
      * @param game logika gry
      */
     public GameSession(Game game) {
+        this(0, game);
+    }
+
+    /**
+     * Tworzy sesję o podanym identyfikatorze i rejestruje się jako obserwator gry (Observer).
+     *
+     * @param id   identyfikator sesji na serwerze
+     * @param game logika gry
+     */
+    public GameSession(int id, Game game) {
+        this(id, game, null);
+    }
+
+    /**
+     * Tworzy sesję zapisującą zaakceptowane komendy w dzienniku.
+     *
+     * @param id      identyfikator sesji na serwerze
+     * @param game    logika gry
+     * @param journal dziennik gier ({@code null} = bez dziennika)
+     */
+    public GameSession(int id, Game game, GameJournal journal) {
+        this(id, game, journal, null, null);
+    }
+
+    /**
+     * Tworzy sesję z kontrolą czasu; zegar rusza przy {@link #startGame()}.
+     *
+     * @param id          identyfikator sesji na serwerze
+     * @param game        logika gry
+     * @param journal     dziennik gier ({@code null} = bez dziennika)
+     * @param timeControl kontrola czasu ({@code null} = bez zegara)
+     * @param timers      koło timerów terminów (wymagane, gdy jest kontrola czasu)
+     */
+    public GameSession(int id, Game game, GameJournal journal, TimeControl timeControl, TimerWheel timers) {
+        this(id, game, newToken(), newToken(), journal, timeControl, timers);
+    }
+
+    private GameSession(int id, Game game, String blackToken, String whiteToken, GameJournal journal,
+                        TimeControl timeControl, TimerWheel timers) {
+        if (timeControl != null && timers == null) {
+            throw new IllegalArgumentException("Time control requires a timer wheel");
+        }
+        this.id = id;
         this.game = game;
+        this.blackToken = blackToken;
+        this.whiteToken = whiteToken;
+        this.journal = journal;
+        this.trace = Tracer.ENABLED ? new CommandTrace(id) : null;
+        this.timeControl = timeControl;
+        this.timers = timers;
         this.game.addObserver(this);
     }
 
+    /**
+     * Odtwarza sesję z dziennika po restarcie serwera. Gra jest już rozpoczęta, a gracze mogą
+     * wrócić na swoje miejsca przez {@code RESUME_SESSION} (dostają pełną migawkę stanu).
+     *
+     * <p>Przy kontroli czasu zegary dostają ostatni stan zapisany w dzienniku (rekord {@code CLOCK}) i stoją,
+     * dopóki któryś gracz nie wróci przez {@code RESUME_SESSION} — przestój serwera nie obciąża graczy,
+     * ale restart nie odnawia im czasu.
+     *
+     * @param recovered   gra odtworzona przez {@link GameJournal#recover(java.nio.file.Path)}
+     * @param journal     dziennik, do którego sesja dopisuje kolejne komendy
+     * @param timeControl kontrola czasu ({@code null} = bez zegara)
+     * @param timers      koło timerów terminów
+     * @return odtworzona sesja
+     */
+    static GameSession restore(GameJournal.RecoveredGame recovered, GameJournal journal,
+                               TimeControl timeControl, TimerWheel timers) {
+        GameSession session = new GameSession(recovered.id(), recovered.game(),
+                recovered.blackToken(), recovered.whiteToken(), journal, timeControl, timers);
+        session.started = true;
+        session.commandsAccepted = recovered.commands();
+        // numeracja zdarzeń zaczyna się od nowa, więc pierwsze wznowienie każdego gracza to pełna migawka
+        session.blackNeedsSnapshot = true;
+        session.whiteNeedsSnapshot = true;
+        synchronized (session) {
+            session.restoreClock(recovered.clock());
+        }
+        return session;
+    }
+
+    /** Losuje token wznawiania (128 bitów, hex). */
+    private static String newToken() {
+        return String.format("%016x%016x", TOKENS.nextLong(), TOKENS.nextLong());
+    }
+
+    /**
+     * Zwraca token wznawiania miejsca gracza.
+     *
+     * @param color BLACK/WHITE
+     * @return token przekazywany graczowi w {@code SESSION <gameId> <token>}
+     */
+    public String getToken(PlayerColor color) {
+        return color == PlayerColor.BLACK ? blackToken : whiteToken;
+    }
+
+    /**
+     * Zwraca kolor miejsca, do którego należy token.
+     *
+     * @param token token wznawiania
+     * @return kolor lub {@code null}, gdy token nie należy do tej sesji
+     */
+    public PlayerColor colorForToken(String token) {
+        if (blackToken.equals(token)) return PlayerColor.BLACK;
+        if (whiteToken.equals(token)) return PlayerColor.WHITE;
+        return null;
+    }
+
+    /**
+     * Zwraca numer ostatniego rozesłanego zdarzenia.
+     *
+     * @return numer sekwencyjny (0 = brak zdarzeń)
+     */
+    public synchronized long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Zwraca identyfikator sesji.
+     *
+     * @return identyfikator sesji
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Przypisuje handler do koloru gracza w tej sesji.
      *
@@ -90,6 +347,142 @@ public class GameSession implements GameObserver {
         }
     }
 
+    /**
+     * Zwalnia miejsce gracza, który przechodzi gdzie indziej (np. {@code WATCH}/{@code RESUME_SESSION}).
+     *
+     * <p>Jest to możliwe tylko, dopóki w grze nie wykonano żadnej komendy. Jeżeli gra była już
+     * wystartowana, wraca do oczekiwania na nowego przeciwnika.</p>
+     *
+     * @param color BLACK/WHITE
+     * @return {@code true} jeśli miejsce zostało zwolnione
+     */
+    public synchronized boolean releaseSeat(PlayerColor color) {
+        if (started && commandsAccepted > 0) {
+            return false;
+        }
+        setPlayer(color, null);
+        if (started) {
+            started = false;
+            // nowa gra dostanie nowy zegar w startGame()
+            if (clockRunning()) {
+                clock.stop(System.nanoTime());
+                cancelClockTimeout();
+            }
+            ClientHandler other = color == PlayerColor.BLACK ? whitePlayer : blackPlayer;
+            if (other != null) {
+                other.sendLine("INFO Opponent left. Waiting for a new opponent.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Przywraca gracza na jego miejsce po ponownym połączeniu ({@code RESUME_SESSION}).
+     *
+     * <p>Wysyła {@code WELCOME}/{@code SESSION}, a następnie zdarzenia o numerach większych niż
+     * {@code lastSeq}; jeżeli nie ma ich już w buforze — pełną migawkę stanu. Poprzednie połączenie
+     * tego miejsca (np. półotwarte) jest zamykane.</p>
+     *
+     * @param color   kolor wznawianego miejsca
+     * @param handler nowe połączenie gracza
+     * @param lastSeq ostatni numer zdarzenia otrzymany przez klienta ({@code -1} gdy nieznany)
+     */
+    public synchronized void resumePlayer(PlayerColor color, ClientHandler handler, long lastSeq) {
+        if (!wake(handler)) {
+            return;
+        }
+        ClientHandler old = color == PlayerColor.BLACK ? blackPlayer : whitePlayer;
+        if (old != null && old != handler) {
+            old.close();
+        }
+        setPlayer(color, handler);
+
+        handler.beginBatch();
+        try {
+            handler.sendLine("WELCOME " + color.name());
+            handler.sendLine(sessionLine(color));
+
+            boolean needsSnapshot = color == PlayerColor.BLACK ? blackNeedsSnapshot : whiteNeedsSnapshot;
+            if (color == PlayerColor.BLACK) {
+                blackNeedsSnapshot = false;
+            } else {
+                whiteNeedsSnapshot = false;
+            }
+
+            if (started && !needsSnapshot && lastSeq >= 0 && replay.canReplayAfter(lastSeq)) {
+                List<OutboundQueue.Frame> missed = new ArrayList<>();
+                replay.replayAfter(lastSeq, missed);
+                for (OutboundQueue.Frame f : missed) {
+                    handler.sendFrame(f);
+                }
+            } else {
+                handler.sendLine("INFO Resync");
+                sendSnapshot(handler);
+            }
+        } finally {
+            handler.endBatch();
+        }
+
+        ClientHandler other = color == PlayerColor.BLACK ? whitePlayer : blackPlayer;
+        if (other != null) {
+            other.sendLine("INFO " + color.name() + " reconnected.");
+        }
+        resumeClock();
+    }
+
+    /** Linia {@code SESSION <gameId> <token>} dla gracza danego koloru. */
+    private String sessionLine(PlayerColor color) {
+        return "SESSION " + id + " " + getToken(color);
+    }
+
+    /**
+     * Zwraca pierwszy wolny kolor w sesji (BLACK ma pierwszeństwo).
+     *
+     * @return wolny kolor lub {@code null}, gdy oba miejsca są zajęte
+     */
+    public synchronized PlayerColor freeSeat() {
+        if (blackPlayer == null) return PlayerColor.BLACK;
+        if (whitePlayer == null) return PlayerColor.WHITE;
+        return null;
+    }
+
+    /**
+     * Czeka, aż handlery obu graczy będą gotowe do wysyłania.
+     *
+     * @param timeoutMs maksymalny czas oczekiwania na każdego gracza w ms
+     * @return {@code true} jeśli obaj gracze są gotowi
+     */
+    public boolean awaitPlayersReady(long timeoutMs) {
+        ClientHandler b;
+        ClientHandler w;
+        synchronized (this) {
+            b = blackPlayer;
+            w = whitePlayer;
+        }
+        // czekamy poza blokadą sesji, żeby nie blokować komend już połączonych klientów
+        boolean r1 = b == null || b.awaitReady(timeoutMs);
+        boolean r2 = w == null || w.awaitReady(timeoutMs);
+        return r1 && r2;
+    }
+
+    /**
+     * Informuje, czy gra w tej sesji została rozpoczęta.
+     *
+     * @return {@code true} po {@link #startGame()}
+     */
+    public synchronized boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Zwraca liczbę obserwatorów sesji.
+     *
+     * @return liczba obserwatorów
+     */
+    public synchronized int getWatcherCount() {
+        return watchers.size();
+    }
+
     /**
      * Uruchamia rozgrywkę: wysyła komunikaty startowe i publikuje pierwszy stan.
      *
@@ -97,24 +490,404 @@ public class GameSession implements GameObserver {
      * {@code WELCOME}, {@code PHASE}, a następnie aktualny {@code BOARD} i {@code TURN}.</p>
      */
     public synchronized void startGame() {
-        if (blackPlayer != null) blackPlayer.sendLine("WELCOME BLACK");
-        if (whitePlayer != null) whitePlayer.sendLine("WELCOME WHITE");
+        started = true;
+        if (timeControl != null) {
+            cancelClockTimeout();
+            clock = new GameClock(timeControl);
+            commandArrival = 0;
+        }
+        if (journal != null) {
+            journal.appendStart(id, game.getBoard().getSize(), blackToken, whiteToken);
+        }
+        beginBatch();
+        try {
+            if (blackPlayer != null) {
+                blackPlayer.sendLine("WELCOME BLACK");
+                blackPlayer.sendLine(sessionLine(PlayerColor.BLACK));
+            }
+            if (whitePlayer != null) {
+                whitePlayer.sendLine("WELCOME WHITE");
+                whitePlayer.sendLine(sessionLine(PlayerColor.WHITE));
+            }
+
+            broadcast("INFO Game " + id + " started. BLACK moves first.");
+            if (timeControl != null) {
+                broadcast("INFO Time control: " + timeControl);
+            }
+            broadcast("PHASE " + game.getPhase().name());
+
+            onBoardChanged(game.getBoard());
+            onPlayerToMoveChanged(game.getCurrentPlayer());
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Dołącza obserwatora: wysyła mu migawkę aktualnego stanu, a potem kolejne zdarzenia gry.
+     *
+     * @param watcher połączenie obserwatora
+     */
+    public synchronized void addWatcher(ClientHandler watcher) {
+        if (!wake(watcher)) {
+            return;
+        }
+        watchers.add(watcher);
+        watcher.beginBatch();
+        try {
+            watcher.sendLine("INFO Watching game " + id);
+            sendSnapshot(watcher);
+        } finally {
+            watcher.endBatch();
+        }
+    }
+
+    /**
+     * Wywoływane przez transport po zamknięciu połączenia: odłącza obserwatora od sesji
+     * albo zwalnia miejsce gracza (które można odzyskać przez {@code RESUME_SESSION}).
+     *
+     * @param handler zamknięte połączenie
+     */
+    public synchronized void connectionClosed(ClientHandler handler) {
+        if (watchers.remove(handler)) {
+            return;
+        }
+        PlayerColor color = null;
+        if (blackPlayer == handler) color = PlayerColor.BLACK;
+        if (whitePlayer == handler) color = PlayerColor.WHITE;
+        if (color == null) {
+            return;
+        }
+
+        setPlayer(color, null);
+        lastActivity = System.nanoTime();
+        ClientHandler other = color == PlayerColor.BLACK ? whitePlayer : blackPlayer;
+        if (started && !game.isFinished() && other != null) {
+            other.sendLine("INFO " + color.name() + " disconnected. Waiting for reconnect.");
+        }
+    }
+
+    /**
+     * Usypia sesję, jeśli jest rozpoczęta, nikt nie jest z nią połączony, a od ostatniej aktywności
+     * minęło co najmniej {@code idleNanos}: zapisuje migawkę gry w magazynie i zwalnia ją z pamięci.
+     *
+     * @param store     magazyn migawek
+     * @param idleNanos minimalny czas bezczynności w nanosekundach
+     * @param now       bieżący czas ({@link System#nanoTime()})
+     * @return {@code true} jeśli sesja została uśpiona
+     */
+    public synchronized boolean hibernateIfIdle(SessionStore store, long idleNanos, long now) {
+        if (game == null || !started || batchDepth > 0 || game.isFinished()
+                || blackPlayer != null || whitePlayer != null || !watchers.isEmpty()
+                || clockRunning()
+                || now - lastActivity < idleNanos) {
+            return false;
+        }
+        try {
+            store.save(id, GameSnapshotCodec.encode(game));
+        } catch (IOException e) {
+            LOG.warn("Cannot hibernate game {}: {}", id, e.getMessage());
+            return false;
+        }
+
+        game.removeObserver(this);
+        game = null;
+        replay = null;
+        boardFrame = null;
+        scoringFrame = null;
+        hibernatedIn = store;
+        return true;
+    }
+
+    /**
+     * Zapisuje trwającą grę sesji jako migawkę w kompaktowanym dzienniku
+     * ({@link GameJournal#compactSession}). Blokada sesji gwarantuje, że migawka obejmuje dokładnie
+     * komendy dopisane dotąd do dziennika. Gra uśpiona jest czytana z magazynu (bez wybudzania).
+     *
+     * @param target dziennik w trakcie kompaktowania
+     * @return {@code true} jeśli gra trwa i trafiła do dziennika; {@code false} dla gry zakończonej
+     *         albo nierozpoczętej
+     * @throws IOException gdy nie można odczytać migawki uśpionej gry
+     */
+    synchronized boolean compactInto(GameJournal target) throws IOException {
+        if (!started) {
+            return false;
+        }
+        byte[] snapshot;
+        if (game != null) {
+            if (game.isFinished()) {
+                return false;
+            }
+            snapshot = GameSnapshotCodec.encode(game);
+        } else {
+            snapshot = hibernatedIn.read(id);
+            if (GameSnapshotCodec.decode(snapshot).isFinished()) {
+                return false;
+            }
+        }
+        target.compactSession(id, blackToken, whiteToken, commandsAccepted, snapshot, clock, System.nanoTime());
+        return true;
+    }
+
+    /**
+     * Informuje, czy zakończoną sesję można usunąć z rejestru: nie ma już połączonych graczy ani
+     * obserwatorów albo od końca gry minął czas przechowywania.
+     *
+     * @param retentionNanos czas przechowywania zakończonej gry w nanosekundach
+     * @param now            bieżący czas ({@link System#nanoTime()})
+     * @return {@code true} dla gry zakończonej, której nikt nie ogląda albo przechowywanej dość długo
+     */
+    public synchronized boolean isEvictable(long retentionNanos, long now) {
+        if (finishedAt == 0) {
+            return false;
+        }
+        boolean abandoned = blackPlayer == null && whitePlayer == null && watchers.isEmpty();
+        return abandoned || now - finishedAt >= retentionNanos;
+    }
+
+    /**
+     * Informuje, czy sesja jest uśpiona (gra zapisana w magazynie).
+     *
+     * @return {@code true} gdy gra nie jest w pamięci
+     */
+    public synchronized boolean isHibernated() {
+        return game == null;
+    }
+
+    /**
+     * Informuje, czy w sesji toczy się gra: rozpoczęta, niezakończona i nieuśpiona.
+     *
+     * @return {@code true} dla trwającej gry w pamięci
+     */
+    public synchronized boolean isActive() {
+        return started && game != null && !game.isFinished();
+    }
+
+    /**
+     * Wczytuje grę uśpionej sesji z magazynu. Numeracja zdarzeń jest zachowana, ale bufor zdarzeń
+     * jest pusty, więc wracający gracze dostają pełną migawkę stanu.
+     *
+     * @param requester połączenie, które wybudza sesję (dostaje {@code ERROR}, gdy się nie uda)
+     * @return {@code true} jeśli gra jest w pamięci
+     */
+    private boolean wake(ClientHandler requester) {
+        if (game != null) {
+            return true;
+        }
+        try {
+            game = GameSnapshotCodec.decode(hibernatedIn.take(id));
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Cannot restore game {}: {}", id, e.getMessage());
+            requester.sendLine("ERROR Game " + id + " is unavailable");
+            return false;
+        }
+        game.addObserver(this);
+        replay = new EventReplayBuffer(EventReplayBuffer.DEFAULT_CAPACITY);
+        blackNeedsSnapshot = true;
+        whiteNeedsSnapshot = true;
+        hibernatedIn = null;
+        lastActivity = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Otwiera ramkę batchingu u wszystkich odbiorców: komunikaty wygenerowane przez jedną komendę
+     * są buforowane i wysyłane jednym zapisem w {@link #endBatch()}.
+     */
+    private void beginBatch() {
+        if (batchDepth++ == 0) {
+            batchFrames.clear();
+            if (GoEvents.ENABLED) {
+                broadcastEvent = new BroadcastEvent();
+                broadcastEvent.begin();
+            }
+        }
+        if (blackPlayer != null) blackPlayer.beginBatch();
+        if (whitePlayer != null) whitePlayer.beginBatch();
+        for (ClientHandler w : watchers) w.beginBatch();
+    }
+
+    /**
+     * Zamyka ramkę batchingu u wszystkich odbiorców (granica flush na końcu komendy).
+     *
+     * <p>Jeżeli w ramce coś rozesłano, zdarzenie dostaje kolejny numer: odbiorcy dostają linię
+     * {@code SEQ <n>}, a całe zdarzenie trafia do bufora odtwarzania. Odbiorcom, których kolejka
+     * wyjściowa została przepełniona, dosyła pełny stan gry.</p>
+     */
+    private void endBatch() {
+        BroadcastEvent event = null;
+        boolean published = false;
+        if (--batchDepth == 0 && !batchFrames.isEmpty()) {
+            published = true;
+            lastActivity = System.nanoTime();
+            seq++;
+            OutboundQueue.Frame seqFrame = OutboundQueue.Frame.of("SEQ " + seq + "\n", false);
+            sendToAll(seqFrame);
+            batchFrames.add(seqFrame);
+            event = describeBroadcast();
+            ServerMetrics.BROADCASTS.inc();
+            ServerMetrics.BROADCAST_FRAMES.add(batchFrames.size());
+            replay.append(seq, batchFrames);
+            batchFrames.clear();
+        }
+        if (Tracer.ENABLED && batchDepth == 0) {
+            sendWriteMark(published);
+        }
+
+        if (blackPlayer != null) blackPlayer.endBatch();
+        if (whitePlayer != null) whitePlayer.endBatch();
+        for (ClientHandler w : watchers) w.endBatch();
 
-        broadcast("INFO Game started. BLACK moves first.");
-        broadcast("PHASE " + game.getPhase().name());
+        int resyncs = 0;
+        if (resyncIfRequested(blackPlayer)) resyncs++;
+        if (resyncIfRequested(whitePlayer)) resyncs++;
+        for (ClientHandler w : watchers) {
+            if (resyncIfRequested(w)) resyncs++;
+        }
 
-        onBoardChanged(game.getBoard());
-        onPlayerToMoveChanged(game.getCurrentPlayer());
+        if (resyncs > 0) {
+            ServerMetrics.RESYNCS.add(resyncs);
+        }
+        if (event != null) {
+            event.resyncs = resyncs;
+            event.commit();
+        }
+    }
+
+    /**
+     * Dołącza znacznik zapisu śledzonej komendy za jej ramkami: do wszystkich odbiorców, gdy komenda
+     * utworzyła zdarzenie, a w przeciwnym razie tylko do nadawcy (np. za odpowiedzią {@code ERROR}).
+     *
+     * @param published czy w zamykanej ramce rozesłano zdarzenie
+     */
+    private void sendWriteMark(boolean published) {
+        OutboundQueue.Frame mark = trace.writeMark();
+        if (mark == null) {
+            return;
+        }
+        if (published) {
+            sendToAll(mark);
+        } else {
+            trace.origin().sendFrame(mark);
+        }
+    }
+
+    /**
+     * Uzupełnia zdarzenie JFR właśnie zamkniętego zdarzenia gry ({@link #batchFrames} z linią {@code SEQ}).
+     *
+     * @return zdarzenie do zatwierdzenia po wysyłce albo {@code null}, gdy nie jest nagrywane
+     */
+    private BroadcastEvent describeBroadcast() {
+        BroadcastEvent event = broadcastEvent;
+        broadcastEvent = null;
+        if (event == null || !event.shouldCommit()) {
+            return null;
+        }
+        long bytes = 0;
+        for (OutboundQueue.Frame f : batchFrames) {
+            bytes += f.data.length;
+        }
+        event.sessionId = id;
+        event.boardSize = game != null ? game.getBoard().getSize() : 0;
+        event.seq = seq;
+        event.frames = batchFrames.size();
+        event.bytes = bytes;
+        event.recipients = (blackPlayer != null ? 1 : 0) + (whitePlayer != null ? 1 : 0) + watchers.size();
+        return event;
+    }
+
+    /**
+     * Wysyła pełny stan gry klientowi, którego kolejka odrzuciła zaległe komunikaty.
+     *
+     * @param handler klient (może być null)
+     * @return {@code true}, jeśli wysłano pełny stan
+     */
+    private boolean resyncIfRequested(ClientHandler handler) {
+        if (handler == null || !handler.takeResyncRequest()) {
+            return false;
+        }
+        handler.beginBatch();
+        try {
+            handler.sendLine("INFO Resync");
+            sendSnapshot(handler);
+        } finally {
+            handler.endBatch();
+        }
+        return true;
+    }
+
+    /**
+     * Wysyła pojedynczemu klientowi pełny, aktualny stan gry:
+     * {@code PHASE}, {@code BOARD}, {@code TURN}, w review pakiet punktacji, a po zakończeniu {@code END}.
+     *
+     * <p>Migawka planszy i pakiet punktacji są brane z pamięci podręcznej ramek, więc kolejni
+     * obserwatorzy nie powodują ponownego kodowania.</p>
+     *
+     * @param handler adresat migawki
+     */
+    private void sendSnapshot(ClientHandler handler) {
+        handler.sendLine("PHASE " + game.getPhase().name());
+        if (boardFrame == null) {
+            boardFrame = boardSnapshotFrame(game.getBoard());
+        }
+        handler.sendFrame(boardFrame);
+        handler.sendLine("TURN " + game.getCurrentPlayer().name());
+        if (clock != null) {
+            handler.sendLine(clockLine(System.nanoTime()));
+        }
+        if (game.getPhase() == GamePhase.SCORING_REVIEW) {
+            if (scoringFrame == null) {
+                scoringFrame = OutboundQueue.Frame.of(scoringFrame(), false);
+            }
+            handler.sendFrame(scoringFrame);
+        }
+        if (game.getResult() != null) {
+            handler.sendLine(endLine(game.getResult()));
+        }
+        if (seq > 0) {
+            handler.sendLine("SEQ " + seq);
+        }
     }
 
     /**
-     * Wysyła linię do obu klientów (jeśli są połączeni).
+     * Wysyła linię do wszystkich odbiorców (graczy i obserwatorów).
+     * Linia jest kodowana raz, a ta sama ramka trafia do każdego odbiorcy.
      *
      * @param line linia protokołu
      */
     private void broadcast(String line) {
-        if (blackPlayer != null) blackPlayer.sendLine(line);
-        if (whitePlayer != null) whitePlayer.sendLine(line);
+        broadcastFrame(OutboundQueue.Frame.of(line + "\n", false));
+    }
+
+    /**
+     * Rozsyła zakodowaną ramkę jako część bieżącego zdarzenia (ramki batchingu).
+     * Poza ramką batchingu ramka tworzy osobne zdarzenie.
+     *
+     * @param frame ramka (współdzielona, niezmienna)
+     */
+    private void broadcastFrame(OutboundQueue.Frame frame) {
+        if (batchDepth == 0) {
+            beginBatch();
+            try {
+                broadcastFrame(frame);
+            } finally {
+                endBatch();
+            }
+            return;
+        }
+        batchFrames.add(frame);
+        sendToAll(frame);
+    }
+
+    /**
+     * Wysyła zakodowaną ramkę do wszystkich odbiorców (graczy i obserwatorów).
+     *
+     * @param frame ramka (współdzielona, niezmienna)
+     */
+    private void sendToAll(OutboundQueue.Frame frame) {
+        if (blackPlayer != null) blackPlayer.sendFrame(frame);
+        if (whitePlayer != null) whitePlayer.sendFrame(frame);
+        for (ClientHandler w : watchers) w.sendFrame(frame);
     }
 
     /**
@@ -127,39 +900,333 @@ public class GameSession implements GameObserver {
      * @param message surowa linia protokołu
      */
     public synchronized void handleClientMessage(ClientHandler from, String message) {
-        String trimmed = message == null ? "" : message.trim();
-        if (trimmed.isEmpty()) return;
+        // bez trim(): parser sam pomija białe znaki, więc nie kopiujemy linii
+        if (message == null || message.isBlank()) return;
 
-        if (game.isFinished()) {
-            from.sendLine("INFO Game already finished. Please close client.");
-            return;
+        if (!acceptsCommandFrom(from)) return;
+        if (Tracer.ENABLED) trace.begin(from);
+
+        if (LOG.isEnabled(Level.INFO) && RECEIVED_LOG.sample()) {
+            LOG.info("Received from {}: {}", from.getColor(), message);
         }
 
-        System.out.println("Received from " + from.getColor() + ": " + trimmed);
+        GameCommand command;
+        try {
+            command = commandFactory.fromNetworkMessage(message, from.getColor());
+        } catch (RuntimeException e) {
+            command = new Unparsed(e.getMessage());
+        }
+        execute(from, command, false);
+    }
 
+    /**
+     * Obsługuje ramkę komendy od klienta w trybie {@link BinaryProtocol}.
+     * Działa jak {@link #handleClientMessage(ClientHandler, String)}, ale bez parsowania tekstu.
+     *
+     * @param from    klient (BLACK/WHITE)
+     * @param payload treść ramki (opcode + dane)
+     */
+    public synchronized void handleClientFrame(ClientHandler from, byte[] payload) {
+        if (!acceptsCommandFrom(from)) return;
+        if (Tracer.ENABLED) trace.begin(from);
+
+        GameCommand command;
         try {
-            GameCommand command = commandFactory.fromNetworkMessage(trimmed, from.getColor());
-            command.execute(game);
+            command = binaryCommandFactory.fromFrame(payload, from.getColor());
+        } catch (RuntimeException e) {
+            command = new Unparsed(e.getMessage());
+        }
+        execute(from, command, true);
+    }
+
+    /**
+     * Wykonuje sparsowaną komendę klienta: uruchamia ją na {@link Game}, zapisuje w dzienniku, wysyła
+     * zmiany jednym flush() i raportuje błąd nadawcy jako {@code ERROR ...}. Wspólne dla protokołu
+     * tekstowego i binarnego; śledzenie ({@link Tracer}) rozpoczyna wywołujący, przed parsowaniem.
+     *
+     * @param from   klient (BLACK/WHITE)
+     * @param cmd    komenda albo {@link Unparsed} z błędem parsowania
+     * @param binary czy komenda przyszła ramką {@link BinaryProtocol}
+     */
+    private void execute(ClientHandler from, GameCommand cmd, boolean binary) {
+        long startNanos = System.nanoTime();
+        CommandEvent event = null;
+        if (GoEvents.ENABLED) {
+            event = new CommandEvent();
+            event.begin();
+        }
+        GameCommand command = cmd instanceof Unparsed ? null : cmd;
+        String error = null;
+
+        // wszystkie komunikaty wynikające z komendy idą do klientów jednym flush()
+        beginBatch();
+        try {
+            if (Tracer.ENABLED) trace.stage(TraceStage.PARSE);
+            cmd.execute(game);
+            if (Tracer.ENABLED) trace.stage(TraceStage.EXECUTE);
+            accepted(from.getColor(), command);
+            if (Tracer.ENABLED) trace.stage(TraceStage.JOURNAL);
         } catch (Exception e) {
-            from.sendLine("ERROR " + e.getMessage());
-            System.out.println("Error for " + from.getColor() + ": " + e.getMessage());
+            if (Tracer.ENABLED && command != null) trace.stage(TraceStage.EXECUTE);
+            error = e.getMessage();
+            from.sendLine("ERROR " + error);
+            if (LOG.isEnabled(Level.INFO) && REJECTED_LOG.sample()) {
+                LOG.info("Error for {}: {}", from.getColor(), error);
+            }
+        } finally {
+            endBatch();
+            if (Tracer.ENABLED) {
+                trace.stage(TraceStage.BROADCAST);
+                trace.end();
+            }
+        }
+
+        ServerMetrics.commandHandled(command, error != null, System.nanoTime() - startNanos);
+        if (event != null) {
+            commitCommandEvent(event, from, command, binary, error);
         }
     }
 
+    /**
+     * Komenda, której nie udało się sparsować: wykonanie zgłasza błąd parsera, więc odrzucenie
+     * przechodzi tą samą ścieżką co błąd reguł gry.
+     */
+    private static final class Unparsed implements GameCommand {
+        private final String error;
+
+        Unparsed(String error) {
+            this.error = error;
+        }
+
+        @Override
+        public void execute(Game game) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Zatwierdza zdarzenie JFR obsłużonej komendy (czas obejmuje wykonanie i wysyłkę zmian).
+     *
+     * @param command komenda ({@code null}, gdy wiadomości nie udało się sparsować)
+     * @param error   komunikat błędu wysłany klientowi albo {@code null}
+     */
+    private void commitCommandEvent(CommandEvent event, ClientHandler from, GameCommand command,
+                                    boolean binary, String error) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.sessionId = id;
+        event.boardSize = game.getBoard().getSize();
+        event.player = from.getColor().name();
+        event.command = command != null ? command.getClass().getSimpleName() : "INVALID";
+        event.binary = binary;
+        event.outcome = error == null ? "OK" : error;
+        event.commit();
+    }
+
+    /** Czy zegar partii chodzi. */
+    private boolean clockRunning() {
+        return clock != null && clock.getRunning() != null;
+    }
+
+    /**
+     * Przełącza zegar na gracza, który ma ruch: rozlicza ruch poprzedniego gracza (od chwili nadejścia
+     * komendy), planuje nowy termin w {@link TimerWheel} i rozsyła {@code CLOCK}.
+     *
+     * @param player gracz na ruchu
+     */
+    private void switchClock(PlayerColor player) {
+        long now = commandArrival != 0 ? commandArrival : System.nanoTime();
+        commandArrival = 0;
+        PlayerColor mover = clock.getRunning();
+        if (!clock.start(player, now)) {
+            timeOut(mover);
+            return;
+        }
+        scheduleClockTimeout(now);
+        broadcast(clockLine(now));
+        if (journal != null) {
+            journal.appendClock(id, clock, now);
+        }
+    }
+
+    /** Zatrzymuje zegar (review, koniec gry), odwołuje termin i rozsyła stan zegarów. */
+    private void stopClock() {
+        long now = System.nanoTime();
+        clock.stop(now);
+        cancelClockTimeout();
+        broadcast(clockLine(now));
+        if (journal != null && !game.isFinished()) {
+            journal.appendClock(id, clock, now);
+        }
+    }
+
+    /**
+     * Odbudowuje zegar gry odtworzonej z dziennika. Zegar pozostaje zatrzymany do powrotu gracza
+     * ({@link #resumeClock()}) — nikt nie jest jeszcze połączony.
+     *
+     * @param state ostatni zapisany stan zegarów ({@code null} = pełny czas, zegar nie był przełączany)
+     */
+    private void restoreClock(GameJournal.ClockState state) {
+        if (timeControl == null || game.isFinished()) {
+            return;
+        }
+        clock = new GameClock(timeControl);
+        if (state != null) {
+            clock.restore(PlayerColor.BLACK, state.blackMillis(), state.blackPeriods());
+            clock.restore(PlayerColor.WHITE, state.whiteMillis(), state.whitePeriods());
+        }
+    }
+
+    /**
+     * Uruchamia zatrzymany zegar gracza na ruchu (pierwszy powrót gracza do gry odtworzonej z dziennika)
+     * i rozsyła {@code CLOCK}.
+     */
+    private void resumeClock() {
+        if (clock == null || clockRunning() || !started || game.isFinished()
+                || game.getPhase() != GamePhase.PLAYING) {
+            return;
+        }
+        long now = System.nanoTime();
+        clock.start(game.getCurrentPlayer(), now);
+        scheduleClockTimeout(now);
+        broadcast(clockLine(now));
+    }
+
+    private void scheduleClockTimeout(long now) {
+        cancelClockTimeout();
+        clockTimeout = timers.schedule(this::onClockTimeout, clock.deadline() - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelClockTimeout() {
+        if (clockTimeout != null) {
+            clockTimeout.cancel();
+            clockTimeout = null;
+        }
+    }
+
+    /**
+     * Wywoływane przez {@link TimerWheel} w terminie przekroczenia czasu. Timer, który nie pasuje
+     * już do stanu zegara (gracz zdążył z ruchem), jest ignorowany.
+     */
+    private synchronized void onClockTimeout() {
+        if (game == null || game.isFinished() || !clockRunning()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (clock.isFlagged(now)) {
+            timeOut(clock.getRunning());
+        } else if (clockTimeout == null || clockTimeout.isExpired()) {
+            scheduleClockTimeout(now);
+        }
+    }
+
+    /**
+     * Kończy grę przekroczeniem czasu jako osobne zdarzenie ({@code PHASE FINISHED}, {@code CLOCK},
+     * {@code END <zwycięzca> time}) i zapisuje je w dzienniku.
+     *
+     * @param loser gracz, który przekroczył czas
+     */
+    private void timeOut(PlayerColor loser) {
+        beginBatch();
+        try {
+            game.timeout(loser);
+            if (journal != null) {
+                journal.appendTimeout(id, loser);
+            }
+        } finally {
+            endBatch();
+        }
+        LOG.info("Game {}: {} ran out of time", id, loser);
+    }
+
+    /**
+     * Buduje linię {@code CLOCK <BLACK|WHITE|NONE> <msBLACK> <msWHITE> <okresyBLACK> <okresyWHITE>}.
+     *
+     * @param now bieżący czas ({@link System#nanoTime()})
+     * @return linia protokołu
+     */
+    private String clockLine(long now) {
+        PlayerColor running = clock.getRunning();
+        return "CLOCK " + (running == null ? "NONE" : running.name())
+                + " " + clock.remainingMillis(PlayerColor.BLACK, now)
+                + " " + clock.remainingMillis(PlayerColor.WHITE, now)
+                + " " + clock.periodsLeft(PlayerColor.BLACK, now)
+                + " " + clock.periodsLeft(PlayerColor.WHITE, now);
+    }
+
+    /**
+     * Rejestruje komendę zaakceptowaną przez {@code Game} i dopisuje ją do dziennika (bez czekania na dysk).
+     */
+    private void accepted(PlayerColor player, GameCommand command) {
+        commandsAccepted++;
+        if (journal != null) {
+            journal.appendCommand(id, player, command);
+        }
+    }
+
+    /**
+     * Sprawdza, czy nadawca może teraz wysyłać komendy gry; w przeciwnym razie odpowiada mu komunikatem.
+     */
+    private boolean acceptsCommandFrom(ClientHandler from) {
+        if (from.isSpectator()) {
+            from.sendLine("ERROR Spectators cannot send game commands");
+            return false;
+        }
+
+        // komenda po terminie, zanim zadziałał timer: czas minął przed jej nadejściem
+        if (clockRunning()) {
+            commandArrival = System.nanoTime();
+            if (clock.isFlagged(commandArrival)) {
+                timeOut(clock.getRunning());
+            }
+        }
+
+        if (game.isFinished()) {
+            from.sendLine("INFO Game already finished. Please close client.");
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Observer: zmiana planszy.
      *
      * <p>Serializuje stan {@link Board} do formatu protokołu:
-     * {@code BOARD <size>} + {@code ROW ...} + {@code END_BOARD}.
+     * {@code BOARD <size>} + {@code ROW ...} + {@code END_BOARD}
+     * (jedna ramka dla wszystkich odbiorców).
      */
     @Override
     public void onBoardChanged(Board board) {
+        long start = Tracer.ENABLED ? System.nanoTime() : 0;
+        boardFrame = boardSnapshotFrame(board);
+        broadcastFrame(boardFrame);
+        if (Tracer.ENABLED) trace.observed(start);
+    }
+
+    /**
+     * Buduje ramkę migawki planszy w obu kodowaniach: tekstowym i binarnym (pakowanym bitowo
+     * wprost ze stanu planszy, bez tłumaczenia tekstu).
+     */
+    private static OutboundQueue.Frame boardSnapshotFrame(Board board) {
+        return OutboundQueue.Frame.of(boardFrame(board), BinaryProtocol.encodeBoard(board.getState()), true);
+    }
+
+    /**
+     * Serializuje stan planszy do jednej ramki protokołu:
+     * {@code BOARD <size>} + {@code ROW ...} + {@code END_BOARD}.
+     *
+     * @param board plansza
+     * @return tekst ramki (linie zakończone {@code '\n'})
+     */
+    private static String boardFrame(Board board) {
         int[][] state = board.getState();
         int size = state.length;
 
-        broadcast("BOARD " + size);
+        StringBuilder sb = new StringBuilder(16 + size * (size + 5));
+        sb.append("BOARD ").append(size).append('\n');
         for (int y = 0; y < size; y++) {
-            StringBuilder row = new StringBuilder();
+            sb.append("ROW ");
             for (int x = 0; x < size; x++) {
                 int cell = state[x][y];
                 char symbol = switch (cell) {
@@ -167,11 +1234,12 @@ public class GameSession implements GameObserver {
                     case Board.WHITE -> 'O';
                     default -> '.';
                 };
-                row.append(symbol);
+                sb.append(symbol);
             }
-            broadcast("ROW " + row);
+            sb.append('\n');
         }
-        broadcast("END_BOARD");
+        sb.append("END_BOARD\n");
+        return sb.toString();
     }
 
     /**
@@ -181,8 +1249,21 @@ public class GameSession implements GameObserver {
      */
     @Override
     public void onGameEnded(GameResult result) {
+        long start = Tracer.ENABLED ? System.nanoTime() : 0;
+        finishedAt = System.nanoTime();
+        broadcast(endLine(result));
+        if (Tracer.ENABLED) trace.observed(start);
+    }
+
+    /**
+     * Buduje linię {@code END <winner> <reason>}.
+     *
+     * @param result wynik gry
+     * @return linia protokołu
+     */
+    private static String endLine(GameResult result) {
         String winnerStr = (result.getWinner() == null) ? "NONE" : result.getWinner().name();
-        broadcast("END " + winnerStr + " " + result.getReason());
+        return "END " + winnerStr + " " + result.getReason();
     }
 
     /**
@@ -192,7 +1273,12 @@ public class GameSession implements GameObserver {
      */
     @Override
     public void onPlayerToMoveChanged(PlayerColor player) {
+        long start = Tracer.ENABLED ? System.nanoTime() : 0;
         broadcast("TURN " + player.name());
+        if (clock != null && game.getPhase() == GamePhase.PLAYING) {
+            switchClock(player);
+        }
+        if (Tracer.ENABLED) trace.observed(start);
     }
 
     /**
@@ -203,7 +1289,13 @@ public class GameSession implements GameObserver {
      */
     @Override
     public void onPhaseChanged(GamePhase phase) {
+        long start = Tracer.ENABLED ? System.nanoTime() : 0;
         broadcast("PHASE " + phase.name());
+        scoringFrame = null;
+        // zegar chodzi tylko w PLAYING; po wznowieniu rusza razem z TURN
+        if (phase != GamePhase.PLAYING && clockRunning()) {
+            stopClock();
+        }
 
         // W fazie review dosyłamy dane do wizualizacji punktacji (zad. 8/9)
         if (phase == GamePhase.SCORING_REVIEW) {
@@ -212,6 +1304,7 @@ public class GameSession implements GameObserver {
         } else if (phase == GamePhase.PLAYING) {
             broadcast("INFO Resumed. Next move: " + game.getCurrentPlayer().name());
         }
+        if (Tracer.ENABLED) trace.observed(start);
     }
 
 
@@ -222,25 +1315,37 @@ public class GameSession implements GameObserver {
      * <p>Te dane są wykorzystywane po stronie GUI wyłącznie do overlay (bez zmiany reguł gry).</p>
      */
     private void sendScoreTerritoryAndDeadMask() {
+        scoringFrame = OutboundQueue.Frame.of(scoringFrame(), false);
+        broadcastFrame(scoringFrame);
+    }
+
+    /**
+     * Buduje ramkę z pakietem punktacji: {@code SCORE}, {@code TERRITORY} oraz {@code DEADSTONES}.
+     *
+     * @return tekst ramki (linie zakończone {@code '\n'})
+     */
+    private String scoringFrame() {
+        long startNanos = System.nanoTime();
         Board b = game.getBoard();
-        int size = b.getState().length;
+        int size = b.getSize();
+        StringBuilder sb = new StringBuilder(64 + 3 * size * (size + 6));
 
         // SCORE (zasada 9)
         int[] score = ScoreCalculator.computeScore(b);
-        broadcast("SCORE " + score[0] + " " + score[1]);
+        sb.append("SCORE ").append(score[0]).append(' ').append(score[1]).append('\n');
 
         // TERRITORY (do overlay na pustych polach)
         TerritoryAnalyzer analyzer = new TerritoryAnalyzer(b);
         Territory[][] t = analyzer.computeTerritory();
         int[][] state = b.getState();
 
-        broadcast("TERRITORY " + size);
+        sb.append("TERRITORY ").append(size).append('\n');
         for (int y = 0; y < size; y++) {
-            StringBuilder row = new StringBuilder();
+            sb.append("TROW ");
             for (int x = 0; x < size; x++) {
                 int cell = state[x][y];
-                if (cell == Board.BLACK) row.append('X');
-                else if (cell == Board.WHITE) row.append('O');
+                if (cell == Board.BLACK) sb.append('X');
+                else if (cell == Board.WHITE) sb.append('O');
                 else {
                     Territory tt = t[x][y];
                     char ch = switch (tt) {
@@ -249,12 +1354,12 @@ public class GameSession implements GameObserver {
                         case SEKI -> 's';
                         default -> '.';
                     };
-                    row.append(ch);
+                    sb.append(ch);
                 }
             }
-            broadcast("TROW " + row);
+            sb.append('\n');
         }
-        broadcast("END_TERRITORY");
+        sb.append("END_TERRITORY\n");
 
         // DEADSTONES (to, co ScoreCalculator dolicza jako jeńców)
         boolean[][] dead = new boolean[size][size];
@@ -269,14 +1374,16 @@ public class GameSession implements GameObserver {
             }
         }
 
-        broadcast("DEADSTONES " + size);
+        sb.append("DEADSTONES ").append(size).append('\n');
         for (int y = 0; y < size; y++) {
-            StringBuilder row = new StringBuilder();
+            sb.append("DROW ");
             for (int x = 0; x < size; x++) {
-                row.append(dead[x][y] ? '1' : '0');
+                sb.append(dead[x][y] ? '1' : '0');
             }
-            broadcast("DROW " + row);
+            sb.append('\n');
         }
-        broadcast("END_DEADSTONES");
+        sb.append("END_DEADSTONES\n");
+        ServerMetrics.SCORING.record(System.nanoTime() - startNanos);
+        return sb.toString();
     }
 }
@@ -0,0 +1,175 @@
+package pl.edu.go.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * {@code LoopbackTransport} to połączenie w pamięci: para buforów bajtów zamiast gniazda TCP.
+ *
+ * <p>Obiekt jest stroną serwera (przekazywaną do {@link ClientHandler}); {@link #peer()} zwraca
+ * stronę klienta, której wejście czyta to, co zapisał serwer, i odwrotnie. Protokół, kodowanie ramek,
+ * kolejki wyjściowe i obserwatorzy działają dokładnie jak przez sieć, ale bez stosu sieciowego jądra —
+ * sesję można uruchomić w testach, benchmarkach i meczach botów w jednym procesie:
+ * <pre>
+ * LoopbackTransport link = new LoopbackTransport();
+ * new Thread(registry.accept(link)).start();
+ * Transport client = link.peer();   // client.getOutputStream(): komendy (najpierw PLAY), client.getInputStream(): odpowiedzi
+ * </pre>
+ *
+ * <p>Bufory rosną bez limitu (ograniczenie ilości danych do klienta zapewnia {@link OutboundQueue}).
+ * Odczyt blokuje do nadejścia danych; po zamknięciu dowolnej strony odczyt zwraca koniec strumienia,
+ * a zapis kończy się {@link IOException}. Bez blokowania można odczytać dane już dostępne
+ * ({@link InputStream#available()}).
+ */
+public final class LoopbackTransport implements Transport {
+
+    /** Dane od serwera do klienta. */
+    private final Pipe toClient;
+
+    /** Dane od klienta do serwera. */
+    private final Pipe toServer;
+
+    private final LoopbackTransport peer;
+
+    /** Tworzy połączenie; ten obiekt jest stroną serwera. */
+    public LoopbackTransport() {
+        this.toClient = new Pipe();
+        this.toServer = new Pipe();
+        this.peer = new LoopbackTransport(this);
+    }
+
+    private LoopbackTransport(LoopbackTransport server) {
+        this.toClient = server.toServer;
+        this.toServer = server.toClient;
+        this.peer = server;
+    }
+
+    /**
+     * Zwraca drugą stronę połączenia.
+     *
+     * @return strona klienta (dla strony klienta — strona serwera)
+     */
+    public LoopbackTransport peer() {
+        return peer;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return toServer.in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return toClient.out;
+    }
+
+    /** Zamyka oba kierunki połączenia (dla obu stron). */
+    @Override
+    public void close() {
+        toClient.close();
+        toServer.close();
+    }
+
+    /** Jednokierunkowy bufor bajtów z blokującym odczytem. */
+    private static final class Pipe {
+        private byte[] buf = new byte[256];
+        private int head = 0;
+        private int tail = 0;
+        private boolean closed = false;
+
+        final InputStream in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return Pipe.this.read(b, off, len);
+            }
+
+            @Override
+            public int available() {
+                return Pipe.this.available();
+            }
+
+            @Override
+            public void close() {
+                Pipe.this.close();
+            }
+        };
+
+        final OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                Pipe.this.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                Pipe.this.close();
+            }
+        };
+
+        synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (head == tail && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (head == tail) {
+                return -1;
+            }
+            int n = Math.min(len, tail - head);
+            System.arraycopy(buf, head, b, off, n);
+            head += n;
+            if (head == tail) {
+                head = tail = 0;
+            }
+            return n;
+        }
+
+        synchronized int available() {
+            return tail - head;
+        }
+
+        synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Loopback connection closed");
+            }
+            if (tail + len > buf.length) {
+                // najpierw odzyskujemy przeczytaną część, potem ewentualnie powiększamy bufor
+                int size = tail - head;
+                byte[] target = size + len > buf.length
+                        ? new byte[Math.max(buf.length * 2, size + len)]
+                        : buf;
+                System.arraycopy(buf, head, target, 0, size);
+                buf = target;
+                head = 0;
+                tail = size;
+            }
+            System.arraycopy(b, off, buf, tail, len);
+            tail += len;
+            notifyAll();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+    }
+}
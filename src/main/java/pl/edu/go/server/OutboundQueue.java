@@ -0,0 +1,311 @@
+package pl.edu.go.server;
+
+import pl.edu.go.protocol.BinaryProtocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * {@code OutboundQueue} to ograniczona kolejka ramek wychodzących jednego połączenia klienta.
+ *
+ * <p><b>Architektura:</b> warstwa transportowa. Wątek gry (sesja) tylko dokłada ramki do kolejki,
+ * a zapis do socketu wykonuje osobny wątek piszący {@link ClientHandler}. Dzięki temu klient
+ * z wolnym łączem nie blokuje rozgrywki pozostałym graczom.
+ *
+ * <p>Kolejka jest ograniczona liczbą ramek i liczbą bajtów. Po przekroczeniu limitu stosowana jest
+ * {@link OverflowPolicy}. Kolejka udostępnia też proste metryki (głębokość, maksimum, odrzucone ramki).
+ */
+public final class OutboundQueue {
+
+    /** Domyślny limit liczby ramek w kolejce. */
+    public static final int DEFAULT_MAX_FRAMES = 1024;
+
+    /** Domyślny limit liczby bajtów w kolejce (1 MiB). */
+    public static final int DEFAULT_MAX_BYTES = 1 << 20;
+
+    /**
+     * Wynik dołożenia ramek do kolejki.
+     */
+    public enum Offer {
+        /** Ramki zostały przyjęte. */
+        ACCEPTED,
+        /** Kolejka została wyczyszczona; sesja powinna wysłać pełny stan gry. */
+        RESYNC,
+        /** Kolejka została zamknięta; połączenie należy rozłączyć. */
+        DISCONNECT
+    }
+
+    /**
+     * Pojedyncza ramka wyjściowa: jedna lub więcej linii protokołu zakończonych {@code '\n'},
+     * zakodowanych raz do UTF-8.
+     *
+     * <p>Ramka jest niezmienna, więc ta sama instancja może trafić do kolejek wielu klientów
+     * (kodowanie raz, rozsyłanie do wszystkich — np. do graczy i obserwatorów).
+     */
+    static final class Frame {
+
+        /** Zakodowana treść ramki; nie wolno jej modyfikować. */
+        final byte[] data;
+
+        /** Czy ramka jest pełną migawką planszy (może zostać zastąpiona nowszą). */
+        final boolean boardSnapshot;
+
+        /** Identyfikator śladu komendy dla ramki-znacznika ({@code 0} = zwykła ramka). */
+        final long traceId;
+
+        /** Chwila przekazania znacznika do kolejek ({@link System#nanoTime()}). */
+        final long tracedAt;
+
+        /** Ta sama ramka w protokole binarnym (liczona raz, współdzielona przez klientów binarnych). */
+        private volatile Frame binary;
+
+        Frame(byte[] data, boolean boardSnapshot) {
+            this(data, boardSnapshot, 0, 0);
+        }
+
+        private Frame(byte[] data, boolean boardSnapshot, long traceId, long tracedAt) {
+            this.data = data;
+            this.boardSnapshot = boardSnapshot;
+            this.traceId = traceId;
+            this.tracedAt = tracedAt;
+        }
+
+        /**
+         * Zwraca wersję ramki dla klientów w trybie {@link BinaryProtocol}.
+         * Tłumaczenie wykonywane jest przy pierwszym użyciu i zapamiętywane.
+         *
+         * @return ramka binarna
+         */
+        Frame binary() {
+            Frame b = binary;
+            if (b == null) {
+                b = new Frame(BinaryProtocol.encodeServerText(data), boardSnapshot);
+                b.binary = b;
+                binary = b;
+            }
+            return b;
+        }
+
+        /**
+         * Koduje tekst ramki do UTF-8.
+         *
+         * @param text          linie zakończone {@code '\n'}
+         * @param boardSnapshot czy ramka jest pełną migawką planszy
+         * @return nowa ramka
+         */
+        static Frame of(String text, boolean boardSnapshot) {
+            return new Frame(text.getBytes(StandardCharsets.UTF_8), boardSnapshot);
+        }
+
+        /**
+         * Tworzy ramkę z gotowymi kodowaniami tekstowym i binarnym (np. migawka planszy
+         * kodowana wprost z {@code Board}, bez tłumaczenia tekstu).
+         *
+         * @param text          linie zakończone {@code '\n'}
+         * @param binaryData    ta sama treść jako ramki {@link BinaryProtocol}
+         * @param boardSnapshot czy ramka jest pełną migawką planszy
+         * @return nowa ramka
+         */
+        static Frame of(String text, byte[] binaryData, boolean boardSnapshot) {
+            Frame f = of(text, boardSnapshot);
+            Frame b = new Frame(binaryData, boardSnapshot);
+            b.binary = b;
+            f.binary = b;
+            return f;
+        }
+
+        /**
+         * Tworzy pustą ramkę-znacznik śledzonej komendy. Znacznik przechodzi przez kolejkę za ramkami
+         * komendy i nic nie zapisuje do transportu; wątek piszący po jego zapisaniu mierzy etap
+         * {@link pl.edu.go.trace.TraceStage#WRITE}.
+         *
+         * @param traceId  identyfikator śladu komendy
+         * @param tracedAt chwila przekazania do kolejek ({@link System#nanoTime()})
+         * @return znacznik (ten sam w obu protokołach)
+         */
+        static Frame traceMark(long traceId, long tracedAt) {
+            Frame f = new Frame(new byte[0], false, traceId, tracedAt);
+            f.binary = f;
+            return f;
+        }
+    }
+
+    private final int maxFrames;
+    private final int maxBytes;
+    private final OverflowPolicy policy;
+
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private int queuedBytes = 0;
+    private boolean closed = false;
+
+    // metryki
+    private int maxDepth = 0;
+    private long droppedFrames = 0;
+    private long resyncCount = 0;
+
+    /**
+     * @param maxFrames maksymalna liczba ramek w kolejce
+     * @param maxBytes  maksymalna łączna liczba bajtów w kolejce
+     * @param policy    polityka przepełnienia
+     */
+    public OutboundQueue(int maxFrames, int maxBytes, OverflowPolicy policy) {
+        if (maxFrames <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Queue limits must be positive");
+        }
+        this.maxFrames = maxFrames;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+    }
+
+    /**
+     * Tworzy kolejkę z domyślnymi limitami i polityką {@link OverflowPolicy#COALESCE}.
+     */
+    public OutboundQueue() {
+        this(DEFAULT_MAX_FRAMES, DEFAULT_MAX_BYTES, OverflowPolicy.COALESCE);
+    }
+
+    /**
+     * Dokłada ramki jednej ramki batchingu (np. jednej komendy) do kolejki w całości.
+     *
+     * @param batch ramki do wysłania (w kolejności)
+     * @return wynik operacji; przy {@code RESYNC}/{@code DISCONNECT} ramki nie zostały przyjęte
+     */
+    synchronized Offer offer(List<Frame> batch) {
+        if (closed) {
+            return Offer.DISCONNECT;
+        }
+
+        int batchBytes = 0;
+        boolean hasBoard = false;
+        for (Frame f : batch) {
+            batchBytes += f.data.length;
+            hasBoard |= f.boardSnapshot;
+        }
+
+        if (!fits(batch.size(), batchBytes)) {
+            OverflowPolicy effective = policy;
+
+            if (effective == OverflowPolicy.COALESCE) {
+                // nowsza migawka planszy czyni starsze niewysłane migawki zbędnymi
+                if (hasBoard) {
+                    dropQueuedBoardSnapshots();
+                }
+                if (!fits(batch.size(), batchBytes)) {
+                    effective = OverflowPolicy.RESYNC;
+                }
+            }
+
+            if (effective == OverflowPolicy.RESYNC) {
+                droppedFrames += frames.size() + batch.size();
+                clear();
+                resyncCount++;
+                return Offer.RESYNC;
+            }
+            if (effective == OverflowPolicy.DISCONNECT) {
+                droppedFrames += frames.size() + batch.size();
+                clear();
+                closed = true;
+                notifyAll();
+                return Offer.DISCONNECT;
+            }
+        }
+
+        for (Frame f : batch) {
+            frames.addLast(f);
+        }
+        queuedBytes += batchBytes;
+        maxDepth = Math.max(maxDepth, frames.size());
+        notifyAll();
+        return Offer.ACCEPTED;
+    }
+
+    /**
+     * Przenosi wszystkie ramki z kolejki do {@code out} bez czekania.
+     *
+     * @param out lista docelowa
+     */
+    synchronized void drainTo(List<Frame> out) {
+        out.addAll(frames);
+        clear();
+    }
+
+    /**
+     * Czeka na co najmniej jedną ramkę i przenosi wszystkie dostępne ramki do {@code out}.
+     *
+     * @param out lista docelowa
+     * @return {@code false} gdy kolejka została zamknięta i jest pusta
+     * @throws InterruptedException gdy wątek piszący został przerwany
+     */
+    synchronized boolean awaitAndDrain(List<Frame> out) throws InterruptedException {
+        while (frames.isEmpty() && !closed) {
+            wait();
+        }
+        if (frames.isEmpty()) {
+            return false;
+        }
+        drainTo(out);
+        return true;
+    }
+
+    /**
+     * Zamyka kolejkę i budzi wątek piszący. Zaległe ramki są odrzucane.
+     */
+    synchronized void close() {
+        closed = true;
+        clear();
+        notifyAll();
+    }
+
+    private boolean fits(int addFrames, int addBytes) {
+        return frames.size() + addFrames <= maxFrames && queuedBytes + addBytes <= maxBytes;
+    }
+
+    private void dropQueuedBoardSnapshots() {
+        Iterator<Frame> it = frames.iterator();
+        while (it.hasNext()) {
+            Frame f = it.next();
+            if (f.boardSnapshot) {
+                it.remove();
+                queuedBytes -= f.data.length;
+                droppedFrames++;
+            }
+        }
+    }
+
+    private void clear() {
+        frames.clear();
+        queuedBytes = 0;
+    }
+
+    /** @return polityka przepełnienia tej kolejki */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /** @return aktualna liczba ramek oczekujących na wysłanie */
+    public synchronized int getDepth() {
+        return frames.size();
+    }
+
+    /** @return aktualna liczba bajtów oczekujących na wysłanie */
+    public synchronized int getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    /** @return największa zaobserwowana liczba ramek w kolejce */
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** @return liczba ramek odrzuconych przez politykę przepełnienia */
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /** @return liczba resynchronizacji wymuszonych przepełnieniem */
+    public synchronized long getResyncCount() {
+        return resyncCount;
+    }
+}
@@ -0,0 +1,27 @@
+package pl.edu.go.server;
+
+/**
+ * {@code OverflowPolicy} określa, co robi {@link OutboundQueue}, gdy klient nie nadąża
+ * z odbiorem danych i kolejka wyjściowa osiąga swój limit.
+ *
+ * <p>Protokół serwera opisuje stan gry (BOARD/TURN/PHASE/...), więc starsze komunikaty
+ * można bezpiecznie pominąć, o ile klient dostanie później aktualny stan.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Usuwa z kolejki starsze, jeszcze niewysłane migawki planszy ({@code BOARD ... END_BOARD}),
+     * które i tak zostałyby nadpisane nowszą. Jeżeli to nie wystarczy — zachowuje się jak {@link #RESYNC}.
+     */
+    COALESCE,
+
+    /**
+     * Odrzuca całą zaległą kolejkę i prosi sesję o wysłanie pełnego stanu gry (resynchronizacja).
+     */
+    RESYNC,
+
+    /**
+     * Zamyka połączenie z klientem, który nie nadąża z odbiorem.
+     */
+    DISCONNECT
+}
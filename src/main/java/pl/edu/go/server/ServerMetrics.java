@@ -0,0 +1,151 @@
+package pl.edu.go.server;
+
+import pl.edu.go.command.GameCommand;
+import pl.edu.go.metrics.Counter;
+import pl.edu.go.metrics.Family;
+import pl.edu.go.metrics.LatencyHistogram;
+import pl.edu.go.metrics.MetricsRegistry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code ServerMetrics} zbiera metryki serwera gry w jednym {@link MetricsRegistry} procesu.
+ *
+ * <p>Metryki:
+ * <ul>
+ *   <li>{@code go_sessions}, {@code go_sessions_active}, {@code go_sessions_hibernated} — sesje w rejestrze
+ *       wskazanym przez {@link #track(SessionRegistry)},</li>
+ *   <li>{@code go_connections_active}, {@code go_connections_total} — połączenia klientów,</li>
+ *   <li>{@code go_commands_total{command}}, {@code go_commands_rejected_total{command}} — obsłużone
+ *       i odrzucone komendy gry (wiadomość, której nie udało się sparsować, ma etykietę {@code INVALID});
+ *       odsetek nielegalnych ruchów to stosunek obu liczników dla {@code PlaceStoneCommand},</li>
+ *   <li>{@code go_command_latency_seconds{command}} — czas od odebrania komendy do przekazania wszystkich
+ *       wynikających z niej ramek do kolejek wyjściowych odbiorców,</li>
+ *   <li>{@code go_scoring_duration_seconds} — budowa pakietu punktacji (wynik, terytorium, martwe kamienie),</li>
+ *   <li>{@code go_broadcast_events_total}, {@code go_broadcast_frames_total}, {@code go_resyncs_total},
+ *       {@code go_slow_client_disconnects_total} — rozsyłanie zdarzeń,</li>
+ *   <li>{@code go_idle_client_disconnects_total} — połączenia zamknięte przez {@link ConnectionReaper},</li>
+ *   <li>{@code go_outbound_queue_frames}, {@code go_outbound_queue_frames_max},
+ *       {@code go_outbound_queue_bytes} — łączna i największa głębokość kolejek wyjściowych
+ *       działających połączeń.</li>
+ * </ul>
+ *
+ * <p>Zapis metryk to operacje na {@link LongAdder}/{@link LatencyHistogram} bez blokad i bez alokacji.
+ * {@link GameServer} udostępnia rejestr przez {@link pl.edu.go.metrics.MetricsHttpServer}.
+ */
+public final class ServerMetrics {
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    /** Rejestr sesji, którego dotyczą wskaźniki {@code go_sessions*} ({@code null} = brak). */
+    private static volatile SessionRegistry sessions;
+
+    /** Kolejki wyjściowe działających połączeń (od startu {@link ClientHandler#run()} do jego końca). */
+    private static final Set<OutboundQueue> QUEUES = ConcurrentHashMap.newKeySet();
+
+    private static final LongAdder CONNECTIONS_ACTIVE = new LongAdder();
+
+    private static final Counter CONNECTIONS = REGISTRY.counter(
+            "go_connections_total", "Client connections accepted");
+    private static final Family<Counter> COMMANDS = REGISTRY.counter(
+            "go_commands_total", "Game commands handled (accepted and rejected)", "command");
+    private static final Family<Counter> REJECTED = REGISTRY.counter(
+            "go_commands_rejected_total", "Game commands rejected with ERROR", "command");
+    private static final Family<LatencyHistogram> COMMAND_LATENCY = REGISTRY.histogram(
+            "go_command_latency_seconds", "Time from receiving a command to queueing its broadcast", "command");
+    static final LatencyHistogram SCORING = REGISTRY.histogram(
+            "go_scoring_duration_seconds", "Time to compute the scoring review package");
+    static final Counter BROADCASTS = REGISTRY.counter(
+            "go_broadcast_events_total", "Numbered events broadcast to session recipients");
+    static final Counter BROADCAST_FRAMES = REGISTRY.counter(
+            "go_broadcast_frames_total", "Frames in broadcast events (each encoded once)");
+    static final Counter RESYNCS = REGISTRY.counter(
+            "go_resyncs_total", "Full-state resyncs sent after outbound queue overflow");
+    static final Counter SLOW_DISCONNECTS = REGISTRY.counter(
+            "go_slow_client_disconnects_total", "Clients disconnected because their outbound queue overflowed");
+    static final Counter IDLE_DISCONNECTS = REGISTRY.counter(
+            "go_idle_client_disconnects_total", "Clients disconnected after missing heartbeats");
+
+    static {
+        REGISTRY.gauge("go_sessions", "Sessions in the registry", () -> {
+            SessionRegistry r = sessions;
+            return r == null ? 0 : r.size();
+        });
+        REGISTRY.gauge("go_sessions_active", "Started, unfinished sessions held in memory", () -> {
+            SessionRegistry r = sessions;
+            return r == null ? 0 : r.countActive();
+        });
+        REGISTRY.gauge("go_sessions_hibernated", "Sessions saved to the session store", () -> {
+            SessionRegistry r = sessions;
+            return r == null ? 0 : r.countHibernated();
+        });
+        REGISTRY.gauge("go_connections_active", "Open client connections", CONNECTIONS_ACTIVE::sum);
+        REGISTRY.gauge("go_outbound_queue_frames", "Frames waiting in all outbound queues", () -> {
+            long total = 0;
+            for (OutboundQueue q : QUEUES) total += q.getDepth();
+            return total;
+        });
+        REGISTRY.gauge("go_outbound_queue_frames_max", "Deepest outbound queue of a single connection", () -> {
+            long max = 0;
+            for (OutboundQueue q : QUEUES) max = Math.max(max, q.getDepth());
+            return max;
+        });
+        REGISTRY.gauge("go_outbound_queue_bytes", "Bytes waiting in all outbound queues", () -> {
+            long total = 0;
+            for (OutboundQueue q : QUEUES) total += q.getQueuedBytes();
+            return total;
+        });
+    }
+
+    private ServerMetrics() {
+    }
+
+    /**
+     * Zwraca rejestr metryk serwera.
+     *
+     * @return rejestr (wspólny dla procesu)
+     */
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Wskazuje rejestr sesji, którego stan opisują wskaźniki {@code go_sessions*}.
+     *
+     * @param registry rejestr sesji serwera
+     */
+    public static void track(SessionRegistry registry) {
+        sessions = registry;
+    }
+
+    /** Połączenie rozpoczęło obsługę (kolejka trafia do wskaźników głębokości). */
+    static void connectionOpened(OutboundQueue queue) {
+        CONNECTIONS.inc();
+        CONNECTIONS_ACTIVE.increment();
+        QUEUES.add(queue);
+    }
+
+    /** Połączenie zakończyło obsługę. */
+    static void connectionClosed(OutboundQueue queue) {
+        QUEUES.remove(queue);
+        CONNECTIONS_ACTIVE.decrement();
+    }
+
+    /**
+     * Rejestruje obsłużoną komendę gry.
+     *
+     * @param command  komenda ({@code null}, gdy wiadomości nie udało się sparsować)
+     * @param rejected czy nadawca dostał {@code ERROR}
+     * @param nanos    czas obsługi w nanosekundach
+     */
+    static void commandHandled(GameCommand command, boolean rejected, long nanos) {
+        String type = command != null ? command.getClass().getSimpleName() : "INVALID";
+        COMMANDS.labels(type).inc();
+        if (rejected) {
+            REJECTED.labels(type).inc();
+        }
+        COMMAND_LATENCY.labels(type).record(nanos);
+    }
+}
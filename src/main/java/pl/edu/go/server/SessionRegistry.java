@@ -0,0 +1,467 @@
+package pl.edu.go.server;
+
+import pl.edu.go.board.BoardFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.game.TimeControl;
+import pl.edu.go.log.AsyncLog;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * {@code SessionRegistry} przechowuje wszystkie sesje gry serwera i łączy nowych klientów w pary.
+ *
+ * <p><b>Architektura:</b> warstwa aplikacyjna serwera (nad {@link GameSession}).
+ * Rejestr nadaje sesjom identyfikatory, sadza kolejnych klientów przy wolnych miejscach
+ * (BLACK, potem WHITE) i obsługuje komendy poziomu serwera, które nie dotyczą jednej gry:
+ * <ul>
+ *   <li>{@code PLAY} — zajęcie miejsca w oczekującej grze,</li>
+ *   <li>{@code WATCH <gameId>} — dołączenie jako obserwator wskazanej gry,</li>
+ *   <li>{@code RESUME_SESSION <token> [lastSeq]} — powrót gracza na jego miejsce po zerwaniu połączenia.</li>
+ * </ul>
+ * Pozostałe linie są przekazywane do sesji, do której należy połączenie.
+ *
+ * <p><b>Leniwe sadzanie:</b> nowe połączenie ({@link #accept(Transport)}) nie należy do żadnej sesji,
+ * dopóki nie przyśle pierwszej linii. {@code RESUME_SESSION} i {@code WATCH} nie zajmują miejsca,
+ * więc powracający gracz nie kompletuje cudzej oczekującej gry; każda inna linia (zwykle {@code PLAY})
+ * sadza klienta, a gdy gra ma komplet — startuje ją.
+ *
+ * <p>Przy kontroli czasu ({@link TimeControl}) wszystkie sesje rejestru planują terminy zegarów
+ * w jednym {@link TimerWheel} (jeden wątek niezależnie od liczby gier).
+ */
+public final class SessionRegistry {
+
+    private static final AsyncLog LOG = AsyncLog.get();
+
+    /** Rozmiar planszy tworzonych gier. */
+    private final int boardSize;
+
+    /** Fabryka kolejek wyjściowych dla nowych połączeń. */
+    private final Supplier<OutboundQueue> queueFactory;
+
+    /** Wszystkie sesje serwera według identyfikatora. */
+    private final Map<Integer, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /** Sesje według tokenów wznawiania graczy. */
+    private final Map<String, GameSession> byToken = new ConcurrentHashMap<>();
+
+    /** Dziennik gier ({@code null} = bez dziennika). */
+    private final GameJournal journal;
+
+    /** Kontrola czasu nowych gier ({@code null} = gry bez zegara). */
+    private final TimeControl timeControl;
+
+    /** Koło timerów zegarów wszystkich sesji ({@code null} bez kontroli czasu). */
+    private final TimerWheel timers;
+
+    /** Kolejny identyfikator sesji. */
+    private int nextId = 1;
+
+    /** Sesje czekające na graczy (nierozpoczęte, z wolnym miejscem). */
+    private final Deque<GameSession> waiting = new ArrayDeque<>();
+
+    /**
+     * @param boardSize    rozmiar planszy nowych gier
+     * @param queueFactory fabryka kolejek wyjściowych połączeń
+     */
+    public SessionRegistry(int boardSize, Supplier<OutboundQueue> queueFactory) {
+        this(boardSize, queueFactory, null);
+    }
+
+    /**
+     * @param boardSize    rozmiar planszy nowych gier
+     * @param queueFactory fabryka kolejek wyjściowych połączeń
+     * @param journal      dziennik zaakceptowanych komend ({@code null} = bez dziennika)
+     */
+    public SessionRegistry(int boardSize, Supplier<OutboundQueue> queueFactory, GameJournal journal) {
+        this(boardSize, queueFactory, journal, null);
+    }
+
+    /**
+     * @param boardSize    rozmiar planszy nowych gier
+     * @param queueFactory fabryka kolejek wyjściowych połączeń
+     * @param journal      dziennik zaakceptowanych komend ({@code null} = bez dziennika)
+     * @param timeControl  kontrola czasu gier ({@code null} = bez zegara)
+     */
+    public SessionRegistry(int boardSize, Supplier<OutboundQueue> queueFactory, GameJournal journal,
+                           TimeControl timeControl) {
+        this.boardSize = boardSize;
+        this.queueFactory = queueFactory;
+        this.journal = journal;
+        this.timeControl = timeControl;
+        this.timers = timeControl != null ? new TimerWheel() : null;
+    }
+
+    /**
+     * Rejestruje gry odtworzone z dziennika po restarcie serwera. Gracze wracają do nich
+     * przez {@code RESUME_SESSION}, a obserwatorzy przez {@code WATCH}.
+     *
+     * @param recovered gry odtworzone przez {@link GameJournal#recover(java.nio.file.Path)}
+     */
+    public synchronized void restore(List<GameJournal.RecoveredGame> recovered) {
+        for (GameJournal.RecoveredGame g : recovered) {
+            GameSession session = GameSession.restore(g, journal, timeControl, timers);
+            register(session);
+            nextId = Math.max(nextId, g.id() + 1);
+        }
+    }
+
+    /**
+     * Przyjmuje nowe połączenie: tworzy handler bez sesji, który zostanie posadzony po pierwszej linii.
+     *
+     * <p>Wątek handlera uruchamia wywołujący.</p>
+     *
+     * @param socket połączenie klienta
+     * @return handler klienta
+     */
+    public ClientHandler accept(Socket socket) {
+        return accept(new SocketTransport(socket));
+    }
+
+    /**
+     * Przyjmuje połączenie o dowolnym transporcie (np. {@link LoopbackTransport} w testach i meczach botów).
+     *
+     * @param transport połączenie klienta
+     * @return handler klienta
+     * @see #accept(Socket)
+     */
+    public ClientHandler accept(Transport transport) {
+        return new ClientHandler(transport, null, null, queueFactory.get(), this);
+    }
+
+    /**
+     * Sadza klienta przy wolnym miejscu w oczekującej sesji (zakładając ją w razie potrzeby)
+     * i startuje grę, gdy ma komplet graczy.
+     *
+     * @param handler nieposadzone połączenie
+     */
+    private synchronized void seat(ClientHandler handler) {
+        GameSession session = waiting.peekFirst();
+        while (session != null && (session.isStarted() || session.freeSeat() == null)) {
+            waiting.pollFirst();
+            session = waiting.peekFirst();
+        }
+        if (session == null) {
+            session = createSession();
+            waiting.addFirst(session);
+        }
+        PlayerColor color = session.freeSeat();
+
+        handler.rebind(session, color);
+        session.setPlayer(color, handler);
+
+        if (session.freeSeat() == null) {
+            waiting.remove(session);
+            // wątki odczytu obu graczy już działają (sadzanie następuje po ich pierwszej linii)
+            session.startGame();
+            LOG.info("Game {} started.", session.getId());
+        }
+    }
+
+    /**
+     * Zwraca sesję o podanym identyfikatorze.
+     *
+     * @param id identyfikator sesji
+     * @return sesja lub {@code null}
+     */
+    public GameSession get(int id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Zwraca liczbę sesji na serwerze.
+     *
+     * @return liczba sesji
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Zwraca liczbę rozpoczętych, niezakończonych sesji, których gra jest w pamięci.
+     *
+     * @return liczba aktywnych sesji
+     */
+    public int countActive() {
+        int count = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.isActive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Zwraca liczbę sesji uśpionych w magazynie.
+     *
+     * @return liczba uśpionych sesji
+     */
+    public int countHibernated() {
+        int count = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.isHibernated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Usypia sesje bez połączeń, bezczynne co najmniej {@code idleNanos}
+     * (zob. {@link GameSession#hibernateIfIdle(SessionStore, long, long)}).
+     *
+     * @param store     magazyn migawek
+     * @param idleNanos minimalny czas bezczynności w nanosekundach
+     * @return liczba uśpionych sesji
+     */
+    public int hibernateIdle(SessionStore store, long idleNanos) {
+        long now = System.nanoTime();
+        int count = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.hibernateIfIdle(store, idleNanos, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Usuwa z rejestru zakończone sesje, których nikt już nie ogląda albo przechowywane dłużej niż
+     * {@code retentionNanos} (zob. {@link GameSession#isEvictable(long, long)}): zwalnia ich tokeny
+     * wznawiania i kasuje migawki z magazynu. Połączenia, które jeszcze wskazują na sesję, działają dalej,
+     * ale nie da się już do niej wrócić ani jej obserwować.
+     *
+     * @param store          magazyn migawek ({@code null} = bez magazynu)
+     * @param retentionNanos czas przechowywania zakończonej gry w nanosekundach
+     * @return liczba usuniętych sesji
+     */
+    public synchronized int evictFinished(SessionStore store, long retentionNanos) {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Iterator<GameSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            GameSession session = it.next();
+            if (!session.isEvictable(retentionNanos, now)) {
+                continue;
+            }
+            it.remove();
+            byToken.remove(session.getToken(PlayerColor.BLACK));
+            byToken.remove(session.getToken(PlayerColor.WHITE));
+            waiting.remove(session);
+            if (store != null) {
+                try {
+                    store.delete(session.getId());
+                } catch (IOException e) {
+                    LOG.warn("Cannot delete snapshot of game {}: {}", session.getId(), e.getMessage());
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Kompaktuje dziennik: zapisuje trwające gry jako migawki i usuwa z pliku rekordy gier zakończonych
+     * ({@link GameJournal#beginCompaction()}). Po błędzie plik dziennika pozostaje bez zmian.
+     *
+     * @return liczba gier zapisanych w dzienniku ({@code 0} bez dziennika)
+     * @throws IOException gdy nie można zapisać nowego pliku albo odczytać migawki uśpionej gry
+     */
+    public int compactJournal() throws IOException {
+        if (journal == null) {
+            return 0;
+        }
+        journal.beginCompaction();
+        int live = 0;
+        try {
+            for (GameSession session : sessions.values()) {
+                if (session.compactInto(journal)) {
+                    live++;
+                }
+            }
+            journal.finishCompaction();
+        } catch (IOException | RuntimeException e) {
+            journal.abortCompaction();
+            throw e;
+        }
+        return live;
+    }
+
+    /**
+     * Obsługuje linię od klienta: komendy serwera wykonuje sam, pozostałe przekazuje do sesji klienta.
+     *
+     * @param from    połączenie klienta
+     * @param message surowa linia protokołu
+     */
+    public void dispatch(ClientHandler from, String message) {
+        // Gorąca ścieżka (MOVE, CHAT...) nie alokuje: słowa kluczowe porównywane są w miejscu.
+        String line = message == null ? "" : message;
+        int start = 0;
+        while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+
+        if (isVerb(line, start, "WATCH")) {
+            watch(from, line.substring(start + "WATCH".length()).trim());
+            return;
+        }
+        if (isVerb(line, start, "RESUME_SESSION")) {
+            resume(from, line.substring(start + "RESUME_SESSION".length()).trim());
+            return;
+        }
+        if (isVerb(line, start, "PLAY")) {
+            if (from.getSession() == null) {
+                seat(from);
+            } else {
+                from.sendLine("ERROR Already in game " + from.getSession().getId());
+            }
+            return;
+        }
+
+        if (from.getSession() == null) {
+            seat(from);
+        }
+        from.getSession().handleClientMessage(from, message);
+    }
+
+    /**
+     * Obsługuje binarną komendę gry; nieposadzony klient jest najpierw sadzany (jak po linii {@code PLAY}).
+     *
+     * @param from    połączenie klienta
+     * @param payload ładunek ramki (opcode + dane)
+     */
+    public void dispatchFrame(ClientHandler from, byte[] payload) {
+        if (from.getSession() == null) {
+            seat(from);
+        }
+        from.getSession().handleClientFrame(from, payload);
+    }
+
+    /**
+     * {@code WATCH <gameId>} — przepina połączenie do wskazanej gry jako obserwatora.
+     * Gracz oczekujący na przeciwnika zwalnia swoje miejsce; gracz w trwającej grze nie może obserwować.
+     */
+    private synchronized void watch(ClientHandler from, String arg) {
+        int id;
+        try {
+            id = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            from.sendLine("ERROR WATCH format: WATCH gameId");
+            return;
+        }
+
+        GameSession target = sessions.get(id);
+        if (target == null) {
+            from.sendLine("ERROR Unknown game: " + id);
+            return;
+        }
+
+        if (from.isSpectator() && from.getSession() == target) {
+            return;
+        }
+        if (!leaveCurrentSession(from)) {
+            return;
+        }
+
+        from.rebind(target, null);
+        target.addWatcher(from);
+    }
+
+    /**
+     * {@code RESUME_SESSION <token> [lastSeq]} — przywraca połączenie na miejsce gracza wskazane tokenem.
+     * Brak {@code lastSeq} oznacza, że klient potrzebuje pełnej migawki stanu.
+     */
+    private synchronized void resume(ClientHandler from, String args) {
+        String[] parts = args.isEmpty() ? new String[0] : args.split("\\s+");
+        if (parts.length < 1 || parts.length > 2) {
+            from.sendLine("ERROR RESUME_SESSION format: RESUME_SESSION token [lastSeq]");
+            return;
+        }
+
+        long lastSeq = -1;
+        if (parts.length == 2) {
+            try {
+                lastSeq = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                from.sendLine("ERROR RESUME_SESSION lastSeq must be a number");
+                return;
+            }
+        }
+
+        GameSession target = byToken.get(parts[0]);
+        PlayerColor color = target == null ? null : target.colorForToken(parts[0]);
+        if (color == null) {
+            from.sendLine("ERROR Unknown session token");
+            return;
+        }
+
+        if (from.getSession() != target || from.getColor() != color) {
+            if (!leaveCurrentSession(from)) {
+                return;
+            }
+        }
+
+        from.rebind(target, color);
+        target.resumePlayer(color, from, lastSeq);
+    }
+
+    /**
+     * Odłącza połączenie od jego bieżącej sesji przed przejściem do innej.
+     * Gracz trwającej gry (z wykonanymi komendami) nie może jej opuścić.
+     *
+     * @param from połączenie klienta
+     * @return {@code true} jeśli połączenie zostało odłączone
+     */
+    private boolean leaveCurrentSession(ClientHandler from) {
+        GameSession current = from.getSession();
+        if (current == null) {
+            return true;
+        }
+        if (from.isSpectator()) {
+            current.connectionClosed(from);
+            return true;
+        }
+        if (!current.releaseSeat(from.getColor())) {
+            from.sendLine("ERROR Already playing in game " + current.getId());
+            return false;
+        }
+        // sesja z wolnym miejscem wraca do puli oczekujących
+        if (!waiting.contains(current)) {
+            waiting.addLast(current);
+        }
+        return true;
+    }
+
+    /** Zakłada nową sesję z pustą planszą i rejestruje ją pod kolejnym identyfikatorem. */
+    private GameSession createSession() {
+        int id = nextId++;
+        GameSession session = new GameSession(id, new Game(BoardFactory.createBoard(boardSize)), journal,
+                timeControl, timers);
+        register(session);
+        return session;
+    }
+
+    private void register(GameSession session) {
+        sessions.put(session.getId(), session);
+        byToken.put(session.getToken(PlayerColor.BLACK), session);
+        byToken.put(session.getToken(PlayerColor.WHITE), session);
+    }
+
+    /**
+     * Sprawdza, czy od pozycji {@code start} linia zawiera podane słowo kluczowe (bez rozróżniania wielkości
+     * liter), zakończone końcem linii albo białym znakiem. Nie tworzy podciągów.
+     */
+    private static boolean isVerb(String line, int start, String verb) {
+        int end = start + verb.length();
+        return line.regionMatches(true, start, verb, 0, verb.length())
+                && (line.length() == end || Character.isWhitespace(line.charAt(end)));
+    }
+}
@@ -0,0 +1,83 @@
+package pl.edu.go.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * {@code SessionStore} to lokalny magazyn migawek uśpionych sesji gry (jeden plik na sesję).
+ *
+ * <p>Sesja bez połączonych klientów, bezczynna dłużej niż ustalony czas, zapisuje tu migawkę
+ * swojej gry ({@link pl.edu.go.game.GameSnapshotCodec}) i zwalnia ją z pamięci. Przy następnym
+ * {@code RESUME_SESSION} albo {@code WATCH} migawka jest wczytywana i usuwana z magazynu.
+ *
+ * <p>Zapis jest atomowy (plik tymczasowy + przeniesienie), więc przerwany zapis nie uszkadza
+ * wcześniejszej migawki.
+ */
+public final class SessionStore {
+
+    /** Katalog z migawkami. */
+    private final Path dir;
+
+    /**
+     * @param dir katalog magazynu (tworzony, jeśli nie istnieje)
+     * @throws IOException gdy nie można utworzyć katalogu
+     */
+    public SessionStore(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir);
+    }
+
+    /**
+     * Zapisuje migawkę sesji.
+     *
+     * @param sessionId identyfikator sesji
+     * @param snapshot  migawka gry
+     * @throws IOException błąd zapisu
+     */
+    public void save(int sessionId, byte[] snapshot) throws IOException {
+        Path tmp = dir.resolve("session-" + sessionId + ".tmp");
+        Files.write(tmp, snapshot);
+        Files.move(tmp, file(sessionId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Wczytuje migawkę sesji i usuwa ją z magazynu.
+     *
+     * @param sessionId identyfikator sesji
+     * @return migawka gry
+     * @throws IOException gdy migawki nie ma lub nie można jej odczytać
+     */
+    public byte[] take(int sessionId) throws IOException {
+        Path file = file(sessionId);
+        byte[] snapshot = Files.readAllBytes(file);
+        Files.deleteIfExists(file);
+        return snapshot;
+    }
+
+    /**
+     * Wczytuje migawkę sesji bez usuwania jej z magazynu (np. do kompaktowania dziennika).
+     *
+     * @param sessionId identyfikator sesji
+     * @return migawka gry
+     * @throws IOException gdy migawki nie ma lub nie można jej odczytać
+     */
+    public byte[] read(int sessionId) throws IOException {
+        return Files.readAllBytes(file(sessionId));
+    }
+
+    /**
+     * Usuwa migawkę sesji, jeśli istnieje.
+     *
+     * @param sessionId identyfikator sesji
+     * @return {@code true} jeśli plik został usunięty
+     * @throws IOException błąd usuwania
+     */
+    public boolean delete(int sessionId) throws IOException {
+        return Files.deleteIfExists(file(sessionId));
+    }
+
+    private Path file(int sessionId) {
+        return dir.resolve("session-" + sessionId + ".bin");
+    }
+}
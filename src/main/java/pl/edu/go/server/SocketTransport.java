@@ -0,0 +1,36 @@
+package pl.edu.go.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * {@code SocketTransport} to {@link Transport} połączenia TCP.
+ */
+public final class SocketTransport implements Transport {
+
+    private final Socket socket;
+
+    /**
+     * @param socket połączone gniazdo klienta
+     */
+    public SocketTransport(Socket socket) {
+        this.socket = socket;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return socket.getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return socket.getOutputStream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,292 @@
+package pl.edu.go.server;
+
+import pl.edu.go.log.AsyncLog;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code TimerWheel} to haszowane koło timerów (hashed timing wheel) współdzielone przez wszystkie sesje
+ * serwera — np. zegary partii ({@link pl.edu.go.game.GameClock}).
+ *
+ * <p><b>Budowa:</b> koło ma {@code 2^k} kubełków, a jeden wątek {@code TimerWheel} przechodzi co
+ * {@code tick} do następnego. Timeout trafia do kubełka {@code (deadline / tick) mod rozmiar} z liczbą
+ * pełnych obrotów do odczekania, więc dodanie, anulowanie i wygaśnięcie kosztują O(1) niezależnie od
+ * liczby zaplanowanych timerów, a tysiące zegarów nie oznaczają tysięcy zadań w kolejce priorytetowej
+ * ani osobnych wątków.
+ *
+ * <p><b>Wątki:</b> {@link #schedule} i {@link Timeout#cancel()} można wołać z dowolnego wątku —
+ * nowe i anulowane timery trafiają do kolejek bez blokad, a kubełki zmienia tylko wątek koła.
+ * Zadania wykonują się na wątku koła, więc muszą być krótkie (np. wziąć blokadę sesji i zakończyć grę).
+ *
+ * <p><b>Dokładność:</b> zadanie wykonuje się najwcześniej w swoim terminie i najpóźniej około jednego
+ * {@code tick} po nim.
+ */
+public final class TimerWheel implements Closeable {
+
+    private static final AsyncLog LOG = AsyncLog.get();
+
+    /** Domyślny krok koła w ms. */
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    /** Domyślna liczba kubełków (obrót co ~5 s przy domyślnym kroku). */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int ST_PENDING = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    /** Punkt odniesienia terminów ({@link System#nanoTime()} przy starcie koła). */
+    private final long startTime;
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Thread worker;
+    private volatile boolean closed;
+
+    /** Numer bieżącego kroku (tylko wątek koła). */
+    private long tick;
+
+    /**
+     * Zaplanowane zadanie koła. Uchwyt pozwala je anulować.
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+
+        /** Termin względem {@link #startTime} w ns. */
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(ST_PENDING);
+
+        /** Pełne obroty koła do odczekania (tylko wątek koła). */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Anuluje zadanie, jeśli jeszcze się nie wykonało.
+         *
+         * @return {@code true}, jeśli zadanie zostało anulowane przez to wywołanie
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_PENDING, ST_CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Informuje, czy zadanie zostało anulowane.
+         *
+         * @return {@code true} po skutecznym {@link #cancel()}
+         */
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        /**
+         * Informuje, czy zadanie zostało wykonane (lub właśnie się wykonuje).
+         *
+         * @return {@code true} po nadejściu terminu
+         */
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_PENDING, ST_EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                LOG.error("Timer task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Kubełek koła: lista dwukierunkowa timeoutów (tylko wątek koła). */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            if (head == null) {
+                head = t;
+                tail = t;
+            } else {
+                tail.next = t;
+                t.prev = tail;
+                tail = t;
+            }
+        }
+
+        void remove(Timeout t) {
+            if (t.prev != null) t.prev.next = t.next;
+            else head = t.next;
+            if (t.next != null) t.next.prev = t.prev;
+            else tail = t.prev;
+            t.prev = null;
+            t.next = null;
+            t.bucket = null;
+        }
+    }
+
+    /**
+     * Tworzy koło z domyślnym krokiem ({@value #DEFAULT_TICK_MILLIS} ms) i rozmiarem
+     * ({@value #DEFAULT_WHEEL_SIZE} kubełków).
+     */
+    public TimerWheel() {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Tworzy koło i uruchamia jego wątek (demon).
+     *
+     * @param tick      krok koła
+     * @param unit      jednostka kroku
+     * @param wheelSize liczba kubełków (zaokrąglana w górę do potęgi dwójki)
+     * @throws IllegalArgumentException gdy krok albo rozmiar nie są dodatnie
+     */
+    public TimerWheel(long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0 || wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Bad timer wheel: tick=" + tick + ", size=" + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tick);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+
+        this.worker = new Thread(this::run, "TimerWheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Planuje zadanie po upływie {@code delay}.
+     *
+     * @param task  zadanie (wykonywane na wątku koła)
+     * @param delay opóźnienie (wartości ujemne jak 0)
+     * @param unit  jednostka opóźnienia
+     * @return uchwyt zadania
+     * @throws IllegalStateException gdy koło zostało zamknięte
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Timer wheel closed");
+        }
+        long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+        Timeout t = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        added.add(t);
+        return t;
+    }
+
+    /**
+     * Zwraca liczbę zaplanowanych, jeszcze niewykonanych i nieanulowanych zadań.
+     *
+     * @return liczba zadań
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Zatrzymuje wątek koła; zaplanowane zadania nie zostaną wykonane.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Pętla wątku koła: jeden kubełek na krok. */
+    private void run() {
+        while (!closed) {
+            long tickEnd = tickNanos * (tick + 1);
+            long sleep = startTime + tickEnd - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            removeCancelled();
+            transferAdded();
+            expire(wheel[(int) (tick & mask)], tickEnd);
+            tick++;
+        }
+    }
+
+    /** Odpina anulowane timeouty z kubełków (anulowanie nie czeka na obrót koła). */
+    private void removeCancelled() {
+        Timeout t;
+        while ((t = cancelled.poll()) != null) {
+            if (t.bucket != null) {
+                t.bucket.remove(t);
+            }
+        }
+    }
+
+    /** Rozkłada nowe timeouty do kubełków według terminu. */
+    private void transferAdded() {
+        Timeout t;
+        while ((t = added.poll()) != null) {
+            if (t.state.get() != ST_PENDING) {
+                continue;
+            }
+            long ticks = t.deadline / tickNanos;
+            t.remainingRounds = Math.max(0, (ticks - tick) / wheel.length);
+            // termin już minął: najbliższy kubełek
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(t);
+        }
+    }
+
+    /** Wykonuje timeouty kubełka, których obrót nadszedł; pozostałym zmniejsza licznik obrotów. */
+    private void expire(Bucket bucket, long tickEnd) {
+        Timeout t = bucket.head;
+        while (t != null) {
+            Timeout next = t.next;
+            if (t.state.get() != ST_PENDING) {
+                bucket.remove(t);
+            } else if (t.remainingRounds <= 0 && t.deadline < tickEnd) {
+                bucket.remove(t);
+                t.expire();
+            } else {
+                t.remainingRounds--;
+            }
+            t = next;
+        }
+    }
+}
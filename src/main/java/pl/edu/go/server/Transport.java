@@ -0,0 +1,35 @@
+package pl.edu.go.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@code Transport} to dwukierunkowy strumień bajtów jednego połączenia klienta.
+ *
+ * <p>{@link ClientHandler} czyta i zapisuje protokół (tekstowy lub binarny) wyłącznie przez ten interfejs,
+ * więc sesja gry nie zależy od sieci: {@link SocketTransport} obsługuje połączenia TCP,
+ * a {@link LoopbackTransport} łączy serwer z klientem w tym samym procesie (testy, benchmarki, boty).
+ *
+ * <p>{@link #close()} musi przerwać blokujący odczyt z {@link #getInputStream()} (koniec strumienia
+ * lub wyjątek), bo tak kończy się pętla odczytu handlera.
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Zwraca strumień danych od klienta.
+     *
+     * @return strumień wejściowy (ten sam przy każdym wywołaniu)
+     * @throws IOException gdy połączenie jest zamknięte
+     */
+    InputStream getInputStream() throws IOException;
+
+    /**
+     * Zwraca strumień danych do klienta.
+     *
+     * @return strumień wyjściowy (ten sam przy każdym wywołaniu)
+     * @throws IOException gdy połączenie jest zamknięte
+     */
+    OutputStream getOutputStream() throws IOException;
+}
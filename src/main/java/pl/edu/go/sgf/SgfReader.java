@@ -0,0 +1,531 @@
+package pl.edu.go.sgf;
+
+import pl.edu.go.board.Board;
+import pl.edu.go.board.BoardFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.MoveHistory;
+import pl.edu.go.game.PlayerColor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * {@code SgfReader} to strumieniowy parser plików SGF (FF[4], gra Go).
+ *
+ * <p>Parser czyta znaki wprost z {@link Reader} przez własny bufor i przekazuje zdarzenia
+ * linii głównej partii do {@link Handler} od razu po ich odczytaniu — nie buduje drzewa
+ * węzłów ani obiektów właściwości. Identyfikatory właściwości są rozpoznawane jako liczby
+ * (bez tworzenia napisów), a wartości nieobsługiwanych właściwości (np. komentarze) są pomijane
+ * bez kopiowania.
+ *
+ * <p><b>Obsługiwane właściwości:</b> {@code SZ} (plansza kwadratowa), {@code B}/{@code W} (ruchy,
+ * {@code []} lub {@code [tt]} = PASS), {@code AB}/{@code AW} (kamienie ustawione, także prostokąty
+ * {@code [aa:cc]}), {@code PL} (gracz rozpoczynający). Pozostałe są ignorowane.
+ *
+ * <p><b>Linia główna:</b> parser idzie zawsze w pierwszą wariację; pierwszy znak {@code ')'}
+ * kończy linię główną i odczyt (kolejne wariacje i gry z kolekcji są pomijane).
+ *
+ * <p>Błędy formatu zgłaszane są jako {@link IllegalArgumentException} z prefiksem {@code "SGF"}.
+ */
+public final class SgfReader {
+
+    /**
+     * Odbiorca zdarzeń linii głównej partii.
+     */
+    public interface Handler {
+
+        /**
+         * Rozmiar planszy ({@code SZ}); wywoływany przed ruchami, o ile plik go podaje (domyślnie 19).
+         *
+         * @param size rozmiar planszy
+         */
+        void boardSize(int size);
+
+        /**
+         * Gracz rozpoczynający ({@code PL}).
+         *
+         * @param player gracz
+         */
+        void startingPlayer(PlayerColor player);
+
+        /**
+         * Kamień ustawiony ({@code AB}/{@code AW}), np. handicap.
+         *
+         * @param color kolor kamienia
+         * @param x     kolumna
+         * @param y     wiersz
+         */
+        void setup(PlayerColor color, int x, int y);
+
+        /**
+         * Ruch ({@code B}/{@code W}).
+         *
+         * @param color gracz
+         * @param x     kolumna
+         * @param y     wiersz
+         */
+        void move(PlayerColor color, int x, int y);
+
+        /**
+         * PASS ({@code B[]}/{@code W[]} lub {@code [tt]}).
+         *
+         * @param color gracz
+         */
+        void pass(PlayerColor color);
+    }
+
+    /** Domyślny rozmiar planszy SGF. */
+    public static final int DEFAULT_SIZE = 19;
+
+    /** Największy rozmiar planszy zapisywalny literami {@code a-zA-Z}. */
+    public static final int MAX_SIZE = 52;
+
+    // identyfikatory właściwości jako liczby (bez napisów)
+    private static final int PROP_B = ident("B");
+    private static final int PROP_W = ident("W");
+    private static final int PROP_AB = ident("AB");
+    private static final int PROP_AW = ident("AW");
+    private static final int PROP_SZ = ident("SZ");
+    private static final int PROP_PL = ident("PL");
+
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    /** Wartość bieżącej właściwości (tylko dla obsługiwanych właściwości). */
+    private char[] value = new char[16];
+    private int valueLength = 0;
+
+    private int size = DEFAULT_SIZE;
+
+    /**
+     * @param in źródło znaków (nie jest zamykane przez parser)
+     */
+    public SgfReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Czyta linię główną pierwszej partii i przekazuje jej zdarzenia do {@code handler}.
+     *
+     * @param handler odbiorca zdarzeń
+     * @throws IOException              błąd odczytu
+     * @throws IllegalArgumentException błąd formatu SGF
+     */
+    public void read(Handler handler) throws IOException {
+        int c = skipSpaces();
+        // znacznik BOM i śmieci przed drzewem gry
+        while (c != '(' && c != EOF) {
+            c = next();
+        }
+        if (c == EOF) {
+            throw new IllegalArgumentException("SGF: no game tree");
+        }
+
+        while (true) {
+            c = skipSpaces();
+            if (c == ';' || c == '(') {
+                continue;
+            }
+            if (c == ')') {
+                return;
+            }
+            if (c == EOF) {
+                throw new IllegalArgumentException("SGF: unexpected end of file");
+            }
+            if (!isLetter(c)) {
+                throw new IllegalArgumentException("SGF: unexpected character '" + (char) c + "'");
+            }
+            readProperty(c, handler);
+        }
+    }
+
+    /**
+     * Czyta planszę z SGF, wykonując ruchy wprost na {@link Board} (bez kontroli kolejności graczy).
+     *
+     * @param in źródło znaków
+     * @return plansza w pozycji końcowej linii głównej
+     * @throws IOException              błąd odczytu
+     * @throws IllegalArgumentException błąd formatu lub nielegalny ruch
+     */
+    public static Board readBoard(Reader in) throws IOException {
+        BoardLoader loader = new BoardLoader();
+        new SgfReader(in).read(loader);
+        return loader.board();
+    }
+
+    /**
+     * Czyta partię z SGF do nowej {@link Game} (ruchy przechodzą przez reguły gry i trafiają do historii,
+     * kamienie {@code AB}/{@code AW} — do jej sekcji ustawienia).
+     *
+     * @param in źródło znaków
+     * @return gra w pozycji końcowej linii głównej
+     * @throws IOException              błąd odczytu
+     * @throws IllegalArgumentException błąd formatu lub nielegalny ruch
+     */
+    public static Game readGame(Reader in) throws IOException {
+        GameLoader loader = new GameLoader();
+        new SgfReader(in).read(loader);
+        return loader.game();
+    }
+
+    // =========================================================================
+    // Właściwości
+    // =========================================================================
+
+    private void readProperty(int first, Handler handler) throws IOException {
+        // identyfikator: wielkie litery (małe litery z FF[3] są pomijane)
+        int id = 0;
+        int c = first;
+        while (isLetter(c)) {
+            if (c >= 'A' && c <= 'Z') {
+                id = id * 27 + (c - 'A' + 1);
+            }
+            c = next();
+        }
+        while (isSpace(c)) {
+            c = next();
+        }
+        if (c != '[') {
+            throw new IllegalArgumentException("SGF: property without value");
+        }
+
+        boolean known = id == PROP_B || id == PROP_W || id == PROP_AB || id == PROP_AW
+                || id == PROP_SZ || id == PROP_PL;
+
+        // jedna lub więcej wartości [..]
+        while (c == '[') {
+            if (known) {
+                readValue();
+                applyValue(id, handler);
+            } else {
+                skipValue();
+            }
+            c = peekNonSpace();
+            if (c == '[') {
+                next();
+            }
+        }
+    }
+
+    private void applyValue(int id, Handler handler) {
+        if (id == PROP_B || id == PROP_W) {
+            PlayerColor color = id == PROP_B ? PlayerColor.BLACK : PlayerColor.WHITE;
+            if (valueLength == 0 || (size <= 19 && valueLength == 2 && value[0] == 't' && value[1] == 't')) {
+                handler.pass(color);
+                return;
+            }
+            requirePoint(0);
+            handler.move(color, coordinate(value[0]), coordinate(value[1]));
+        } else if (id == PROP_AB || id == PROP_AW) {
+            PlayerColor color = id == PROP_AB ? PlayerColor.BLACK : PlayerColor.WHITE;
+            requirePoint(0);
+            int x1 = coordinate(value[0]);
+            int y1 = coordinate(value[1]);
+            int x2 = x1;
+            int y2 = y1;
+            if (valueLength == 5 && value[2] == ':') {
+                requirePoint(3);
+                x2 = coordinate(value[3]);
+                y2 = coordinate(value[4]);
+            } else if (valueLength != 2) {
+                throw new IllegalArgumentException("SGF: invalid point " + new String(value, 0, valueLength));
+            }
+            for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+                    handler.setup(color, x, y);
+                }
+            }
+        } else if (id == PROP_SZ) {
+            size = parseSize();
+            handler.boardSize(size);
+        } else if (id == PROP_PL) {
+            if (valueLength == 1 && (value[0] == 'B' || value[0] == 'b')) {
+                handler.startingPlayer(PlayerColor.BLACK);
+            } else if (valueLength == 1 && (value[0] == 'W' || value[0] == 'w')) {
+                handler.startingPlayer(PlayerColor.WHITE);
+            } else {
+                throw new IllegalArgumentException("SGF: invalid PL value");
+            }
+        }
+    }
+
+    private void requirePoint(int offset) {
+        if (valueLength < offset + 2) {
+            throw new IllegalArgumentException("SGF: invalid point " + new String(value, 0, valueLength));
+        }
+    }
+
+    /** Litera współrzędnej SGF: {@code a-z} = 0..25, {@code A-Z} = 26..51. */
+    private int coordinate(char c) {
+        int v;
+        if (c >= 'a' && c <= 'z') {
+            v = c - 'a';
+        } else if (c >= 'A' && c <= 'Z') {
+            v = c - 'A' + 26;
+        } else {
+            throw new IllegalArgumentException("SGF: invalid coordinate '" + c + "'");
+        }
+        if (v >= size) {
+            throw new IllegalArgumentException("SGF: coordinate '" + c + "' outside board " + size);
+        }
+        return v;
+    }
+
+    /** {@code SZ[n]} albo {@code SZ[n:n]} (plansze prostokątne nie są obsługiwane). */
+    private int parseSize() {
+        int n = 0;
+        int i = 0;
+        while (i < valueLength && Character.isWhitespace(value[i])) i++;
+        int start = i;
+        while (i < valueLength && value[i] >= '0' && value[i] <= '9' && n <= MAX_SIZE) {
+            n = n * 10 + (value[i++] - '0');
+        }
+        if (i == start) {
+            throw new IllegalArgumentException("SGF: invalid SZ");
+        }
+        if (i < valueLength && value[i] == ':') {
+            int m = 0;
+            int j = i + 1;
+            while (j < valueLength && value[j] >= '0' && value[j] <= '9' && m <= MAX_SIZE) {
+                m = m * 10 + (value[j++] - '0');
+            }
+            if (m != n) {
+                throw new IllegalArgumentException("SGF: rectangular boards are not supported");
+            }
+            i = j;
+        }
+        while (i < valueLength && Character.isWhitespace(value[i])) i++;
+        if (i != valueLength || n < 1 || n > MAX_SIZE) {
+            throw new IllegalArgumentException("SGF: invalid SZ");
+        }
+        return n;
+    }
+
+    // =========================================================================
+    // Wartości i znaki
+    // =========================================================================
+
+    /** Czyta wartość do {@link #value} (po znaku {@code '['}), z obsługą {@code '\'}. */
+    private void readValue() throws IOException {
+        valueLength = 0;
+        while (true) {
+            int c = next();
+            if (c == EOF) {
+                throw new IllegalArgumentException("SGF: unterminated value");
+            }
+            if (c == ']') {
+                return;
+            }
+            if (c == '\\') {
+                c = next();
+                if (c == EOF) {
+                    throw new IllegalArgumentException("SGF: unterminated value");
+                }
+            }
+            if (valueLength == value.length) {
+                value = Arrays.copyOf(value, value.length * 2);
+            }
+            value[valueLength++] = (char) c;
+        }
+    }
+
+    /** Pomija wartość (po znaku {@code '['}) bez kopiowania. */
+    private void skipValue() throws IOException {
+        while (true) {
+            int c = next();
+            if (c == EOF) {
+                throw new IllegalArgumentException("SGF: unterminated value");
+            }
+            if (c == ']') {
+                return;
+            }
+            if (c == '\\' && next() == EOF) {
+                throw new IllegalArgumentException("SGF: unterminated value");
+            }
+        }
+    }
+
+    private int next() throws IOException {
+        if (pos == limit && !fill()) {
+            return EOF;
+        }
+        return buf[pos++];
+    }
+
+    private int skipSpaces() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (isSpace(c));
+        return c;
+    }
+
+    /** Zwraca następny niebiały znak bez jego konsumowania. */
+    private int peekNonSpace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return EOF;
+            }
+            char c = buf[pos];
+            if (!isSpace(c)) {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == '\uFEFF';
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static int ident(String name) {
+        int id = 0;
+        for (int i = 0; i < name.length(); i++) {
+            id = id * 27 + (name.charAt(i) - 'A' + 1);
+        }
+        return id;
+    }
+
+    // =========================================================================
+    // Odbiorcy: Board / Game
+    // =========================================================================
+
+    /** Wykonuje ruchy wprost na planszy (bez kontroli kolejności graczy). */
+    private static final class BoardLoader implements Handler {
+        private Board board;
+        private int moves = 0;
+
+        Board board() {
+            if (board == null) {
+                board = BoardFactory.createBoard(DEFAULT_SIZE);
+            }
+            return board;
+        }
+
+        @Override
+        public void boardSize(int size) {
+            if (board != null) {
+                throw new IllegalArgumentException("SGF: SZ after stones");
+            }
+            board = BoardFactory.createBoard(size);
+        }
+
+        @Override
+        public void startingPlayer(PlayerColor player) {
+        }
+
+        @Override
+        public void setup(PlayerColor color, int x, int y) {
+            if (!board().playMove(color.toBoardColor(), x, y)) {
+                throw new IllegalArgumentException("SGF: invalid setup stone at " + x + "," + y);
+            }
+        }
+
+        @Override
+        public void move(PlayerColor color, int x, int y) {
+            moves++;
+            if (!board().playMove(color.toBoardColor(), x, y)) {
+                throw new IllegalArgumentException("SGF move " + moves + ": Illegal move at " + x + "," + y);
+            }
+        }
+
+        @Override
+        public void pass(PlayerColor color) {
+            moves++;
+        }
+    }
+
+    /** Wykonuje ruchy przez {@link Game} (reguły faz i tur, zapis w historii). */
+    private static final class GameLoader implements Handler {
+        private Game game;
+        private int moves = 0;
+
+        Game game() {
+            if (game == null) {
+                game = new Game(BoardFactory.createBoard(DEFAULT_SIZE));
+            }
+            return game;
+        }
+
+        @Override
+        public void boardSize(int size) {
+            if (game != null) {
+                throw new IllegalArgumentException("SGF: SZ after stones");
+            }
+            game = new Game(BoardFactory.createBoard(size));
+        }
+
+        @Override
+        public void startingPlayer(PlayerColor player) {
+            if (!started()) {
+                game.setStartingPlayer(player);
+            }
+        }
+
+        @Override
+        public void setup(PlayerColor color, int x, int y) {
+            if (started()) {
+                throw new IllegalArgumentException("SGF: setup stones after moves are not supported");
+            }
+            try {
+                game.placeSetupStone(color, x, y);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("SGF: invalid setup stone at " + x + "," + y);
+            }
+        }
+
+        @Override
+        public void move(PlayerColor color, int x, int y) {
+            moves++;
+            startWith(color);
+            try {
+                game.playMove(color, x, y);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("SGF move " + moves + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void pass(PlayerColor color) {
+            moves++;
+            startWith(color);
+            try {
+                game.pass(color);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("SGF move " + moves + ": " + e.getMessage());
+            }
+        }
+
+        /** Pierwszy ruch wyznacza gracza rozpoczynającego (np. WHITE po handicapie). */
+        private void startWith(PlayerColor color) {
+            if (!started() && game.getCurrentPlayer() != color) {
+                game.setStartingPlayer(color);
+            }
+        }
+
+        /** Czy w grze zapisano już ruch (poza kamieniami ustawionymi). */
+        private boolean started() {
+            MoveHistory history = game().getHistory();
+            return history.size() > history.setupSize();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package pl.edu.go.sgf;
+
+import pl.edu.go.analysis.ScoreCalculator;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GameResult;
+import pl.edu.go.game.MoveHistory;
+import pl.edu.go.game.PlayerColor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * {@code SgfWriter} zapisuje partię w formacie SGF (FF[4]) wprost z historii gry ({@link MoveHistory}).
+ *
+ * <p>Każdy ruch jest zapisywany do {@link Writer} jako osobny węzeł ({@code ;B[dd]}) ze wspólnego
+ * bufora znaków — bez składania całego pliku w pamięci. Wpisy AGREE/RESUME nie mają odpowiednika
+ * w SGF i są pomijane; wynik zakończonej gry trafia do właściwości {@code RE}.
+ *
+ * <p>Kamienie z sekcji ustawienia historii (np. handicap albo {@code AB}/{@code AW} z importu)
+ * trafiają do węzła głównego jako {@code AB}/{@code AW}.
+ */
+public final class SgfWriter {
+
+    private SgfWriter() {
+    }
+
+    /**
+     * Zapisuje partię jako SGF.
+     *
+     * @param game gra
+     * @param out  strumień docelowy (nie jest zamykany; warto użyć {@link java.io.BufferedWriter})
+     * @throws IOException              błąd zapisu
+     * @throws IllegalArgumentException gdy planszy nie da się zapisać współrzędnymi SGF
+     */
+    public static void write(Game game, Writer out) throws IOException {
+        int size = game.getBoard().getSize();
+        if (size > SgfReader.MAX_SIZE) {
+            throw new IllegalArgumentException("SGF: board too large: " + size);
+        }
+
+        out.write("(;FF[4]GM[1]CA[UTF-8]SZ[");
+        out.write(Integer.toString(size));
+        out.write(']');
+
+        MoveHistory history = game.getHistory();
+        int setup = history.setupSize();
+        // gracz pierwszego ruchu; przed pierwszym ruchem (np. sam handicap) — gracz na ruchu
+        PlayerColor first = history.size() > setup
+                ? MoveHistory.player(history.get(setup))
+                : game.getCurrentPlayer();
+        if (first == PlayerColor.WHITE) {
+            out.write("PL[W]");
+        }
+
+        GameResult result = game.getResult();
+        if (result != null) {
+            out.write("RE[");
+            out.write(resultValue(game, result));
+            out.write(']');
+        }
+
+        writeSetup(history, PlayerColor.BLACK, size, out);
+        writeSetup(history, PlayerColor.WHITE, size, out);
+
+        char[] node = {'\n', ';', 'B', '[', 'a', 'a', ']'};
+        for (int i = setup; i < history.size(); i++) {
+            short entry = history.get(i);
+            int code = MoveHistory.code(entry);
+            boolean stone = MoveHistory.isStone(entry);
+            if (!stone && code != MoveHistory.PASS) {
+                continue;
+            }
+
+            node[2] = MoveHistory.player(entry) == PlayerColor.BLACK ? 'B' : 'W';
+            if (stone) {
+                node[4] = letter(code % size);
+                node[5] = letter(code / size);
+                out.write(node, 0, 7);
+            } else {
+                // PASS: pusta wartość
+                node[4] = ']';
+                out.write(node, 0, 5);
+            }
+        }
+        out.write(")\n");
+    }
+
+    /** Zapisuje kamienie ustawione jednego koloru jako {@code AB[..][..]} / {@code AW[..][..]}. */
+    private static void writeSetup(MoveHistory history, PlayerColor color, int size, Writer out) throws IOException {
+        boolean first = true;
+        for (int i = 0; i < history.setupSize(); i++) {
+            short entry = history.get(i);
+            if (MoveHistory.player(entry) != color) {
+                continue;
+            }
+            if (first) {
+                out.write(color == PlayerColor.BLACK ? "AB" : "AW");
+                first = false;
+            }
+            int code = MoveHistory.code(entry);
+            out.write('[');
+            out.write(letter(code % size));
+            out.write(letter(code / size));
+            out.write(']');
+        }
+    }
+
+    /**
+     * Zapisuje partię jako tekst SGF.
+     *
+     * @param game gra
+     * @return zawartość pliku SGF
+     */
+    public static String toSgf(Game game) {
+        StringWriter out = new StringWriter(64 + 8 * game.getHistory().size());
+        try {
+            write(game, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /** Wartość {@code RE}: {@code B+R}, {@code W+5}, {@code 0} (remis) itd. */
+    private static String resultValue(Game game, GameResult result) {
+        if (result.getWinner() == null) {
+            return "0";
+        }
+        String winner = result.getWinner() == PlayerColor.BLACK ? "B+" : "W+";
+        return switch (result.getReason()) {
+            case "resign" -> winner + "R";
+            case "time" -> winner + "T";
+            case "territory" -> {
+                int[] score = ScoreCalculator.computeScore(game.getBoard());
+                yield winner + Math.abs(score[0] - score[1]);
+            }
+            default -> winner;
+        };
+    }
+
+    /** Współrzędna SGF: 0..25 = {@code a-z}, 26..51 = {@code A-Z}. */
+    private static char letter(int v) {
+        return (char) (v < 26 ? 'a' + v : 'A' + v - 26);
+    }
+}
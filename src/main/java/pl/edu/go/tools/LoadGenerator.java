@@ -0,0 +1,521 @@
+package pl.edu.go.tools;
+
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.metrics.LatencyHistogram;
+import pl.edu.go.sgf.SgfReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code LoadGenerator} to bezgłowy generator obciążenia serwera: otwiera {@code N} par połączeń TCP
+ * i rozgrywa nimi partie protokołem tekstowym, mierząc czas odpowiedzi każdej komendy.
+ *
+ * <p>Każdy bot to jeden wątek z blokującym odczytem. Serwer łączy kolejne połączenia w pary
+ * (BLACK, potem WHITE), więc boty nie wybierają przeciwników. Bot reaguje na koniec zdarzenia
+ * ({@code SEQ <n>}): na swojej turze — po czasie namysłu — wysyła {@code MOVE} albo {@code PASS},
+ * a w {@code SCORING_REVIEW} wysyła {@code AGREE}. Po końcu gry łączy się ponownie, dopóki
+ * nie rozegra zadanej liczby partii.
+ *
+ * <p><b>Ruchy:</b> losowe puste pole (bez zapychania własnych oczu) wg ziarna bota albo — z opcją
+ * {@code --sgf} — kolejne ruchy swojego koloru z pliku SGF. Ruch odrzucony przez serwer
+ * ({@code ERROR}) jest liczony i zastępowany innym polem; po wyczerpaniu pól albo limitu ruchów bot pasuje.
+ *
+ * <p><b>Pomiar:</b> czas od wysłania komendy do odpowiedzi — linii {@code SEQ} (komenda przyjęta)
+ * lub {@code ERROR} (odrzucona) — trafia do {@link LatencyHistogram} osobno dla każdego typu komendy.
+ * Raport zawiera przepustowość, liczbę odrzuceń i błędów połączeń oraz percentyle opóźnień.
+ *
+ * <p>Uruchomienie (serwer musi działać):
+ * <pre>
+ * java -cp go-logic.jar pl.edu.go.tools.LoadGenerator [host:port] [--pairs=N] [--games=M]
+ *      [--think-ms=T] [--max-moves=K] [--seed=S] [--sgf=plik] [--timeout-s=S]
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    /** Typy mierzonych komend. */
+    enum Command { MOVE, PASS, AGREE }
+
+    private final String host;
+    private final int port;
+    private final int pairs;
+    private final int gamesPerPair;
+    private final long thinkMillis;
+    private final long seed;
+
+    private int maxMoves = Integer.MAX_VALUE;
+    private int timeoutMillis = 30_000;
+    private List<int[]> script;
+
+    private final Map<Command, LatencyHistogram> latency = new EnumMap<>(Command.class);
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+
+    private long elapsedNanos;
+
+    /**
+     * @param host         adres serwera
+     * @param port         port serwera
+     * @param pairs        liczba równoczesnych par botów (gier)
+     * @param gamesPerPair liczba partii rozgrywanych przez każdego bota
+     * @param thinkMillis  średni czas namysłu przed ruchem (losowany z {@code 0..2*think}); {@code 0} = bez pauz
+     * @param seed         ziarno losowania ruchów (bot {@code i} używa {@code seed + i})
+     */
+    public LoadGenerator(String host, int port, int pairs, int gamesPerPair, long thinkMillis, long seed) {
+        this.host = host;
+        this.port = port;
+        this.pairs = pairs;
+        this.gamesPerPair = gamesPerPair;
+        this.thinkMillis = thinkMillis;
+        this.seed = seed;
+        for (Command c : Command.values()) {
+            latency.put(c, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Punkt wejścia narzędzia.
+     *
+     * @param args {@code [host:port]} i opcje {@code --pairs}, {@code --games}, {@code --think-ms},
+     *             {@code --max-moves}, {@code --seed}, {@code --sgf}, {@code --timeout-s}
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 5001;
+        int pairs = 100;
+        int games = 1;
+        long think = 0;
+        long seed = 1;
+        int maxMoves = Integer.MAX_VALUE;
+        int timeout = 30;
+        Path sgf = null;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                int colon = arg.lastIndexOf(':');
+                host = colon < 0 ? arg : arg.substring(0, colon);
+                if (colon >= 0) port = Integer.parseInt(arg.substring(colon + 1));
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                System.out.println("Usage: LoadGenerator [host:port] [--pairs=N] [--games=M] [--think-ms=T]"
+                        + " [--max-moves=K] [--seed=S] [--sgf=file] [--timeout-s=S]");
+                return;
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "pairs" -> pairs = Integer.parseInt(value);
+                case "games" -> games = Integer.parseInt(value);
+                case "think-ms" -> think = Long.parseLong(value);
+                case "max-moves" -> maxMoves = Integer.parseInt(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "sgf" -> sgf = Path.of(value);
+                case "timeout-s" -> timeout = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        LoadGenerator generator = new LoadGenerator(host, port, pairs, games, think, seed);
+        generator.setMaxMoves(maxMoves);
+        generator.setTimeoutMillis(timeout * 1000);
+        if (sgf != null) {
+            generator.setScript(sgf);
+        }
+        System.out.println("Load: " + pairs + " pair(s) x " + games + " game(s) against " + host + ":" + port);
+        generator.run();
+        System.out.print(generator.report());
+    }
+
+    /**
+     * Ogranicza liczbę ruchów (kamieni) jednego bota w partii; po limicie bot pasuje.
+     *
+     * @param maxMoves limit ruchów
+     */
+    public void setMaxMoves(int maxMoves) {
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Ustawia maksymalny czas oczekiwania na dane z serwera (po nim bot kończy się błędem).
+     *
+     * @param timeoutMillis limit w ms
+     */
+    public void setTimeoutMillis(int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Wczytuje partię SGF, której ruchy boty będą odtwarzać (każdy bot — ruchy swojego koloru).
+     *
+     * @param sgf plik SGF (główna linia)
+     * @throws IOException błąd odczytu
+     */
+    public void setScript(Path sgf) throws IOException {
+        List<int[]> moves = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(sgf, StandardCharsets.UTF_8)) {
+            new SgfReader(in).read(new SgfReader.Handler() {
+                @Override
+                public void boardSize(int size) {
+                }
+
+                @Override
+                public void startingPlayer(PlayerColor player) {
+                }
+
+                @Override
+                public void setup(PlayerColor color, int x, int y) {
+                }
+
+                @Override
+                public void move(PlayerColor color, int x, int y) {
+                    moves.add(new int[]{color.ordinal(), x, y});
+                }
+
+                @Override
+                public void pass(PlayerColor color) {
+                    moves.add(new int[]{color.ordinal(), -1, -1});
+                }
+            });
+        }
+        this.script = moves;
+    }
+
+    /**
+     * Uruchamia wszystkie boty i czeka na ich zakończenie.
+     *
+     * @throws InterruptedException przerwanie oczekiwania
+     */
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>(2 * pairs);
+        for (int i = 0; i < 2 * pairs; i++) {
+            Bot bot = new Bot(seed + i);
+            // mały stos: tysiące wątków botów
+            Thread t = new Thread(null, bot, "LoadBot-" + i, 256 * 1024);
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Zwraca liczbę partii zakończonych (liczoną raz na grę).
+     *
+     * @return liczba zakończonych partii
+     */
+    public long getGamesFinished() {
+        return gamesFinished.sum() / 2;
+    }
+
+    /**
+     * Zwraca liczbę komend przyjętych przez serwer.
+     *
+     * @return liczba komend
+     */
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    /**
+     * Zwraca liczbę komend odrzuconych przez serwer ({@code ERROR}).
+     *
+     * @return liczba odrzuceń
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Zwraca liczbę botów zakończonych błędem połączenia lub przekroczeniem czasu.
+     *
+     * @return liczba błędów
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Zwraca raport z przebiegu: przepustowość, odrzucenia, błędy i percentyle opóźnień (w ms).
+     *
+     * @return raport tekstowy (wiele linii)
+     */
+    public String report() {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT,
+                "games=%d commands=%d (%.1f/s) rejected=%d errors=%d elapsed=%.2fs%n",
+                getGamesFinished(), getCommands(), seconds > 0 ? getCommands() / seconds : 0.0,
+                getRejected(), getErrors(), seconds));
+        for (Map.Entry<Command, LatencyHistogram> e : latency.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (h.count() == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT,
+                    "%-5s n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f ms%n",
+                    e.getKey(), h.count(), h.mean() / 1e6, ms(h.percentile(50)), ms(h.percentile(90)),
+                    ms(h.percentile(99)), ms(h.percentile(99.9)), ms(h.max())));
+        }
+        return sb.toString();
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Jeden klient-bot: rozgrywa kolejne partie na osobnych połączeniach.
+     * Stan planszy odtwarza z migawek {@code BOARD}, a decyzje podejmuje na końcu zdarzenia ({@code SEQ}).
+     */
+    private final class Bot implements Runnable {
+        private final Random rnd;
+
+        private PlayerColor color;
+        private boolean playing;
+        private boolean review;
+        private boolean finished;
+        private PlayerColor turn;
+        private int size;
+        private int[][] board;
+        private final List<String> rows = new ArrayList<>();
+
+        private int movesPlayed;
+        private int scriptIndex;
+        private boolean agreed;
+        private final BitSet tried = new BitSet();
+
+        /** Komenda oczekująca na odpowiedź ({@code null} = brak) i chwila jej wysłania. */
+        private Command pending;
+        private int pendingPoint;
+        private long sentAt;
+
+        Bot(long seed) {
+            this.rnd = new Random(seed);
+        }
+
+        @Override
+        public void run() {
+            for (int g = 0; g < gamesPerPair; g++) {
+                try {
+                    playGame();
+                } catch (IOException | RuntimeException e) {
+                    errors.increment();
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void playGame() throws IOException, InterruptedException {
+            color = null;
+            turn = null;
+            playing = review = finished = agreed = false;
+            board = null;
+            movesPlayed = 0;
+            scriptIndex = 0;
+            pending = null;
+
+            try (Socket socket = new Socket(host, port)) {
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                out.write("PLAY\n");
+                out.flush();
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!handle(line, out)) {
+                        gamesFinished.increment();
+                        return;
+                    }
+                }
+                throw new IOException("Server closed connection");
+            }
+        }
+
+        /**
+         * Obsługuje linię serwera.
+         *
+         * @return {@code false}, gdy gra się zakończyła
+         */
+        private boolean handle(String line, Writer out) throws IOException, InterruptedException {
+            if (line.startsWith("ROW ")) {
+                rows.add(line.substring(4));
+            } else if (line.startsWith("BOARD ")) {
+                size = Integer.parseInt(line.substring(6).trim());
+                rows.clear();
+            } else if (line.equals("END_BOARD")) {
+                readBoard();
+            } else if (line.startsWith("TURN ")) {
+                PlayerColor next = PlayerColor.valueOf(line.substring(5).trim());
+                if (next != turn) {
+                    tried.clear();
+                }
+                turn = next;
+            } else if (line.startsWith("PHASE ")) {
+                String phase = line.substring(6).trim();
+                playing = phase.equals("PLAYING");
+                review = phase.equals("SCORING_REVIEW");
+                finished = phase.equals("FINISHED");
+                if (!review) {
+                    agreed = false;
+                }
+            } else if (line.startsWith("WELCOME ")) {
+                color = PlayerColor.valueOf(line.substring(8).trim());
+            } else if (line.startsWith("END ")) {
+                finished = true;
+            } else if (line.startsWith("ERROR ")) {
+                Command failed = complete();
+                if (failed == null) {
+                    return true;
+                }
+                rejected.increment();
+                if (failed == Command.MOVE) {
+                    // inne pole w tej samej turze
+                    tried.set(pendingPoint);
+                    act(out);
+                }
+            } else if (line.equals("PING") || line.startsWith("PING ")) {
+                // heartbeat serwera (zob. ConnectionReaper)
+                out.write("PONG" + line.substring(4) + "\n");
+                out.flush();
+            } else if (line.startsWith("SEQ ")) {
+                if (complete() != null) {
+                    commands.increment();
+                }
+                if (finished) {
+                    return false;
+                }
+                act(out);
+            }
+            return true;
+        }
+
+        /** Rejestruje czas odpowiedzi oczekującej komendy. */
+        private Command complete() {
+            Command c = pending;
+            if (c != null) {
+                latency.get(c).record(System.nanoTime() - sentAt);
+                pending = null;
+            }
+            return c;
+        }
+
+        private void readBoard() {
+            if (rows.size() != size) {
+                return;
+            }
+            board = new int[size][size];
+            for (int y = 0; y < size; y++) {
+                String row = rows.get(y);
+                for (int x = 0; x < size; x++) {
+                    char ch = row.charAt(x);
+                    board[x][y] = ch == 'X' ? 1 : ch == 'O' ? 2 : 0;
+                }
+            }
+            rows.clear();
+        }
+
+        /** Decyzja na końcu zdarzenia: ruch na swojej turze albo AGREE w review. */
+        private void act(Writer out) throws IOException, InterruptedException {
+            if (pending != null || color == null || board == null) {
+                return;
+            }
+            if (review && !agreed) {
+                agreed = true;
+                send(out, Command.AGREE, "AGREE", -1);
+                return;
+            }
+            if (!playing || turn != color) {
+                return;
+            }
+
+            if (thinkMillis > 0) {
+                Thread.sleep(rnd.nextInt((int) (2 * thinkMillis + 1)));
+            }
+            int point = movesPlayed < maxMoves ? choosePoint() : -1;
+            if (point < 0) {
+                send(out, Command.PASS, "PASS", -1);
+            } else {
+                movesPlayed++;
+                send(out, Command.MOVE, "MOVE " + (point % size) + " " + (point / size), point);
+            }
+        }
+
+        private void send(Writer out, Command command, String line, int point) throws IOException {
+            pending = command;
+            pendingPoint = point;
+            sentAt = System.nanoTime();
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        }
+
+        /** Następny ruch ze skryptu (jeśli jest) albo losowe wolne pole; {@code -1} = PASS. */
+        private int choosePoint() {
+            if (script != null) {
+                while (scriptIndex < script.size()) {
+                    int[] m = script.get(scriptIndex++);
+                    if (m[0] != color.ordinal()) {
+                        continue;
+                    }
+                    if (m[1] < 0) {
+                        return -1;
+                    }
+                    int p = m[2] * size + m[1];
+                    if (m[1] < size && m[2] < size && !tried.get(p)) {
+                        return p;
+                    }
+                }
+            }
+
+            int n = size * size;
+            int start = rnd.nextInt(n);
+            int own = color == PlayerColor.BLACK ? 1 : 2;
+            for (int i = 0; i < n; i++) {
+                int p = (start + i) % n;
+                int x = p % size;
+                int y = p / size;
+                if (board[x][y] == 0 && !tried.get(p) && !ownEye(x, y, own)) {
+                    return p;
+                }
+            }
+            return -1;
+        }
+
+        private boolean ownEye(int x, int y, int own) {
+            return (x == 0 || board[x - 1][y] == own)
+                    && (x == size - 1 || board[x + 1][y] == own)
+                    && (y == 0 || board[x][y - 1] == own)
+                    && (y == size - 1 || board[x][y + 1] == own);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package pl.edu.go.tools;
+
+import pl.edu.go.analysis.ScoreCalculator;
+import pl.edu.go.board.Board;
+import pl.edu.go.board.BoardFactory;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.sgf.SgfReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@code SgfCorpusValidator} to narzędzie wsadowe: odtwarza wszystkie pliki SGF z katalogu
+ * przez {@link Board#playMove(int, int, int)} i sprawdza je regułami gry.
+ *
+ * <p>Pliki są dzielone między wątki {@link ForkJoinPool} (domyślnie wszystkie rdzenie).
+ * Każdy plik jest czytany strumieniowo przez {@link SgfReader} wprost do planszy, a wynik trafia od razu
+ * do pliku podsumowania (jedna linia na plik, kolejność zakończenia):
+ * <pre>
+ * OK       &lt;plik&gt; &lt;ruchy&gt; &lt;punkty BLACK&gt; &lt;punkty WHITE&gt;
+ * ILLEGAL  &lt;plik&gt; &lt;nr ruchu&gt; OUTSIDE|OCCUPIED|SUICIDE|KO
+ * ERROR    &lt;plik&gt; &lt;opis błędu formatu lub odczytu&gt;
+ * </pre>
+ * Na końcu dopisywana jest linia {@code TOTAL} z liczbą plików, ruchów i odrzuceń.
+ *
+ * <p>Uruchomienie:
+ * <pre>
+ * java -cp go-logic.jar pl.edu.go.tools.SgfCorpusValidator &lt;katalog&gt; [plik-podsumowania] [wątki]
+ * </pre>
+ */
+public final class SgfCorpusValidator {
+
+    /** Liczba plików, poniżej której zadanie nie jest dalej dzielone. */
+    private static final int SPLIT_THRESHOLD = 8;
+
+    private static final String[] REASONS = {"NONE", "OUTSIDE", "OCCUPIED", "SUICIDE", "KO"};
+
+    private final Writer summary;
+
+    private final LongAdder files = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder illegal = new LongAdder();
+    private final LongAdder koViolations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param summary strumień podsumowania (zapisywany współbieżnie pod blokadą)
+     */
+    public SgfCorpusValidator(Writer summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * Punkt wejścia narzędzia.
+     *
+     * @param args katalog z plikami SGF, opcjonalnie plik podsumowania (domyślnie {@code sgf-summary.txt})
+     *             i liczba wątków
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: SgfCorpusValidator <dir> [summary-file] [threads]");
+            return;
+        }
+        Path dir = Path.of(args[0]);
+        Path out = Path.of(args.length > 1 ? args[1] : "sgf-summary.txt");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        SgfCorpusValidator validator;
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            validator = new SgfCorpusValidator(w);
+            validator.validate(dir, threads);
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(validator.totalLine() + " in " + ms + " ms -> " + out);
+    }
+
+    /**
+     * Waliduje wszystkie pliki {@code *.sgf} z katalogu (rekurencyjnie) i dopisuje linię {@code TOTAL}.
+     *
+     * @param dir     katalog korpusu
+     * @param threads liczba wątków
+     * @throws IOException błąd odczytu katalogu lub zapisu podsumowania
+     */
+    public void validate(Path dir, int threads) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".sgf"))
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Chunk(paths, 0, paths.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        emit(totalLine());
+        summary.flush();
+    }
+
+    /**
+     * Zwraca linię podsumowania całego przebiegu.
+     *
+     * @return {@code TOTAL files=.. moves=.. illegal=.. ko=.. errors=..}
+     */
+    public String totalLine() {
+        return "TOTAL files=" + files.sum() + " moves=" + moves.sum() + " illegal=" + illegal.sum()
+                + " ko=" + koViolations.sum() + " errors=" + errors.sum();
+    }
+
+    /** Zadanie ForkJoin: dzieli zakres plików na połowy aż do {@link #SPLIT_THRESHOLD}. */
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> paths;
+        private final int from;
+        private final int to;
+
+        Chunk(List<Path> paths, int from, int to) {
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    validateFile(paths.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Chunk(paths, from, mid), new Chunk(paths, mid, to));
+        }
+    }
+
+    /**
+     * Odtwarza jeden plik i zapisuje jego wynik.
+     *
+     * @param file plik SGF
+     */
+    void validateFile(Path file) {
+        files.increment();
+        Replay replay = new Replay();
+        String line;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            new SgfReader(in).read(replay);
+            moves.add(replay.moves);
+            if (replay.rejection != Board.REJECT_NONE) {
+                illegal.increment();
+                if (replay.rejection == Board.REJECT_KO) {
+                    koViolations.increment();
+                }
+                line = "ILLEGAL " + file + " " + replay.moves + " " + REASONS[replay.rejection];
+            } else {
+                int[] score = ScoreCalculator.computeScore(replay.board());
+                line = "OK " + file + " " + replay.moves + " " + score[0] + " " + score[1];
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            errors.increment();
+            line = "ERROR " + file + " " + e.getMessage();
+        }
+        emit(line);
+    }
+
+    private void emit(String line) {
+        synchronized (summary) {
+            try {
+                summary.write(line);
+                summary.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Odbiorca zdarzeń SGF wykonujący ruchy na planszy; zatrzymuje się na pierwszym odrzuconym ruchu
+     * i zapamiętuje jego powód ({@link Board#getLastRejection()}). Jak przy {@link SgfReader#readBoard},
+     * {@code SZ} po pierwszym kamieniu jest błędem formatu.
+     */
+    private static final class Replay implements SgfReader.Handler {
+        private Board board;
+        private int moves = 0;
+        private int rejection = Board.REJECT_NONE;
+
+        Board board() {
+            if (board == null) {
+                board = BoardFactory.createBoard(SgfReader.DEFAULT_SIZE);
+            }
+            return board;
+        }
+
+        @Override
+        public void boardSize(int size) {
+            if (board != null) {
+                throw new IllegalArgumentException("SGF: SZ after stones");
+            }
+            board = BoardFactory.createBoard(size);
+        }
+
+        @Override
+        public void startingPlayer(PlayerColor player) {
+        }
+
+        @Override
+        public void setup(PlayerColor color, int x, int y) {
+            if (rejection == Board.REJECT_NONE && !board().playMove(color.toBoardColor(), x, y)) {
+                rejection = board.getLastRejection();
+            }
+        }
+
+        @Override
+        public void move(PlayerColor color, int x, int y) {
+            if (rejection != Board.REJECT_NONE) {
+                return;
+            }
+            moves++;
+            if (!board().playMove(color.toBoardColor(), x, y)) {
+                rejection = board.getLastRejection();
+            }
+        }
+
+        @Override
+        public void pass(PlayerColor color) {
+            if (rejection == Board.REJECT_NONE) {
+                moves++;
+            }
+        }
+    }
+}
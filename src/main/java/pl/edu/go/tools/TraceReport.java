@@ -0,0 +1,195 @@
+package pl.edu.go.tools;
+
+import pl.edu.go.metrics.LatencyHistogram;
+import pl.edu.go.trace.Span;
+import pl.edu.go.trace.TraceReader;
+import pl.edu.go.trace.TraceStage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@code TraceReport} czyta pliki śladu serwera ({@code -Dgo.trace=<plik>}, zob. {@link pl.edu.go.trace.Tracer})
+ * i wypisuje percentyle czasu każdego etapu obsługi komendy oraz najwolniejsze komendy z podziałem na etapy.
+ *
+ * <p>Czas całkowity komendy liczony jest od odczytu z gniazda do zapisania odpowiedzi ostatniemu
+ * odbiorcy. W rozbiciu najwolniejszych komend etap {@link TraceStage#WRITE} to zapis do
+ * najwolniejszego odbiorcy; etap o największym udziale jest wskazany strzałką.
+ *
+ * <p>Użycie: {@code TraceReport [plik] [--top=N]} (domyślnie {@code go-trace.bin}, 10 komend).
+ * Wczytywane są też pliki po rotacji ({@code <plik>.1}, {@code <plik>.2}, …).
+ */
+public final class TraceReport {
+
+    private static final TraceStage[] STAGES = TraceStage.values();
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final Map<TraceStage, LatencyHistogram> stages = new EnumMap<>(TraceStage.class);
+    private final Map<Long, Trace> traces = new HashMap<>();
+    private final int files;
+    private long spans;
+
+    /** Odcinki jednej komendy. */
+    private static final class Trace {
+        final long id;
+        final int sessionId;
+        final long wallOffset;
+        final long[] stageNanos = new long[STAGES.length];
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+
+        Trace(long id, int sessionId, long wallOffset) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.wallOffset = wallOffset;
+        }
+
+        long total() {
+            return end - start;
+        }
+    }
+
+    private TraceReport(int files) {
+        this.files = files;
+        for (TraceStage s : STAGES) {
+            stages.put(s, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Wczytuje plik śladu razem z plikami po rotacji.
+     *
+     * @param base ścieżka bieżącego pliku śladu
+     * @return raport
+     * @throws IOException gdy nie ma plików albo nie da się ich odczytać
+     */
+    public static TraceReport load(Path base) throws IOException {
+        List<Path> paths = TraceReader.files(base);
+        if (paths.isEmpty()) {
+            throw new IOException("No trace files at " + base);
+        }
+        TraceReport report = new TraceReport(paths.size());
+        for (Path p : paths) {
+            List<Span> read = new ArrayList<>();
+            long offset = TraceReader.read(p, read::add);
+            for (Span s : read) {
+                report.add(s, offset);
+            }
+        }
+        return report;
+    }
+
+    private void add(Span span, long wallOffset) {
+        spans++;
+        stages.get(span.stage()).record(span.duration());
+        Trace t = traces.computeIfAbsent(span.traceId(), id -> new Trace(id, span.sessionId(), wallOffset));
+        int i = span.stage().ordinal();
+        t.stageNanos[i] = span.stage() == TraceStage.WRITE
+                ? Math.max(t.stageNanos[i], span.duration())
+                : t.stageNanos[i] + span.duration();
+        t.start = Math.min(t.start, span.start());
+        t.end = Math.max(t.end, span.end());
+    }
+
+    /**
+     * Zwraca liczbę wczytanych odcinków.
+     *
+     * @return liczba odcinków
+     */
+    public long getSpanCount() {
+        return spans;
+    }
+
+    /**
+     * Zwraca liczbę śledzonych komend.
+     *
+     * @return liczba komend
+     */
+    public int getCommandCount() {
+        return traces.size();
+    }
+
+    /**
+     * Buduje raport: percentyle etapów (w µs) i najwolniejsze komendy z podziałem na etapy.
+     *
+     * @param top liczba najwolniejszych komend w raporcie
+     * @return raport tekstowy (wiele linii)
+     */
+    public String report(int top) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%d file(s), %d span(s), %d command(s)%n",
+                files, spans, traces.size()));
+        sb.append(String.format(Locale.ROOT, "%-11s %9s %9s %9s %9s %9s %9s  (us)%n",
+                "stage", "n", "p50", "p90", "p99", "p99.9", "max"));
+        for (TraceStage s : STAGES) {
+            row(sb, s.name(), stages.get(s));
+        }
+        LatencyHistogram total = new LatencyHistogram();
+        for (Trace t : traces.values()) {
+            total.record(t.total());
+        }
+        row(sb, "END_TO_END", total);
+
+        List<Trace> slowest = new ArrayList<>(traces.values());
+        slowest.sort((a, b) -> Long.compare(b.total(), a.total()));
+        if (!slowest.isEmpty() && top > 0) {
+            sb.append("Slowest commands:\n");
+        }
+        for (Trace t : slowest.subList(0, Math.min(top, slowest.size()))) {
+            sb.append(String.format(Locale.ROOT, "  #%d game %d at %s total %.1f us:",
+                    t.id, t.sessionId, TIME.format(Instant.ofEpochSecond(0, t.start + t.wallOffset)), us(t.total())));
+            int dominant = 0;
+            for (int i = 0; i < STAGES.length; i++) {
+                sb.append(String.format(Locale.ROOT, " %s %.1f", STAGES[i].name(), us(t.stageNanos[i])));
+                if (t.stageNanos[i] > t.stageNanos[dominant]) {
+                    dominant = i;
+                }
+            }
+            sb.append(" <- ").append(STAGES[dominant].name()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String name, LatencyHistogram h) {
+        sb.append(String.format(Locale.ROOT, "%-11s %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name, h.count(), us(h.percentile(50)), us(h.percentile(90)),
+                us(h.percentile(99)), us(h.percentile(99.9)), us(h.max())));
+    }
+
+    private static double us(long nanos) {
+        return nanos / 1e3;
+    }
+
+    /**
+     * Punkt wejścia: {@code TraceReport [plik] [--top=N]}.
+     *
+     * @param args argumenty
+     * @throws IOException gdy nie da się odczytać śladu
+     */
+    public static void main(String[] args) throws IOException {
+        Path base = Path.of("go-trace.bin");
+        int top = 10;
+        for (String arg : args) {
+            if (arg.startsWith("--top=")) {
+                top = Integer.parseInt(arg.substring("--top=".length()));
+            } else if (arg.startsWith("--")) {
+                System.out.println("Usage: TraceReport [trace-file] [--top=N]");
+                return;
+            } else {
+                base = Path.of(arg);
+            }
+        }
+        System.out.println("Trace " + base + ":");
+        System.out.print(load(base).report(top));
+    }
+}
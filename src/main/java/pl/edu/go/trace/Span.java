@@ -0,0 +1,22 @@
+package pl.edu.go.trace;
+
+/**
+ * Odcinek śladu odczytany z pliku ({@link TraceReader}).
+ *
+ * @param traceId   identyfikator komendy
+ * @param stage     etap
+ * @param sessionId identyfikator sesji gry
+ * @param start     początek ({@link System#nanoTime()} procesu serwera)
+ * @param duration  czas trwania w nanosekundach
+ */
+public record Span(long traceId, TraceStage stage, int sessionId, long start, long duration) {
+
+    /**
+     * Zwraca koniec odcinka.
+     *
+     * @return {@code start + duration}
+     */
+    public long end() {
+        return start + duration;
+    }
+}
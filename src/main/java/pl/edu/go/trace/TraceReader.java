@@ -0,0 +1,76 @@
+package pl.edu.go.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@code TraceReader} odczytuje pliki zapisane przez {@link TraceWriter}.
+ */
+public final class TraceReader {
+
+    private TraceReader() {
+    }
+
+    /**
+     * Zwraca istniejące pliki śladu o podanej ścieżce bazowej, od najstarszego:
+     * {@code <plik>.N}, …, {@code <plik>.1}, {@code <plik>}.
+     *
+     * @param base ścieżka bieżącego pliku
+     * @return pliki w kolejności zapisu
+     */
+    public static List<Path> files(Path base) {
+        List<Path> out = new ArrayList<>();
+        for (int i = 1; Files.exists(base.resolveSibling(base.getFileName() + "." + i)); i++) {
+            out.add(0, base.resolveSibling(base.getFileName() + "." + i));
+        }
+        if (Files.exists(base)) {
+            out.add(base);
+        }
+        return out;
+    }
+
+    /**
+     * Odczytuje wszystkie odcinki z pliku. Niepełny rekord na końcu (przerwany zapis) jest pomijany.
+     *
+     * @param file  plik śladu
+     * @param spans odbiorca odcinków
+     * @return przesunięcie czasu: {@code span.start() + offset} to czas ściany w ns od epoki
+     * @throws IOException gdy plik nie jest plikiem śladu albo nie da się go odczytać
+     */
+    public static long read(Path file, Consumer<Span> spans) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] magic = new byte[TraceWriter.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, TraceWriter.MAGIC)) {
+                throw new IOException("Not a trace file: " + file);
+            }
+            long openedMillis = in.readLong();
+            long openedNanos = in.readLong();
+            long offset = openedMillis * 1_000_000 - openedNanos;
+
+            byte[] record = new byte[TraceWriter.RECORD_BYTES];
+            while (true) {
+                try {
+                    in.readFully(record);
+                } catch (EOFException end) {
+                    return offset;
+                }
+                ByteBuffer r = ByteBuffer.wrap(record);
+                long traceId = r.getLong();
+                long start = r.getLong();
+                long duration = r.getLong();
+                int sessionId = r.getInt();
+                spans.accept(new Span(traceId, TraceStage.of(r.get()), sessionId, start, duration));
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package pl.edu.go.trace;
+
+/**
+ * Etap obsługi komendy gry mierzony przez {@link Tracer} (kolejność jak na ścieżce komendy).
+ */
+public enum TraceStage {
+    /** Od odczytu komendy z gniazda do wejścia do sesji (m.in. oczekiwanie na blokadę sesji). */
+    QUEUE,
+    /** Parsowanie komendy ({@code TextCommandFactory}/{@code BinaryCommandFactory}). */
+    PARSE,
+    /** Wykonanie komendy na {@code Game}, bez czasu callbacków obserwatora. */
+    EXECUTE,
+    /** Łączny czas callbacków obserwatora {@code GameSession} (kodowanie i rozsyłanie ramek). */
+    OBSERVERS,
+    /** Dopisanie komendy do dziennika gier. */
+    JOURNAL,
+    /** Zamknięcie zdarzenia: {@code SEQ}, przekazanie ramek do kolejek odbiorców, resynchronizacje. */
+    BROADCAST,
+    /** Od przekazania zdarzenia do kolejki do zapisania go do transportu (osobno dla każdego odbiorcy). */
+    WRITE;
+
+    private static final TraceStage[] VALUES = values();
+
+    /**
+     * Zwraca etap o podanym kodzie z pliku śladu.
+     *
+     * @param code kod ({@link #ordinal()})
+     * @return etap
+     * @throws IllegalArgumentException dla nieznanego kodu
+     */
+    public static TraceStage of(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown trace stage " + code);
+        }
+        return VALUES[code];
+    }
+}
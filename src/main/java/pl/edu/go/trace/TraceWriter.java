@@ -0,0 +1,271 @@
+package pl.edu.go.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code TraceWriter} zapisuje odcinki śladu do binarnego pliku z rotacją.
+ *
+ * <p><b>Format pliku:</b> nagłówek {@value #HEADER_BYTES} B — {@code "GOTRACE1"}, czas ściany
+ * otwarcia pliku (ms od epoki) i {@link System#nanoTime()} w tej samej chwili (do przeliczania
+ * czasów odcinków) — a po nim rekordy po {@value #RECORD_BYTES} B (big-endian):
+ * <pre>
+ * traceId:8  start:8  duration:8  sessionId:4  stage:1
+ * </pre>
+ *
+ * <p><b>Zapis:</b> wątek wołający kopiuje rekord do bufora w pamięci (krótka sekcja krytyczna,
+ * bez I/O). Pełny bufor jest zamieniany na zapasowy i zapisywany do pliku przez wątek demona;
+ * gdy oba bufory są zajęte, rekord jest odrzucany ({@link #getDropped()}), a wątek gry nie czeka.
+ * Niepełny bufor jest zapisywany co najwyżej po {@value #FLUSH_INTERVAL_MS} ms.
+ *
+ * <p><b>Rotacja:</b> gdy plik przekroczyłby {@code maxBytes}, jest przemianowywany na {@code <plik>.1}
+ * (starsze przesuwają się do {@code .2}, {@code .3}, …), a zapis trwa w nowym pliku. Zostaje
+ * najwyżej {@code files} plików łącznie z bieżącym. Identyfikatory komend zaczynają się od nowa w każdym
+ * procesie, więc przy otwarciu pisarz usuwa pliki rotowane po poprzednim uruchomieniu — raport nie
+ * skleja wtedy odcinków różnych komend o tym samym {@code traceId}.
+ */
+public final class TraceWriter implements Closeable {
+
+    static final byte[] MAGIC = "GOTRACE1".getBytes(StandardCharsets.US_ASCII);
+    static final int HEADER_BYTES = 24;
+    static final int RECORD_BYTES = 29;
+
+    private static final int BUFFER_BYTES = RECORD_BYTES * 2048;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private final Path path;
+    private final long maxBytes;
+    private final int files;
+
+    private final Object lock = new Object();
+    private ByteBuffer current = ByteBuffer.allocate(BUFFER_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_BYTES);
+    /** Bufor przekazany do zapisu ({@code null}, gdy wątek zapisu nie ma pracy). */
+    private ByteBuffer full;
+    private boolean closed;
+
+    private final LongAdder dropped = new LongAdder();
+
+    /** Kanał bieżącego pliku (tylko wątek zapisu). */
+    private FileChannel channel;
+    private long fileBytes;
+
+    private final Thread flusher;
+
+    /**
+     * Otwiera (nadpisuje) plik śladu, usuwa pliki rotowane po poprzednim uruchomieniu
+     * i uruchamia wątek zapisu.
+     *
+     * @param path     ścieżka bieżącego pliku
+     * @param maxBytes maksymalny rozmiar jednego pliku
+     * @param files    liczba zachowywanych plików (co najmniej 1)
+     * @throws IOException gdy nie można utworzyć pliku
+     */
+    public TraceWriter(Path path, long maxBytes, int files) throws IOException {
+        this.path = path;
+        this.maxBytes = Math.max(maxBytes, HEADER_BYTES + BUFFER_BYTES);
+        this.files = Math.max(1, files);
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        // pliki rotowane tworzą ciągłą serię .1, .2, …
+        int stale = 1;
+        while (Files.deleteIfExists(rotated(stale))) {
+            stale++;
+        }
+        openFile();
+
+        flusher = new Thread(this::flushLoop, "TraceWriter");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Dodaje odcinek do bufora zapisu.
+     *
+     * @param traceId   identyfikator komendy
+     * @param stage     etap
+     * @param sessionId identyfikator sesji
+     * @param start     początek ({@link System#nanoTime()})
+     * @param duration  czas trwania w nanosekundach
+     */
+    public void record(long traceId, TraceStage stage, int sessionId, long start, long duration) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (current.remaining() < RECORD_BYTES) {
+                if (spare == null) {
+                    dropped.increment();
+                    return;
+                }
+                full = current;
+                current = spare;
+                spare = null;
+                lock.notifyAll();
+            }
+            current.putLong(traceId)
+                    .putLong(start)
+                    .putLong(duration)
+                    .putInt(sessionId)
+                    .put((byte) stage.ordinal());
+        }
+    }
+
+    /**
+     * Zwraca liczbę odcinków odrzuconych, bo wątek zapisu nie nadążał.
+     *
+     * @return liczba odrzuconych odcinków
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Czeka, aż odcinki zebrane przed wywołaniem trafią do pliku.
+     *
+     * @param timeoutMs maksymalny czas oczekiwania w ms
+     * @return {@code true}, jeśli zdążyły
+     */
+    public boolean flush(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (lock) {
+            while (current.position() > 0 || full != null) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || !flusher.isAlive()) {
+                    return false;
+                }
+                if (full == null) {
+                    full = current;
+                    current = spare;
+                    spare = null;
+                }
+                lock.notifyAll();
+                try {
+                    lock.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(left)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Zapisuje zaległe odcinki i zamyka plik; kolejne odcinki są pomijane.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pętla wątku zapisu: zapisuje przekazane bufory, a co {@link #FLUSH_INTERVAL_MS} także bufor niepełny.
+     */
+    private void flushLoop() {
+        try {
+            while (true) {
+                ByteBuffer buf;
+                boolean stop;
+                synchronized (lock) {
+                    if (full == null && !closed) {
+                        lock.wait(FLUSH_INTERVAL_MS);
+                    }
+                    if (full == null && current.position() > 0) {
+                        full = current;
+                        current = spare;
+                        spare = null;
+                    }
+                    buf = full;
+                    stop = closed;
+                }
+                if (buf == null) {
+                    if (stop) {
+                        return;
+                    }
+                    continue;
+                }
+                write(buf);
+                synchronized (lock) {
+                    buf.clear();
+                    spare = buf;
+                    full = null;
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        buf.flip();
+        if (fileBytes > HEADER_BYTES && fileBytes + buf.remaining() > maxBytes) {
+            rotate();
+        }
+        while (buf.hasRemaining()) {
+            fileBytes += channel.write(buf);
+        }
+    }
+
+    /** Przesuwa pliki {@code .1 → .2 → …}, bieżący staje się {@code .1}; otwiera nowy bieżący. */
+    private void rotate() throws IOException {
+        channel.close();
+        Files.deleteIfExists(rotated(files - 1));
+        for (int i = files - 2; i >= 1; i--) {
+            Path from = rotated(i);
+            if (Files.exists(from)) {
+                Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (files > 1) {
+            Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openFile();
+    }
+
+    private Path rotated(int i) {
+        return i == 0 ? path : path.resolveSibling(path.getFileName() + "." + i);
+    }
+
+    private void openFile() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.put(MAGIC).putLong(System.currentTimeMillis()).putLong(System.nanoTime()).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        fileBytes = HEADER_BYTES;
+    }
+}
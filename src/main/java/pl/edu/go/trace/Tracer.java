@@ -0,0 +1,84 @@
+package pl.edu.go.trace;
+
+import pl.edu.go.log.AsyncLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code Tracer} włącza śledzenie opóźnień komend gry od odczytu z gniazda do zapisu odpowiedzi.
+ *
+ * <p>Każda komenda dostaje identyfikator śladu w chwili odczytu, a kolejne etapy
+ * ({@link TraceStage}) zapisują odcinki do pliku {@link TraceWriter}. Śledzenie włącza
+ * właściwość {@code -Dgo.trace=<plik>}; flaga {@link #ENABLED} jest stałą, więc bez niej JIT
+ * usuwa instrumentację z gorących ścieżek. Rotację ustawiają {@code go.trace.maxBytes}
+ * (domyślnie 64 MiB) i {@code go.trace.files} (domyślnie 4).
+ *
+ * <p>Raport percentyli dla etapów: {@code pl.edu.go.tools.TraceReport}.
+ */
+public final class Tracer {
+
+    /** Czy śledzenie jest włączone (ustawiona właściwość {@code go.trace}). */
+    public static final boolean ENABLED = System.getProperty("go.trace") != null;
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    /** Leniwie otwierany plik śladu ({@code null}, gdy nie udało się go otworzyć). */
+    private static final class Holder {
+        static final TraceWriter WRITER = open();
+    }
+
+    private Tracer() {
+    }
+
+    private static TraceWriter open() {
+        Path path = Path.of(System.getProperty("go.trace", "go-trace.bin"));
+        long maxBytes = Long.getLong("go.trace.maxBytes", 64L << 20);
+        int files = Integer.getInteger("go.trace.files", 4);
+        try {
+            TraceWriter writer = new TraceWriter(path, maxBytes, files);
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "TraceWriter-Shutdown"));
+            return writer;
+        } catch (IOException e) {
+            AsyncLog.get().warn("Tracing disabled, cannot open {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Przydziela identyfikator śladu nowej komendzie.
+     *
+     * @return kolejny identyfikator (od 1)
+     */
+    public static long nextId() {
+        return IDS.incrementAndGet();
+    }
+
+    /**
+     * Zapisuje odcinek śladu.
+     *
+     * @param traceId   identyfikator komendy
+     * @param stage     etap
+     * @param sessionId identyfikator sesji
+     * @param start     początek ({@link System#nanoTime()})
+     * @param duration  czas trwania w nanosekundach
+     */
+    public static void span(long traceId, TraceStage stage, int sessionId, long start, long duration) {
+        TraceWriter writer = Holder.WRITER;
+        if (writer != null) {
+            writer.record(traceId, stage, sessionId, start, duration);
+        }
+    }
+
+    /**
+     * Czeka, aż zebrane odcinki trafią do pliku (np. przed odczytem śladu w teście).
+     *
+     * @param timeoutMs maksymalny czas oczekiwania w ms
+     * @return {@code true}, jeśli zdążyły
+     */
+    public static boolean flush(long timeoutMs) {
+        TraceWriter writer = Holder.WRITER;
+        return writer != null && writer.flush(timeoutMs);
+    }
+}
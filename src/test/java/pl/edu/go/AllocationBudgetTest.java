@@ -0,0 +1,260 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pl.edu.go.analysis.ScoreCalculator;
+import pl.edu.go.board.Board;
+import pl.edu.go.command.TextCommandFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+import pl.edu.go.server.OutboundQueue;
+import pl.edu.go.server.SessionRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Testy regresji alokacji: średnia liczba bajtów alokowanych przez jedną operację na gorących ścieżkach
+ * (licznik alokacji wątku z {@link com.sun.management.ThreadMXBean}) nie może przekroczyć budżetu.
+ *
+ * <p>Budżety są ustawione z zapasem nad wartościami zmierzonymi na planszy 19x19 po rozgrzewce JIT.
+ * Po optymalizacji ścieżki budżet należy obniżyć, żeby zablokować osiągnięty poziom. Na JVM bez
+ * liczników alokacji testy są pomijane.
+ */
+class AllocationBudgetTest {
+
+    private static final int SIZE = 19;
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 20_000;
+
+    /** Budżety w bajtach na operację (w komentarzu: wartość zmierzona przy ustalaniu budżetu). */
+    private static final long PLAY_MOVE_BUDGET = 16_384;            // ~12 460 B
+    private static final long COMPUTE_SCORE_BUDGET = 40_960;        // ~36 400 B
+    private static final long PARSE_MOVE_BUDGET = 64;               // 40 B
+    private static final long BOARD_BROADCAST_BUDGET = 12_288;      // ~9 000 B
+    private static final long REGISTRY_MOVE_BUDGET = 28_672;        // ~23 800 B (ruch + rozgłoszenie planszy)
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void enableAllocationCounters() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "JVM bez com.sun.management.ThreadMXBean");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Liczniki alokacji niedostępne");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /** Sumuje bajty alokowane przez bieżący wątek wyłącznie w mierzonych fragmentach. */
+    private static final class Meter {
+        private long bytes;
+        private long ops;
+        private boolean recording;
+
+        /** Rozpoczyna pomiar jednej operacji. */
+        long start() {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+
+        /** Kończy pomiar operacji rozpoczętej w chwili {@code startBytes}. */
+        void stop(long startBytes) {
+            long delta = threads.getCurrentThreadAllocatedBytes() - startBytes;
+            if (recording) {
+                bytes += delta;
+                ops++;
+            }
+        }
+
+        void record() {
+            recording = true;
+        }
+
+        long bytesPerOp() {
+            return ops == 0 ? 0 : bytes / ops;
+        }
+    }
+
+    /** Losowa (powtarzalna) partia: ruchy {@code y * size + x}, naprzemiennie od BLACK; -1 = brak ruchu. */
+    private static int[] randomGame(long seed) {
+        Random rnd = new Random(seed);
+        Board board = new Board(SIZE);
+        int[] moves = new int[SIZE * SIZE];
+        int color = Board.BLACK;
+        int n = 0;
+        while (n < moves.length) {
+            int start = rnd.nextInt(SIZE * SIZE);
+            int played = -1;
+            for (int i = 0; i < SIZE * SIZE && played < 0; i++) {
+                int p = (start + i) % (SIZE * SIZE);
+                if (board.playMove(color, p % SIZE, p / SIZE)) {
+                    played = p;
+                }
+            }
+            if (played < 0) {
+                break;
+            }
+            moves[n++] = played;
+            color = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        }
+        return Arrays.copyOf(moves, n);
+    }
+
+    @Test
+    void playMove_staysWithinBudget() {
+        int[] game = randomGame(1);
+        Meter meter = new Meter();
+
+        int done = 0;
+        while (meter.ops < MEASURED) {
+            Board board = new Board(SIZE);
+            int color = Board.BLACK;
+            for (int p : game) {
+                if (done++ == WARMUP) {
+                    meter.record();
+                }
+                long t = meter.start();
+                board.playMove(color, p % SIZE, p / SIZE);
+                meter.stop(t);
+                color = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+            }
+        }
+
+        assertWithinBudget("Board.playMove", meter, PLAY_MOVE_BUDGET);
+    }
+
+    @Test
+    void computeScore_staysWithinBudget() {
+        int[] game = randomGame(2);
+        Board board = new Board(SIZE);
+        int color = Board.BLACK;
+        for (int p : game) {
+            board.playMove(color, p % SIZE, p / SIZE);
+            color = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        }
+
+        Meter meter = new Meter();
+        int[] sink = null;
+        // wynik jest deterministyczny — ta sama pozycja w każdym powtórzeniu
+        for (int i = 0; i < WARMUP / 10 + MEASURED / 10; i++) {
+            if (i == WARMUP / 10) {
+                meter.record();
+            }
+            long t = meter.start();
+            sink = ScoreCalculator.computeScore(board);
+            meter.stop(t);
+        }
+
+        assertNotNull(sink);
+        assertWithinBudget("ScoreCalculator.computeScore", meter, COMPUTE_SCORE_BUDGET);
+    }
+
+    @Test
+    void parseMove_staysWithinBudget() {
+        TextCommandFactory factory = new TextCommandFactory();
+        String[] lines = {"MOVE 3 4", "MOVE 18 0", "move 10 12", "MOVE 0 18"};
+
+        Meter meter = new Meter();
+        Object sink = null;
+        for (int i = 0; i < WARMUP + MEASURED; i++) {
+            if (i == WARMUP) {
+                meter.record();
+            }
+            String line = lines[i & 3];
+            long t = meter.start();
+            sink = factory.fromNetworkMessage(line, PlayerColor.BLACK);
+            meter.stop(t);
+        }
+
+        assertNotNull(sink);
+        assertWithinBudget("TextCommandFactory.fromNetworkMessage", meter, PARSE_MOVE_BUDGET);
+    }
+
+    @Test
+    void onBoardChanged_staysWithinBudget() throws IOException {
+        Board board = new Board(SIZE);
+        int[] game = randomGame(3);
+        int color = Board.BLACK;
+        for (int p : game) {
+            board.playMove(color, p % SIZE, p / SIZE);
+            color = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        }
+
+        GameSession session = new GameSession(new Game(new Board(SIZE)));
+        LoopbackTransport blackLink = new LoopbackTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+        session.setPlayer(PlayerColor.BLACK, new ClientHandler(blackLink, session, PlayerColor.BLACK));
+        session.setPlayer(PlayerColor.WHITE, new ClientHandler(whiteLink, session, PlayerColor.WHITE));
+        session.startGame();
+        InputStream blackIn = blackLink.peer().getInputStream();
+        InputStream whiteIn = whiteLink.peer().getInputStream();
+        byte[] drain = new byte[1 << 16];
+
+        Meter meter = new Meter();
+        for (int i = 0; i < WARMUP / 4 + MEASURED / 4; i++) {
+            if (i == WARMUP / 4) {
+                meter.record();
+            }
+            long t = meter.start();
+            session.onBoardChanged(board);
+            meter.stop(t);
+            // odbiór poza pomiarem (dane czekają w buforze transportu)
+            while (blackIn.available() > 0) blackIn.read(drain);
+            while (whiteIn.available() > 0) whiteIn.read(drain);
+        }
+
+        assertWithinBudget("GameSession.onBoardChanged", meter, BOARD_BROADCAST_BUDGET);
+    }
+
+    @Test
+    void registryDispatchMove_staysWithinBudget() throws IOException {
+        int[] game = randomGame(4);
+        String[] lines = new String[game.length];
+        for (int i = 0; i < game.length; i++) {
+            lines[i] = "MOVE " + game[i] % SIZE + " " + game[i] / SIZE;
+        }
+        byte[] drain = new byte[1 << 16];
+
+        Meter meter = new Meter();
+        int done = 0;
+        while (meter.ops < MEASURED / 4) {
+            // nowa partia przez rejestr: połączenie, PLAY, start gry — poza pomiarem
+            SessionRegistry registry = new SessionRegistry(SIZE, OutboundQueue::new);
+            LoopbackTransport blackLink = new LoopbackTransport();
+            LoopbackTransport whiteLink = new LoopbackTransport();
+            ClientHandler black = registry.accept(blackLink);
+            ClientHandler white = registry.accept(whiteLink);
+            registry.dispatch(black, "PLAY");
+            registry.dispatch(white, "PLAY");
+            InputStream blackIn = blackLink.peer().getInputStream();
+            InputStream whiteIn = whiteLink.peer().getInputStream();
+
+            for (int i = 0; i < lines.length; i++) {
+                if (done++ == WARMUP / 4) {
+                    meter.record();
+                }
+                long t = meter.start();
+                registry.dispatch((i & 1) == 0 ? black : white, lines[i]);
+                meter.stop(t);
+                while (blackIn.available() > 0) blackIn.read(drain);
+                while (whiteIn.available() > 0) whiteIn.read(drain);
+            }
+        }
+
+        assertWithinBudget("SessionRegistry.dispatch(MOVE)", meter, REGISTRY_MOVE_BUDGET);
+    }
+
+    private static void assertWithinBudget(String operation, Meter meter, long budget) {
+        long perOp = meter.bytesPerOp();
+        assertTrue(perOp <= budget,
+                operation + " allocates " + perOp + " B/op, budget is " + budget + " B/op");
+    }
+}
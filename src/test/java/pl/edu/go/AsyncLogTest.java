@@ -0,0 +1,121 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.log.AsyncLog;
+import pl.edu.go.log.Level;
+import pl.edu.go.log.Sampler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy asynchronicznego logu: formatowanie i kolejność wpisów, próg poziomu, odrzucanie wpisów
+ * przy pełnym buforze (bez blokowania wołającego) i próbkowanie.
+ */
+public class AsyncLogTest {
+
+    @Test
+    public void testEntriesAreFormattedInOrderAboveThreshold() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (AsyncLog log = new AsyncLog(16, Level.INFO, new PrintStream(bytes, true, StandardCharsets.UTF_8))) {
+            log.debug("hidden {}", 1);
+            log.info("Received from {}: {}", "BLACK", "MOVE 2 2");
+            log.warn("Client {} too slow", "WHITE");
+            log.error("Failed: {}", "disk", new IllegalStateException("boom"));
+            assertTrue(log.flush(2000));
+        }
+
+        String thread = "[" + Thread.currentThread().getName() + "] ";
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines[0].endsWith(" INFO  " + thread + "Received from BLACK: MOVE 2 2"), lines[0]);
+        assertTrue(lines[1].endsWith(" WARN  " + thread + "Client WHITE too slow"), lines[1]);
+        assertTrue(lines[2].endsWith(" ERROR " + thread + "Failed: disk"), lines[2]);
+        assertTrue(lines[3].startsWith("java.lang.IllegalStateException: boom"), lines[3]);
+        assertFalse(bytes.toString(StandardCharsets.UTF_8).contains("hidden"));
+    }
+
+    @Test
+    public void testFullBufferDropsEntriesWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                bytes.write(b, off, len);
+            }
+        };
+
+        try (AsyncLog log = new AsyncLog(8, Level.INFO, new PrintStream(stalled, true, StandardCharsets.UTF_8))) {
+            log.info("first");
+            Thread.sleep(50); // wątek piszący utknął na zapisie pierwszej linii
+
+            int accepted = 0;
+            for (int i = 0; i < 100; i++) {
+                if (log.log(Level.INFO, "line {}", i, null)) {
+                    accepted++;
+                }
+            }
+            assertEquals(8, accepted);
+            assertEquals(92, log.getDropped());
+
+            release.countDown();
+            assertTrue(log.flush(2000));
+        }
+        String text = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("line 7\n"));
+        assertTrue(text.contains("Dropped 92 log message(s)"));
+    }
+
+    @Test
+    public void testConcurrentWritersLoseNothingWithinCapacity() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int threads = 4;
+        int perThread = 5_000;
+        try (AsyncLog log = new AsyncLog(threads * perThread, Level.INFO,
+                new PrintStream(bytes, true, StandardCharsets.UTF_8))) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread w = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.info("n {}", i);
+                    }
+                }, "W" + t);
+                writers.add(w);
+                w.start();
+            }
+            for (Thread w : writers) {
+                w.join();
+            }
+            assertTrue(log.flush(5000));
+            assertEquals(0, log.getDropped());
+        }
+        assertEquals(threads * perThread, bytes.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    public void testSamplerPassesEveryNthCall() {
+        Sampler sampler = new Sampler(3);
+        boolean[] expected = {true, false, false, true, false, false, true};
+        for (boolean e : expected) {
+            assertEquals(e, sampler.sample());
+        }
+        assertTrue(new Sampler(0).sample());
+    }
+}
@@ -0,0 +1,105 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.command.BinaryCommandFactory;
+import pl.edu.go.command.TextCommandFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Testy serii ruchów {@code MOVES} w sesji: jedna seria to jedno zdarzenie gry (jedna plansza, jedna tura,
+ * jeden {@code SEQ}), a nielegalny ruch w serii cofa ją w całości.
+ *
+ * <p>Serie włącza stała ustalana przy starcie ({@code -Dgo.allowBatchMoves=true}), więc test ma osobne
+ * wykonanie surefire.
+ */
+class BatchMovesTest {
+
+    @Test
+    void textBatchIsOneEventForEveryClient() throws IOException {
+        assumeTrue(Boolean.getBoolean("go.allowBatchMoves"), "Uruchom z -Dgo.allowBatchMoves=true");
+        Game game = new Game(new Board(5));
+        Seated s = seat(game);
+
+        s.session.handleClientMessage(s.black, "MOVES 2 2 3 3 PASS 1 1");
+
+        List<String> lines = lines(s.whiteIn);
+        assertEquals(1, lines.stream().filter(l -> l.startsWith("SEQ ")).count(), lines.toString());
+        assertEquals(1, lines.stream().filter(l -> l.equals("BOARD 5")).count(), lines.toString());
+        assertEquals(List.of("TURN BLACK"), lines.stream().filter(l -> l.startsWith("TURN ")).toList());
+        assertEquals("SEQ 2", lines.get(lines.size() - 1), "Seria kończy jedno zdarzenie");
+        assertEquals(Board.WHITE, game.getBoard().getState()[1][1]);
+        assertEquals(Board.BLACK, game.getBoard().getState()[2][2]);
+        assertEquals(PlayerColor.BLACK, game.getCurrentPlayer());
+    }
+
+    @Test
+    void binaryBatchMatchesText() throws IOException {
+        assumeTrue(Boolean.getBoolean("go.allowBatchMoves"), "Uruchom z -Dgo.allowBatchMoves=true");
+        Game game = new Game(new Board(5));
+        Seated s = seat(game);
+        byte[] frame = new BinaryCommandFactory(true).encode(
+                new TextCommandFactory(true).fromNetworkMessage("MOVES 2 2 3 3", PlayerColor.BLACK));
+
+        s.session.handleClientFrame(s.black, frame);
+
+        List<String> lines = lines(s.whiteIn);
+        assertEquals(1, lines.stream().filter(l -> l.startsWith("SEQ ")).count(), lines.toString());
+        assertEquals(Board.WHITE, game.getBoard().getState()[3][3]);
+        assertEquals(PlayerColor.BLACK, game.getCurrentPlayer());
+    }
+
+    @Test
+    void illegalMoveRejectsWholeBatch() throws IOException {
+        assumeTrue(Boolean.getBoolean("go.allowBatchMoves"), "Uruchom z -Dgo.allowBatchMoves=true");
+        Game game = new Game(new Board(5));
+        Seated s = seat(game);
+
+        s.session.handleClientMessage(s.black, "MOVES 2 2 3 3 2 2");
+
+        assertTrue(lines(s.blackIn).stream().anyMatch(l -> l.startsWith("ERROR MOVES #3")));
+        assertEquals(List.of(), lines(s.whiteIn), "Odrzucona seria nie jest zdarzeniem gry");
+        assertEquals(Board.EMPTY, game.getBoard().getState()[2][2]);
+        assertEquals(Board.EMPTY, game.getBoard().getState()[3][3]);
+        assertEquals(0, game.getHistory().size());
+        assertEquals(PlayerColor.BLACK, game.getCurrentPlayer());
+    }
+
+    /** Sesja z obydwoma graczami, po starcie i z wyczyszczonymi wejściami klientów. */
+    private record Seated(GameSession session, ClientHandler black, InputStream blackIn, InputStream whiteIn) {
+    }
+
+    private static Seated seat(Game game) throws IOException {
+        GameSession session = new GameSession(game);
+        LoopbackTransport blackLink = new LoopbackTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+        ClientHandler black = new ClientHandler(blackLink, session, PlayerColor.BLACK);
+        ClientHandler white = new ClientHandler(whiteLink, session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black);
+        session.setPlayer(PlayerColor.WHITE, white);
+        session.startGame();
+        Seated s = new Seated(session, black, blackLink.peer().getInputStream(), whiteLink.peer().getInputStream());
+        lines(s.blackIn);
+        lines(s.whiteIn);
+        return s;
+    }
+
+    /** Linie już wysłane przez serwer (handler bez run() pisze synchronicznie). */
+    private static List<String> lines(InputStream in) throws IOException {
+        String raw = new String(in.readNBytes(in.available()), StandardCharsets.UTF_8);
+        return Arrays.stream(raw.split("\\R")).filter(l -> !l.isEmpty()).toList();
+    }
+}
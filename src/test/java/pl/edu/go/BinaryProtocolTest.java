@@ -0,0 +1,148 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.client.gui.GameModel;
+import pl.edu.go.command.BinaryCommandFactory;
+import pl.edu.go.command.GameCommand;
+import pl.edu.go.command.TextCommandFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GamePhase;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.protocol.BinaryProtocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy protokołu binarnego: model klienta po ramkach binarnych ma ten sam stan co po liniach tekstowych,
+ * a komendy klienta dekodują się do tych samych ruchów.
+ */
+public class BinaryProtocolTest {
+
+    private static final String SNAPSHOT =
+            "WELCOME WHITE\n" +
+            "SESSION 7 abc123\n" +
+            "PHASE SCORING_REVIEW\n" +
+            "BOARD 3\n" +
+            "ROW X..\n" +
+            "ROW .O.\n" +
+            "ROW ..X\n" +
+            "END_BOARD\n" +
+            "TURN BLACK\n" +
+            "SCORE 4 -2\n" +
+            "TERRITORY 3\n" +
+            "TROW Xbs\n" +
+            "TROW wO.\n" +
+            "TROW ..X\n" +
+            "END_TERRITORY\n" +
+            "DEADSTONES 3\n" +
+            "DROW 100\n" +
+            "DROW 000\n" +
+            "DROW 001\n" +
+            "END_DEADSTONES\n" +
+            "INFO Resync\n" +
+            "SEQ 300\n";
+
+    @Test
+    public void testBinaryFramesProduceSameModelAsText() throws IOException {
+        GameModel text = new GameModel();
+        for (String line : SNAPSHOT.split("\n")) {
+            text.acceptServerLine(line);
+        }
+
+        byte[] binary = BinaryProtocol.encodeServerText(SNAPSHOT.getBytes(StandardCharsets.UTF_8));
+        assertTrue(binary.length < SNAPSHOT.length(), "Ramki binarne powinny być krótsze od tekstu");
+
+        GameModel decoded = new GameModel();
+        ByteArrayInputStream in = new ByteArrayInputStream(binary);
+        byte[] frame;
+        while ((frame = BinaryProtocol.readFrame(in)) != null) {
+            decoded.acceptServerFrame(frame);
+        }
+
+        assertEquals(PlayerColor.WHITE, decoded.getMyColor());
+        assertEquals(PlayerColor.BLACK, decoded.getCurrentTurn());
+        assertEquals(GamePhase.SCORING_REVIEW, decoded.getPhase());
+        assertEquals(7, decoded.getGameId());
+        assertEquals("abc123", decoded.getSessionToken());
+        assertEquals(300, decoded.getLastSeq());
+        assertEquals(4, decoded.getScoreBlack());
+        assertEquals(-2, decoded.getScoreWhite());
+        assertArrayEquals(text.getBoard(), decoded.getBoard());
+        assertArrayEquals(text.getTerritoryMap(), decoded.getTerritoryMap());
+        assertArrayEquals(text.getDeadMask(), decoded.getDeadMask());
+    }
+
+    @Test
+    public void testBoardEncodedFromStateMatchesTranslatedText() {
+        Board board = new Board(5);
+        Game game = new Game(board);
+        game.playMove(PlayerColor.BLACK, 2, 2);
+        game.playMove(PlayerColor.WHITE, 4, 0);
+
+        String text = "BOARD 5\nROW ....O\nROW .....\nROW ..X..\nROW .....\nROW .....\nEND_BOARD\n";
+        assertArrayEquals(
+                BinaryProtocol.encodeServerText(text.getBytes(StandardCharsets.UTF_8)),
+                BinaryProtocol.encodeBoard(board.getState()));
+    }
+
+    @Test
+    public void testClientCommandsDecodeToMovesOnServer() throws Exception {
+        Board board = new Board(5);
+        Game game = new Game(board);
+        BinaryCommandFactory factory = new BinaryCommandFactory();
+
+        byte[] frame = BinaryProtocol.readFrame(new ByteArrayInputStream(BinaryProtocol.encodeClientLine("MOVE 3 1")));
+        GameCommand move = factory.fromFrame(frame, PlayerColor.BLACK);
+        move.execute(game);
+        assertEquals(Board.BLACK, board.getState()[3][1]);
+
+        byte[] pass = BinaryProtocol.readFrame(new ByteArrayInputStream(BinaryProtocol.encodeClientLine("pass")));
+        assertEquals(BinaryProtocol.OP_PASS, pass[0]);
+
+        byte[] watch = BinaryProtocol.readFrame(new ByteArrayInputStream(BinaryProtocol.encodeClientLine("WATCH 2")));
+        assertEquals(BinaryProtocol.OP_TEXT, watch[0]);
+        assertEquals("WATCH 2", BinaryProtocol.readText(watch));
+
+        assertThrows(IllegalArgumentException.class, () -> factory.fromFrame(new byte[]{0x55}, PlayerColor.BLACK));
+    }
+
+    @Test
+    public void testMovesFrameCarriesPassSeparatelyFromCoordinates() throws Exception {
+        BinaryCommandFactory factory = new BinaryCommandFactory(true);
+        GameCommand moves = new TextCommandFactory(true).fromNetworkMessage("MOVES 1 1 PASS 3 3", PlayerColor.BLACK);
+        byte[] frame = factory.encode(moves);
+        assertArrayEquals(frame, factory.encode(factory.fromFrame(frame, PlayerColor.BLACK)));
+
+        Game game = new Game(new Board(5));
+        factory.fromFrame(frame, PlayerColor.BLACK).execute(game);
+        assertEquals(Board.BLACK, game.getBoard().getState()[3][3]);
+        assertEquals(Board.EMPTY, game.getBoard().getState()[2][2]);
+
+        // współrzędna MIN_VALUE (wewnętrzny znacznik PASS) nie może udawać PASS
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BinaryProtocol.OP_MOVES);
+        BinaryProtocol.writeVarint(out, 1);
+        out.write(0);
+        BinaryProtocol.writeSignedVarint(out, Integer.MIN_VALUE);
+        BinaryProtocol.writeSignedVarint(out, 0);
+        assertThrows(IllegalArgumentException.class, () -> factory.fromFrame(out.toByteArray(), PlayerColor.BLACK));
+
+        // jak w protokole tekstowym: MOVES domyślnie wyłączone, seria 1..MAX_BATCH_MOVES
+        assertThrows(IllegalArgumentException.class, () -> new BinaryCommandFactory().fromFrame(frame, PlayerColor.BLACK));
+        for (int count : new int[]{0, TextCommandFactory.MAX_BATCH_MOVES + 1}) {
+            ByteArrayOutputStream bad = new ByteArrayOutputStream();
+            bad.write(BinaryProtocol.OP_MOVES);
+            BinaryProtocol.writeVarint(bad, count);
+            for (int i = 0; i < count; i++) {
+                bad.write(1);
+            }
+            assertThrows(IllegalArgumentException.class, () -> factory.fromFrame(bad.toByteArray(), PlayerColor.BLACK));
+        }
+    }
+}
@@ -12,6 +12,9 @@ import pl.edu.go.game.GameResult;
 import pl.edu.go.game.PlayerColor;
 
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -120,6 +123,37 @@ public class BoardLogicTest {
         assertFalse(b.playMove(Board.WHITE, 1, 1));
     }
 
+    @Test
+    public void testMoveReportsCapturedPointsAndKoPoint() {
+        Board b = new Board(5);
+
+        b.playMove(Board.BLACK, 1, 0);
+        b.playMove(Board.BLACK, 0, 1);
+        b.playMove(Board.BLACK, 1, 2);
+        b.playMove(Board.WHITE, 2, 0);
+        b.playMove(Board.WHITE, 3, 1);
+        b.playMove(Board.WHITE, 2, 2);
+        b.playMove(Board.WHITE, 1, 1);
+
+        // BLACK bije pojedynczy kamień na (1,1) -> powstaje KO
+        assertTrue(b.playMove(Board.BLACK, 2, 1));
+        assertArrayEquals(new int[]{b.point(1, 1)}, b.getLastCaptured());
+        assertEquals(b.point(1, 1), b.getKoPoint());
+
+        // natychmiastowe odbicie jest zabronione i nie zmienia delty poprzedniego ruchu
+        assertFalse(b.playMove(Board.WHITE, 1, 1));
+        assertEquals(Board.REJECT_KO, b.getLastRejection());
+        assertFalse(b.playMove(Board.WHITE, 2, 1));
+        assertEquals(Board.REJECT_OCCUPIED, b.getLastRejection());
+        assertArrayEquals(new int[]{b.point(1, 1)}, b.getLastCaptured());
+
+        // ruch w innym miejscu kasuje KO
+        assertTrue(b.playMove(Board.WHITE, 4, 4));
+        assertEquals(Board.REJECT_NONE, b.getLastRejection());
+        assertEquals(0, b.getLastCapturedCount());
+        assertEquals(-1, b.getKoPoint());
+    }
+
     // ====== TESTY GAME (ZASADA 8/10) ======
 
     private static AtomicReference<GameResult> attachResultCapture(Game g) {
@@ -140,6 +174,83 @@ public class BoardLogicTest {
         return ref;
     }
 
+    /** Zapisuje kolejne zdarzenia obserwatora jako tekst (punkty w kodowaniu {@code y * size + x}). */
+    private static List<String> recordEvents(Game g) {
+        List<String> events = new ArrayList<>();
+        g.addObserver(new GameObserver() {
+            @Override
+            public void onBoardChanged(Board board) {
+                events.add("board");
+            }
+
+            @Override
+            public void onGameEnded(GameResult result) {
+                events.add("end");
+            }
+
+            @Override
+            public void onPlayerToMoveChanged(PlayerColor player) {
+                events.add("turn " + player);
+            }
+
+            @Override
+            public void onPhaseChanged(GamePhase phase) {
+                events.add("phase " + phase);
+            }
+
+            @Override
+            public void onStonePlaced(PlayerColor player, int x, int y) {
+                events.add("placed " + player + " " + x + " " + y);
+            }
+
+            @Override
+            public void onStonesCaptured(PlayerColor capturedColor, int[] points) {
+                events.add("captured " + capturedColor + " " + Arrays.toString(points));
+            }
+
+            @Override
+            public void onKoPointChanged(int koPoint) {
+                events.add("ko " + koPoint);
+            }
+        });
+        return events;
+    }
+
+    /** Ruchy (na zmianę od BLACK) prowadzące do bicia na (1,1) przez BLACK (2,1), które tworzy KO. */
+    private static final int[] KO_XS = {1, 2, 0, 3, 1, 2, 4, 1, 2};
+    private static final int[] KO_YS = {0, 0, 1, 1, 2, 2, 4, 1, 1};
+
+    @Test
+    public void testMoveDeltasPrecedeBoardSnapshotAndTrackKo() {
+        Game g = new Game(new Board(5));
+        PlayerColor player = PlayerColor.BLACK;
+        for (int i = 0; i < KO_XS.length - 1; i++) {
+            g.playMove(player, KO_XS[i], KO_YS[i]);
+            player = player.opposite();
+        }
+        List<String> events = recordEvents(g);
+
+        g.playMove(PlayerColor.BLACK, 2, 1);
+        int ko = g.getBoard().point(1, 1);
+        assertEquals(List.of("placed BLACK 2 1", "captured WHITE [" + ko + "]", "ko " + ko, "board", "turn WHITE"),
+                events);
+
+        // ruch w innym miejscu kasuje KO; bez bicia nie ma zdarzenia zbicia
+        events.clear();
+        g.playMove(PlayerColor.WHITE, 4, 3);
+        assertEquals(List.of("placed WHITE 4 3", "ko -1", "board", "turn BLACK"), events);
+    }
+
+    @Test
+    public void testMovesBatchSilencesDeltasAndPublishesOneSnapshot() {
+        Game g = new Game(new Board(5));
+        List<String> events = recordEvents(g);
+
+        g.playMoves(PlayerColor.BLACK, KO_XS, KO_YS);
+
+        assertEquals(List.of("board", "ko " + g.getBoard().point(1, 1), "turn WHITE"), events);
+    }
+
     @Test
     public void testGameInitialPlayerIsBlack() {
         Game g = new Game(new Board(5));
@@ -0,0 +1,124 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.protocol.BinaryProtocol;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.ConnectionReaper;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+
+import java.io.BufferedReader;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.go.server.LoopbackLines.readUntil;
+import static pl.edu.go.server.LoopbackLines.reader;
+import static pl.edu.go.server.LoopbackLines.send;
+
+/**
+ * Testy heartbeatu: PING/PONG obsługiwane przez handler oraz zamykanie milczących połączeń
+ * przez {@link ConnectionReaper} (z własnym czasem przeglądu).
+ */
+public class ConnectionReaperTest {
+
+    private static final long PING = TimeUnit.SECONDS.toNanos(10);
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    @Test
+    public void testSilentConnectionIsPingedThenClosed() {
+        GameSession session = new GameSession(new Game(new Board(5)));
+        LoopbackTransport blackLink = new LoopbackTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+        ClientHandler black = new ClientHandler(blackLink, session, PlayerColor.BLACK);
+        ClientHandler white = new ClientHandler(whiteLink, session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black);
+        session.setPlayer(PlayerColor.WHITE, white);
+        for (ClientHandler h : new ClientHandler[]{black, white}) {
+            Thread t = new Thread(h, "Heartbeat-" + h.getColor());
+            t.setDaemon(true);
+            t.start();
+        }
+
+        ConnectionReaper reaper = new ConnectionReaper(PING, TIMEOUT);
+        reaper.track(black);
+        reaper.track(white);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertTrue(session.awaitPlayersReady(2000));
+            session.startGame();
+            BufferedReader blackIn = reader(blackLink);
+            BufferedReader whiteIn = reader(whiteLink);
+            readUntil(blackIn, "TURN BLACK");
+
+            long start = Math.max(black.lastSeen(), white.lastSeen());
+            assertEquals(0, reaper.reap(start + PING));
+            readUntil(whiteIn, "PING 1");
+            // kolejny przegląd w tej samej ciszy nie wysyła drugiego PING
+            reaper.reap(start + PING + 1);
+            readUntil(blackIn, "PING 1");
+
+            // czarny odpowiada (PONG) i sam pyta (PING) — odpowiedź potwierdza, że handler odnotował aktywność
+            send(blackLink, "PONG 1");
+            send(blackLink, "PING x");
+            readUntil(blackIn, "PONG x");
+
+            assertEquals(1, reaper.reap(white.lastSeen() + TIMEOUT));
+            assertTrue(white.isClosed());
+            assertFalse(black.isClosed());
+            assertEquals(1, reaper.size());
+            readUntil(blackIn, "INFO WHITE disconnected. Waiting for reconnect.");
+        });
+    }
+
+    @Test
+    public void testHeartbeatLinesDoNotReachSession() {
+        GameSession session = new GameSession(new Game(new Board(5)));
+        LoopbackTransport link = new LoopbackTransport();
+        ClientHandler black = new ClientHandler(link, session, PlayerColor.BLACK);
+        session.setPlayer(PlayerColor.BLACK, black);
+        Thread t = new Thread(black, "Heartbeat-BLACK");
+        t.setDaemon(true);
+        t.start();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            BufferedReader in = reader(link);
+            readUntil(in, "INFO Connected as BLACK");
+            send(link, "PONG 7");
+            send(link, "PING");
+            String line = in.readLine();
+            assertEquals("PONG", line, "PONG nie powinien wywołać ERROR w sesji");
+        });
+    }
+
+    @Test
+    public void testHandshakeLineCountsAsActivity() {
+        GameSession session = new GameSession(new Game(new Board(5)));
+        LoopbackTransport link = new LoopbackTransport();
+        ClientHandler black = new ClientHandler(link, session, PlayerColor.BLACK);
+        session.setPlayer(PlayerColor.BLACK, black);
+        Thread t = new Thread(black, "Heartbeat-BLACK");
+        t.setDaemon(true);
+        t.start();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            readUntil(reader(link), "INFO Connected as BLACK");
+            long before = black.lastSeen();
+            Thread.sleep(5);
+            send(link, BinaryProtocol.HANDSHAKE);
+            while (black.lastSeen() == before) {
+                Thread.sleep(1);
+            }
+            assertTrue(black.lastSeen() - before >= TimeUnit.MILLISECONDS.toNanos(5));
+        });
+    }
+
+    @Test
+    public void testRejectsPingNotBeforeTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionReaper(TIMEOUT, TIMEOUT));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionReaper(0, TIMEOUT));
+    }
+}
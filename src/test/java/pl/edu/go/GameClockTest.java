@@ -0,0 +1,199 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GameClock;
+import pl.edu.go.game.MoveHistory;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.game.TimeControl;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameJournal;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+import pl.edu.go.server.OutboundQueue;
+import pl.edu.go.server.SessionRegistry;
+import pl.edu.go.server.TimerWheel;
+
+import java.io.BufferedReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.go.server.LoopbackLines.readUntil;
+import static pl.edu.go.server.LoopbackLines.readUntilPrefix;
+import static pl.edu.go.server.LoopbackLines.reader;
+
+/**
+ * Testy kontroli czasu: rozliczanie zegara (na sztucznym czasie), koło timerów
+ * oraz zakończenie partii po przekroczeniu czasu.
+ */
+public class GameClockTest {
+
+    private static final long S = TimeUnit.SECONDS.toNanos(1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testTimeControlParseRoundTrip() {
+        for (String spec : new String[]{"absolute:600", "fischer:300+5", "byoyomi:600+5x30", "fischer:0.5+0.25"}) {
+            assertEquals(spec, TimeControl.parse(spec).toString());
+        }
+        TimeControl byo = TimeControl.parse("byoyomi:60+3x10");
+        assertEquals(TimeControl.Type.BYO_YOMI, byo.getType());
+        assertEquals(60_000, byo.getMainMillis());
+        assertEquals(3, byo.getPeriods());
+        assertEquals(10_000, byo.getPeriodMillis());
+
+        for (String bad : new String[]{"absolute", "fischer:300", "byoyomi:600+5", "absolute:0", "blitz:60", "absolute:x"}) {
+            assertThrows(IllegalArgumentException.class, () -> TimeControl.parse(bad), bad);
+        }
+    }
+
+    @Test
+    public void testAbsoluteAndFischerCharging() {
+        GameClock abs = new GameClock(TimeControl.absolute(10_000));
+        assertTrue(abs.start(PlayerColor.BLACK, 0));
+        assertTrue(abs.start(PlayerColor.WHITE, 4 * S));
+        assertEquals(6_000, abs.remainingMillis(PlayerColor.BLACK, 4 * S));
+        assertTrue(abs.start(PlayerColor.BLACK, 5 * S));
+        assertEquals(5 * S + 6 * S, abs.deadline());
+        assertFalse(abs.isFlagged(11 * S - 1));
+        assertTrue(abs.isFlagged(11 * S));
+        assertFalse(abs.start(PlayerColor.WHITE, 12 * S), "Czarny przekroczył czas");
+
+        GameClock fischer = new GameClock(TimeControl.fischer(10_000, 3_000));
+        fischer.start(PlayerColor.BLACK, 0);
+        assertTrue(fischer.start(PlayerColor.WHITE, 4 * S));
+        assertEquals(9_000, fischer.remainingMillis(PlayerColor.BLACK, 4 * S), "10 - 4 + 3 s przyrostu");
+        assertTrue(fischer.stop(5 * S));
+        assertNull(fischer.getRunning());
+        assertEquals(Long.MAX_VALUE, fischer.deadline());
+    }
+
+    @Test
+    public void testByoYomiPeriods() {
+        GameClock clock = new GameClock(TimeControl.byoYomi(10_000, 3, 5_000));
+        clock.start(PlayerColor.BLACK, 0);
+        // 10 s podstawowego + 7 s: jeden pełny okres przepada, bieżący się odnawia
+        assertEquals(2, clock.periodsLeft(PlayerColor.BLACK, 17 * S));
+        assertEquals(3_000, clock.remainingMillis(PlayerColor.BLACK, 17 * S));
+        assertTrue(clock.start(PlayerColor.WHITE, 17 * S));
+        assertEquals(2, clock.periodsLeft(PlayerColor.BLACK, 17 * S));
+        assertEquals(5_000, clock.remainingMillis(PlayerColor.BLACK, 17 * S));
+
+        // ruch w okresie nie zużywa go
+        clock.start(PlayerColor.BLACK, 18 * S);
+        assertTrue(clock.start(PlayerColor.WHITE, 22 * S));
+        assertEquals(2, clock.periodsLeft(PlayerColor.BLACK, 22 * S));
+
+        clock.start(PlayerColor.BLACK, 30 * S);
+        assertEquals(30 * S + 10 * S, clock.deadline());
+        assertFalse(clock.start(PlayerColor.WHITE, 40 * S), "Wyczerpane oba okresy");
+    }
+
+    @Test
+    public void testTimerWheelRunsAndCancels() throws Exception {
+        try (TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 8)) {
+            CountDownLatch fired = new CountDownLatch(2);
+            AtomicBoolean cancelledRan = new AtomicBoolean();
+            long start = System.nanoTime();
+
+            wheel.schedule(fired::countDown, 5, TimeUnit.MILLISECONDS);
+            // dłużej niż pełny obrót koła (8 ms)
+            TimerWheel.Timeout late = wheel.schedule(fired::countDown, 30, TimeUnit.MILLISECONDS);
+            TimerWheel.Timeout cancelled = wheel.schedule(() -> cancelledRan.set(true), 10, TimeUnit.MILLISECONDS);
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30), "Nie przed terminem");
+            assertTrue(late.isExpired());
+            assertTrue(cancelled.isCancelled());
+            assertFalse(cancelledRan.get());
+            assertEquals(0, wheel.pending());
+        }
+    }
+
+    @Test
+    public void testFlagEndsGameAndIsJournaled() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        try (TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 64);
+             GameJournal journal = GameJournal.open(file, 0)) {
+            Game game = new Game(new Board(5));
+            GameSession session = new GameSession(7, game, journal, TimeControl.absolute(200), wheel);
+            LoopbackTransport blackLink = new LoopbackTransport();
+            LoopbackTransport whiteLink = new LoopbackTransport();
+            ClientHandler black = new ClientHandler(blackLink, session, PlayerColor.BLACK);
+            ClientHandler white = new ClientHandler(whiteLink, session, PlayerColor.WHITE);
+            session.setPlayer(PlayerColor.BLACK, black);
+            session.setPlayer(PlayerColor.WHITE, white);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                session.startGame();
+                BufferedReader in = reader(whiteLink);
+                readUntilPrefix(in, "CLOCK BLACK ");
+                session.handleClientMessage(black, "MOVE 2 2");
+                readUntilPrefix(in, "CLOCK WHITE ");
+                // biały nie odpowiada: timer kończy partię
+                readUntil(in, "END BLACK time");
+            });
+
+            assertTrue(game.isFinished());
+            assertEquals(PlayerColor.BLACK, game.getResult().getWinner());
+            MoveHistory history = game.getHistory();
+            assertEquals(MoveHistory.TIMEOUT, MoveHistory.code(history.get(history.size() - 1)));
+            journal.awaitDurable();
+        }
+
+        // rekord TIMEOUT kończy grę także przy odtwarzaniu, więc nie ma czego wznawiać
+        assertTrue(GameJournal.recover(file).games().isEmpty());
+    }
+
+    @Test
+    public void testClockStateSurvivesRestartAndWaitsForPlayer() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        TimeControl control = TimeControl.absolute(60_000);
+        String blackToken;
+        try (TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 64);
+             GameJournal journal = GameJournal.open(file, 0)) {
+            GameSession session = new GameSession(3, new Game(new Board(5)), journal, control, wheel);
+            ClientHandler black = new ClientHandler(new LoopbackTransport(), session, PlayerColor.BLACK);
+            ClientHandler white = new ClientHandler(new LoopbackTransport(), session, PlayerColor.WHITE);
+            session.setPlayer(PlayerColor.BLACK, black);
+            session.setPlayer(PlayerColor.WHITE, white);
+            session.startGame();
+            Thread.sleep(300);
+            session.handleClientMessage(black, "MOVE 2 2");
+            blackToken = session.getToken(PlayerColor.BLACK);
+            journal.awaitDurable();
+        }
+
+        GameJournal.RecoveredGame g = GameJournal.recover(file).games().get(0);
+        assertNotNull(g.clock());
+        assertTrue(g.clock().blackMillis() <= 59_700, "Czas czarnego rozliczony przed restartem");
+        assertEquals(60_000, g.clock().whiteMillis());
+
+        try (GameJournal journal = GameJournal.open(file, GameJournal.recover(file).validLength())) {
+            SessionRegistry registry = new SessionRegistry(5, OutboundQueue::new, journal, control);
+            registry.restore(GameJournal.recover(file).games());
+            LoopbackTransport link = new LoopbackTransport();
+            ClientHandler black = registry.accept(link);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                registry.dispatch(black, "RESUME_SESSION " + blackToken);
+                BufferedReader in = reader(link);
+                // migawka: zegary stoją z czasem sprzed restartu, po powrocie rusza zegar białego
+                String paused = readUntilPrefix(in, "CLOCK ");
+                assertTrue(paused.startsWith("CLOCK NONE "), paused);
+                assertTrue(Long.parseLong(paused.split(" ")[2]) <= 59_700, paused);
+                assertTrue(readUntilPrefix(in, "CLOCK ").startsWith("CLOCK WHITE "));
+            });
+        }
+    }
+}
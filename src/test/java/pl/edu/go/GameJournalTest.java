@@ -0,0 +1,170 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.edu.go.board.Board;
+import pl.edu.go.command.GameCommand;
+import pl.edu.go.command.PassCommand;
+import pl.edu.go.command.ResignCommand;
+import pl.edu.go.command.TextCommandFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GameSnapshotCodec;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.server.GameJournal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy dziennika gier: odtworzenie gry z zapisanych komend, odrzucenie uciętego ogona pliku
+ * oraz kompaktowanie (migawki trwających gier, usunięcie gier zakończonych).
+ */
+public class GameJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRecoveryReplaysAcceptedCommands() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        TextCommandFactory factory = new TextCommandFactory();
+
+        try (GameJournal journal = GameJournal.open(file, 0)) {
+            journal.appendStart(3, 5, "tb", "tw");
+            journal.appendCommand(3, PlayerColor.BLACK, factory.fromNetworkMessage("MOVE 2 2", PlayerColor.BLACK));
+            journal.appendCommand(3, PlayerColor.WHITE, factory.fromNetworkMessage("MOVE 1 0", PlayerColor.WHITE));
+            journal.appendCommand(3, PlayerColor.BLACK, PassCommand.of(PlayerColor.BLACK));
+            journal.awaitDurable();
+        }
+
+        GameJournal.Recovery recovery = GameJournal.recover(file);
+        assertEquals(Files.size(file), recovery.validLength());
+        assertEquals(1, recovery.games().size());
+
+        GameJournal.RecoveredGame g = recovery.games().get(0);
+        assertEquals(3, g.id());
+        assertEquals("tb", g.blackToken());
+        assertEquals("tw", g.whiteToken());
+        assertEquals(3, g.commands());
+        assertEquals(Board.BLACK, g.game().getBoard().getState()[2][2]);
+        assertEquals(Board.WHITE, g.game().getBoard().getState()[1][0]);
+        assertEquals(PlayerColor.WHITE, g.game().getCurrentPlayer());
+    }
+
+    @Test
+    public void testTornTailIsIgnoredAndTruncated() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        TextCommandFactory factory = new TextCommandFactory();
+
+        try (GameJournal journal = GameJournal.open(file, 0)) {
+            journal.appendStart(1, 5, "a", "b");
+            journal.appendCommand(1, PlayerColor.BLACK, factory.fromNetworkMessage("MOVE 0 0", PlayerColor.BLACK));
+        }
+        long complete = Files.size(file);
+
+        // niedokończony rekord po awarii w trakcie zapisu
+        Files.write(file, new byte[]{9, 2, 1}, StandardOpenOption.APPEND);
+
+        GameJournal.Recovery recovery = GameJournal.recover(file);
+        assertEquals(complete, recovery.validLength());
+        assertEquals(1, recovery.games().get(0).commands());
+
+        try (GameJournal journal = GameJournal.open(file, recovery.validLength())) {
+            journal.appendCommand(1, PlayerColor.WHITE, factory.fromNetworkMessage("MOVE 4 4", PlayerColor.WHITE));
+        }
+        GameJournal.RecoveredGame g = GameJournal.recover(file).games().get(0);
+        assertEquals(2, g.commands());
+        assertEquals(Board.WHITE, g.game().getBoard().getState()[4][4]);
+    }
+
+    @Test
+    public void testCompactionKeepsLiveGamesAndDropsFinished() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        TextCommandFactory factory = new TextCommandFactory();
+        Game live = new Game(new Board(5));
+
+        try (GameJournal journal = GameJournal.open(file, 0)) {
+            journal.appendStart(1, 5, "b1", "w1");
+            journal.appendStart(2, 5, "b2", "w2");
+            PlayerColor player = PlayerColor.BLACK;
+            for (String move : new String[]{"MOVE 0 0", "MOVE 4 4", "MOVE 1 1", "MOVE 3 3"}) {
+                GameCommand command = factory.fromNetworkMessage(move, player);
+                command.execute(live);
+                journal.appendCommand(1, player, command);
+                player = player.opposite();
+            }
+            journal.appendCommand(2, PlayerColor.BLACK, ResignCommand.of(PlayerColor.BLACK));
+            journal.awaitDurable();
+
+            // gra zakończona nie jest odtwarzana nawet bez kompaktowania
+            assertEquals(List.of(1), ids(GameJournal.recover(file)));
+
+            journal.beginCompaction();
+            journal.appendStart(3, 5, "b3", "w3");
+            journal.compactSession(1, "b1", "w1", 4, GameSnapshotCodec.encode(live), null, 0);
+            journal.appendCommand(1, PlayerColor.BLACK, factory.fromNetworkMessage("MOVE 2 2", PlayerColor.BLACK));
+            journal.appendCommand(2, PlayerColor.WHITE, PassCommand.of(PlayerColor.WHITE));
+            journal.finishCompaction();
+
+            journal.appendCommand(1, PlayerColor.WHITE, factory.fromNetworkMessage("MOVE 2 3", PlayerColor.WHITE));
+            journal.awaitDurable();
+        }
+
+        GameJournal.Recovery recovery = GameJournal.recover(file);
+        assertEquals(Files.size(file), recovery.validLength());
+        assertEquals(List.of(3, 1), ids(recovery));
+
+        GameJournal.RecoveredGame g = recovery.games().get(1);
+        assertEquals("b1", g.blackToken());
+        assertEquals(6, g.commands());
+        int[][] state = g.game().getBoard().getState();
+        assertEquals(Board.BLACK, state[0][0]);
+        assertEquals(Board.WHITE, state[3][3]);
+        assertEquals(Board.BLACK, state[2][2]);
+        assertEquals(Board.WHITE, state[2][3]);
+        assertEquals(PlayerColor.BLACK, g.game().getCurrentPlayer());
+    }
+
+    @Test
+    public void testSnapshotLongerThanProtocolFrameIsRecovered() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        TextCommandFactory factory = new TextCommandFactory();
+        Game live = new Game(new Board(5));
+        String token = "b".repeat(70_000);
+
+        try (GameJournal journal = GameJournal.open(file, 0)) {
+            journal.appendStart(1, 5, token, "w1");
+            journal.beginCompaction();
+            journal.compactSession(1, token, "w1", 0, GameSnapshotCodec.encode(live), null, 0);
+            journal.finishCompaction();
+            journal.appendCommand(1, PlayerColor.BLACK, factory.fromNetworkMessage("MOVE 2 2", PlayerColor.BLACK));
+            journal.awaitDurable();
+
+            // rekord, którego odczyt nie przyjąłby, nie może trafić do pliku
+            assertThrows(IllegalArgumentException.class, () -> {
+                journal.beginCompaction();
+                try {
+                    journal.compactSession(1, "b".repeat(1 << 24), "w1", 1, GameSnapshotCodec.encode(live), null, 0);
+                } finally {
+                    journal.abortCompaction();
+                }
+            });
+        }
+
+        GameJournal.Recovery recovery = GameJournal.recover(file);
+        assertEquals(Files.size(file), recovery.validLength(), "Długi rekord nie jest uszkodzonym ogonem");
+        GameJournal.RecoveredGame g = recovery.games().get(0);
+        assertEquals(token, g.blackToken());
+        assertEquals(1, g.commands());
+        assertEquals(Board.BLACK, g.game().getBoard().getState()[2][2]);
+    }
+
+    private static List<Integer> ids(GameJournal.Recovery recovery) {
+        return recovery.games().stream().map(GameJournal.RecoveredGame::id).collect(Collectors.toList());
+    }
+}
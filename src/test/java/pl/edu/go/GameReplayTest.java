@@ -0,0 +1,70 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GameReplay;
+import pl.edu.go.game.PlayerColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy powtórki partii: pozycja po dowolnym ruchu (w dowolnej kolejności przewijania)
+ * jest taka sama jak w trakcie gry, także w sytuacji KO.
+ */
+public class GameReplayTest {
+
+    @Test
+    public void testSeekMatchesPositionsFromGame() {
+        Game game = new Game(new Board(7));
+        List<int[][]> positions = new ArrayList<>();
+        positions.add(game.getBoard().getState());
+
+        // kolejne pola planszy (pomijane, gdy ruch jest nielegalny), co 5. ruch PASS
+        int p = 0;
+        while (game.getMoveNumber() < 40) {
+            PlayerColor player = game.getCurrentPlayer();
+            if (game.getMoveNumber() % 5 == 4) {
+                game.pass(player);
+            } else {
+                while (true) {
+                    int x = (p * 3) % 7;
+                    int y = (p * 5 / 7) % 7;
+                    p++;
+                    try {
+                        game.playMove(player, x, y);
+                        break;
+                    } catch (IllegalArgumentException ignored) {
+                        // zajęte lub nielegalne pole — próbujemy następnego
+                    }
+                }
+            }
+            positions.add(game.getBoard().getState());
+        }
+
+        GameReplay replay = new GameReplay(7, game.getHistory().toArray(), 4);
+        assertEquals(40, replay.getMoveCount());
+
+        int[] order = {40, 0, 17, 18, 23, 3, 39, 21, 20, 8};
+        for (int n : order) {
+            assertArrayEquals(positions.get(n), replay.stateAt(n), "Pozycja po ruchu " + n);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> replay.stateAt(41));
+    }
+
+    @Test
+    public void testReplayedBoardKeepsKo() {
+        Game game = new Game(new Board(5));
+        int[][] moves = {{1, 0}, {2, 0}, {0, 1}, {3, 1}, {1, 2}, {2, 2}, {4, 4}, {1, 1}, {2, 1}};
+        for (int[] m : moves) {
+            game.playMove(game.getCurrentPlayer(), m[0], m[1]);
+        }
+
+        Board atEnd = new GameReplay(5, game.getHistory().toArray(), 2).boardAt(moves.length);
+        assertEquals(game.getBoard().getKoPoint(), atEnd.getKoPoint());
+        assertFalse(atEnd.playMove(Board.WHITE, 1, 1), "Natychmiastowe odbicie KO powinno być zabronione");
+    }
+}
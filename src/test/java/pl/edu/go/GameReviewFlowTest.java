@@ -6,9 +6,11 @@ import pl.edu.go.game.Game;
 import pl.edu.go.game.GameObserver;
 import pl.edu.go.game.GamePhase;
 import pl.edu.go.game.GameResult;
+import pl.edu.go.game.MoveHistory;
 import pl.edu.go.game.PlayerColor;
 
 import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -108,4 +110,75 @@ class GameReviewFlowTest {
         assertEquals(PlayerColor.WHITE, r.getWinner());
         assertTrue(r.getReason().toLowerCase().contains("resign"));
     }
+
+    @Test
+    void movesBatch_publishesSingleSnapshot() {
+        Game g = new Game(new Board(9));
+        AtomicInteger boardEvents = new AtomicInteger();
+        AtomicInteger turnEvents = new AtomicInteger();
+        g.addObserver((GameObserver) Proxy.newProxyInstance(
+                GameObserver.class.getClassLoader(),
+                new Class<?>[]{GameObserver.class},
+                (proxy, method, args) -> {
+                    if ("onBoardChanged".equals(method.getName())) boardEvents.incrementAndGet();
+                    if ("onPlayerToMoveChanged".equals(method.getName())) turnEvents.incrementAndGet();
+                    return null;
+                }
+        ));
+
+        g.playMoves(PlayerColor.BLACK, new int[]{2, 6, Game.PASS_COORDINATE, 4}, new int[]{2, 6, 0, 4});
+
+        assertEquals(1, boardEvents.get(), "Seria ruchów powinna dać jedną migawkę planszy");
+        assertEquals(1, turnEvents.get());
+        assertEquals(PlayerColor.BLACK, g.getCurrentPlayer());
+        assertEquals(Board.WHITE, g.getBoard().getState()[4][4]);
+    }
+
+    @Test
+    void movesBatch_illegalMoveRollsBackWholeBatch() {
+        Game g = new Game(new Board(9));
+        g.playMove(PlayerColor.BLACK, 0, 0);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> g.playMoves(PlayerColor.WHITE, new int[]{1, 3, 0}, new int[]{1, 3, 0}));
+
+        assertTrue(e.getMessage().startsWith("MOVES #3"), "Błąd powinien wskazywać numer ruchu");
+        assertEquals(PlayerColor.WHITE, g.getCurrentPlayer());
+        assertEquals(Board.EMPTY, g.getBoard().getState()[1][1]);
+        assertEquals(Board.EMPTY, g.getBoard().getState()[3][3]);
+        assertEquals(Board.BLACK, g.getBoard().getState()[0][0]);
+    }
+
+    @Test
+    void history_recordsMovesPassesReviewAndResign() {
+        Game g = new Game(new Board(9));
+        g.playMove(PlayerColor.BLACK, 2, 3);
+        g.pass(PlayerColor.WHITE);
+        g.pass(PlayerColor.BLACK);
+        g.resume(PlayerColor.BLACK);
+        g.resign(PlayerColor.WHITE);
+
+        MoveHistory h = g.getHistory();
+        assertEquals(5, h.size());
+        assertEquals(3, g.getMoveNumber(), "Numer ruchu liczy kamienie i PASS");
+
+        assertEquals(PlayerColor.BLACK, MoveHistory.player(h.get(0)));
+        assertEquals(g.getBoard().point(2, 3), MoveHistory.code(h.get(0)));
+        assertEquals(MoveHistory.encode(PlayerColor.WHITE, MoveHistory.PASS), h.get(1));
+        assertEquals(MoveHistory.encode(PlayerColor.BLACK, MoveHistory.PASS), h.get(2));
+        assertEquals(MoveHistory.encode(PlayerColor.BLACK, MoveHistory.RESUME), h.get(3));
+        assertEquals(MoveHistory.encode(PlayerColor.WHITE, MoveHistory.RESIGN), h.get(4));
+    }
+
+    @Test
+    void history_rolledBackWithFailedBatch() {
+        Game g = new Game(new Board(9));
+        g.playMove(PlayerColor.BLACK, 0, 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> g.playMoves(PlayerColor.WHITE, new int[]{1, 0}, new int[]{1, 0}));
+
+        assertEquals(1, g.getHistory().size());
+        assertEquals(1, g.getMoveNumber());
+    }
 }
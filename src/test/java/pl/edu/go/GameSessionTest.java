@@ -1,51 +1,76 @@
 package pl.edu.go;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import pl.edu.go.board.Board;
 import pl.edu.go.game.Game;
 import pl.edu.go.game.PlayerColor;
 import pl.edu.go.server.ClientHandler;
 import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+import pl.edu.go.server.OutboundQueue;
+import pl.edu.go.server.SessionRegistry;
+import pl.edu.go.server.SessionStore;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.go.server.LoopbackLines.readUntil;
+import static pl.edu.go.server.LoopbackLines.reader;
+import static pl.edu.go.server.LoopbackLines.send;
 
 /**
  * Testy warstwy serwerowej (GameSession) bez użycia prawdziwych socketów.
  *
- * Uwaga: ClientHandler jest final, więc nie dziedziczymy po nim.
- * Zamiast tego tworzymy normalny ClientHandler i wstrzykujemy mu PrintWriter przez refleksję.
+ * Klienci są podłączeni przez {@link LoopbackTransport}: handler nie uruchamia run(), więc ramki
+ * trafiają do transportu synchronicznie i po każdym wywołaniu sesji można je od razu odczytać.
  */
 public class GameSessionTest {
 
     private static final class CapturingClient {
         final ClientHandler handler;
+        final InputStream in;
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
         CapturingClient(GameSession session, PlayerColor color) {
-            // socket może być null – nie uruchamiamy run(), tylko chcemy przechwycić sendLine()
-            this.handler = new ClientHandler(null, session, color);
-
-            PrintWriter pw = new PrintWriter(
-                    new OutputStreamWriter(baos, StandardCharsets.UTF_8),
-                    true
-            );
-            injectPrintWriter(handler, pw);
+            LoopbackTransport link = new LoopbackTransport();
+            this.handler = new ClientHandler(link, session, color);
+            this.in = link.peer().getInputStream();
+        }
+
+        /** Nowe, jeszcze nieposadzone połączenie przyjęte przez rejestr. */
+        CapturingClient(SessionRegistry registry) {
+            LoopbackTransport link = new LoopbackTransport();
+            this.handler = registry.accept(link);
+            this.in = link.peer().getInputStream();
+        }
+
+        /** Przenosi dane już wysłane przez serwer do lokalnego bufora (bez blokowania). */
+        private void drain() {
+            try {
+                baos.write(in.readNBytes(in.available()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
 
         void clear() {
+            drain();
             baos.reset();
         }
 
         List<String> lines() {
+            drain();
             String raw = baos.toString(StandardCharsets.UTF_8);
             return Arrays.stream(raw.split("\\R"))
                     .map(String::trim)
@@ -62,26 +87,6 @@ public class GameSessionTest {
         }
     }
 
-    private static void injectPrintWriter(ClientHandler h, PrintWriter pw) {
-        try {
-            // szukamy pola typu PrintWriter (nie zakładamy nazwy "out")
-            Field target = null;
-            for (Field f : ClientHandler.class.getDeclaredFields()) {
-                if (f.getType().equals(PrintWriter.class)) {
-                    target = f;
-                    break;
-                }
-            }
-            if (target == null) {
-                throw new IllegalStateException("ClientHandler has no PrintWriter field to inject.");
-            }
-            target.setAccessible(true);
-            target.set(h, pw);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to inject PrintWriter into ClientHandler: " + e.getMessage(), e);
-        }
-    }
-
     @Test
     public void testStartGameSendsWelcomeBoardAndTurn() {
         Board board = new Board(5);
@@ -159,4 +164,237 @@ public class GameSessionTest {
                 "Jeśli BLACK próbuje ruszyć w turze WHITE, powinien dostać ERROR"
         );
     }
+
+    @Test
+    public void testMovesIsRejectedUnlessEnabled() {
+        Game game = new Game(new Board(5));
+        GameSession session = new GameSession(game);
+        CapturingClient black = new CapturingClient(session, PlayerColor.BLACK);
+        CapturingClient white = new CapturingClient(session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black.handler);
+        session.setPlayer(PlayerColor.WHITE, white.handler);
+        session.startGame();
+        white.clear();
+
+        // bez -Dgo.allowBatchMoves=true (zob. BatchMovesTest) seria jest odrzucana w całości
+        session.handleClientMessage(black.handler, "MOVES 2 2 3 3");
+
+        assertTrue(black.containsExact("ERROR MOVES is disabled on this server"));
+        assertTrue(white.lines().isEmpty());
+        assertEquals(0, game.getHistory().size());
+    }
+
+    @Test
+    public void testWatcherGetsSnapshotThenMovesButCannotPlay() {
+        Board board = new Board(5);
+        Game game = new Game(board);
+        GameSession session = new GameSession(game);
+
+        CapturingClient black = new CapturingClient(session, PlayerColor.BLACK);
+        CapturingClient white = new CapturingClient(session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black.handler);
+        session.setPlayer(PlayerColor.WHITE, white.handler);
+        session.startGame();
+        session.handleClientMessage(black.handler, "MOVE 2 2");
+
+        // obserwator dołącza w trakcie gry (kolor null = obserwator)
+        CapturingClient watcher = new CapturingClient(session, null);
+        session.addWatcher(watcher.handler);
+
+        assertTrue(watcher.containsExact("BOARD 5"), "Obserwator powinien dostać migawkę planszy");
+        assertTrue(watcher.containsExact("ROW ..X.."), "Migawka powinna zawierać wykonany ruch");
+        assertTrue(watcher.containsExact("TURN WHITE"), "Migawka powinna zawierać gracza na ruchu");
+        watcher.clear();
+
+        session.handleClientMessage(white.handler, "MOVE 1 1");
+        assertTrue(watcher.containsExact("TURN BLACK"), "Obserwator powinien dostawać kolejne zdarzenia");
+
+        session.handleClientMessage(watcher.handler, "PASS");
+        assertTrue(watcher.containsStartsWith("ERROR"), "Obserwator nie może wykonywać komend gry");
+        assertEquals(PlayerColor.BLACK, game.getCurrentPlayer());
+    }
+
+    @Test
+    public void testResumedPlayerGetsOnlyMissedEvents() {
+        Board board = new Board(5);
+        Game game = new Game(board);
+        GameSession session = new GameSession(game);
+
+        CapturingClient black = new CapturingClient(session, PlayerColor.BLACK);
+        CapturingClient white = new CapturingClient(session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black.handler);
+        session.setPlayer(PlayerColor.WHITE, white.handler);
+        session.startGame();
+        session.handleClientMessage(black.handler, "MOVE 2 2");
+        long seenByBlack = session.getSeq();
+
+        // BLACK traci połączenie, WHITE gra dalej
+        session.connectionClosed(black.handler);
+        session.handleClientMessage(white.handler, "MOVE 1 1");
+
+        CapturingClient resumed = new CapturingClient(session, PlayerColor.BLACK);
+        session.resumePlayer(PlayerColor.BLACK, resumed.handler, seenByBlack);
+
+        assertTrue(resumed.containsExact("WELCOME BLACK"), "Wznowiony gracz powinien dostać WELCOME");
+        assertTrue(resumed.containsExact("ROW .O..."), "Powinien dostać pominięty ruch przeciwnika");
+        assertTrue(resumed.containsExact("TURN BLACK"), "Powinien dostać aktualnego gracza na ruchu");
+        assertTrue(resumed.containsExact("SEQ " + session.getSeq()), "Powtórka kończy się bieżącym SEQ");
+        assertFalse(resumed.containsExact("INFO Resync"), "Brakujące zdarzenia są w buforze — bez pełnej migawki");
+
+        session.handleClientMessage(resumed.handler, "MOVE 3 3");
+        assertEquals(PlayerColor.WHITE, game.getCurrentPlayer(), "Wznowiony gracz może kontynuować grę");
+    }
+
+    @Test
+    public void testIdleSessionHibernatesAndWakesOnWatch(@TempDir Path dir) throws Exception {
+        GameSession session = new GameSession(new Game(new Board(5)));
+        SessionStore store = new SessionStore(dir);
+
+        CapturingClient black = new CapturingClient(session, PlayerColor.BLACK);
+        CapturingClient white = new CapturingClient(session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black.handler);
+        session.setPlayer(PlayerColor.WHITE, white.handler);
+        session.startGame();
+        session.handleClientMessage(black.handler, "MOVE 2 2");
+
+        assertFalse(session.hibernateIfIdle(store, 0, System.nanoTime()), "Sesja z graczami nie jest usypiana");
+
+        session.connectionClosed(black.handler);
+        session.connectionClosed(white.handler);
+        assertTrue(session.hibernateIfIdle(store, 0, System.nanoTime()));
+        assertTrue(session.isHibernated());
+
+        CapturingClient watcher = new CapturingClient(session, null);
+        session.addWatcher(watcher.handler);
+
+        assertFalse(session.isHibernated(), "WATCH powinien wybudzić sesję");
+        assertTrue(watcher.containsExact("ROW ..X.."), "Wybudzona gra powinna mieć stan sprzed uśpienia");
+        assertTrue(watcher.containsExact("TURN WHITE"));
+    }
+
+    @Test
+    public void testLoopbackClientsPlayThroughRegistry() {
+        SessionRegistry registry = new SessionRegistry(5, OutboundQueue::new);
+        LoopbackTransport blackLink = new LoopbackTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+
+        ClientHandler blackHandler = registry.accept(blackLink);
+        ClientHandler whiteHandler = registry.accept(whiteLink);
+
+        // pełny handler: pętla odczytu i wątek piszący, jak dla połączenia TCP
+        for (ClientHandler h : List.of(blackHandler, whiteHandler)) {
+            Thread t = new Thread(h, "Loopback");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            BufferedReader black = reader(blackLink);
+            BufferedReader white = reader(whiteLink);
+
+            // miejsce jest przydzielane dopiero po pierwszej linii klienta
+            send(blackLink, "PLAY");
+            while (blackHandler.getSession() == null) {
+                Thread.onSpinWait();
+            }
+            assertEquals(PlayerColor.BLACK, blackHandler.getColor());
+            send(whiteLink, "PLAY");
+
+            readUntil(black, "SEQ 1");
+            readUntil(white, "SEQ 1");
+            GameSession session = blackHandler.getSession();
+            assertSame(session, whiteHandler.getSession());
+            assertTrue(session.isStarted(), "Drugi klient kompletuje i startuje sesję");
+
+            send(blackLink, "MOVE 2 2");
+
+            readUntil(white, "TURN WHITE");
+            readUntil(white, "SEQ 2");
+
+            // zamknięcie strony klienta kończy pętlę odczytu i zwalnia miejsce
+            blackLink.peer().close();
+            readUntil(white, "INFO BLACK disconnected. Waiting for reconnect.");
+        });
+    }
+
+    @Test
+    public void testResumeDoesNotCompleteWaitingGame() {
+        SessionRegistry registry = new SessionRegistry(5, OutboundQueue::new);
+        CapturingClient black = new CapturingClient(registry);
+        CapturingClient white = new CapturingClient(registry);
+        registry.dispatch(black.handler, "PLAY");
+        registry.dispatch(white.handler, "PLAY");
+        GameSession game = black.handler.getSession();
+        assertTrue(game.isStarted());
+        String token = game.getToken(PlayerColor.BLACK);
+
+        // trzeci klient czeka na przeciwnika w nowej grze
+        CapturingClient waiting = new CapturingClient(registry);
+        registry.dispatch(waiting.handler, "PLAY");
+        GameSession next = waiting.handler.getSession();
+        assertNotSame(game, next);
+
+        // czarny traci połączenie i wraca nowym połączeniem
+        game.connectionClosed(black.handler);
+        CapturingClient back = new CapturingClient(registry);
+        registry.dispatch(back.handler, "RESUME_SESSION " + token);
+
+        assertSame(game, back.handler.getSession());
+        assertEquals(PlayerColor.BLACK, back.handler.getColor());
+        assertFalse(next.isStarted(), "Powrót gracza nie może kompletować oczekującej gry");
+        assertSame(next, waiting.handler.getSession());
+        assertFalse(waiting.containsStartsWith("WELCOME"));
+        assertFalse(waiting.containsStartsWith("INFO Opponent"));
+        assertFalse(back.containsExact("SESSION " + next.getId() + " " + next.getToken(PlayerColor.WHITE)));
+
+        // nieposadzony klient sadzany jest pierwszą inną linią
+        CapturingClient late = new CapturingClient(registry);
+        registry.dispatch(late.handler, "PLAY");
+        assertSame(next, late.handler.getSession());
+        assertTrue(next.isStarted());
+        assertTrue(waiting.containsExact("WELCOME BLACK"));
+    }
+
+    @Test
+    public void testFinishedSessionIsEvictedWhenAbandoned(@TempDir Path dir) throws Exception {
+        SessionRegistry registry = new SessionRegistry(5, OutboundQueue::new);
+        SessionStore store = new SessionStore(dir);
+        CapturingClient black = new CapturingClient(registry);
+        CapturingClient white = new CapturingClient(registry);
+        registry.dispatch(black.handler, "PLAY");
+        registry.dispatch(white.handler, "PLAY");
+        GameSession game = black.handler.getSession();
+        String token = game.getToken(PlayerColor.BLACK);
+        store.save(game.getId(), new byte[]{1});
+
+        long retention = Duration.ofHours(1).toNanos();
+        assertEquals(0, registry.evictFinished(store, retention), "Trwająca gra zostaje w rejestrze");
+        registry.dispatch(black.handler, "RESIGN");
+        assertEquals(0, registry.evictFinished(store, retention), "Gracze wciąż oglądają wynik");
+        assertEquals(1, registry.evictFinished(store, 0), "Po czasie przechowywania gra jest usuwana");
+        assertNull(registry.get(game.getId()));
+        assertThrows(IOException.class, () -> store.read(game.getId()), "Migawka powinna zniknąć z magazynu");
+
+        CapturingClient back = new CapturingClient(registry);
+        registry.dispatch(back.handler, "RESUME_SESSION " + token);
+        assertTrue(back.containsExact("ERROR Unknown session token"));
+    }
+
+    @Test
+    public void testFinishedSessionLeavesRegistryWithLastClient() {
+        SessionRegistry registry = new SessionRegistry(5, OutboundQueue::new);
+        CapturingClient black = new CapturingClient(registry);
+        CapturingClient white = new CapturingClient(registry);
+        registry.dispatch(black.handler, "PLAY");
+        registry.dispatch(white.handler, "PLAY");
+        GameSession game = black.handler.getSession();
+        registry.dispatch(white.handler, "RESIGN");
+
+        long retention = Duration.ofHours(1).toNanos();
+        game.connectionClosed(black.handler);
+        assertEquals(0, registry.evictFinished(null, retention));
+        game.connectionClosed(white.handler);
+        assertEquals(1, registry.evictFinished(null, retention));
+        assertNull(registry.get(game.getId()));
+    }
 }
@@ -0,0 +1,71 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.board.BoardCodec;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GamePhase;
+import pl.edu.go.game.GameSnapshotCodec;
+import pl.edu.go.game.PlayerColor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy migawek binarnych: odtworzona plansza zachowuje stan KO, a odtworzona gra — fazę review
+ * i akceptacje wyniku.
+ */
+public class GameSnapshotCodecTest {
+
+    @Test
+    public void testBoardSnapshotKeepsKo() {
+        Board b = new Board(5);
+        b.playMove(Board.BLACK, 1, 0);
+        b.playMove(Board.BLACK, 0, 1);
+        b.playMove(Board.BLACK, 1, 2);
+        b.playMove(Board.WHITE, 2, 0);
+        b.playMove(Board.WHITE, 3, 1);
+        b.playMove(Board.WHITE, 2, 2);
+        b.playMove(Board.WHITE, 1, 1);
+        assertTrue(b.playMove(Board.BLACK, 2, 1));
+
+        byte[] data = BoardCodec.encode(b);
+        Board restored = BoardCodec.decode(data);
+
+        assertArrayEquals(b.getState(), restored.getState());
+        assertEquals(b.getKoPoint(), restored.getKoPoint());
+        assertArrayEquals(b.getLastCaptured(), restored.getLastCaptured());
+        assertFalse(restored.playMove(Board.WHITE, 1, 1), "Odbicie KO powinno być nadal zabronione");
+    }
+
+    @Test
+    public void testGameSnapshotKeepsReviewAgreement() {
+        Game game = new Game(new Board(9));
+        game.playMove(PlayerColor.BLACK, 4, 4);
+        game.pass(PlayerColor.WHITE);
+        game.pass(PlayerColor.BLACK);
+        game.agree(PlayerColor.BLACK);
+
+        Game restored = GameSnapshotCodec.decode(GameSnapshotCodec.encode(game));
+
+        assertEquals(GamePhase.SCORING_REVIEW, restored.getPhase());
+        assertEquals(game.getCurrentPlayer(), restored.getCurrentPlayer());
+        assertArrayEquals(game.getBoard().getState(), restored.getBoard().getState());
+        assertArrayEquals(game.getHistory().toArray(), restored.getHistory().toArray());
+        assertEquals(game.getMoveNumber(), restored.getMoveNumber());
+
+        restored.agree(PlayerColor.WHITE);
+        assertTrue(restored.isFinished());
+        assertEquals(PlayerColor.BLACK, restored.getResult().getWinner());
+
+        Game finished = GameSnapshotCodec.decode(GameSnapshotCodec.encode(restored));
+        assertTrue(finished.isFinished());
+        assertEquals("territory", finished.getResult().getReason());
+    }
+
+    @Test
+    public void testUnknownVersionIsRejected() {
+        byte[] data = GameSnapshotCodec.encode(new Game(new Board(5)));
+        data[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshotCodec.decode(data));
+    }
+}
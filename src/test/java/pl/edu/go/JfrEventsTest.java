@@ -0,0 +1,90 @@
+package pl.edu.go;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.edu.go.analysis.ScoreCalculator;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.jfr.GoEvents;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test zdarzeń JFR gry: ruchy, analiza pozycji, komendy sesji i rozsyłanie trafiają do nagrania
+ * z wypełnionymi polami (testy działają z {@code -Dgo.jfr=true}, patrz konfiguracja surefire).
+ */
+class JfrEventsTest {
+
+    @Test
+    void domainOperationsAreRecorded(@TempDir Path dir) throws Exception {
+        assumeTrue(GoEvents.ENABLED, "Uruchom z -Dgo.jfr=true");
+
+        Path file = dir.resolve("go.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("pl.edu.go.Move").withoutThreshold();
+            recording.enable("pl.edu.go.Analysis").withoutThreshold();
+            recording.enable("pl.edu.go.Command").withoutThreshold();
+            recording.enable("pl.edu.go.Broadcast").withoutThreshold();
+            recording.start();
+
+            GameSession session = new GameSession(new Game(new Board(5)));
+            ClientHandler black = new ClientHandler(new LoopbackTransport(), session, PlayerColor.BLACK);
+            ClientHandler white = new ClientHandler(new LoopbackTransport(), session, PlayerColor.WHITE);
+            session.setPlayer(PlayerColor.BLACK, black);
+            session.setPlayer(PlayerColor.WHITE, white);
+            session.startGame();
+            session.handleClientMessage(black, "MOVE 2 2");
+            session.handleClientMessage(white, "MOVE 2 2");
+
+            ScoreCalculator.computeScore(new Board(5));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> moves = byName(events, "pl.edu.go.Move");
+        assertTrue(moves.stream().anyMatch(e -> "OK".equals(e.getString("result"))
+                && e.getInt("x") == 2 && e.getInt("boardSize") == 5));
+        assertTrue(moves.stream().anyMatch(e -> "OCCUPIED".equals(e.getString("result"))));
+
+        List<String> analyses = byName(events, "pl.edu.go.Analysis").stream()
+                .map(e -> e.getString("analysis")).collect(Collectors.toList());
+        assertTrue(analyses.contains("ScoreCalculator.computeScore"));
+        assertTrue(analyses.contains("TerritoryAnalyzer.computeTerritory"));
+        assertTrue(analyses.contains("PositionAnalyzer.getDeadGroups"));
+
+        List<RecordedEvent> commands = byName(events, "pl.edu.go.Command");
+        assertEquals(2, commands.size());
+        assertEquals("OK", commands.get(0).getString("outcome"));
+        assertEquals("PlaceStoneCommand", commands.get(0).getString("command"));
+        assertEquals("WHITE", commands.get(1).getString("player"));
+        assertNotEquals("OK", commands.get(1).getString("outcome"), "Ruch na zajęte pole jest odrzucony");
+
+        List<RecordedEvent> broadcasts = byName(events, "pl.edu.go.Broadcast");
+        assertEquals(2, broadcasts.size(), "Start gry i przyjęty ruch (odrzucenie nie jest zdarzeniem SEQ)");
+        assertEquals(2, broadcasts.get(1).getLong("seq"));
+        assertEquals(2, broadcasts.get(1).getInt("recipients"));
+        assertTrue(broadcasts.get(1).getLong("bytes") > 0);
+    }
+
+    private static List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,81 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.edu.go.server.OutboundQueue;
+import pl.edu.go.server.SessionRegistry;
+import pl.edu.go.tools.LoadGenerator;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test generatora obciążenia na serwerze uruchomionym w procesie testu (port efemeryczny):
+ * wszystkie pary rozgrywają partie do końca, a opóźnienia trafiają do raportu.
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void testRandomGamesRunToCompletion() throws Exception {
+        try (ServerSocket server = startServer(5)) {
+            LoadGenerator generator = new LoadGenerator("localhost", server.getLocalPort(), 4, 2, 0, 7);
+            generator.setTimeoutMillis(10_000);
+            generator.run();
+
+            assertEquals(0, generator.getErrors(), generator.report());
+            assertEquals(8, generator.getGamesFinished());
+            assertTrue(generator.getCommands() > 8 * 3, "Co najmniej PASS/PASS/AGREE/AGREE na partię");
+
+            String report = generator.report();
+            assertTrue(report.contains("MOVE "));
+            assertTrue(report.contains("AGREE "));
+            assertTrue(report.contains("p99="));
+        }
+    }
+
+    @Test
+    public void testScriptedGameReplaysSgfMoves(@TempDir Path dir) throws Exception {
+        Path sgf = dir.resolve("game.sgf");
+        Files.writeString(sgf, "(;SZ[5];B[cc];W[bb];B[dd];W[];B[])");
+
+        try (ServerSocket server = startServer(5)) {
+            LoadGenerator generator = new LoadGenerator("localhost", server.getLocalPort(), 1, 1, 0, 1);
+            generator.setScript(sgf);
+            generator.setTimeoutMillis(10_000);
+            generator.run();
+
+            assertEquals(0, generator.getErrors(), generator.report());
+            assertEquals(1, generator.getGamesFinished());
+            assertEquals(0, generator.getRejected());
+            // 3 ruchy, 2 PASS i 2 AGREE
+            assertEquals(7, generator.getCommands());
+        }
+    }
+
+    /** Serwer jak w {@code GameServer.main}, ale na wolnym porcie i z wątkiem akceptującym w tle. */
+    private static ServerSocket startServer(int boardSize) throws IOException {
+        ServerSocket server = new ServerSocket(0);
+        SessionRegistry registry = new SessionRegistry(boardSize, OutboundQueue::new);
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = server.accept();
+                    // rejestr sadza klienta po jego pierwszej linii (PLAY) i sam startuje pełną grę
+                    Thread t = new Thread(registry.accept(socket), "Client");
+                    t.setDaemon(true);
+                    t.start();
+                }
+            } catch (IOException closed) {
+                // koniec testu
+            }
+        }, "TestAcceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+}
@@ -0,0 +1,128 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.metrics.Counter;
+import pl.edu.go.metrics.Family;
+import pl.edu.go.metrics.LatencyHistogram;
+import pl.edu.go.metrics.MetricsHttpServer;
+import pl.edu.go.metrics.MetricsRegistry;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+import pl.edu.go.server.ServerMetrics;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy rejestru metryk: format tekstowy Prometheusa, kubełki histogramów, endpoint HTTP
+ * oraz metryki zbierane przez sesję gry.
+ */
+public class MetricsTest {
+
+    @Test
+    public void testScrapeUsesPrometheusTextFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter moves = registry.counter("test_moves_total", "Moves");
+        Family<Counter> byType = registry.counter("test_commands_total", "Commands", "command");
+        registry.gauge("test_depth", "Depth", () -> 7);
+        LatencyHistogram latency = registry.histogram("test_latency_seconds", "Latency");
+
+        moves.add(3);
+        byType.labels("PASS").inc();
+        byType.labels("MOVE \"x\"").inc();
+        byType.labels("PASS").inc();
+        latency.record(20_000);        // 20 µs
+        latency.record(2_000_000);     // 2 ms
+        latency.record(3_000_000_000L); // 3 s
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# HELP test_moves_total Moves\n# TYPE test_moves_total counter\ntest_moves_total 3\n"));
+        assertTrue(text.contains("test_commands_total{command=\"PASS\"} 2\n"));
+        assertTrue(text.contains("test_commands_total{command=\"MOVE \\\"x\\\"\"} 1\n"));
+        assertTrue(text.contains("# TYPE test_depth gauge\ntest_depth 7\n"));
+
+        assertTrue(text.contains("# TYPE test_latency_seconds histogram\n"));
+        assertEquals(1, value(text, "test_latency_seconds_bucket{le=\"0.00005\"}"));
+        assertEquals(1, value(text, "test_latency_seconds_bucket{le=\"0.001\"}"));
+        assertEquals(2, value(text, "test_latency_seconds_bucket{le=\"0.0025\"}"));
+        assertEquals(2, value(text, "test_latency_seconds_bucket{le=\"2.5\"}"));
+        assertEquals(3, value(text, "test_latency_seconds_bucket{le=\"5\"}"));
+        assertEquals(3, value(text, "test_latency_seconds_bucket{le=\"+Inf\"}"));
+        assertEquals(3, value(text, "test_latency_seconds_count"));
+        assertEquals(3.00202, value(text, "test_latency_seconds_sum"), 1e-9);
+    }
+
+    @Test
+    public void testDuplicateAndInvalidNamesAreRejected() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test");
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("test_total", "Again", () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("test-total", "Dash"));
+    }
+
+    @Test
+    public void testSessionCommandsAreCountedAndServedOverHttp() throws Exception {
+        try (MetricsHttpServer server = new MetricsHttpServer(ServerMetrics.registry(),
+                new InetSocketAddress("127.0.0.1", 0))) {
+            String before = fetch(server.getPort());
+
+            GameSession session = new GameSession(new Game(new Board(5)));
+            ClientHandler black = new ClientHandler(new LoopbackTransport(), session, PlayerColor.BLACK);
+            ClientHandler white = new ClientHandler(new LoopbackTransport(), session, PlayerColor.WHITE);
+            session.setPlayer(PlayerColor.BLACK, black);
+            session.setPlayer(PlayerColor.WHITE, white);
+            session.startGame();
+
+            session.handleClientMessage(black, "MOVE 2 2");
+            session.handleClientMessage(white, "MOVE 2 2");   // zajęte pole
+            session.handleClientMessage(white, "JUMP");       // nieznana komenda
+            session.handleClientMessage(white, "PASS");
+            session.handleClientMessage(black, "PASS");       // review: pakiet punktacji
+
+            String after = fetch(server.getPort());
+            assertEquals(2, delta(before, after, "go_commands_total{command=\"PlaceStoneCommand\"}"));
+            assertEquals(1, delta(before, after, "go_commands_rejected_total{command=\"PlaceStoneCommand\"}"));
+            assertEquals(1, delta(before, after, "go_commands_rejected_total{command=\"INVALID\"}"));
+            assertEquals(2, delta(before, after, "go_commands_total{command=\"PassCommand\"}"));
+            assertEquals(2, delta(before, after,
+                    "go_command_latency_seconds_count{command=\"PassCommand\"}"));
+            assertEquals(1, delta(before, after, "go_scoring_duration_seconds_count"));
+            // start gry, ruch i dwa PASS; odrzucone komendy nie tworzą zdarzeń
+            assertEquals(4, delta(before, after, "go_broadcast_events_total"));
+            assertTrue(after.contains("# TYPE go_outbound_queue_frames gauge\n"));
+        }
+    }
+
+    private static String fetch(int port) throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+        return response.body();
+    }
+
+    /** Przyrost próbki między dwoma eksportami (brak próbki = 0). */
+    private static long delta(String before, String after, String sample) {
+        return (long) (value(after, sample) - value(before, sample));
+    }
+
+    /** Wartość próbki o dokładnie podanej nazwie i etykietach. */
+    private static double value(String text, String sample) {
+        for (String line : text.split("\n")) {
+            if (line.startsWith(sample + " ")) {
+                return Double.parseDouble(line.substring(sample.length() + 1));
+            }
+        }
+        return 0;
+    }
+}
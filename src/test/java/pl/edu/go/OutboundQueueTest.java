@@ -0,0 +1,256 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+import pl.edu.go.server.OutboundQueue;
+import pl.edu.go.server.OverflowPolicy;
+import pl.edu.go.server.ServerMetrics;
+import pl.edu.go.server.Transport;
+
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.go.server.LoopbackLines.reader;
+
+/**
+ * Testy kolejki wyjściowej połączenia: batching ramek jednej komendy oraz polityki przepełnienia
+ * ({@link OverflowPolicy}) dla klienta, który przestał czytać.
+ *
+ * <p>Czarny gracz ma własny wątek piszący, którego pierwszy zapis ({@code INFO Connected}) blokuje się
+ * do {@link StalledTransport#release()}; zdarzenia gry zbierają się wtedy w jego kolejce. Start gry
+ * to 7 ramek, każdy ruch — 3 ({@code BOARD}, {@code TURN}, {@code SEQ}). Biały pisze synchronicznie.
+ */
+public class OutboundQueueTest {
+
+    @Test
+    public void testCommandFramesAreWrittenWithOneFlush() {
+        GameSession session = new GameSession(new Game(new Board(5)));
+        StalledTransport blackLink = new StalledTransport();
+        StalledTransport whiteLink = new StalledTransport();
+        blackLink.release();
+        whiteLink.release();
+        ClientHandler black = new ClientHandler(blackLink, session, PlayerColor.BLACK);
+        ClientHandler white = new ClientHandler(whiteLink, session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black);
+        session.setPlayer(PlayerColor.WHITE, white);
+        session.startGame();
+        assertEquals(1, blackLink.flushes.get(), "Start gry to jeden zapis");
+
+        session.handleClientMessage(black, "MOVE 1 1");
+
+        assertEquals(2, blackLink.flushes.get(), "BOARD, TURN i SEQ ruchu idą jednym zapisem");
+        assertEquals(2, whiteLink.flushes.get());
+    }
+
+    @Test
+    public void testCoalesceKeepsOnlyLatestBoardSnapshot() {
+        Stalled s = stalled(OverflowPolicy.COALESCE, 12);
+        OutboundQueue queue = s.black.getOutboundQueue();
+
+        s.session.handleClientMessage(s.black, "MOVE 1 1");
+        s.session.handleClientMessage(s.white, "MOVE 3 3");   // 13 ramek > 12: odpadają dwie stare migawki
+
+        assertEquals(2, queue.getDroppedFrames());
+        assertEquals(0, queue.getResyncCount());
+        assertFalse(s.black.isClosed());
+
+        List<String> lines = s.drain("SEQ 3");
+        assertEquals(1, lines.stream().filter(l -> l.equals("BOARD 5")).count(), lines.toString());
+        assertEquals(List.of(".....", ".X...", ".....", "...O.", "....."), rows(lines));
+        assertEquals(List.of("TURN BLACK", "SEQ 1", "TURN WHITE", "SEQ 2", "TURN BLACK", "SEQ 3"),
+                lines.stream().filter(l -> l.startsWith("TURN ") || l.startsWith("SEQ ")).toList(),
+                "Zdarzenia poza migawkami planszy docierają w całości");
+        assertEquals(2, s.link.flushes.get(), "Zaległe ramki idą jednym zapisem po odblokowaniu");
+        s.close();
+    }
+
+    @Test
+    public void testCoalesceFallsBackToResyncWhenSnapshotsAreNotEnough() {
+        Stalled s = stalled(OverflowPolicy.COALESCE, 12);
+        long before = counter("go_resyncs_total");
+
+        s.session.handleClientMessage(s.black, "MOVE 1 1");
+        s.session.handleClientMessage(s.white, "MOVE 3 3");
+        s.session.handleClientMessage(s.black, "MOVE 2 2");   // same TURN/SEQ już się nie mieszczą
+
+        assertEquals(1, s.black.getOutboundQueue().getResyncCount());
+        assertEquals(1, counter("go_resyncs_total") - before);
+        assertEquals(List.of("INFO Connected as BLACK", "INFO Resync", "PHASE PLAYING",
+                        "BOARD 5", "ROW .....", "ROW .X...", "ROW ..X..", "ROW ...O.", "ROW .....", "END_BOARD",
+                        "TURN WHITE", "SEQ 4"),
+                s.drain("SEQ 4"));
+        assertFalse(s.black.isClosed());
+        s.close();
+    }
+
+    @Test
+    public void testResyncReplacesBacklogWithFullState() {
+        Stalled s = stalled(OverflowPolicy.RESYNC, 8);
+
+        s.session.handleClientMessage(s.black, "MOVE 1 1");   // 7 + 3 > 8: kolejka czyszczona
+        s.session.handleClientMessage(s.white, "MOVE 3 3");   // zwykłe zdarzenie za pełnym stanem
+
+        assertEquals(1, s.black.getOutboundQueue().getResyncCount());
+        assertEquals(List.of("INFO Connected as BLACK", "INFO Resync", "PHASE PLAYING",
+                        "BOARD 5", "ROW .....", "ROW .X...", "ROW .....", "ROW .....", "ROW .....", "END_BOARD",
+                        "TURN WHITE", "SEQ 2",
+                        "BOARD 5", "ROW .....", "ROW .X...", "ROW .....", "ROW ...O.", "ROW .....", "END_BOARD",
+                        "TURN BLACK", "SEQ 3"),
+                s.drain("SEQ 3"));
+        assertFalse(s.black.isClosed());
+        s.close();
+    }
+
+    @Test
+    public void testDisconnectClosesSlowClientOnly() throws Exception {
+        Stalled s = stalled(OverflowPolicy.DISCONNECT, 8);
+        BufferedReader whiteIn = reader(s.whiteLink);
+        long before = counter("go_slow_client_disconnects_total");
+
+        s.session.handleClientMessage(s.black, "MOVE 1 1");
+
+        assertTrue(s.black.isClosed());
+        assertEquals(1, counter("go_slow_client_disconnects_total") - before);
+        assertEquals(0, s.black.getOutboundQueue().getDepth());
+        s.link.release();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertNull(s.in.readLine(), "Rozłączony klient nie dostaje zaległych ramek");
+            s.thread.join();
+        });
+
+        s.session.handleClientMessage(s.white, "MOVE 3 3");
+        List<String> lines = new ArrayList<>();
+        while (whiteIn.ready()) {
+            lines.add(whiteIn.readLine());
+        }
+        assertTrue(lines.contains("SEQ 2") && lines.contains("ROW ...O."), "Gra toczy się dalej: " + lines);
+    }
+
+    /** Sesja po starcie gry, w której czarny (z własną kolejką) ma zablokowany wątek piszący. */
+    private record Stalled(GameSession session, ClientHandler black, ClientHandler white,
+                           StalledTransport link, LoopbackTransport whiteLink, BufferedReader in, Thread thread) {
+
+        /** Odblokowuje zapis i czyta linie czarnego do {@code last} włącznie. */
+        List<String> drain(String last) {
+            link.release();
+            return assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                List<String> lines = new ArrayList<>();
+                String line;
+                do {
+                    line = in.readLine();
+                    assertNotNull(line, "Brak linii: " + last + " po " + lines);
+                    lines.add(line);
+                } while (!line.equals(last));
+                return lines;
+            });
+        }
+
+        void close() {
+            link.close();
+        }
+    }
+
+    private static Stalled stalled(OverflowPolicy policy, int maxFrames) {
+        GameSession session = new GameSession(new Game(new Board(5)));
+        StalledTransport link = new StalledTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+        ClientHandler black = new ClientHandler(link, session, PlayerColor.BLACK,
+                new OutboundQueue(maxFrames, OutboundQueue.DEFAULT_MAX_BYTES, policy), null);
+        ClientHandler white = new ClientHandler(whiteLink, session, PlayerColor.WHITE);
+        session.setPlayer(PlayerColor.BLACK, black);
+        session.setPlayer(PlayerColor.WHITE, white);
+        BufferedReader in = reader(link.link);
+
+        Thread t = new Thread(black, "Stalled-BLACK");
+        t.setDaemon(true);
+        t.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> link.stalled.await());
+
+        session.startGame();
+        assertEquals(7, black.getOutboundQueue().getDepth());
+        return new Stalled(session, black, white, link, whiteLink, in, t);
+    }
+
+    /** Wiersze pierwszej migawki planszy w odebranych liniach. */
+    private static List<String> rows(List<String> lines) {
+        return lines.stream().filter(l -> l.startsWith("ROW ")).map(l -> l.substring(4)).limit(5).toList();
+    }
+
+    /** Bieżąca wartość licznika serwera (bez etykiet) z rejestru metryk. */
+    private static long counter(String name) {
+        for (String line : ServerMetrics.registry().scrape().split("\n")) {
+            if (line.startsWith(name + " ")) {
+                return Long.parseLong(line.substring(name.length() + 1));
+            }
+        }
+        return fail("Brak metryki: " + name);
+    }
+
+    /**
+     * Połączenie z klientem, który przestał czytać: zapis do transportu blokuje się do {@link #release()},
+     * jak zapis do gniazda z pełnym buforem. Liczy też wywołania {@code flush()}.
+     */
+    private static final class StalledTransport implements Transport {
+        final LoopbackTransport link = new LoopbackTransport();
+        final CountDownLatch stalled = new CountDownLatch(1);
+        final AtomicInteger flushes = new AtomicInteger();
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public InputStream getInputStream() {
+            return link.getInputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new FilterOutputStream(link.getOutputStream()) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    stalled.countDown();
+                    try {
+                        if (!released.await(5, TimeUnit.SECONDS)) {
+                            throw new InterruptedIOException("Stalled write timed out");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    flushes.incrementAndGet();
+                    out.flush();
+                }
+            };
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        /** Zamyka połączenie, a dopiero potem zwalnia zapis — zaległy zapis kończy się błędem. */
+        @Override
+        public void close() {
+            link.close();
+            release();
+        }
+    }
+}
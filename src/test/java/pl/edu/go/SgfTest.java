@@ -0,0 +1,126 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.edu.go.board.Board;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.GamePhase;
+import pl.edu.go.game.GameReplay;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.sgf.SgfReader;
+import pl.edu.go.sgf.SgfWriter;
+import pl.edu.go.tools.SgfCorpusValidator;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy importu/eksportu SGF: zapis i ponowny odczyt dają tę samą partię,
+ * a parser pomija wariacje, komentarze i nieznane właściwości.
+ */
+public class SgfTest {
+
+    @Test
+    public void testExportedGameReadsBackIdentically() throws Exception {
+        Game game = new Game(new Board(9));
+        game.playMove(PlayerColor.BLACK, 2, 6);
+        game.playMove(PlayerColor.WHITE, 6, 2);
+        game.pass(PlayerColor.BLACK);
+        game.playMove(PlayerColor.WHITE, 4, 4);
+        game.resign(PlayerColor.BLACK);
+
+        String sgf = SgfWriter.toSgf(game);
+        assertTrue(sgf.contains("SZ[9]"));
+        assertTrue(sgf.contains("RE[W+R]"));
+        assertTrue(sgf.contains(";B[cg]"));
+        assertTrue(sgf.contains(";B[]"));
+
+        Game read = SgfReader.readGame(new StringReader(sgf));
+        assertArrayEquals(game.getBoard().getState(), read.getBoard().getState());
+        assertEquals(game.getMoveNumber(), read.getMoveNumber());
+        assertEquals(PlayerColor.BLACK, read.getCurrentPlayer());
+    }
+
+    @Test
+    public void testHandicapStonesSurviveRoundTripAndReplay() throws Exception {
+        String sgf = "(;FF[4]SZ[9]HA[2]AB[cc][gg]PL[W];W[ee];B[cg])";
+
+        Game game = SgfReader.readGame(new StringReader(sgf));
+        assertEquals(2, game.getHistory().setupSize());
+        assertEquals(2, game.getMoveNumber(), "Kamienie ustawione nie są ruchami");
+
+        String out = SgfWriter.toSgf(game);
+        assertTrue(out.contains("AB[cc][gg]"), out);
+        assertTrue(out.contains("PL[W]"), out);
+        assertFalse(out.contains("AW"), out);
+
+        Game read = SgfReader.readGame(new StringReader(out));
+        assertArrayEquals(game.getHistory().toArray(), read.getHistory().toArray());
+        assertArrayEquals(game.getBoard().getState(), read.getBoard().getState());
+
+        GameReplay replay = GameReplay.of(read);
+        int[][] start = replay.stateAt(0);
+        assertEquals(Board.BLACK, start[2][2], "Ruch 0 to pozycja z handicapem");
+        assertEquals(Board.BLACK, start[6][6]);
+        assertEquals(Board.EMPTY, start[4][4]);
+        assertArrayEquals(read.getBoard().getState(), replay.stateAt(replay.getMoveCount()));
+
+        assertThrows(IllegalStateException.class, () -> read.placeSetupStone(PlayerColor.WHITE, 0, 0));
+    }
+
+    @Test
+    public void testReaderFollowsMainLineAndSkipsOtherData() throws Exception {
+        String sgf = "\uFEFF(;GM[1]FF[4]SZ[5]PB[Black \\] player]C[comment with ; and (]\n"
+                + "AB[aa][bb]PL[W]\n"
+                + ";W[cc]C[x];B[dd]\n"
+                + "(;W[ee];B[tt])\n"
+                + "(;W[ae]))\n"
+                + "(;SZ[19];B[aa])";
+
+        Game game = SgfReader.readGame(new StringReader(sgf));
+        int[][] state = game.getBoard().getState();
+
+        assertEquals(5, state.length);
+        assertEquals(Board.BLACK, state[0][0], "Kamień ustawiony AB");
+        assertEquals(Board.BLACK, state[1][1], "Kamień ustawiony AB");
+        assertEquals(Board.WHITE, state[2][2]);
+        assertEquals(Board.BLACK, state[3][3]);
+        assertEquals(Board.WHITE, state[4][4], "Pierwsza wariacja to linia główna");
+        assertEquals(Board.EMPTY, state[0][4], "Druga wariacja jest pomijana");
+        assertEquals(4, game.getMoveNumber(), "B[tt] na planszy 5x5 to PASS");
+        assertEquals(GamePhase.PLAYING, game.getPhase());
+    }
+
+    @Test
+    public void testIllegalMoveReportsMoveNumber() {
+        String sgf = "(;SZ[5];B[aa];W[aa])";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SgfReader.readBoard(new StringReader(sgf)));
+        assertTrue(e.getMessage().startsWith("SGF move 2"), e.getMessage());
+    }
+
+    @Test
+    public void testCorpusValidatorReportsEachFileAndTotals(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("ok.sgf"), "(;SZ[5];B[cc];W[dd];B[];W[])");
+        Files.writeString(dir.resolve("ko.sgf"),
+                "(;SZ[5];B[ba];W[ca];B[ab];W[db];B[bc];W[cc];B[ee];W[bb];B[cb];W[bb])");
+        Files.createDirectories(dir.resolve("sub"));
+        Files.writeString(dir.resolve("sub").resolve("broken.sgf"), "(;SZ[5];B[c");
+        Files.writeString(dir.resolve("LATE.SGF"), "(;B[aa];SZ[5])");
+
+        StringWriter out = new StringWriter();
+        SgfCorpusValidator validator = new SgfCorpusValidator(out);
+        validator.validate(dir, 2);
+
+        String summary = out.toString();
+        assertTrue(summary.contains("OK " + dir.resolve("ok.sgf") + " 4 "), summary);
+        assertTrue(summary.contains("ILLEGAL " + dir.resolve("ko.sgf") + " 10 KO"), summary);
+        assertTrue(summary.contains("ERROR " + dir.resolve("sub").resolve("broken.sgf")), summary);
+        assertTrue(summary.contains("ERROR " + dir.resolve("LATE.SGF") + " SGF: SZ after stones"), summary);
+        assertTrue(summary.endsWith("TOTAL files=4 moves=14 illegal=1 ko=1 errors=2\n"), summary);
+    }
+}
@@ -0,0 +1,86 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.board.Board;
+import pl.edu.go.command.GameCommand;
+import pl.edu.go.command.MovesCommand;
+import pl.edu.go.command.PassCommand;
+import pl.edu.go.command.TextCommandFactory;
+import pl.edu.go.game.Game;
+import pl.edu.go.game.PlayerColor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy parsera komend tekstowych: format jak dotąd (białe znaki, wielkość liter, komunikaty błędów)
+ * oraz współdzielone instancje komend bez argumentów.
+ */
+class TextCommandFactoryTest {
+
+    private final TextCommandFactory factory = new TextCommandFactory();
+
+    @Test
+    void testMoveToleratesWhitespaceAndCase() throws Exception {
+        Board board = new Board(5);
+        Game game = new Game(board);
+
+        GameCommand move = factory.fromNetworkMessage("  move\t3   +1 ", PlayerColor.BLACK);
+        move.execute(game);
+
+        assertEquals(Board.BLACK, board.getState()[3][1]);
+    }
+
+    @Test
+    void testArgumentlessCommandsAreSharedPerPlayer() {
+        GameCommand a = factory.fromNetworkMessage("PASS", PlayerColor.WHITE);
+        GameCommand b = factory.fromNetworkMessage("pass ", PlayerColor.WHITE);
+
+        assertSame(a, b, "PASS tego samego gracza powinien być jedną współdzieloną instancją");
+        assertSame(PassCommand.of(PlayerColor.WHITE), a);
+        assertNotSame(a, factory.fromNetworkMessage("PASS", PlayerColor.BLACK));
+    }
+
+    @Test
+    void testMalformedMessagesKeepErrorMessages() {
+        assertEquals("Empty command", error("   "));
+        assertEquals("MOVE format: MOVE x y", error("MOVE 1"));
+        assertEquals("MOVE format: MOVE x y", error("MOVE 1 2 3"));
+        assertEquals("MOVE coordinates must be integers: MOVE x y", error("MOVE a 2"));
+        assertEquals("MOVE coordinates must be integers: MOVE x y", error("MOVE 1 99999999999"));
+        assertEquals("MOVE coordinates must be integers: MOVE x y", error("MOVE - 2"));
+        assertEquals("PASS takes no arguments", error("PASS now"));
+        assertEquals("Unknown command: JUMP", error("jump 1 2"));
+        assertEquals("Coordinate out of range: -2147483648", error("MOVE -2147483648 0"));
+    }
+
+    @Test
+    void testMovesIsGatedLimitedAndValidated() throws Exception {
+        assertEquals("MOVES is disabled on this server", error("MOVES 1 1"));
+
+        TextCommandFactory batch = new TextCommandFactory(true);
+        String full = " 0 0 PASS".repeat(TextCommandFactory.MAX_BATCH_MOVES / 2);
+        assertEquals(TextCommandFactory.MAX_BATCH_MOVES, ((MovesCommand) batch.fromNetworkMessage("MOVES" + full,
+                PlayerColor.BLACK)).size());
+        assertEquals("MOVES accepts at most " + TextCommandFactory.MAX_BATCH_MOVES + " moves",
+                error(batch, "MOVES" + full + " PASS"));
+        assertEquals("MOVES format: MOVES x y [x y | PASS]...", error(batch, "MOVES"));
+        assertEquals("MOVES format: MOVES x y [x y | PASS]...", error(batch, "MOVES 1 1 2"));
+        assertEquals("MOVE coordinates must be integers: MOVE x y", error(batch, "MOVES 1 x"));
+
+        Game game = new Game(new Board(5));
+        batch.fromNetworkMessage("moves 1 1\tpass  2 2", PlayerColor.BLACK).execute(game);
+        assertEquals(Board.BLACK, game.getBoard().getState()[1][1]);
+        assertEquals(Board.BLACK, game.getBoard().getState()[2][2]);
+        assertEquals(PlayerColor.WHITE, game.getCurrentPlayer());
+    }
+
+    private String error(String message) {
+        return error(factory, message);
+    }
+
+    private static String error(TextCommandFactory factory, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> factory.fromNetworkMessage(message, PlayerColor.BLACK));
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,123 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.edu.go.tools.TraceReport;
+import pl.edu.go.trace.Span;
+import pl.edu.go.trace.TraceReader;
+import pl.edu.go.trace.TraceStage;
+import pl.edu.go.trace.TraceWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy pliku śladu: zapis i odczyt odcinków, rotacja plików i raport percentyli etapów.
+ */
+class TraceFileTest {
+
+    @Test
+    void spansRoundTripThroughFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trace.bin");
+        long before = System.currentTimeMillis();
+        try (TraceWriter writer = new TraceWriter(file, 1 << 20, 2)) {
+            writer.record(7, TraceStage.PARSE, 3, 1_000, 250);
+            writer.record(7, TraceStage.WRITE, 3, 2_000, 4_000);
+            assertTrue(writer.flush(2000));
+            assertEquals(0, writer.getDropped());
+        }
+
+        List<Span> spans = new ArrayList<>();
+        long offset = TraceReader.read(file, spans::add);
+        assertEquals(List.of(new Span(7, TraceStage.PARSE, 3, 1_000, 250),
+                new Span(7, TraceStage.WRITE, 3, 2_000, 4_000)), spans);
+        assertEquals(6_000, spans.get(1).end());
+
+        // przesunięcie przelicza System.nanoTime() z chwili otwarcia na czas ściany
+        long openedWall = (System.nanoTime() + offset) / 1_000_000;
+        assertTrue(openedWall >= before && openedWall <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void writerRotatesAndKeepsConfiguredNumberOfFiles(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trace.bin");
+        int total = 0;
+        try (TraceWriter writer = new TraceWriter(file, 0, 3)) {
+            // najmniejszy plik mieści jeden pełny bufor: 5 buforów daje co najmniej 3 rotacje
+            for (int batch = 0; batch < 5; batch++) {
+                for (int i = 0; i < 2048; i++) {
+                    writer.record(++total, TraceStage.EXECUTE, 1, total, 10);
+                }
+                assertTrue(writer.flush(2000));
+            }
+        }
+
+        List<Path> files = TraceReader.files(file);
+        assertEquals(List.of(dir.resolve("trace.bin.2"), dir.resolve("trace.bin.1"), file), files);
+        assertFalse(Files.exists(dir.resolve("trace.bin.3")));
+
+        List<Span> spans = new ArrayList<>();
+        for (Path p : files) {
+            TraceReader.read(p, spans::add);
+        }
+        assertEquals(total, spans.get(spans.size() - 1).traceId(), "Bieżący plik kończy się ostatnim odcinkiem");
+        for (int i = 1; i < spans.size(); i++) {
+            assertEquals(spans.get(i - 1).traceId() + 1, spans.get(i).traceId(), "Pliki w kolejności zapisu");
+        }
+    }
+
+    @Test
+    void writerDropsRotatedFilesOfPreviousRun(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trace.bin");
+        try (TraceWriter writer = new TraceWriter(file, 0, 3)) {
+            for (int batch = 0; batch < 3; batch++) {
+                for (int i = 1; i <= 2048; i++) {
+                    writer.record(i, TraceStage.EXECUTE, 1, i, 10);
+                }
+                assertTrue(writer.flush(2000));
+            }
+        }
+        assertTrue(Files.exists(dir.resolve("trace.bin.1")));
+
+        // nowy proces numeruje komendy od 1: stare pliki nie mogą trafić do raportu
+        try (TraceWriter writer = new TraceWriter(file, 1 << 20, 3)) {
+            writer.record(1, TraceStage.EXECUTE, 2, 1, 10);
+            assertTrue(writer.flush(2000));
+        }
+        assertEquals(List.of(file), TraceReader.files(file));
+        assertEquals(1, TraceReport.load(file).getCommandCount());
+    }
+
+    @Test
+    void reportBreaksSlowestCommandIntoStages(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trace.bin");
+        try (TraceWriter writer = new TraceWriter(file, 1 << 20, 2)) {
+            for (long id = 1; id <= 100; id++) {
+                long t = id * 1_000_000;
+                writer.record(id, TraceStage.QUEUE, 1, t, 1_000);
+                writer.record(id, TraceStage.EXECUTE, 1, t + 1_000, 2_000);
+                // dwóch odbiorców: w rozbiciu liczy się wolniejszy zapis
+                writer.record(id, TraceStage.WRITE, 1, t + 3_000, 3_000);
+                writer.record(id, TraceStage.WRITE, 1, t + 3_000, id == 42 ? 500_000 : 4_000);
+            }
+            assertTrue(writer.flush(2000));
+        }
+
+        TraceReport report = TraceReport.load(file);
+        assertEquals(400, report.getSpanCount());
+        assertEquals(100, report.getCommandCount());
+
+        String text = report.report(1);
+        assertTrue(text.contains("1 file(s), 400 span(s), 100 command(s)"), text);
+        assertTrue(text.lines().anyMatch(l -> l.startsWith("WRITE") && l.contains(" 200 ")), text);
+        List<String> slowest = text.lines().filter(l -> l.startsWith("  #")).toList();
+        assertEquals(1, slowest.size(), text);
+        assertTrue(slowest.get(0).startsWith("  #42 game 1 at "), text);
+        assertTrue(slowest.get(0).contains("total 503.0 us"), text);
+        assertTrue(slowest.get(0).contains("EXECUTE 2.0") && slowest.get(0).endsWith("<- WRITE"), text);
+    }
+}
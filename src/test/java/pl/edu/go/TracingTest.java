@@ -0,0 +1,115 @@
+package pl.edu.go;
+
+import org.junit.jupiter.api.Test;
+import pl.edu.go.game.PlayerColor;
+import pl.edu.go.server.ClientHandler;
+import pl.edu.go.server.GameSession;
+import pl.edu.go.server.LoopbackTransport;
+import pl.edu.go.server.OutboundQueue;
+import pl.edu.go.server.SessionRegistry;
+import pl.edu.go.trace.Span;
+import pl.edu.go.trace.TraceReader;
+import pl.edu.go.trace.TraceStage;
+import pl.edu.go.trace.Tracer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static pl.edu.go.server.LoopbackLines.readUntil;
+import static pl.edu.go.server.LoopbackLines.readUntilPrefix;
+import static pl.edu.go.server.LoopbackLines.reader;
+import static pl.edu.go.server.LoopbackLines.send;
+
+/**
+ * Test śledzenia komend: ruch odczytany z transportu ma odcinki wszystkich etapów aż do zapisu
+ * u obu graczy, a odrzucona komenda — zapis tylko u nadawcy (testy działają z {@code -Dgo.trace=<plik>},
+ * patrz konfiguracja surefire).
+ */
+class TracingTest {
+
+    @Test
+    void commandStagesAreTracedFromReadToWrite() throws Exception {
+        assumeTrue(Tracer.ENABLED, "Uruchom z -Dgo.trace=<plik>");
+
+        SessionRegistry registry = new SessionRegistry(5, OutboundQueue::new);
+        LoopbackTransport blackLink = new LoopbackTransport();
+        LoopbackTransport whiteLink = new LoopbackTransport();
+        ClientHandler blackHandler = registry.accept(blackLink);
+        ClientHandler whiteHandler = registry.accept(whiteLink);
+        // posadzenie w kolejności BLACK, WHITE (druga linia PLAY startuje grę)
+        registry.dispatch(blackHandler, "PLAY");
+        registry.dispatch(whiteHandler, "PLAY");
+        GameSession session = registry.get(1);
+        for (ClientHandler h : List.of(blackHandler, whiteHandler)) {
+            Thread t = new Thread(h, "Loopback-" + h.getColor());
+            t.setDaemon(true);
+            t.start();
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            BufferedReader black = reader(blackLink);
+            BufferedReader white = reader(whiteLink);
+            readUntil(white, "SEQ 1");
+
+            send(blackLink, "MOVE 2 2");
+            readUntil(white, "SEQ 2");
+            send(whiteLink, "MOVE 2 2");
+            readUntilPrefix(white, "ERROR");
+            readUntil(black, "SEQ 2");
+
+            // odcinki WRITE powstają w wątku piszącym i mogą wyprzedzić BROADCAST, więc czekamy na oba
+            Map<Long, List<Span>> traces;
+            do {
+                assertTrue(Tracer.flush(2000));
+                traces = readTraces(session.getId());
+            } while (count(traces, 0, TraceStage.WRITE) < 2 || count(traces, 1, TraceStage.WRITE) < 1
+                    || count(traces, 0, TraceStage.BROADCAST) < 1 || count(traces, 1, TraceStage.BROADCAST) < 1);
+
+            List<Long> ids = new ArrayList<>(traces.keySet());
+            List<Span> move = traces.get(ids.get(0));
+            assertEquals(EnumSet.allOf(TraceStage.class), stages(move));
+            assertEquals(2, move.stream().filter(s -> s.stage() == TraceStage.WRITE).count(),
+                    "Zapis u obu graczy");
+
+            List<Span> rejected = traces.get(ids.get(1));
+            assertEquals(EnumSet.of(TraceStage.QUEUE, TraceStage.PARSE, TraceStage.EXECUTE,
+                    TraceStage.BROADCAST, TraceStage.WRITE), stages(rejected));
+            assertEquals(1, rejected.stream().filter(s -> s.stage() == TraceStage.WRITE).count(),
+                    "ERROR trafia tylko do nadawcy");
+
+            for (Span s : move) {
+                assertTrue(s.duration() >= 0, s.toString());
+            }
+        });
+    }
+
+    private static Map<Long, List<Span>> readTraces(int sessionId) throws IOException {
+        List<Span> spans = new ArrayList<>();
+        for (Path p : TraceReader.files(Path.of(System.getProperty("go.trace")))) {
+            TraceReader.read(p, spans::add);
+        }
+        return spans.stream().filter(s -> s.sessionId() == sessionId)
+                .collect(Collectors.groupingBy(Span::traceId, TreeMap::new, Collectors.toList()));
+    }
+
+    private static long count(Map<Long, List<Span>> traces, int index, TraceStage stage) {
+        return traces.values().stream().skip(index).findFirst()
+                .map(spans -> spans.stream().filter(s -> s.stage() == stage).count())
+                .orElse(0L);
+    }
+
+    private static Set<TraceStage> stages(List<Span> spans) {
+        return spans.stream().map(Span::stage).collect(Collectors.toCollection(() -> EnumSet.noneOf(TraceStage.class)));
+    }
+}
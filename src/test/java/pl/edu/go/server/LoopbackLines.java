@@ -0,0 +1,78 @@
+package pl.edu.go.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Pomocnicze operacje tekstowe po stronie klienta {@link LoopbackTransport} dla testów:
+ * wysłanie linii protokołu i czytanie odpowiedzi serwera aż do oczekiwanej linii.
+ */
+public final class LoopbackLines {
+
+    private LoopbackLines() {
+    }
+
+    /**
+     * Zwraca czytnik linii wysyłanych przez serwer do klienta.
+     *
+     * @param link strona serwera połączenia
+     * @return czytnik wejścia klienta
+     */
+    public static BufferedReader reader(LoopbackTransport link) {
+        return new BufferedReader(new InputStreamReader(link.peer().getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Wysyła linię od klienta do serwera.
+     *
+     * @param link strona serwera połączenia
+     * @param line linia bez znaku końca linii
+     * @throws IOException gdy połączenie jest zamknięte
+     */
+    public static void send(LoopbackTransport link, String line) throws IOException {
+        OutputStream out = link.peer().getOutputStream();
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Czyta linie, aż trafi na dokładnie {@code expected}; koniec strumienia kończy test błędem.
+     *
+     * @param in       czytnik z {@link #reader(LoopbackTransport)}
+     * @param expected oczekiwana linia
+     * @throws IOException błąd odczytu
+     */
+    public static void readUntil(BufferedReader in, String expected) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(expected)) {
+                return;
+            }
+        }
+        fail("Brak linii: " + expected);
+    }
+
+    /**
+     * Czyta linie, aż trafi na linię zaczynającą się od {@code prefix}; koniec strumienia kończy test błędem.
+     *
+     * @param in     czytnik z {@link #reader(LoopbackTransport)}
+     * @param prefix początek oczekiwanej linii
+     * @return znaleziona linia
+     * @throws IOException błąd odczytu
+     */
+    public static String readUntilPrefix(BufferedReader in, String prefix) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        fail("Brak linii: " + prefix);
+        return null;
+    }
+}